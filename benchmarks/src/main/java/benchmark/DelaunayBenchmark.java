@@ -0,0 +1,36 @@
+package benchmark;
+
+import delaunay.DelaunayTriangulation;
+import org.openjdk.jmh.annotations.*;
+import voronoi.VoronoiDiagram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the construction of the Delaunay triangulation from an already computed Voronoi diagram.
+ *
+ * @author Willem Paul
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@State(Scope.Thread)
+public class DelaunayBenchmark
+{
+	private VoronoiDiagram voronoiDiagram;
+
+	/* The dual construction links the sites' vertices, so every invocation needs a fresh diagram */
+	@Setup(Level.Invocation)
+	public void createVoronoiDiagram(SiteInput input)
+	{
+		voronoiDiagram = new VoronoiDiagram(SiteShape.toSites(input.coordinates));
+	}
+
+	@Benchmark
+	public DelaunayTriangulation dual()
+	{
+		return new DelaunayTriangulation(voronoiDiagram);
+	}
+}
@@ -0,0 +1,88 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pipeline.Pipeline;
+import pipeline.PipelineConfiguration;
+import pipeline.PipelineResult;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code Main.readInputFile} and {@code PipelineResult.write}, which {@code Main} uses to write the output
+ * file. {@code Main} lives in the default package, which can't be imported, so its method is looked up reflectively
+ * once per trial.
+ *
+ * @author Willem Paul
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@State(Scope.Thread)
+public class InputOutputBenchmark
+{
+	private MethodHandle readInputFile;
+	private File inputFile, outputFile;
+	private PipelineResult result;
+
+	@Setup(Level.Trial)
+	public void setUp(SiteInput input) throws Throwable
+	{
+		Class<?> main = Class.forName("Main");
+		readInputFile = MethodHandles.publicLookup().findStatic(main, "readInputFile",
+		                                                        MethodType.methodType(Set.class, String.class));
+
+		/* Write the sites in the documented input format, a few pairs per line */
+		inputFile = Files.createTempFile("sites", ".txt").toFile();
+		inputFile.deleteOnExit();
+		try (PrintWriter writer = new PrintWriter(inputFile))
+		{
+			writer.println("# " + input.shape + ", " + input.size + " sites");
+			for (int i = 0; i < input.coordinates.length; i += 2)
+			{
+				writer.print("(" + input.coordinates[i] + ", " + input.coordinates[i + 1] + ")");
+				writer.print(i % 8 == 6 ? '\n' : ' ');
+			}
+		}
+
+		/* Both complete diagrams, as Main writes them without an output selection */
+		result = new Pipeline(PipelineConfiguration.full()).run(SiteShape.toSites(input.coordinates));
+		outputFile = Files.createTempFile("voronoi", ".txt").toFile();
+		outputFile.deleteOnExit();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException
+	{
+		Files.deleteIfExists(inputFile.toPath());
+		Files.deleteIfExists(outputFile.toPath());
+	}
+
+	@Benchmark
+	public Object readInputFile() throws Throwable
+	{
+		return readInputFile.invoke(inputFile.getPath());
+	}
+
+	/* Written through a buffered file writer, as Main.writeOutputFile does */
+	@Benchmark
+	public void writeOutputFile() throws IOException
+	{
+		try (Writer writer = new BufferedWriter(new FileWriter(outputFile)))
+		{
+			result.write(writer);
+		}
+	}
+}
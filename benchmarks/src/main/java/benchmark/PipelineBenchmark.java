@@ -0,0 +1,50 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pipeline.Pipeline;
+import pipeline.PipelineConfiguration;
+import pipeline.PipelineResult;
+import voronoi.SiteEvent;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the pipeline for narrow sets of outputs against the complete diagrams, to show what skipping the unneeded
+ * stages saves.
+ *
+ * @author Willem Paul
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@State(Scope.Thread)
+public class PipelineBenchmark
+{
+	@Param({"voronoi-diagram,delaunay-triangulation", "delaunay-edges", "voronoi-vertices", "site-adjacency"})
+	public String outputs;
+
+	private Pipeline pipeline;
+	private Set<SiteEvent> sites;
+
+	@Setup(Level.Trial)
+	public void createPipeline()
+	{
+		pipeline = new Pipeline(PipelineConfiguration.parse(outputs));
+	}
+
+	/* The site events are modified by the sweep, so every invocation needs its own */
+	@Setup(Level.Invocation)
+	public void createSites(SiteInput input)
+	{
+		sites = SiteShape.toSites(input.coordinates);
+	}
+
+	@Benchmark
+	public PipelineResult run()
+	{
+		return pipeline.run(sites);
+	}
+}
@@ -0,0 +1,30 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The parameters shared by every benchmark: the shape and number of the input sites.
+ *
+ * @author Willem Paul
+ */
+@State(Scope.Benchmark)
+public class SiteInput
+{
+	@Param({"UNIFORM", "CLUSTERED_GAUSSIAN", "LATTICE", "HORIZONTAL_ROWS", "COLLINEAR"})
+	public SiteShape shape;
+
+	@Param({"1000", "10000", "100000", "1000000", "10000000"})
+	public int size;
+
+	public double[] coordinates;
+
+	@Setup(Level.Trial)
+	public void generateCoordinates()
+	{
+		coordinates = shape.generate(size, 418);
+	}
+}
@@ -0,0 +1,111 @@
+package benchmark;
+
+import voronoi.SiteEvent;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * The input shapes the benchmarks are run against. Every shape places its sites roughly ten units apart regardless of
+ * the number of sites, so that the larger inputs don't run into precision problems the smaller ones avoid.
+ *
+ * @author Willem Paul
+ */
+public enum SiteShape
+{
+	/** Sites spread uniformly over a square. */
+	UNIFORM,
+	/** Sites drawn from Gaussian clusters whose centers are spread uniformly over a square. */
+	CLUSTERED_GAUSSIAN,
+	/** Sites on a square grid; every grid square is a set of four co-circular sites. */
+	LATTICE,
+	/** Sites on horizontal rows; the whole first row shares the first sweep line position. */
+	HORIZONTAL_ROWS,
+	/** Sites on a single line. */
+	COLLINEAR;
+
+	private static final double SPACING = 10;
+
+	/**
+	 * Generates the coordinates of {@code n} distinct sites of this shape.
+	 *
+	 * @param n    the number of sites
+	 * @param seed the seed of the random number generator
+	 * @return the coordinates, stored as (x, y) pairs
+	 */
+	public double[] generate(int n, long seed)
+	{
+		Random random = new Random(seed);
+		double[] coordinates = new double[2 * n];
+		int perSide = (int) Math.ceil(Math.sqrt(n));
+		double side = perSide * SPACING;
+
+		switch (this)
+		{
+			case UNIFORM:
+				for (int i = 0; i < n; i++)
+				{
+					coordinates[2 * i] = random.nextDouble() * side;
+					coordinates[2 * i + 1] = random.nextDouble() * side;
+				}
+				break;
+			case CLUSTERED_GAUSSIAN:
+				int clusterSize = 100;
+				double sigma = Math.sqrt(clusterSize) * SPACING / 2;
+				double centerX = 0, centerY = 0;
+				for (int i = 0; i < n; i++)
+				{
+					if (i % clusterSize == 0)
+					{
+						centerX = random.nextDouble() * side;
+						centerY = random.nextDouble() * side;
+					}
+					coordinates[2 * i] = centerX + random.nextGaussian() * sigma;
+					coordinates[2 * i + 1] = centerY + random.nextGaussian() * sigma;
+				}
+				break;
+			case LATTICE:
+				for (int i = 0; i < n; i++)
+				{
+					coordinates[2 * i] = (i % perSide) * SPACING;
+					coordinates[2 * i + 1] = (i / perSide) * SPACING;
+				}
+				break;
+			case HORIZONTAL_ROWS:
+				/* The x-coordinates are distinct by construction; a random offset keeps them off a grid */
+				for (int i = 0; i < n; i++)
+				{
+					coordinates[2 * i] = ((i % perSide) + random.nextDouble() * 0.5) * SPACING;
+					coordinates[2 * i + 1] = (i / perSide) * SPACING;
+				}
+				break;
+			case COLLINEAR:
+				for (int i = 0; i < n; i++)
+				{
+					coordinates[2 * i] = i * SPACING;
+					coordinates[2 * i + 1] = i * SPACING / 2;
+				}
+				break;
+		}
+
+		return coordinates;
+	}
+
+	/**
+	 * Creates a fresh set of site events from the given coordinates. Site events carry the faces the sweep fills in, so
+	 * a new set is needed for every construction.
+	 *
+	 * @param coordinates the coordinates of the sites, stored as (x, y) pairs
+	 * @return the site events
+	 */
+	public static Set<SiteEvent> toSites(double[] coordinates)
+	{
+		Set<SiteEvent> sites = new HashSet<>();
+		for (int i = 0; i < coordinates.length; i += 2)
+		{
+			sites.add(new SiteEvent(coordinates[i], coordinates[i + 1]));
+		}
+		return sites;
+	}
+}
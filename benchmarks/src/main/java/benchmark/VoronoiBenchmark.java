@@ -0,0 +1,43 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import voronoi.SiteEvent;
+import voronoi.VoronoiDiagram;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the line sweep, including the bounding box, the connection of the unbounded edges and the faces.
+ *
+ * @author Willem Paul
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@State(Scope.Thread)
+public class VoronoiBenchmark
+{
+	private Set<SiteEvent> sites;
+
+	/* The site events are modified by the sweep, so every invocation needs its own */
+	@Setup(Level.Invocation)
+	public void createSites(SiteInput input)
+	{
+		sites = SiteShape.toSites(input.coordinates);
+	}
+
+	@Benchmark
+	public VoronoiDiagram sweep()
+	{
+		return new VoronoiDiagram(sites);
+	}
+
+	@Benchmark
+	public VoronoiDiagram sweepWithDelaunayTriangulation()
+	{
+		return new VoronoiDiagram(sites, null, false, true);
+	}
+}
@@ -1,117 +1,117 @@
-import dcel.DoublyConnectedEdgeList;
-import delaunay.DelaunayTriangulation;
-import display.Visualizer;
-import javafx.application.Application;
-import javafx.application.Platform;
-import javafx.scene.Group;
-import javafx.scene.Scene;
-import javafx.scene.canvas.Canvas;
-import javafx.stage.Stage;
+import display.DisplayApplication;
+import pipeline.Pipeline;
+import pipeline.PipelineConfiguration;
+import pipeline.PipelineResult;
+import pipeline.SiteReader;
+import server.DiagramServer;
+import tiles.TilePyramid;
 import voronoi.SiteEvent;
-import voronoi.VoronoiDiagram;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.*;
 
 /**
+ * The command-line entry point. The diagrams are built and written without touching JavaFX; the JavaFX toolkit is only
+ * started, through {@link DisplayApplication}, when the diagrams are to be displayed.
+ *
  * @author Willem Paul
  */
-public class Main extends Application
+public class Main
 {
-	private static final int WINDOW_WIDTH = 750;
-	private static final int WINDOW_HEIGHT = 750;
-	private double minX = Double.MAX_VALUE, maxX = Double.MIN_VALUE;
-	private double minY = Double.MAX_VALUE, maxY = Double.MIN_VALUE;
-
-	public static void main(String[] args)
+	public static void main(String[] args) throws Exception
 	{
-		Application.launch(args);
-	}
+		if (args.length > 0 && args[0].equals("--serve"))
+		{
+			serve(args);
+			return;
+		}
 
-	@Override
-	public void start(Stage primaryStage) throws Exception
-	{
-		List<String> parameters = getParameters().getRaw();
+		/* The tiles are requested with a named option, so that the positional options keep a single meaning */
+		File tileDirectory = null;
+		int maxZoom = 0;
+		List<String> options = new ArrayList<>(Arrays.asList(args));
+		int tilesOption = options.indexOf("--tiles");
+		if (tilesOption >= 0)
+		{
+			if (tilesOption + 2 >= options.size())
+				throw new Exception("Please specify the tile directory and the deepest zoom level after --tiles");
+
+			tileDirectory = new File(options.get(tilesOption + 1));
+			maxZoom = Integer.parseInt(options.get(tilesOption + 2));
+			options.subList(tilesOption, tilesOption + 3).clear();
+		}
 
-		if (parameters.size() != 2)
+		if (options.size() < 2 || options.size() > 3)
 			throw new Exception("Please specify an input file and whether or not the resulting Voronoi diagram should be displayed");
 
-		Set<SiteEvent> sitePoints = readInputFile(parameters.get(0));
+		Set<SiteEvent> sitePoints = readInputFile(options.get(0));
 
-		boolean display = Boolean.parseBoolean(parameters.get(1));
+		boolean display = Boolean.parseBoolean(options.get(1));
 
-		VoronoiDiagram voronoiDiagram = new VoronoiDiagram(sitePoints);
-		DelaunayTriangulation delaunayTriangulation = new DelaunayTriangulation(voronoiDiagram);
-		writeOutputFile(voronoiDiagram, delaunayTriangulation);
+		/* Only the stages needed for the requested outputs are run; displaying and tiling need both complete diagrams */
+		PipelineConfiguration configuration = options.size() == 3 ? PipelineConfiguration.parse(options.get(2)) :
+				PipelineConfiguration.full();
+		if (display || tileDirectory != null)
+			configuration = configuration.withOutputs(PipelineConfiguration.Output.VORONOI_DIAGRAM,
+			                                          PipelineConfiguration.Output.DELAUNAY_TRIANGULATION);
 
-		if (display)
+		PipelineResult result = new Pipeline(configuration).run(sitePoints);
+		writeOutputFile(result);
+
+		/* Optionally render the diagrams as a pyramid of map tiles */
+		if (tileDirectory != null)
 		{
-			Group root = new Group();
-			Canvas canvas = new Canvas(WINDOW_WIDTH, WINDOW_HEIGHT);
-			root.getChildren().add(canvas);
-
-			primaryStage.setTitle("Voronoi Diagram");
-			primaryStage.setResizable(false);
-			primaryStage.setScene(new Scene(root));
-
-			Visualizer visualizer = new Visualizer(canvas.getWidth(), canvas.getHeight(), canvas.getGraphicsContext2D());
-			visualizer.setScale(minX, maxX, minY, maxY);
-			//visualizer.setScale(sitePoints, voronoiDiagram.getVerticesForDisplay());
-			visualizer.plotSiteEvents(sitePoints);
-			visualizer.drawDCEL(voronoiDiagram);
-			visualizer.drawDCEL(delaunayTriangulation);
-			primaryStage.show();
+			TilePyramid tilePyramid = new TilePyramid(result.getVoronoiDiagram(), result.getDelaunayTriangulation(),
+			                                          maxZoom);
+			tilePyramid.writeTiles(tileDirectory, 0, maxZoom);
 		}
-		else Platform.exit();
+
+		/* DisplayApplication is the only class that refers to JavaFX, so it is only loaded here */
+		if (display) DisplayApplication.show(sitePoints, result.getVoronoiDiagram(), result.getDelaunayTriangulation());
+	}
+
+	/**
+	 * Serves diagrams over HTTP on the port given after {@code --serve}, building at most the given number of diagrams
+	 * at once (by default, one per processor), until the process is stopped.
+	 *
+	 * @param args {@code --serve}, the port and optionally the number of concurrent builds
+	 */
+	private static void serve(String[] args) throws Exception
+	{
+		if (args.length < 2 || args.length > 3)
+			throw new Exception("Please specify the port to serve on and optionally the number of concurrent builds");
+
+		int port = Integer.parseInt(args[1]);
+		int maxConcurrentBuilds = args.length == 3 ? Integer.parseInt(args[2]) :
+				Runtime.getRuntime().availableProcessors();
+
+		DiagramServer.warmUp(20, 5000);
+		DiagramServer server = new DiagramServer(port, maxConcurrentBuilds, 30000, null);
+		System.out.println("Serving diagrams on http://localhost:" + server.getPort() + "/diagram");
 	}
 
 	/**
 	 * Reads the input points from the specified file, creates object representations of them, and returns a
-	 * {@code List} of the points. Also calculates the minimum and maximum x- and y-values of the input set for display
-	 * purposes.
+	 * {@code Set} of the points.
 	 *
 	 * @param filePath the path to the file containing the input points.
-	 * @return a {@code List} of {@code Event}s created from the points contained in the given file.
+	 * @return a {@code Set} of {@code Event}s created from the points contained in the given file.
 	 */
-	private Set<SiteEvent> readInputFile(String filePath)
+	public static Set<SiteEvent> readInputFile(String filePath)
 	{
 		Set<SiteEvent> sites = new HashSet<>();
 
-		try
+		try (Reader reader = new FileReader(filePath))
 		{
-			File inputFile = new File(filePath);
-			Scanner scanner = new Scanner(inputFile);
-
-			while (scanner.hasNextLine())
-			{
-				String line = scanner.nextLine().trim();
-				if (line.isEmpty() || line.charAt(0) == '#') continue;
-
-				StringTokenizer tokenizer = new StringTokenizer(line, ") (");
-
-				int i = 0;
-				double[] coordinates = new double[2];
-				while (tokenizer.hasMoreTokens())
-				{
-					coordinates[i++] = Double.parseDouble(tokenizer.nextToken().replaceAll(",", ""));
-					if (i % 2 == 0)
-					{
-						sites.add(new SiteEvent(coordinates[0], coordinates[1]));
-
-						if (coordinates[0] < minX) minX = coordinates[0];
-						if (coordinates[0] > maxX) maxX = coordinates[0];
-						if (coordinates[1] < minY) minY = coordinates[1];
-						if (coordinates[1] > maxY) maxY = coordinates[1];
-
-						i = 0;
-					}
-				}
-			}
+			sites = SiteReader.readText(reader);
 		}
-		catch (FileNotFoundException ex)
+		catch (IOException ex)
 		{
 			ex.printStackTrace();
 		}
@@ -120,27 +120,15 @@ public class Main extends Application
 	}
 
 	/**
-	 * Writes the specified Voronoi diagram and Delaunay triangulation to the output file.
+	 * Writes the outputs of the specified pipeline result to the output file.
 	 *
-	 * @param voronoiDiagram        the Voronoi diagram to be written to the file, represented as a
-	 *                              {@code DoublyConnectedEdgeList}
-	 * @param delaunayTriangulation the Delaunay triangulation to be written to the file, represented as a
-	 *                              {@code DoublyConnectedEdgeList}
+	 * @param result the result of the pipeline, which determines which outputs are written
 	 */
-	private void writeOutputFile(DoublyConnectedEdgeList voronoiDiagram, DoublyConnectedEdgeList delaunayTriangulation)
+	public static void writeOutputFile(PipelineResult result)
 	{
-		try
+		try (Writer writer = new BufferedWriter(new FileWriter("voronoi.txt")))
 		{
-			File outputFile = new File("voronoi.txt");
-			outputFile.createNewFile();
-
-			FileWriter writer = new FileWriter(outputFile);
-			writer.write("****** Voronoi Diagram ******\n");
-			writer.write(voronoiDiagram.toString());
-			writer.write("\n\n");
-			writer.write("****** Delaunay Triangulation ******\n");
-			writer.write(delaunayTriangulation.toString());
-			writer.close();
+			result.write(writer);
 		}
 		catch (IOException ex)
 		{
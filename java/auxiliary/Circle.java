@@ -23,4 +23,9 @@ public class Circle
 	{
 		return center;
 	}
+
+	public double getRadius()
+	{
+		return radius;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package auxiliary;
+
+/**
+ * Orientation and incircle tests on integer coordinates, evaluated exactly. Orientation determinants fit in a
+ * {@code long}; incircle determinants are accumulated in 128 bits using {@link Math#multiplyHigh(long, long)}. Both are
+ * exact as long as every coordinate lies within {@link #MAX_COORDINATE} of zero.
+ *
+ * @author Willem Paul
+ */
+public class ExactPredicates
+{
+	/*
+	 * Coordinate differences then stay within 2^30, so squared lengths and 2x2 determinants stay within 2^61 and their
+	 * products, summed three at a time, within 2^124.
+	 */
+	public static final long MAX_COORDINATE = 1L << 29;
+
+	private ExactPredicates()
+	{
+	}
+
+	/**
+	 * Determines on which side of the directed line through {@code a} and {@code b} the point {@code c} lies.
+	 *
+	 * @return 1 if {@code a}, {@code b}, {@code c} make a counterclockwise turn, -1 if they make a clockwise turn and 0 if
+	 * they are collinear
+	 */
+	public static int orientation(long ax, long ay, long bx, long by, long cx, long cy)
+	{
+		return Long.signum((bx - ax) * (cy - ay) - (by - ay) * (cx - ax));
+	}
+
+	/**
+	 * Determines whether the point {@code d} lies inside the circle through {@code a}, {@code b} and {@code c}, which
+	 * must make a counterclockwise turn.
+	 *
+	 * @return 1 if {@code d} lies inside the circle, -1 if it lies outside and 0 if it lies on the circle
+	 */
+	public static int inCircle(long ax, long ay, long bx, long by, long cx, long cy, long dx, long dy)
+	{
+		long adx = ax - dx, ady = ay - dy;
+		long bdx = bx - dx, bdy = by - dy;
+		long cdx = cx - dx, cdy = cy - dy;
+
+		long aLift = adx * adx + ady * ady;
+		long bLift = bdx * bdx + bdy * bdy;
+		long cLift = cdx * cdx + cdy * cdy;
+
+		long bc = bdx * cdy - bdy * cdx;
+		long ca = cdx * ady - cdy * adx;
+		long ab = adx * bdy - ady * bdx;
+
+		/* Sum the three 128-bit products as (high, low) pairs */
+		long low = aLift * bc;
+		long high = Math.multiplyHigh(aLift, bc);
+
+		long term = bLift * ca;
+		long sum = low + term;
+		high += Math.multiplyHigh(bLift, ca) + (Long.compareUnsigned(sum, low) < 0 ? 1 : 0);
+		low = sum;
+
+		term = cLift * ab;
+		sum = low + term;
+		high += Math.multiplyHigh(cLift, ab) + (Long.compareUnsigned(sum, low) < 0 ? 1 : 0);
+		low = sum;
+
+		if (high != 0) return Long.signum(high);
+		return low == 0 ? 0 : 1;
+	}
+
+	/**
+	 * Checks that the coordinate lies within the range in which the predicates are exact.
+	 *
+	 * @param coordinate the coordinate to check
+	 * @throws IllegalArgumentException if the coordinate lies outside of that range
+	 */
+	public static void checkRange(long coordinate)
+	{
+		if (coordinate < -MAX_COORDINATE || coordinate > MAX_COORDINATE)
+			throw new IllegalArgumentException("Integer coordinates must lie within +/-" + MAX_COORDINATE +
+					                                   ", but got " + coordinate);
+	}
+}
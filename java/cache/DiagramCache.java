@@ -0,0 +1,363 @@
+package cache;
+
+import dcel.ClippingPolygon;
+import dcel.DoublyConnectedEdgeList;
+import delaunay.DelaunayTriangulation;
+import voronoi.SiteEvent;
+import voronoi.VoronoiDiagram;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of Voronoi diagrams keyed by their content (see {@link DiagramKey}), so that a site set that was built before
+ * is not swept again. The diagrams are held in memory in least-recently-used order, bounded by an estimate of the
+ * memory their doubly-connected edge lists take up. Optionally, every diagram is also written to a directory on disk,
+ * from which it is read back once it has been evicted from memory.
+ * <p>
+ * A hit returns the very diagram that was cached, so cached diagrams must not be modified. The cache can be shared by
+ * several threads. A missing diagram is built by the first thread that asks for it; other threads asking for the same
+ * diagram meanwhile wait for that build and share its result, while diagrams with different keys are built in
+ * parallel.
+ *
+ * @author Willem Paul
+ */
+public class DiagramCache
+{
+	/* Rough sizes of the objects making up a doubly-connected edge list, including their coordinates and directions */
+	private static final long VERTEX_BYTES = 72;
+	private static final long EDGE_BYTES = 96;
+	private static final long FACE_BYTES = 80;
+
+	private static final String FILE_EXTENSION = ".dcel";
+
+	private final long maxBytes;
+	private final File directory;
+	private final LinkedHashMap<DiagramKey, Entry> entries;
+	private final ConcurrentHashMap<DiagramKey, CompletableFuture<VoronoiDiagram>> builds = new ConcurrentHashMap<>();
+	private long bytes;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong diskHits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private final AtomicLong diskErrors = new AtomicLong();
+
+	public DiagramCache(long maxBytes)
+	{
+		this(maxBytes, null);
+	}
+
+	/**
+	 * Creates a cache holding at most about {@code maxBytes} worth of diagrams in memory, backed by the given directory
+	 * if it is not null. The disk tier is not bounded; diagrams stay there until the directory is cleared.
+	 *
+	 * @param maxBytes  the estimated number of bytes the diagrams held in memory may take up
+	 * @param directory the directory in which to store the diagrams, or null to keep them in memory only
+	 * @throws IllegalArgumentException if the bound is negative or the directory cannot be created
+	 */
+	public DiagramCache(long maxBytes, File directory)
+	{
+		if (maxBytes < 0)
+			throw new IllegalArgumentException("The size of the cache must not be negative");
+		if (directory != null && !directory.isDirectory() && !directory.mkdirs())
+			throw new IllegalArgumentException("The cache directory " + directory + " cannot be created");
+
+		this.maxBytes = maxBytes;
+		this.directory = directory;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	/**
+	 * Returns the Voronoi diagram of the given sites built with the given options, from memory or disk if it was built
+	 * before and otherwise by building it now.
+	 *
+	 * @param sites                      the sites of the diagram
+	 * @param clippingPolygon            the polygon to clip the diagram to, or null to enclose it in a bounding box
+	 * @param buildDelaunayTriangulation whether the Delaunay triangulation should be built during the sweep
+	 * @param complete                   whether the boundary and the faces should be computed after the sweep
+	 * @return the Voronoi diagram, which must not be modified
+	 */
+	public VoronoiDiagram get(Set<SiteEvent> sites, ClippingPolygon clippingPolygon, boolean buildDelaunayTriangulation,
+	                          boolean complete)
+	{
+		DiagramKey key = new DiagramKey(sites, clippingPolygon, buildDelaunayTriangulation, complete);
+
+		VoronoiDiagram voronoiDiagram = getIfPresent(key);
+		if (voronoiDiagram != null) return voronoiDiagram;
+
+		CompletableFuture<VoronoiDiagram> build = new CompletableFuture<>();
+		CompletableFuture<VoronoiDiagram> running = builds.putIfAbsent(key, build);
+		if (running != null)
+		{
+			hits.incrementAndGet();
+			return awaitBuild(running);
+		}
+
+		try
+		{
+			/* The diagram may have been stored by a build that finished after it was looked up */
+			voronoiDiagram = getIfPresent(key);
+			if (voronoiDiagram == null)
+			{
+				misses.incrementAndGet();
+				voronoiDiagram = new VoronoiDiagram(sites, clippingPolygon, false, buildDelaunayTriangulation,
+				                                    complete);
+				store(key, voronoiDiagram);
+			}
+
+			build.complete(voronoiDiagram);
+			return voronoiDiagram;
+		}
+		catch (RuntimeException | Error ex)
+		{
+			build.completeExceptionally(ex);
+			throw ex;
+		}
+		finally
+		{
+			builds.remove(key, build);
+		}
+	}
+
+	/* Waits for another thread's build of the same diagram, failing the way that build failed */
+	private static VoronoiDiagram awaitBuild(CompletableFuture<VoronoiDiagram> build)
+	{
+		try
+		{
+			return build.join();
+		}
+		catch (CompletionException ex)
+		{
+			if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+			if (ex.getCause() instanceof Error) throw (Error) ex.getCause();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Returns the diagram with the given key if it is held in memory or on disk, without building it otherwise. A
+	 * diagram read from disk is kept in memory again.
+	 *
+	 * @param key the key of the diagram
+	 * @return the diagram, or null if it is not cached
+	 */
+	public VoronoiDiagram getIfPresent(DiagramKey key)
+	{
+		synchronized (entries)
+		{
+			Entry entry = entries.get(key);
+			if (entry != null)
+			{
+				hits.incrementAndGet();
+				return entry.voronoiDiagram;
+			}
+		}
+
+		VoronoiDiagram voronoiDiagram = readFromDisk(key);
+		if (voronoiDiagram == null) return null;
+
+		diskHits.incrementAndGet();
+		keepInMemory(key, voronoiDiagram);
+		return voronoiDiagram;
+	}
+
+	/**
+	 * Adds a diagram that was built elsewhere under the given key, in memory and on disk.
+	 *
+	 * @param key            the key of the diagram, which must match the sites and options it was built with
+	 * @param voronoiDiagram the diagram, which must not be modified afterwards
+	 */
+	public void put(DiagramKey key, VoronoiDiagram voronoiDiagram)
+	{
+		store(key, voronoiDiagram);
+	}
+
+	private void store(DiagramKey key, VoronoiDiagram voronoiDiagram)
+	{
+		keepInMemory(key, voronoiDiagram);
+		writeToDisk(key, voronoiDiagram);
+	}
+
+	private void keepInMemory(DiagramKey key, VoronoiDiagram voronoiDiagram)
+	{
+		long size = estimateSize(voronoiDiagram);
+
+		synchronized (entries)
+		{
+			Entry previous = entries.put(key, new Entry(voronoiDiagram, size));
+			if (previous != null) bytes -= previous.size;
+			bytes += size;
+
+			/* Evict the least recently used diagrams; a diagram larger than the whole cache does not stay either */
+			Iterator<Entry> iterator = entries.values().iterator();
+			while (bytes > maxBytes && iterator.hasNext())
+			{
+				bytes -= iterator.next().size;
+				iterator.remove();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	/*
+	 * A diagram that cannot be read is treated as missing and one that cannot be written is only kept in memory; either
+	 * way the failure is counted, since the disk tier only saves work and must not make a request fail.
+	 */
+	private VoronoiDiagram readFromDisk(DiagramKey key)
+	{
+		if (directory == null) return null;
+
+		File file = new File(directory, key.toHexString() + FILE_EXTENSION);
+		if (!file.isFile()) return null;
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+		{
+			return VoronoiDiagram.read(in);
+		}
+		catch (IOException | RuntimeException ex)
+		{
+			diskErrors.incrementAndGet();
+			file.delete();
+			return null;
+		}
+	}
+
+	private void writeToDisk(DiagramKey key, VoronoiDiagram voronoiDiagram)
+	{
+		if (directory == null) return;
+
+		/* Write to a temporary file first, so that readers never see a partly written diagram */
+		File file = new File(directory, key.toHexString() + FILE_EXTENSION);
+		try
+		{
+			File temporary = File.createTempFile(key.toHexString(), ".tmp", directory);
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary))))
+			{
+				voronoiDiagram.write(out);
+			}
+			Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+			           StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException ex)
+		{
+			diskErrors.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Estimates the memory taken up by the given diagram and its Delaunay triangulation.
+	 *
+	 * @param voronoiDiagram the diagram
+	 * @return the estimated size in bytes
+	 */
+	public static long estimateSize(VoronoiDiagram voronoiDiagram)
+	{
+		long size = estimateSize((DoublyConnectedEdgeList) voronoiDiagram);
+
+		DelaunayTriangulation delaunayTriangulation = voronoiDiagram.getDelaunayTriangulation();
+		if (delaunayTriangulation != null) size += estimateSize(delaunayTriangulation);
+
+		return size;
+	}
+
+	private static long estimateSize(DoublyConnectedEdgeList dcel)
+	{
+		return VERTEX_BYTES * dcel.getVertices().size() + EDGE_BYTES * dcel.getEdges().size() +
+				FACE_BYTES * dcel.getFaces().size();
+	}
+
+	public void clear()
+	{
+		synchronized (entries)
+		{
+			entries.clear();
+			bytes = 0;
+		}
+	}
+
+	public int size()
+	{
+		synchronized (entries)
+		{
+			return entries.size();
+		}
+	}
+
+	/**
+	 * Returns the estimated memory taken up by the diagrams held in memory.
+	 *
+	 * @return the estimated size in bytes
+	 */
+	public long getBytes()
+	{
+		synchronized (entries)
+		{
+			return bytes;
+		}
+	}
+
+	public long getHits()
+	{
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of diagrams that were not held in memory but could be read from disk.
+	 *
+	 * @return the number of hits on disk
+	 */
+	public long getDiskHits()
+	{
+		return diskHits.get();
+	}
+
+	public long getMisses()
+	{
+		return misses.get();
+	}
+
+	public long getEvictions()
+	{
+		return evictions.get();
+	}
+
+	public long getDiskErrors()
+	{
+		return diskErrors.get();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "DiagramCache[entries=" + size() + ", bytes=" + getBytes() + ", hits=" + getHits() + ", diskHits=" +
+				getDiskHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions() + "]";
+	}
+
+	private static class Entry
+	{
+		private final VoronoiDiagram voronoiDiagram;
+		private final long size;
+
+		Entry(VoronoiDiagram voronoiDiagram, long size)
+		{
+			this.voronoiDiagram = voronoiDiagram;
+			this.size = size;
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package cache;
+
+import auxiliary.Point;
+import dcel.ClippingPolygon;
+import voronoi.SiteEvent;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Identifies a Voronoi diagram by its content: a SHA-256 hash of the site coordinates, in sweep order, and of the
+ * options it was built with. Equal site sets give equal keys no matter in which order the sites were given.
+ *
+ * @author Willem Paul
+ */
+public class DiagramKey
+{
+	private final byte[] hash;
+	private final int hashCode;
+
+	/**
+	 * Computes the key of the diagram of the given sites built with the given options.
+	 *
+	 * @param sites                      the sites of the diagram
+	 * @param clippingPolygon            the polygon the diagram is clipped to, or null if it is enclosed in a box
+	 * @param buildDelaunayTriangulation whether the Delaunay triangulation is built during the sweep
+	 * @param complete                   whether the boundary and the faces are computed after the sweep
+	 */
+	public DiagramKey(Set<SiteEvent> sites, ClippingPolygon clippingPolygon, boolean buildDelaunayTriangulation,
+	                  boolean complete)
+	{
+		Point[] sorted = sites.toArray(new Point[0]);
+		Arrays.sort(sorted);
+
+		int cornerCount = clippingPolygon == null ? 0 : clippingPolygon.getCornerCount();
+		ByteBuffer buffer = ByteBuffer.allocate(16 * sorted.length + 16 * cornerCount + 12);
+
+		buffer.putInt(sorted.length);
+		for (Point site : sorted)
+		{
+			putCoordinates(buffer, site);
+		}
+
+		buffer.putInt(cornerCount);
+		for (int i = 0; i < cornerCount; i++)
+		{
+			putCoordinates(buffer, clippingPolygon.getCorner(i));
+		}
+
+		buffer.put((byte) (buildDelaunayTriangulation ? 1 : 0));
+		buffer.put((byte) (complete ? 1 : 0));
+
+		try
+		{
+			this.hash = MessageDigest.getInstance("SHA-256").digest(buffer.array());
+		}
+		catch (NoSuchAlgorithmException ex)
+		{
+			/* Every Java platform is required to support SHA-256 */
+			throw new IllegalStateException(ex);
+		}
+		this.hashCode = Arrays.hashCode(hash);
+	}
+
+	/* Adding 0 turns -0 into 0, so that both hash alike */
+	private static void putCoordinates(ByteBuffer buffer, Point p)
+	{
+		buffer.putDouble(p.getX() + 0.0);
+		buffer.putDouble(p.getY() + 0.0);
+	}
+
+	/**
+	 * Returns the hash as a string of hexadecimal digits, which is also the name under which the diagram is stored on
+	 * disk.
+	 *
+	 * @return the hexadecimal hash
+	 */
+	public String toHexString()
+	{
+		StringBuilder builder = new StringBuilder(2 * hash.length);
+		for (byte b : hash)
+		{
+			builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return builder.toString();
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+
+		return Arrays.equals(hash, ((DiagramKey) o).hash);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return hashCode;
+	}
+
+	@Override
+	public String toString()
+	{
+		return toHexString();
+	}
+}
@@ -0,0 +1,172 @@
+package dcel;
+
+import auxiliary.Point;
+
+import java.util.List;
+
+/**
+ * A convex polygon to which a diagram can be clipped instead of being enclosed in a padded bounding box. The corners are
+ * stored in counterclockwise order regardless of the order in which they are given.
+ *
+ * @author Willem Paul
+ */
+public class ClippingPolygon
+{
+	private final Point[] corners;
+
+	/**
+	 * Creates a clipping polygon with the given corners.
+	 *
+	 * @param corners the corners of the polygon, in either clockwise or counterclockwise order
+	 * @throws IllegalArgumentException if there are fewer than three corners or the polygon is not strictly convex
+	 */
+	public ClippingPolygon(List<? extends Point> corners)
+	{
+		if (corners.size() < 3)
+			throw new IllegalArgumentException("A clipping polygon needs at least three corners");
+
+		int k = corners.size();
+		this.corners = new Point[k];
+
+		int sign = 0;
+		double turning = 0;
+		for (int i = 0; i < k; i++)
+		{
+			Point a = corners.get(i), b = corners.get((i + 1) % k), c = corners.get((i + 2) % k);
+			double turn = cross(a, b, c);
+			int turnSign = turn > 0 ? 1 : turn < 0 ? -1 : 0;
+
+			if (turnSign == 0 || (sign != 0 && turnSign != sign))
+				throw new IllegalArgumentException("The clipping polygon must be strictly convex");
+			sign = turnSign;
+
+			double dot = (b.getX() - a.getX()) * (c.getX() - b.getX()) + (b.getY() - a.getY()) * (c.getY() - b.getY());
+			turning += Math.atan2(turn, dot);
+		}
+
+		/* Turning the same way at every corner also holds for star polygons, which wind around more than once */
+		if (Math.abs(turning) > 3 * Math.PI)
+			throw new IllegalArgumentException("The clipping polygon must be strictly convex, not self-intersecting");
+
+		/* Store the corners counterclockwise */
+		for (int i = 0; i < k; i++)
+		{
+			Point corner = sign > 0 ? corners.get(i) : corners.get(k - 1 - i);
+			this.corners[i] = new Point(corner);
+		}
+	}
+
+	public int getCornerCount()
+	{
+		return corners.length;
+	}
+
+	public Point getCorner(int i)
+	{
+		return corners[i];
+	}
+
+	/**
+	 * Determines whether the given point lies strictly inside the polygon, in O(log k) time for k corners.
+	 *
+	 * @param p the point to test
+	 * @return true if the point lies strictly inside the polygon; false otherwise
+	 */
+	public boolean contains(Point p)
+	{
+		int k = corners.length;
+
+		/* The point must lie inside the fan of triangles around the first corner */
+		if (cross(corners[0], corners[1], p) <= 0 || cross(corners[0], corners[k - 1], p) >= 0) return false;
+
+		int low = 1, high = k - 1;
+		while (high - low > 1)
+		{
+			int mid = (low + high) >>> 1;
+			if (cross(corners[0], corners[mid], p) > 0) low = mid;
+			else high = mid;
+		}
+
+		return cross(corners[low], corners[low + 1], p) > 0;
+	}
+
+	/**
+	 * Clips the part of the line {@code origin + t * direction} with {@code tMin <= t <= tMax} to the polygon
+	 * (Cyrus-Beck). The result holds the clipped parameter range and, for each end of the range, the index of the side
+	 * of the polygon it lies on, or -1 if that end was not cut by the polygon.
+	 *
+	 * @param origin    the point at which {@code t = 0}
+	 * @param direction the direction of the line
+	 * @param tMin      the lower end of the parameter range; may be negative infinity
+	 * @param tMax      the upper end of the parameter range; may be positive infinity
+	 * @return {@code {t0, t1, side0, side1}}, or {@code null} if no part of the range of positive length lies inside the
+	 * polygon
+	 */
+	public double[] clip(Point origin, double[] direction, double tMin, double tMax)
+	{
+		int k = corners.length;
+		int entrySide = -1, exitSide = -1;
+
+		for (int i = 0; i < k; i++)
+		{
+			Point c = corners[i];
+			Point d = corners[(i + 1) % k];
+
+			/* The outward normal of the side */
+			double nx = d.getY() - c.getY();
+			double ny = c.getX() - d.getX();
+
+			double numerator = nx * (origin.getX() - c.getX()) + ny * (origin.getY() - c.getY());
+			double denominator = nx * direction[0] + ny * direction[1];
+
+			/* Ends lying exactly on a side count as cut, so that they agree with contains(Point) */
+			if (denominator == 0)
+			{
+				if (numerator >= 0) return null;
+				continue;
+			}
+
+			double t = -numerator / denominator;
+			if (denominator > 0)
+			{
+				if (t <= tMax)
+				{
+					tMax = t;
+					exitSide = i;
+				}
+			}
+			else if (t >= tMin)
+			{
+				tMin = t;
+				entrySide = i;
+			}
+
+			if (tMin >= tMax) return null;
+		}
+
+		return new double[]{tMin, tMax, entrySide, exitSide};
+	}
+
+	/**
+	 * Returns the position of the given point along the given side, from 0 at the side's first corner to 1 at its
+	 * second corner (in counterclockwise order).
+	 *
+	 * @param side the index of the side
+	 * @param p    a point on the side
+	 * @return the position of the point along the side
+	 */
+	public double positionAlongSide(int side, Point p)
+	{
+		Point c = corners[side];
+		Point d = corners[(side + 1) % corners.length];
+
+		double dx = d.getX() - c.getX(), dy = d.getY() - c.getY();
+		return ((p.getX() - c.getX()) * dx + (p.getY() - c.getY()) * dy) / (dx * dx + dy * dy);
+	}
+
+	/* Positive if a, b, c make a counterclockwise turn */
+	private static double cross(Point a, Point b, Point c)
+	{
+		return (b.getX() - a.getX()) * (c.getY() - a.getY()) - (b.getY() - a.getY()) * (c.getX() - a.getX());
+	}
+}
@@ -0,0 +1,717 @@
+package dcel;
+
+import auxiliary.Point;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compact binary encoding of one or more doubly-connected edge lists. The lists are encoded together so that
+ * vertices they share, such as the sites of a Voronoi diagram and the vertices of its Delaunay triangulation, are read
+ * back as shared objects. Every vertex, edge and face keeps its type and index, so the decoded lists print exactly like
+ * the original ones.
+ * <p>
+ * The encoding starts with a table of all vertices (type, index and coordinates), followed by each list in turn: its
+ * vertices with their incident edges, its edges with their twin, origin, next, previous and incident face, and its
+ * faces with their site, outer component and inner components. Faces that are referenced by edges but not listed,
+ * such as the cells of an incomplete Voronoi diagram, are stored after the listed ones. References are written as
+ * positions in those tables, or -1 for null.
+ *
+ * @author Willem Paul
+ */
+public class DCELCodec
+{
+	private static final int MAGIC = 0x4443454C;
+	private static final int VERSION = 1;
+
+	private DCELCodec()
+	{
+	}
+
+	/**
+	 * Writes the given doubly-connected edge lists.
+	 *
+	 * @param out   the output to which to write
+	 * @param dcels the lists to write
+	 * @return the positions at which the vertices, edges and faces were written
+	 * @throws IOException if the output cannot be written
+	 */
+	public static References write(DataOutput out, DoublyConnectedEdgeList... dcels) throws IOException
+	{
+		References references = new References();
+
+		/* Number every vertex referenced by any of the lists, either directly or as the site of a face */
+		Map<DCELVertex, Integer> vertexIds = references.vertexIds;
+		List<DCELVertex> vertexTable = references.vertices;
+		for (DoublyConnectedEdgeList dcel : dcels)
+		{
+			for (DCELVertex vertex : dcel.vertices)
+			{
+				number(vertex, vertexIds, vertexTable);
+			}
+			for (DCELFace face : dcel.faces)
+			{
+				number(face.getSite(), vertexIds, vertexTable);
+			}
+			for (DCELEdge edge : dcel.edges)
+			{
+				number(edge.getOrigin(), vertexIds, vertexTable);
+				if (edge.getIncidentFace() != null) number(edge.getIncidentFace().getSite(), vertexIds, vertexTable);
+			}
+		}
+
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(vertexTable.size());
+		for (DCELVertex vertex : vertexTable)
+		{
+			out.writeByte(vertex.getType().ordinal());
+			out.writeInt(vertex.getIndex());
+			out.writeDouble(vertex.getCoordinates().getX());
+			out.writeDouble(vertex.getCoordinates().getY());
+		}
+
+		out.writeInt(dcels.length);
+		for (DoublyConnectedEdgeList dcel : dcels)
+		{
+			Map<DCELEdge, Integer> edgeIds = new IdentityHashMap<>(2 * dcel.edges.size());
+			references.edges.add(dcel.edges);
+			references.edgeIds.add(edgeIds);
+			for (int i = 0; i < dcel.edges.size(); i++)
+			{
+				edgeIds.put(dcel.edges.get(i), i);
+			}
+
+			/* Faces that are only referenced by edges, such as the cells of an incomplete Voronoi diagram, follow the
+			listed faces */
+			Map<DCELFace, Integer> faceIds = new IdentityHashMap<>(2 * dcel.faces.size());
+			List<DCELFace> faceTable = new ArrayList<>(dcel.faces);
+			references.faces.add(faceTable);
+			references.faceIds.add(faceIds);
+			for (int i = 0; i < faceTable.size(); i++)
+			{
+				faceIds.put(faceTable.get(i), i);
+			}
+			for (DCELEdge edge : dcel.edges)
+			{
+				DCELFace face = edge.getIncidentFace();
+				if (face != null && !faceIds.containsKey(face))
+				{
+					faceIds.put(face, faceTable.size());
+					faceTable.add(face);
+				}
+			}
+
+			out.writeInt(dcel.vertices.size());
+			for (DCELVertex vertex : dcel.vertices)
+			{
+				out.writeInt(vertexIds.get(vertex));
+				out.writeInt(id(vertex.getIncidentEdge(), edgeIds));
+			}
+
+			out.writeInt(dcel.edges.size());
+			for (DCELEdge edge : dcel.edges)
+			{
+				out.writeByte(edge.getType().ordinal());
+				out.writeInt(id(edge.getTwin(), edgeIds));
+				out.writeInt(id(edge.getOrigin(), vertexIds));
+				out.writeInt(id(edge.getNext(), edgeIds));
+				out.writeInt(id(edge.getPrev(), edgeIds));
+				out.writeInt(id(edge.getIncidentFace(), faceIds));
+			}
+
+			/* The first face is always the unbounded face, which every list creates itself */
+			out.writeInt(faceTable.size());
+			out.writeInt(dcel.faces.size());
+			for (DCELFace face : faceTable)
+			{
+				out.writeByte(face.getType().ordinal());
+				out.writeInt(face.getIndex());
+				out.writeInt(id(face.getSite(), vertexIds));
+				out.writeInt(id(face.getOuterComponent(), edgeIds));
+				out.writeInt(face.getInnerComponents().size());
+				for (DCELEdge edge : face.getInnerComponents())
+				{
+					out.writeInt(id(edge, edgeIds));
+				}
+			}
+		}
+
+		return references;
+	}
+
+	/**
+	 * Reads doubly-connected edge lists written by {@link #write(DataOutput, DoublyConnectedEdgeList...)} into the
+	 * given lists, which must be empty and given in the same order as they were written.
+	 *
+	 * @param in    the input from which to read
+	 * @param dcels the empty lists to fill
+	 * @return the positions at which the vertices, edges and faces were read
+	 * @throws IOException if the input cannot be read or does not hold as many lists in this encoding
+	 */
+	public static References read(DataInput in, DoublyConnectedEdgeList... dcels) throws IOException
+	{
+		References references = new References();
+
+		if (in.readInt() != MAGIC || in.readInt() != VERSION)
+			throw new IOException("The input is not an encoded doubly-connected edge list");
+
+		DCELVertex.VertexType[] vertexTypes = DCELVertex.VertexType.values();
+		DCELEdge.EdgeType[] edgeTypes = DCELEdge.EdgeType.values();
+		DCELFace.FaceType[] faceTypes = DCELFace.FaceType.values();
+
+		DCELVertex[] vertexTable = new DCELVertex[in.readInt()];
+		for (int i = 0; i < vertexTable.length; i++)
+		{
+			DCELVertex.VertexType type = vertexTypes[in.readUnsignedByte()];
+			int index = in.readInt();
+			double x = in.readDouble();
+			double y = in.readDouble();
+			vertexTable[i] = new DCELVertex(type, index, new Point(x, y));
+			references.vertices.add(vertexTable[i]);
+		}
+
+		if (in.readInt() != dcels.length)
+			throw new IOException("The input holds a different number of doubly-connected edge lists");
+
+		for (DoublyConnectedEdgeList dcel : dcels)
+		{
+			if (!dcel.vertices.isEmpty() || !dcel.edges.isEmpty() || dcel.faces.size() != 1)
+				throw new IllegalArgumentException("Only an empty doubly-connected edge list can be read into");
+
+			/* The references between the tables are resolved once all of their elements exist */
+			int vertexCount = in.readInt();
+			int[] incidentEdges = new int[vertexCount];
+			for (int i = 0; i < vertexCount; i++)
+			{
+				dcel.vertices.add(vertexTable[in.readInt()]);
+				incidentEdges[i] = in.readInt();
+			}
+
+			int edgeCount = in.readInt();
+			int[] links = new int[5 * edgeCount];
+			for (int i = 0; i < edgeCount; i++)
+			{
+				dcel.edges.add(new DCELEdge(edgeTypes[in.readUnsignedByte()]));
+				for (int k = 0; k < 5; k++)
+				{
+					links[5 * i + k] = in.readInt();
+				}
+			}
+
+			int faceCount = in.readInt();
+			int listedFaceCount = in.readInt();
+			List<DCELFace> faceTable = new ArrayList<>(faceCount);
+			references.edges.add(dcel.edges);
+			references.faces.add(faceTable);
+			int[] outerComponents = new int[faceCount];
+			int[][] innerComponents = new int[faceCount][];
+			for (int i = 0; i < faceCount; i++)
+			{
+				DCELFace.FaceType type = faceTypes[in.readUnsignedByte()];
+				int index = in.readInt();
+				int site = in.readInt();
+				outerComponents[i] = in.readInt();
+				innerComponents[i] = new int[in.readInt()];
+				for (int k = 0; k < innerComponents[i].length; k++)
+				{
+					innerComponents[i][k] = in.readInt();
+				}
+
+				DCELFace face = i == 0 ? dcel.unboundedFace :
+						new DCELFace(site < 0 ? null : vertexTable[site], type, index, null);
+				faceTable.add(face);
+				if (i > 0 && i < listedFaceCount) dcel.faces.add(face);
+			}
+
+			for (int i = 0; i < vertexCount; i++)
+			{
+				if (incidentEdges[i] >= 0) dcel.vertices.get(i).setIncidentEdge(dcel.edges.get(incidentEdges[i]));
+			}
+
+			for (int i = 0; i < edgeCount; i++)
+			{
+				DCELEdge edge = dcel.edges.get(i);
+				if (links[5 * i] >= 0) edge.setTwin(dcel.edges.get(links[5 * i]));
+				if (links[5 * i + 1] >= 0) edge.setOrigin(vertexTable[links[5 * i + 1]]);
+				if (links[5 * i + 2] >= 0) edge.setNext(dcel.edges.get(links[5 * i + 2]));
+				if (links[5 * i + 3] >= 0) edge.setPrev(dcel.edges.get(links[5 * i + 3]));
+				if (links[5 * i + 4] >= 0) edge.setIncidentFace(faceTable.get(links[5 * i + 4]));
+			}
+
+			for (int i = 0; i < faceCount; i++)
+			{
+				DCELFace face = faceTable.get(i);
+				if (outerComponents[i] >= 0) face.setOuterComponent(dcel.edges.get(outerComponents[i]));
+
+				DCELEdge[] inner = new DCELEdge[innerComponents[i].length];
+				for (int k = 0; k < inner.length; k++)
+				{
+					inner[k] = dcel.edges.get(innerComponents[i][k]);
+				}
+				face.setInnerComponents(inner);
+			}
+		}
+
+		return references;
+	}
+
+	private static void number(DCELVertex vertex, Map<DCELVertex, Integer> vertexIds, List<DCELVertex> vertexTable)
+	{
+		if (vertex != null && !vertexIds.containsKey(vertex))
+		{
+			vertexIds.put(vertex, vertexTable.size());
+			vertexTable.add(vertex);
+		}
+	}
+
+	private static <T> int id(T element, Map<T, Integer> ids)
+	{
+		return element == null ? -1 : ids.get(element);
+	}
+
+	/**
+	 * Encodes doubly-connected edge lists that are still being built, in the encoding of
+	 * {@link #write(DataOutput, DoublyConnectedEdgeList...)}. Building the lists is only paused to {@link #capture}
+	 * the elements added since the last capture and the links of the elements that may still change, which takes time
+	 * in proportion to those alone. The capture can then be encoded by {@link #update} on another thread while
+	 * building goes on: elements that were not open to change when they were captured never change again, so they are
+	 * encoded as they are, and the encoding is kept between updates, so that each one only encodes the new elements
+	 * and those that were open at this capture or the last. Captures must be updated one at a time, in the order in
+	 * which they were taken.
+	 * <p>
+	 * Every record has a fixed size so that it can be encoded again in place, which is why the faces must not have
+	 * inner components and every face an edge refers to must be listed, as is the case while a Voronoi diagram is being
+	 * swept.
+	 */
+	public static class IncrementalWriter
+	{
+		private static final int VERTEX_BYTES = 21;
+		private static final int LIST_VERTEX_BYTES = 8;
+		private static final int EDGE_BYTES = 21;
+		private static final int FACE_BYTES = 17;
+
+		private final DoublyConnectedEdgeList[] dcels;
+
+		/* The number of elements of each list that have been captured, only used by the thread building the lists */
+		private final int[] capturedVertices, capturedEdges, capturedFaces;
+
+		private final References references = new References();
+		private final RecordTable vertexTable = new RecordTable(VERTEX_BYTES);
+		private final RecordTable[] vertexRecords, edgeRecords, faceRecords;
+		private final List<Map<DCELVertex, Integer>> vertexPositions = new ArrayList<>();
+
+		/* The capture of the last update, whose open elements may have changed since */
+		private Capture lastCapture;
+
+		/**
+		 * Creates a writer for the given lists, of which nothing is encoded until the first update.
+		 *
+		 * @param dcels the lists to write
+		 */
+		public IncrementalWriter(DoublyConnectedEdgeList... dcels)
+		{
+			this.dcels = dcels;
+			this.capturedVertices = new int[dcels.length];
+			this.capturedEdges = new int[dcels.length];
+			this.capturedFaces = new int[dcels.length];
+			this.vertexRecords = new RecordTable[dcels.length];
+			this.edgeRecords = new RecordTable[dcels.length];
+			this.faceRecords = new RecordTable[dcels.length];
+
+			for (int l = 0; l < dcels.length; l++)
+			{
+				vertexRecords[l] = new RecordTable(LIST_VERTEX_BYTES);
+				edgeRecords[l] = new RecordTable(EDGE_BYTES);
+				faceRecords[l] = new RecordTable(FACE_BYTES);
+				vertexPositions.add(new IdentityHashMap<>());
+				references.edges.add(new ArrayList<>());
+				references.edgeIds.add(new IdentityHashMap<>());
+				references.faces.add(new ArrayList<>());
+				references.faceIds.add(new IdentityHashMap<>());
+			}
+		}
+
+		/**
+		 * Captures the elements added to the lists since the last capture, and the links of the given elements, which
+		 * are the only ones that may still change. This must be called on the thread building the lists.
+		 *
+		 * @param vertices the vertices that may still change
+		 * @param edges    the edges that may still change
+		 * @param faces    the faces that may still change
+		 * @return the capture to update the encoding with
+		 * @throws IllegalStateException if a face has inner components
+		 */
+		public Capture capture(Collection<DCELVertex> vertices, Collection<DCELEdge> edges,
+		                       Collection<DCELFace> faces)
+		{
+			Capture capture = new Capture(vertices, edges, faces);
+			for (int l = 0; l < dcels.length; l++)
+			{
+				DoublyConnectedEdgeList dcel = dcels[l];
+				capture.vertices.add(new ArrayList<>(dcel.vertices.subList(capturedVertices[l], dcel.vertices.size())));
+				capture.edges.add(new ArrayList<>(dcel.edges.subList(capturedEdges[l], dcel.edges.size())));
+				capture.faces.add(new ArrayList<>(dcel.faces.subList(capturedFaces[l], dcel.faces.size())));
+				capturedVertices[l] = dcel.vertices.size();
+				capturedEdges[l] = dcel.edges.size();
+				capturedFaces[l] = dcel.faces.size();
+			}
+			return capture;
+		}
+
+		/**
+		 * Brings the encoding up to date with the given capture, which must be the one taken after the capture of the
+		 * last update.
+		 *
+		 * @param capture the capture to encode
+		 * @return the positions of the vertices, edges and faces in the encoding
+		 * @throws IllegalStateException if an edge refers to a face that isn't listed
+		 */
+		public References update(Capture capture)
+		{
+			Set<Object> open = Collections.newSetFromMap(new IdentityHashMap<>());
+			open.addAll(Arrays.asList(capture.openVertices));
+			open.addAll(Arrays.asList(capture.openEdges));
+			open.addAll(Arrays.asList(capture.openFaces));
+
+			/* Every new element is numbered first, so that the records can refer to any of them */
+			for (int l = 0; l < dcels.length; l++)
+			{
+				for (DCELVertex vertex : capture.vertices.get(l))
+				{
+					vertexPositions.get(l).put(vertex, vertexPositions.get(l).size());
+					vertexId(vertex);
+				}
+				for (DCELEdge edge : capture.edges.get(l))
+				{
+					references.edgeIds.get(l).put(edge, references.edges.get(l).size());
+					references.edges.get(l).add(edge);
+				}
+				for (DCELFace face : capture.faces.get(l))
+				{
+					references.faceIds.get(l).put(face, references.faces.get(l).size());
+					references.faces.get(l).add(face);
+				}
+			}
+
+			/* Elements that were not open at the capture have not changed since, and never will */
+			for (int l = 0; l < dcels.length; l++)
+			{
+				for (DCELVertex vertex : capture.vertices.get(l))
+				{
+					if (!open.contains(vertex)) encodeVertex(vertex, vertex.getIncidentEdge());
+				}
+				for (DCELEdge edge : capture.edges.get(l))
+				{
+					if (!open.contains(edge))
+						encodeEdge(edge, edge.getOrigin(), edge.getNext(), edge.getPrev(), edge.getIncidentFace());
+				}
+				for (DCELFace face : capture.faces.get(l))
+				{
+					if (!open.contains(face)) encodeFace(face, face.getOuterComponent());
+				}
+			}
+			for (int i = 0; lastCapture != null && i < lastCapture.openVertices.length; i++)
+			{
+				DCELVertex vertex = lastCapture.openVertices[i];
+				if (!open.contains(vertex)) encodeVertex(vertex, vertex.getIncidentEdge());
+			}
+			for (int i = 0; lastCapture != null && i < lastCapture.openEdges.length; i++)
+			{
+				DCELEdge edge = lastCapture.openEdges[i];
+				if (!open.contains(edge))
+					encodeEdge(edge, edge.getOrigin(), edge.getNext(), edge.getPrev(), edge.getIncidentFace());
+			}
+			for (int i = 0; lastCapture != null && i < lastCapture.openFaces.length; i++)
+			{
+				DCELFace face = lastCapture.openFaces[i];
+				if (!open.contains(face)) encodeFace(face, face.getOuterComponent());
+			}
+
+			for (int i = 0; i < capture.openVertices.length; i++)
+			{
+				encodeVertex(capture.openVertices[i], capture.incidentEdges[i]);
+			}
+			for (int i = 0; i < capture.openEdges.length; i++)
+			{
+				encodeEdge(capture.openEdges[i], capture.origins[i], capture.nextEdges[i], capture.prevEdges[i],
+						capture.incidentFaces[i]);
+			}
+			for (int i = 0; i < capture.openFaces.length; i++)
+			{
+				encodeFace(capture.openFaces[i], capture.outerComponents[i]);
+			}
+
+			/* Only the open elements are needed by the next update */
+			capture.vertices.clear();
+			capture.edges.clear();
+			capture.faces.clear();
+			lastCapture = capture;
+
+			return references;
+		}
+
+		/**
+		 * Writes the lists as they were at the capture of the last update.
+		 *
+		 * @param out the output to which to write
+		 * @throws IOException if the output cannot be written
+		 */
+		public void writeTo(DataOutput out) throws IOException
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(vertexTable.count);
+			vertexTable.writeTo(out);
+
+			out.writeInt(dcels.length);
+			for (int l = 0; l < dcels.length; l++)
+			{
+				out.writeInt(vertexRecords[l].count);
+				vertexRecords[l].writeTo(out);
+				out.writeInt(edgeRecords[l].count);
+				edgeRecords[l].writeTo(out);
+
+				/* Every face is listed, so none follows the listed ones */
+				out.writeInt(faceRecords[l].count);
+				out.writeInt(faceRecords[l].count);
+				faceRecords[l].writeTo(out);
+			}
+		}
+
+		/* Numbers the vertex in the table of all vertices the first time it is seen */
+		private int vertexId(DCELVertex vertex)
+		{
+			if (vertex == null) return -1;
+
+			Integer id = references.vertexIds.get(vertex);
+			if (id != null) return id;
+
+			id = references.vertices.size();
+			references.vertexIds.put(vertex, id);
+			references.vertices.add(vertex);
+
+			ByteBuffer chunk = vertexTable.chunk(id);
+			int offset = vertexTable.offset(id);
+			chunk.put(offset, (byte) vertex.getType().ordinal());
+			chunk.putInt(offset + 1, vertex.getIndex());
+			chunk.putDouble(offset + 5, vertex.getCoordinates().getX());
+			chunk.putDouble(offset + 13, vertex.getCoordinates().getY());
+			return id;
+		}
+
+		/* Encodes the vertex with the given link in whichever lists hold it, and likewise for edges and faces */
+		private void encodeVertex(DCELVertex vertex, DCELEdge incidentEdge)
+		{
+			for (int l = 0; l < dcels.length; l++)
+			{
+				Integer position = vertexPositions.get(l).get(vertex);
+				if (position == null) continue;
+
+				ByteBuffer chunk = vertexRecords[l].chunk(position);
+				int offset = vertexRecords[l].offset(position);
+				chunk.putInt(offset, vertexId(vertex));
+				chunk.putInt(offset + 4, id(incidentEdge, references.edgeIds.get(l)));
+			}
+		}
+
+		private void encodeEdge(DCELEdge edge, DCELVertex origin, DCELEdge next, DCELEdge prev, DCELFace incidentFace)
+		{
+			for (int l = 0; l < dcels.length; l++)
+			{
+				Map<DCELEdge, Integer> edgeIds = references.edgeIds.get(l);
+				Integer position = edgeIds.get(edge);
+				if (position == null) continue;
+
+				ByteBuffer chunk = edgeRecords[l].chunk(position);
+				int offset = edgeRecords[l].offset(position);
+				chunk.put(offset, (byte) edge.getType().ordinal());
+				chunk.putInt(offset + 1, id(edge.getTwin(), edgeIds));
+				chunk.putInt(offset + 5, vertexId(origin));
+				chunk.putInt(offset + 9, id(next, edgeIds));
+				chunk.putInt(offset + 13, id(prev, edgeIds));
+				chunk.putInt(offset + 17, faceId(l, incidentFace));
+			}
+		}
+
+		private void encodeFace(DCELFace face, DCELEdge outerComponent)
+		{
+			for (int l = 0; l < dcels.length; l++)
+			{
+				Integer position = references.faceIds.get(l).get(face);
+				if (position == null) continue;
+
+				ByteBuffer chunk = faceRecords[l].chunk(position);
+				int offset = faceRecords[l].offset(position);
+				chunk.put(offset, (byte) face.getType().ordinal());
+				chunk.putInt(offset + 1, face.getIndex());
+				chunk.putInt(offset + 5, vertexId(face.getSite()));
+				chunk.putInt(offset + 9, id(outerComponent, references.edgeIds.get(l)));
+				chunk.putInt(offset + 13, 0);
+			}
+		}
+
+		private int faceId(int list, DCELFace face)
+		{
+			if (face == null) return -1;
+
+			Integer id = references.faceIds.get(list).get(face);
+			if (id == null)
+				throw new IllegalStateException("Only listed faces can be referred to by an incremental encoding");
+			return id;
+		}
+
+		/**
+		 * The elements added to the lists between two captures, and the links that the open elements had when the
+		 * later one was taken.
+		 */
+		public static class Capture
+		{
+			private final List<List<DCELVertex>> vertices = new ArrayList<>();
+			private final List<List<DCELEdge>> edges = new ArrayList<>();
+			private final List<List<DCELFace>> faces = new ArrayList<>();
+
+			private final DCELVertex[] openVertices;
+			private final DCELEdge[] incidentEdges;
+			private final DCELEdge[] openEdges;
+			private final DCELVertex[] origins;
+			private final DCELEdge[] nextEdges, prevEdges;
+			private final DCELFace[] incidentFaces;
+			private final DCELFace[] openFaces;
+			private final DCELEdge[] outerComponents;
+
+			private Capture(Collection<DCELVertex> vertices, Collection<DCELEdge> edges, Collection<DCELFace> faces)
+			{
+				this.openVertices = vertices.toArray(new DCELVertex[0]);
+				this.incidentEdges = new DCELEdge[openVertices.length];
+				for (int i = 0; i < openVertices.length; i++)
+				{
+					incidentEdges[i] = openVertices[i].getIncidentEdge();
+				}
+
+				this.openEdges = edges.toArray(new DCELEdge[0]);
+				this.origins = new DCELVertex[openEdges.length];
+				this.nextEdges = new DCELEdge[openEdges.length];
+				this.prevEdges = new DCELEdge[openEdges.length];
+				this.incidentFaces = new DCELFace[openEdges.length];
+				for (int i = 0; i < openEdges.length; i++)
+				{
+					origins[i] = openEdges[i].getOrigin();
+					nextEdges[i] = openEdges[i].getNext();
+					prevEdges[i] = openEdges[i].getPrev();
+					incidentFaces[i] = openEdges[i].getIncidentFace();
+				}
+
+				this.openFaces = faces.toArray(new DCELFace[0]);
+				this.outerComponents = new DCELEdge[openFaces.length];
+				for (int i = 0; i < openFaces.length; i++)
+				{
+					if (!openFaces[i].getInnerComponents().isEmpty())
+						throw new IllegalStateException("Faces with inner components cannot be encoded incrementally");
+					outerComponents[i] = openFaces[i].getOuterComponent();
+				}
+			}
+		}
+	}
+
+	/*
+	 * Fixed-size records held in chunks, so that any record can be encoded again in place and the table is never copied
+	 * as it grows
+	 */
+	private static class RecordTable
+	{
+		private static final int CHUNK_RECORDS = 1 << 16;
+
+		private final int recordSize;
+		private final List<ByteBuffer> chunks = new ArrayList<>();
+		private int count;
+
+		RecordTable(int recordSize)
+		{
+			this.recordSize = recordSize;
+		}
+
+		/* Returns the chunk holding the given record, growing the table to include it */
+		ByteBuffer chunk(int record)
+		{
+			while (record >= chunks.size() * CHUNK_RECORDS)
+			{
+				chunks.add(ByteBuffer.allocate(CHUNK_RECORDS * recordSize));
+			}
+			count = Math.max(count, record + 1);
+			return chunks.get(record / CHUNK_RECORDS);
+		}
+
+		int offset(int record)
+		{
+			return record % CHUNK_RECORDS * recordSize;
+		}
+
+		void writeTo(DataOutput out) throws IOException
+		{
+			for (int i = 0; i * CHUNK_RECORDS < count; i++)
+			{
+				out.write(chunks.get(i).array(), 0, Math.min(CHUNK_RECORDS, count - i * CHUNK_RECORDS) * recordSize);
+			}
+		}
+	}
+
+	/**
+	 * The positions at which the vertices, edges and faces of encoded lists were written or read, so that structures
+	 * pointing into the lists can be encoded alongside them. Edges and faces are numbered per list, in the order in
+	 * which the lists were given. Positions can only be looked up in references returned by a write.
+	 */
+	public static class References
+	{
+		private final List<DCELVertex> vertices = new ArrayList<>();
+		private final Map<DCELVertex, Integer> vertexIds = new IdentityHashMap<>();
+		private final List<List<DCELEdge>> edges = new ArrayList<>();
+		private final List<Map<DCELEdge, Integer>> edgeIds = new ArrayList<>();
+		private final List<List<DCELFace>> faces = new ArrayList<>();
+		private final List<Map<DCELFace, Integer>> faceIds = new ArrayList<>();
+
+		private References()
+		{
+		}
+
+		public int getId(DCELVertex vertex)
+		{
+			return id(vertex, vertexIds);
+		}
+
+		public int getId(int list, DCELEdge edge)
+		{
+			return id(edge, edgeIds.get(list));
+		}
+
+		public int getId(int list, DCELFace face)
+		{
+			return id(face, faceIds.get(list));
+		}
+
+		public DCELVertex getVertex(int id)
+		{
+			return id < 0 ? null : vertices.get(id);
+		}
+
+		public DCELEdge getEdge(int list, int id)
+		{
+			return id < 0 ? null : edges.get(list).get(id);
+		}
+
+		public DCELFace getFace(int list, int id)
+		{
+			return id < 0 ? null : faces.get(list).get(id);
+		}
+	}
+}
@@ -73,6 +73,11 @@ public class DCELEdge
 		twin.twin = this;
 	}
 
+	public EdgeType getType()
+	{
+		return type;
+	}
+
 	public boolean isVoronoiEdge()
 	{
 		return type == EdgeType.VORONOI_EDGE;
@@ -62,6 +62,16 @@ public class DCELFace
 		}
 	}
 
+	public FaceType getType()
+	{
+		return type;
+	}
+
+	public int getIndex()
+	{
+		return index;
+	}
+
 	public boolean isUnbounded()
 	{
 		return type == FaceType.UNBOUNDED;
@@ -77,6 +87,11 @@ public class DCELFace
 		this.outerComponent = outerComponent;
 	}
 
+	public List<DCELEdge> getInnerComponents()
+	{
+		return innerComponents;
+	}
+
 	public void setInnerComponents(DCELEdge... innerComponents)
 	{
 		this.innerComponents.clear();
@@ -0,0 +1,519 @@
+package dcel;
+
+import auxiliary.Point;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Checks the structural invariants of a doubly connected edge list, so that a diagram can be validated before it is
+ * published. Every invariant but the last is checked for every element, in passes over the edges, vertices and faces
+ * that take linear time and can run in parallel:
+ * <ul>
+ * <li>every half-edge is the twin of its twin;</li>
+ * <li>every half-edge is the previous half-edge of its next one and the next half-edge of its previous one, its next
+ * half-edge starts where it ends and lies on the same face;</li>
+ * <li>every vertex's incident half-edge starts at it, and every face's components lie on it;</li>
+ * <li>the half-edges form closed rings, each listed exactly once as a component of its face;</li>
+ * <li>the Euler characteristic V - E + F equals one more than the number of connected components, which is the
+ * number of inner components;</li>
+ * <li>no site lies inside the circumcircle of a Delaunay triangle or closer to a Voronoi vertex than the sites of the
+ * cells around it, checked against the neighbouring sites for a sample of triangles and Voronoi vertices.</li>
+ * </ul>
+ * On a periodic list, such as a {@code PeriodicVoronoiDiagram}, the distances from Voronoi vertices to sites are
+ * measured to the nearest periodic copy of each site, since the vertices are given modulo the domain.
+ * The validator is the report: it holds the number of violations of each invariant and a few examples of them.
+ *
+ * @author Willem Paul
+ */
+public class DCELValidator
+{
+	public enum Invariant
+	{
+		TWIN_SYMMETRY,
+		NEXT_PREV,
+		INCIDENCE,
+		FACE_RINGS,
+		EULER_CHARACTERISTIC,
+		EMPTY_CIRCLE
+	}
+
+	public static final int DEFAULT_SAMPLE_SIZE = 1024;
+
+	private static final int MAX_EXAMPLES = 5;
+
+	/* Determinants and distances are compared with this tolerance relative to their magnitude */
+	private static final double TOLERANCE = 1e-9;
+
+	private final List<DCELVertex> vertices;
+	private final List<DCELEdge> edges;
+	private final List<DCELFace> faces;
+	private final boolean parallel;
+
+	/* The periods of a list on a torus, or 0 in the plane */
+	private final double periodX, periodY;
+
+	private final Map<Invariant, Long> violations = new EnumMap<>(Invariant.class);
+	private final Map<Invariant, List<String>> examples = new EnumMap<>(Invariant.class);
+
+	private int eulerCharacteristic;
+	private int expectedEulerCharacteristic;
+	private int sampledCircles;
+	private final long elapsedNanos;
+
+	public DCELValidator(DoublyConnectedEdgeList dcel)
+	{
+		this(dcel, true, DEFAULT_SAMPLE_SIZE);
+	}
+
+	/**
+	 * Validates the given doubly connected edge list.
+	 *
+	 * @param dcel       the doubly connected edge list
+	 * @param parallel   whether the elements should be checked in parallel
+	 * @param sampleSize the number of Delaunay triangles and of Voronoi vertices whose circles are checked, spread
+	 *                   evenly over them; {@link Integer#MAX_VALUE} checks them all
+	 * @throws IllegalArgumentException if the sample size is negative
+	 */
+	public DCELValidator(DoublyConnectedEdgeList dcel, boolean parallel, int sampleSize)
+	{
+		if (sampleSize < 0)
+			throw new IllegalArgumentException("The sample size must not be negative");
+
+		long start = System.nanoTime();
+
+		this.vertices = dcel.getVertices();
+		this.edges = dcel.getEdges();
+		this.faces = dcel.getFaces();
+		this.parallel = parallel;
+		double[] periods = dcel.getPeriods();
+		this.periodX = periods == null ? 0 : periods[0];
+		this.periodY = periods == null ? 0 : periods[1];
+
+		check(Invariant.TWIN_SYMMETRY, edges.size(), this::checkTwin, i -> "edge " + edges.get(i));
+		check(Invariant.NEXT_PREV, edges.size(), this::checkLinks, i -> "edge " + edges.get(i));
+		check(Invariant.INCIDENCE, vertices.size() + faces.size(), this::checkIncidence,
+		      i -> i < vertices.size() ? "vertex " + vertices.get(i) : "face " + faces.get(i - vertices.size()));
+
+		/* Only if next and prev are inverse permutations of the half-edges is every walk along next sure to end */
+		if (violations.get(Invariant.NEXT_PREV) == 0) checkRings();
+
+		checkEulerCharacteristic();
+		checkCircles(sampleSize);
+
+		this.elapsedNanos = System.nanoTime() - start;
+	}
+
+	/*
+	 * Counts the elements that fail the given check, in parallel if asked for; the examples are gathered afterwards,
+	 * so that a valid diagram costs no more than the count
+	 */
+	private void check(Invariant invariant, int count, IntPredicate valid, IntFunction<String> describe)
+	{
+		IntStream elements = IntStream.range(0, count);
+		if (parallel) elements = elements.parallel();
+		long failures = elements.filter(i -> !valid.test(i)).count();
+
+		violations.put(invariant, failures);
+		for (int i = 0; i < count && examples(invariant).size() < Math.min(failures, MAX_EXAMPLES); i++)
+		{
+			if (!valid.test(i)) addExample(invariant, describe.apply(i));
+		}
+	}
+
+	private boolean checkTwin(int i)
+	{
+		DCELEdge edge = edges.get(i);
+		DCELEdge twin = edge.getTwin();
+		return twin != null && twin != edge && twin.getTwin() == edge;
+	}
+
+	private boolean checkLinks(int i)
+	{
+		DCELEdge edge = edges.get(i);
+		DCELEdge next = edge.getNext(), prev = edge.getPrev(), twin = edge.getTwin();
+		return next != null && prev != null && twin != null && edge.getOrigin() != null && next.getPrev() == edge &&
+				prev.getNext() == edge && next.getOrigin() == twin.getOrigin() && edge.getIncidentFace() != null &&
+				next.getIncidentFace() == edge.getIncidentFace();
+	}
+
+	private boolean checkIncidence(int i)
+	{
+		if (i < vertices.size())
+		{
+			DCELVertex vertex = vertices.get(i);
+			return vertex.getIncidentEdge() != null && vertex.getIncidentEdge().getOrigin() == vertex;
+		}
+
+		DCELFace face = faces.get(i - vertices.size());
+		if (face.getOuterComponent() == null ? !face.isUnbounded() : face.getOuterComponent().getIncidentFace() != face)
+			return false;
+
+		for (DCELEdge component : face.getInnerComponents())
+		{
+			if (component == null || component.getIncidentFace() != face) return false;
+		}
+		return true;
+	}
+
+	/*
+	 * Walks the ring of every component of every face. Since next preserves the face, a ring can only be listed twice
+	 * by the same face, which is checked by walking its rings; a ring that no face lists leaves the total length short
+	 * of the number of half-edges.
+	 */
+	private void checkRings()
+	{
+		IntStream indices = IntStream.range(0, faces.size());
+		if (parallel) indices = indices.parallel();
+		long[] lengths = indices.mapToLong(i -> ringLength(faces.get(i))).toArray();
+
+		long length = 0, open = 0;
+		for (int i = 0; i < lengths.length; i++)
+		{
+			if (lengths[i] >= 0) length += lengths[i];
+			else
+			{
+				open++;
+				addExample(Invariant.FACE_RINGS, "face " + faces.get(i) + " has a ring that does not close");
+			}
+		}
+		if (open > 0)
+		{
+			violations.put(Invariant.FACE_RINGS, open);
+			return;
+		}
+
+		long duplicates = 0;
+		for (DCELFace face : faces)
+		{
+			duplicates += countDuplicateComponents(face);
+		}
+
+		long unlisted = Math.max(edges.size() - (length - duplicates), 0);
+		violations.put(Invariant.FACE_RINGS, unlisted + duplicates);
+		if (duplicates > 0)
+			addExample(Invariant.FACE_RINGS, duplicates + " half-edges on rings their face lists more than once");
+		if (unlisted > 0) addExample(Invariant.FACE_RINGS, unlisted + " half-edges on rings that no face lists");
+	}
+
+	/* A component that is not one of the listed half-edges may lead to a ring that never closes */
+	private long ringLength(DCELFace face)
+	{
+		long length = 0;
+		for (DCELEdge component : components(face))
+		{
+			DCELEdge edge = component;
+			do
+			{
+				if (++length > edges.size()) return -1;
+				edge = edge.getNext();
+			}
+			while (edge != component && edge != null);
+
+			if (edge == null) return -1;
+		}
+		return length;
+	}
+
+	/* Duplicates are counted in half-edges, so that they can be taken off the total length of the rings */
+	private long countDuplicateComponents(DCELFace face)
+	{
+		List<DCELEdge> components = components(face);
+		if (components.size() < 2) return 0;
+
+		long duplicates = 0;
+		for (int i = 0; i < components.size(); i++)
+		{
+			long length = 0;
+			boolean duplicate = false;
+			DCELEdge edge = components.get(i);
+			do
+			{
+				for (int j = 0; j < i; j++)
+				{
+					if (edge == components.get(j)) duplicate = true;
+				}
+				length++;
+				edge = edge.getNext();
+			}
+			while (edge != components.get(i));
+
+			if (duplicate) duplicates += length;
+		}
+		return duplicates;
+	}
+
+	private static List<DCELEdge> components(DCELFace face)
+	{
+		List<DCELEdge> components = new ArrayList<>(face.getInnerComponents().size() + 1);
+		if (face.getOuterComponent() != null) components.add(face.getOuterComponent());
+		for (DCELEdge component : face.getInnerComponents())
+		{
+			if (component != null) components.add(component);
+		}
+		return components;
+	}
+
+	/* Each inner component is the outer boundary of one connected component of the edges */
+	private void checkEulerCharacteristic()
+	{
+		int innerComponents = 0;
+		for (DCELFace face : faces)
+		{
+			innerComponents += face.getInnerComponents().size();
+		}
+
+		this.eulerCharacteristic = vertices.size() - edges.size() / 2 + faces.size();
+		this.expectedEulerCharacteristic = 1 + innerComponents;
+
+		boolean valid = eulerCharacteristic == expectedEulerCharacteristic;
+		violations.put(Invariant.EULER_CHARACTERISTIC, valid ? 0L : 1L);
+		if (!valid)
+			addExample(Invariant.EULER_CHARACTERISTIC, "V - E + F = " + vertices.size() + " - " + edges.size() / 2 +
+					" + " + faces.size() + " = " + eulerCharacteristic + ", expected " + expectedEulerCharacteristic);
+	}
+
+	/*
+	 * Only the sites next to a triangle or vertex are checked, which is enough for a triangulation or diagram that is
+	 * otherwise valid: a triangulation whose edges are all locally Delaunay is Delaunay
+	 */
+	private void checkCircles(int sampleSize)
+	{
+		/* The rings around the sampled elements are only safe to walk if the links are consistent */
+		if (violations.get(Invariant.TWIN_SYMMETRY) > 0 || violations.get(Invariant.NEXT_PREV) > 0 ||
+				violations.get(Invariant.INCIDENCE) > 0)
+			return;
+
+		int[] triangles = select(faces.size(), i -> faces.get(i).getType() == DCELFace.FaceType.DELAUNAY_TRIANGLE &&
+				faces.get(i).getOuterComponent() != null, sampleSize);
+		int[] voronoiVertices = select(vertices.size(), i -> vertices.get(i).isVoronoiVertex() &&
+				vertices.get(i).getIncidentEdge() != null, sampleSize);
+
+		int[] sampled = new int[triangles.length + voronoiVertices.length];
+		for (int i = 0; i < sampled.length; i++)
+		{
+			sampled[i] = i < triangles.length ? triangles[i] : -1 - voronoiVertices[i - triangles.length];
+		}
+		this.sampledCircles = sampled.length;
+
+		check(Invariant.EMPTY_CIRCLE, sampled.length,
+		      i -> sampled[i] >= 0 ? isTriangleEmpty(faces.get(sampled[i])) :
+				      isVertexEmpty(vertices.get(-1 - sampled[i])),
+		      i -> sampled[i] >= 0 ? "triangle " + faces.get(sampled[i]) :
+				      "Voronoi vertex " + vertices.get(-1 - sampled[i]));
+	}
+
+	/* Selects the elements that pass the filter, spread evenly if there are more of them than the sample size */
+	private int[] select(int count, IntPredicate filter, int sampleSize)
+	{
+		IntStream elements = IntStream.range(0, count);
+		if (parallel) elements = elements.parallel();
+		int[] selected = elements.filter(filter).toArray();
+		if (selected.length <= sampleSize) return selected;
+
+		int[] sample = new int[sampleSize];
+		for (int i = 0; i < sampleSize; i++)
+		{
+			sample[i] = selected[(int) ((long) i * selected.length / sampleSize)];
+		}
+		return sample;
+	}
+
+	private static boolean isTriangleEmpty(DCELFace triangle)
+	{
+		DCELEdge first = triangle.getOuterComponent();
+		Point a = first.getOrigin().getCoordinates();
+		Point b = first.getNext().getOrigin().getCoordinates();
+		Point c = first.getPrev().getOrigin().getCoordinates();
+
+		DCELEdge edge = first;
+		do
+		{
+			DCELEdge twin = edge.getTwin();
+			if (twin.getIncidentFace().getType() == DCELFace.FaceType.DELAUNAY_TRIANGLE &&
+					inCircle(a, b, c, twin.getPrev().getOrigin().getCoordinates()))
+				return false;
+			edge = edge.getNext();
+		}
+		while (edge != first);
+		return true;
+	}
+
+	/*
+	 * The sites of the cells around a Voronoi vertex must be equally far from it, and the sites of the cells next to
+	 * those no nearer
+	 */
+	private boolean isVertexEmpty(DCELVertex vertex)
+	{
+		Point center = vertex.getCoordinates();
+		double radius = -1;
+
+		DCELEdge edge = vertex.getIncidentEdge();
+		do
+		{
+			DCELVertex site = edge.getIncidentFace().getSite();
+			if (site != null)
+			{
+				double distance = distance(center, site.getCoordinates());
+				if (radius < 0) radius = distance;
+				else if (Math.abs(distance - radius) > TOLERANCE * Math.max(radius, scale(center))) return false;
+			}
+			edge = edge.getPrev().getTwin();
+		}
+		while (edge != vertex.getIncidentEdge());
+
+		if (radius < 0) return true;
+		double limit = radius - TOLERANCE * Math.max(radius, scale(center));
+
+		do
+		{
+			DCELEdge cellEdge = edge;
+			do
+			{
+				DCELVertex neighbor = cellEdge.getTwin().getIncidentFace().getSite();
+				if (neighbor != null && distance(center, neighbor.getCoordinates()) < limit) return false;
+				cellEdge = cellEdge.getNext();
+			}
+			while (cellEdge != edge);
+			edge = edge.getPrev().getTwin();
+		}
+		while (edge != vertex.getIncidentEdge());
+		return true;
+	}
+
+	/* Whether d lies clearly inside the circle through a, b and c, which are in counterclockwise order */
+	private static boolean inCircle(Point a, Point b, Point c, Point d)
+	{
+		double adx = a.getX() - d.getX(), ady = a.getY() - d.getY();
+		double bdx = b.getX() - d.getX(), bdy = b.getY() - d.getY();
+		double cdx = c.getX() - d.getX(), cdy = c.getY() - d.getY();
+		double ad = adx * adx + ady * ady, bd = bdx * bdx + bdy * bdy, cd = cdx * cdx + cdy * cdy;
+
+		double determinant = ad * (bdx * cdy - bdy * cdx) + bd * (cdx * ady - cdy * adx) + cd * (adx * bdy - ady * bdx);
+		double magnitude = ad * (Math.abs(bdx * cdy) + Math.abs(bdy * cdx)) +
+				bd * (Math.abs(cdx * ady) + Math.abs(cdy * adx)) + cd * (Math.abs(adx * bdy) + Math.abs(ady * bdx));
+		return determinant > TOLERANCE * magnitude;
+	}
+
+	/* The distance to the nearest periodic copy of q, which is q itself in the plane */
+	private double distance(Point p, Point q)
+	{
+		double dx = p.getX() - q.getX(), dy = p.getY() - q.getY();
+		if (periodX > 0) dx -= periodX * Math.rint(dx / periodX);
+		if (periodY > 0) dy -= periodY * Math.rint(dy / periodY);
+		return Math.hypot(dx, dy);
+	}
+
+	private static double scale(Point p)
+	{
+		return Math.max(Math.abs(p.getX()), Math.abs(p.getY()));
+	}
+
+	private List<String> examples(Invariant invariant)
+	{
+		return examples.computeIfAbsent(invariant, key -> new ArrayList<>());
+	}
+
+	private void addExample(Invariant invariant, String example)
+	{
+		if (examples(invariant).size() < MAX_EXAMPLES) examples(invariant).add(example);
+	}
+
+	/**
+	 * Returns whether every invariant holds.
+	 *
+	 * @return true if no violations were found
+	 */
+	public boolean isValid()
+	{
+		return violations.values().stream().allMatch(count -> count == 0);
+	}
+
+	/**
+	 * Returns the number of elements found to violate the given invariant: half-edges for the links and rings,
+	 * vertices and faces for the incidences, sampled triangles and vertices for the empty circles and 1 for a wrong
+	 * Euler characteristic.
+	 *
+	 * @param invariant the invariant
+	 * @return the number of violations, or 0 if the invariant was not checked
+	 */
+	public long getViolations(Invariant invariant)
+	{
+		return violations.getOrDefault(invariant, 0L);
+	}
+
+	/**
+	 * Returns whether the given invariant was checked. The rings are only walked, and the circles only checked, if the
+	 * half-edges are linked consistently (and, for the circles, the incident half-edges are right).
+	 *
+	 * @param invariant the invariant
+	 * @return true if it was checked
+	 */
+	public boolean wasChecked(Invariant invariant)
+	{
+		return violations.containsKey(invariant);
+	}
+
+	/**
+	 * Returns a few of the elements that violate the given invariant.
+	 *
+	 * @param invariant the invariant
+	 * @return descriptions of at most five violations
+	 */
+	public List<String> getExamples(Invariant invariant)
+	{
+		return Collections.unmodifiableList(examples.getOrDefault(invariant, Collections.emptyList()));
+	}
+
+	public int getEulerCharacteristic()
+	{
+		return eulerCharacteristic;
+	}
+
+	public int getExpectedEulerCharacteristic()
+	{
+		return expectedEulerCharacteristic;
+	}
+
+	/**
+	 * Returns the number of Delaunay triangles and Voronoi vertices whose circles were checked.
+	 *
+	 * @return the size of the sample
+	 */
+	public int getSampledCircles()
+	{
+		return sampledCircles;
+	}
+
+	public long getElapsedNanos()
+	{
+		return elapsedNanos;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder report = new StringBuilder(isValid() ? "valid" : "invalid");
+		report.append(String.format(" (%d vertices, %d half-edges, %d faces, %.1f ms)", vertices.size(), edges.size(),
+		                            faces.size(), elapsedNanos / 1e6));
+
+		for (Invariant invariant : Invariant.values())
+		{
+			report.append(System.lineSeparator()).append(invariant).append(": ");
+			if (!wasChecked(invariant)) report.append("not checked");
+			else report.append(getViolations(invariant)).append(" violations");
+
+			for (String example : getExamples(invariant))
+			{
+				report.append(System.lineSeparator()).append("  ").append(example);
+			}
+		}
+		return report.toString();
+	}
+}
@@ -4,6 +4,7 @@ import auxiliary.Point;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Willem Paul
@@ -17,9 +18,10 @@ public class DCELVertex
 		BOUNDING_VERTEX
 	}
 
-	private static int voronoiVertexIndex = 0;
-	private static int delaunayVertexIndex = 0;
-	private static int boundingVertexIndex = 0;
+	/* Diagrams may be built on several threads at once, and their vertices must still get distinct names */
+	private static final AtomicInteger voronoiVertexIndex = new AtomicInteger();
+	private static final AtomicInteger delaunayVertexIndex = new AtomicInteger();
+	private static final AtomicInteger boundingVertexIndex = new AtomicInteger();
 
 	private final int index;
 	private final VertexType type;
@@ -28,7 +30,7 @@ public class DCELVertex
 
 	public DCELVertex(Point coordinates, DCELEdge incidentEdge)
 	{
-		this.index = ++voronoiVertexIndex;
+		this.index = voronoiVertexIndex.incrementAndGet();
 		this.type = VertexType.VORONOI_VERTEX;
 		this.coordinates = coordinates;
 		this.incidentEdge = incidentEdge;
@@ -37,11 +39,11 @@ public class DCELVertex
 	public DCELVertex(VertexType type, Point coordinates)
 	{
 		if (type == VertexType.VORONOI_VERTEX)
-			this.index = ++voronoiVertexIndex;
+			this.index = voronoiVertexIndex.incrementAndGet();
 		else if (type == VertexType.DELAUNAY_VERTEX)
-			this.index = ++delaunayVertexIndex;
+			this.index = delaunayVertexIndex.incrementAndGet();
 		else
-			this.index = ++boundingVertexIndex;
+			this.index = boundingVertexIndex.incrementAndGet();
 		this.type = type;
 		this.coordinates = coordinates;
 		this.incidentEdge = null;
@@ -50,16 +52,65 @@ public class DCELVertex
 	public DCELVertex(VertexType type, Point coordinates, DCELEdge incidentEdge)
 	{
 		if (type == VertexType.VORONOI_VERTEX)
-			this.index = ++voronoiVertexIndex;
+			this.index = voronoiVertexIndex.incrementAndGet();
 		else if (type == VertexType.DELAUNAY_VERTEX)
-			this.index = ++delaunayVertexIndex;
+			this.index = delaunayVertexIndex.incrementAndGet();
 		else
-			this.index = ++boundingVertexIndex;
+			this.index = boundingVertexIndex.incrementAndGet();
 		this.type = type;
 		this.coordinates = coordinates;
 		this.incidentEdge = incidentEdge;
 	}
 
+	/**
+	 * Creates a vertex with the given index instead of the next one of its type, so that a stored diagram can be read
+	 * back with its original names.
+	 *
+	 * @param type        the type of the vertex
+	 * @param index       the index of the vertex
+	 * @param coordinates the coordinates of the vertex
+	 */
+	public DCELVertex(VertexType type, int index, Point coordinates)
+	{
+		this.index = index;
+		this.type = type;
+		this.coordinates = coordinates;
+		this.incidentEdge = null;
+	}
+
+	/**
+	 * Returns the index given to the last vertex of the given type that was numbered automatically.
+	 *
+	 * @param type the type of vertex
+	 * @return the last index given out, or 0 if there was none
+	 */
+	public static int getLastIndex(VertexType type)
+	{
+		if (type == VertexType.VORONOI_VERTEX) return voronoiVertexIndex.get();
+		else if (type == VertexType.DELAUNAY_VERTEX) return delaunayVertexIndex.get();
+		else return boundingVertexIndex.get();
+	}
+
+	/**
+	 * Makes sure vertices of the given type are numbered after the given index, so that a construction resumed from a
+	 * checkpoint does not reuse the names of the vertices it had already created. The counter is only ever moved
+	 * forward, so vertices created since then by other constructions keep unique names too.
+	 *
+	 * @param type  the type of vertex
+	 * @param index the index after which to continue at the earliest
+	 */
+	public static void advanceLastIndex(VertexType type, int index)
+	{
+		if (type == VertexType.VORONOI_VERTEX) voronoiVertexIndex.accumulateAndGet(index, Math::max);
+		else if (type == VertexType.DELAUNAY_VERTEX) delaunayVertexIndex.accumulateAndGet(index, Math::max);
+		else boundingVertexIndex.accumulateAndGet(index, Math::max);
+	}
+
+	public VertexType getType()
+	{
+		return type;
+	}
+
 	public boolean isVoronoiVertex()
 	{
 		return type == VertexType.VORONOI_VERTEX;
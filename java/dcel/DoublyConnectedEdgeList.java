@@ -4,6 +4,7 @@ import auxiliary.MathOps;
 import auxiliary.Point;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -16,6 +17,8 @@ public class DoublyConnectedEdgeList
 	protected List<DCELFace> faces;
 	protected final DCELFace unboundedFace;
 	private BoundingBox boundingBox;
+	private PolygonBoundary polygonBoundary;
+	private volatile SpatialIndex spatialIndex;
 
 	public DoublyConnectedEdgeList()
 	{
@@ -53,6 +56,19 @@ public class DoublyConnectedEdgeList
 			maxY = 180;
 		}
 
+		computeBoundingBox(minX, minY, maxX, maxY);
+	}
+
+	/**
+	 * Builds a bounding box enclosing the given extent, padded on every side.
+	 *
+	 * @param minX the left edge of the extent
+	 * @param minY the bottom edge of the extent
+	 * @param maxX the right edge of the extent
+	 * @param maxY the top edge of the extent
+	 */
+	protected void computeBoundingBox(double minX, double minY, double maxX, double maxY)
+	{
 		int boundingBoxPadding = 20;
 		DCELVertex lowerLeft = new DCELVertex(DCELVertex.VertexType.BOUNDING_VERTEX,
 		                                      new Point(minX - boundingBoxPadding, minY - boundingBoxPadding));
@@ -121,6 +137,53 @@ public class DoublyConnectedEdgeList
 		this.boundingBox = new BoundingBox(lowerLeft, lowerRight, upperRight, upperrLeft);
 	}
 
+	/**
+	 * Encloses the edge list in the given convex polygon instead of a bounding box. The polygon's sides are added as
+	 * bounding edges, with the inner half-edges running counterclockwise and the outer half-edges facing the unbounded
+	 * face.
+	 *
+	 * @param clippingPolygon the polygon enclosing the edge list
+	 */
+	protected void computePolygonBoundary(ClippingPolygon clippingPolygon)
+	{
+		int k = clippingPolygon.getCornerCount();
+		DCELVertex[] corners = new DCELVertex[k];
+		DCELEdge[] innerEdges = new DCELEdge[k];
+		DCELEdge[] outerEdges = new DCELEdge[k];
+
+		for (int i = 0; i < k; i++)
+		{
+			corners[i] = new DCELVertex(DCELVertex.VertexType.BOUNDING_VERTEX, new Point(clippingPolygon.getCorner(i)));
+			vertices.add(corners[i]);
+		}
+
+		/* Side i runs from corner i to corner i + 1 */
+		for (int i = 0; i < k; i++)
+		{
+			innerEdges[i] = new DCELEdge(DCELEdge.EdgeType.BOUNDING_EDGE, corners[i]);
+			outerEdges[i] = new DCELEdge(DCELEdge.EdgeType.BOUNDING_EDGE, corners[(i + 1) % k], innerEdges[i]);
+			outerEdges[i].setIncidentFace(unboundedFace);
+
+			edges.add(innerEdges[i]);
+			edges.add(outerEdges[i]);
+
+			/* The incident edge of each corner is the outer half-edge leaving it, as for the bounding box */
+			corners[(i + 1) % k].setIncidentEdge(outerEdges[i]);
+		}
+
+		for (int i = 0; i < k; i++)
+		{
+			innerEdges[i].setNext(innerEdges[(i + 1) % k]);
+			innerEdges[i].setPrev(innerEdges[(i + k - 1) % k]);
+			outerEdges[i].setNext(outerEdges[(i + k - 1) % k]);
+			outerEdges[i].setPrev(outerEdges[(i + 1) % k]);
+		}
+
+		unboundedFace.setInnerComponents(outerEdges[0]);
+
+		this.polygonBoundary = new PolygonBoundary(clippingPolygon, corners, outerEdges);
+	}
+
 	protected void computeFaces()
 	{
 		int index = 0;
@@ -164,6 +227,42 @@ public class DoublyConnectedEdgeList
 		return boundingBox;
 	}
 
+	public PolygonBoundary getPolygonBoundary()
+	{
+		return polygonBoundary;
+	}
+
+	/**
+	 * Returns the periods in x and y of the domain, if this list lies on a torus whose coordinates are taken modulo
+	 * them.
+	 *
+	 * @return the width and height of the periodic domain, or null if this list lies in the plane
+	 */
+	public double[] getPeriods()
+	{
+		return null;
+	}
+
+	/**
+	 * Returns the spatial index of this list, building it on first use. The list must be finished, since the index does
+	 * not follow later changes.
+	 *
+	 * @return the spatial index
+	 */
+	public SpatialIndex getSpatialIndex()
+	{
+		SpatialIndex index = spatialIndex;
+		if (index == null)
+		{
+			synchronized (this)
+			{
+				index = spatialIndex;
+				if (index == null) spatialIndex = index = new SpatialIndex(this);
+			}
+		}
+		return index;
+	}
+
 	public List<Point> getVerticesForDisplay()
 	{
 		List<Point> points = new ArrayList<>();
@@ -211,6 +310,59 @@ public class DoublyConnectedEdgeList
 		return builder.toString();
 	}
 
+	/**
+	 * Splits the given outer boundary half-edge (and its twin) at the intersection and connects the edge there. Shared
+	 * by the rectangular bounding box and the clipping polygon.
+	 */
+	private static void splitBoundingEdge(DoublyConnectedEdgeList dcel, Point intersection, DCELEdge edge,
+	                                      DCELEdge outerBoundingEdge)
+	{
+		DCELVertex vertex = new DCELVertex(DCELVertex.VertexType.BOUNDING_VERTEX, intersection, edge.getTwin());
+		dcel.vertices.add(vertex);
+
+		DCELEdge innerBoundingEdge = outerBoundingEdge.getTwin();
+		DCELEdge newOuterBoundingEdge = new DCELEdge(DCELEdge.EdgeType.BOUNDING_EDGE, innerBoundingEdge);
+		DCELEdge newInnerBoundingEdge = new DCELEdge(DCELEdge.EdgeType.BOUNDING_EDGE, outerBoundingEdge);
+
+		dcel.edges.add(newOuterBoundingEdge);
+		dcel.edges.add(newInnerBoundingEdge);
+
+		edge.getTwin().setOrigin(vertex);
+		newOuterBoundingEdge.setOrigin(vertex);
+		newInnerBoundingEdge.setOrigin(vertex);
+
+		newOuterBoundingEdge.setIncidentFace(outerBoundingEdge.getIncidentFace());
+
+		newOuterBoundingEdge.setNext(outerBoundingEdge.getNext());
+		outerBoundingEdge.setNext(newOuterBoundingEdge);
+		newInnerBoundingEdge.setNext(innerBoundingEdge.getNext());
+		innerBoundingEdge.setNext(edge.getTwin());
+		edge.setNext(newInnerBoundingEdge);
+
+		newOuterBoundingEdge.setPrev(outerBoundingEdge);
+		newOuterBoundingEdge.getNext().setPrev(newOuterBoundingEdge);
+		newInnerBoundingEdge.setPrev(edge);
+		newInnerBoundingEdge.getNext().setPrev(newInnerBoundingEdge);
+		edge.getTwin().setPrev(innerBoundingEdge);
+	}
+
+	/**
+	 * Connects the edge to a corner of the boundary, which must not be split.
+	 */
+	private static void connectEdgeToCorner(DCELVertex corner, DCELEdge edge)
+	{
+		/* This works on the assumption that the incident edges of each corner vertex are the edges facing the unbounded face. */
+		DCELEdge innerBoundingEdge = corner.getIncidentEdge().getTwin();
+
+		edge.getTwin().setOrigin(corner);
+
+		edge.setNext(innerBoundingEdge.getNext());
+		innerBoundingEdge.getNext().setPrev(edge);
+
+		innerBoundingEdge.setNext(edge.getTwin());
+		edge.getTwin().setPrev(innerBoundingEdge);
+	}
+
 	public static class BoundingBox
 	{
 		private final DCELVertex lowerLeft, lowerRight, upperRight, upperLeft;
@@ -225,7 +377,8 @@ public class DoublyConnectedEdgeList
 
 		public void connectEdge(DoublyConnectedEdgeList dcel, Point origin, DCELEdge edge)
 		{
-			Point intersection = getIntersection(origin, edge.getDirection());
+			int side = getIntersectedSide(origin, edge.getDirection());
+			Point intersection = getIntersection(origin, edge.getDirection(), side);
 
 			/* Check to make sure the edge isn't intersecting a corner of the bounding box. */
 			if (intersection.equals(lowerLeft.getCoordinates()))
@@ -249,80 +402,168 @@ public class DoublyConnectedEdgeList
 				return;
 			}
 
-			DCELVertex vertex = new DCELVertex(DCELVertex.VertexType.BOUNDING_VERTEX, intersection, edge.getTwin());
-			dcel.vertices.add(vertex);
+			splitBoundingEdge(dcel, intersection, edge, getIntersectedEdge(intersection, side));
+		}
 
-			DCELEdge outerBoundingEdge = getIntersectedEdge(intersection);
-			DCELEdge innerBoundingEdge = outerBoundingEdge.getTwin();
-			DCELEdge newOuterBoundingEdge = new DCELEdge(DCELEdge.EdgeType.BOUNDING_EDGE, innerBoundingEdge);
-			DCELEdge newInnerBoundingEdge = new DCELEdge(DCELEdge.EdgeType.BOUNDING_EDGE, outerBoundingEdge);
+		/**
+		 * Connects all of the given half-edges, each directed out of the bounding box, to the bounding box at once. The
+		 * intersections are sorted along the boundary so that the boundary ring is spliced in a single pass, instead of
+		 * searching the boundary for each edge as {@link #connectEdge(DoublyConnectedEdgeList, Point, DCELEdge)} does.
+		 * This must be called before any edge has been connected to this bounding box.
+		 *
+		 * @param dcel    the edge list the bounding box belongs to
+		 * @param origins the points from which the intersection of each edge with the bounding box is computed
+		 * @param edges   the half-edges to connect, directed out of the bounding box
+		 */
+		public void connectEdges(DoublyConnectedEdgeList dcel, List<Point> origins, List<DCELEdge> edges)
+		{
+			Point[] intersections = new Point[edges.size()];
+			double[] positions = new double[edges.size()];
+			int[] sides = new int[edges.size()];
+			Integer[] order = new Integer[edges.size()];
 
-			dcel.edges.add(newOuterBoundingEdge);
-			dcel.edges.add(newInnerBoundingEdge);
+			for (int i = 0; i < edges.size(); i++)
+			{
+				locateIntersection(origins.get(i), edges.get(i), i, intersections, positions, sides);
+				order[i] = i;
+			}
 
-			edge.getTwin().setOrigin(vertex);
-			newOuterBoundingEdge.setOrigin(vertex);
-			newInnerBoundingEdge.setOrigin(vertex);
+			/* The unbounded edges fan out counterclockwise around the hull, so edges that round to the same point
+			are ordered by their directions */
+			Arrays.sort(order, (a, b) ->
+			{
+				if (sides[a] != sides[b]) return Integer.compare(sides[a], sides[b]);
+				if (positions[a] != positions[b]) return Double.compare(positions[a], positions[b]);
+				double[] da = edges.get(a).getDirection(), db = edges.get(b).getDirection();
+				return -Double.compare(da[0] * db[1] - da[1] * db[0], 0);
+			});
 
-			newOuterBoundingEdge.setIncidentFace(outerBoundingEdge.getIncidentFace());
+			spliceEdges(dcel, edges, intersections, sides, order);
+		}
 
-			newOuterBoundingEdge.setNext(outerBoundingEdge.getNext());
-			outerBoundingEdge.setNext(newOuterBoundingEdge);
-			newInnerBoundingEdge.setNext(innerBoundingEdge.getNext());
-			innerBoundingEdge.setNext(edge.getTwin());
-			edge.setNext(newInnerBoundingEdge);
+		/**
+		 * Connects all of the given half-edges, each directed out of the bounding box, to the bounding box at once,
+		 * keeping the order in which they are given. Unlike
+		 * {@link #connectEdges(DoublyConnectedEdgeList, List, List)}, the rounded intersections only decide where the
+		 * cyclic order starts, so the topology of the boundary is that of the given order even where intersections
+		 * round to the same point or to the wrong side of a corner. This must be called before any edge has been
+		 * connected to this bounding box.
+		 *
+		 * @param dcel    the edge list the bounding box belongs to
+		 * @param origins the points from which the intersection of each edge with the bounding box is computed
+		 * @param edges   the half-edges to connect, directed out of the bounding box, in counterclockwise order
+		 */
+		public void connectEdgesInOrder(DoublyConnectedEdgeList dcel, List<Point> origins, List<DCELEdge> edges)
+		{
+			Point[] intersections = new Point[edges.size()];
+			double[] positions = new double[edges.size()];
+			int[] sides = new int[edges.size()];
+			Integer[] order = new Integer[edges.size()];
+
+			/* Start from the edge that meets the boundary first after the lower left corner */
+			int first = 0;
+			for (int i = 0; i < edges.size(); i++)
+			{
+				locateIntersection(origins.get(i), edges.get(i), i, intersections, positions, sides);
+				if (sides[i] < sides[first] || (sides[i] == sides[first] && positions[i] < positions[first]))
+					first = i;
+			}
+
+			/* The sides may not decrease along the boundary, so an edge rounded back across a corner stays on the
+			side of the edge before it, right next to that corner */
+			for (int i = 0; i < edges.size(); i++)
+			{
+				order[i] = (first + i) % edges.size();
+				if (i > 0) sides[order[i]] = Math.max(sides[order[i]], sides[order[i - 1]]);
+			}
 
-			newOuterBoundingEdge.setPrev(outerBoundingEdge);
-			newOuterBoundingEdge.getNext().setPrev(newOuterBoundingEdge);
-			newInnerBoundingEdge.setPrev(edge);
-			newInnerBoundingEdge.getNext().setPrev(newInnerBoundingEdge);
-			edge.getTwin().setPrev(innerBoundingEdge);
+			spliceEdges(dcel, edges, intersections, sides, order);
 		}
 
-		private void connectEdgeToCorner(DCELVertex corner, DCELEdge edge)
+		/*
+		 * Computes where the given edge leaves the bounding box. The side is taken from the bound that stops the edge,
+		 * rather than from the rounded intersection, which may lie closer to another side's line than any fixed
+		 * tolerance on a large box.
+		 */
+		private void locateIntersection(Point origin, DCELEdge edge, int i, Point[] intersections, double[] positions,
+		                                int[] sides)
 		{
-			/* This works on the assumption that the incident edges of each corner vertex are the edges facing the unbounded face. */
-			DCELEdge innerBoundingEdge = corner.getIncidentEdge().getTwin();
-
-			edge.getTwin().setOrigin(corner);
+			sides[i] = getIntersectedSide(origin, edge.getDirection());
+			Point p = getIntersection(origin, edge.getDirection(), sides[i]);
+			intersections[i] = p;
+
+			/* Measure along the side in its counterclockwise direction; the sides are compared first, so no large
+			offset swallows the difference between two nearby intersections on a large box */
+			if (sides[i] == 0) positions[i] = p.getX();
+			else if (sides[i] == 1) positions[i] = p.getY();
+			else if (sides[i] == 2) positions[i] = -p.getX();
+			else positions[i] = -p.getY();
+		}
 
-			edge.setNext(innerBoundingEdge.getNext());
-			innerBoundingEdge.getNext().setPrev(edge);
+		/* Splices the edges into the boundary ring in the given order, which runs counterclockwise along the sides */
+		private void spliceEdges(DoublyConnectedEdgeList dcel, List<DCELEdge> edges, Point[] intersections, int[] sides,
+		                         Integer[] order)
+		{
+			/* The sides in counterclockwise order from the lower left corner; the outer half-edge of each side keeps
+			the side's end corner as its origin while the side is split from its start corner onwards. */
+			DCELEdge[] sideOuterEdges = {lowerRight.getIncidentEdge(), upperRight.getIncidentEdge(),
+			                             upperLeft.getIncidentEdge(), lowerLeft.getIncidentEdge()};
 
-			innerBoundingEdge.setNext(edge.getTwin());
-			edge.getTwin().setPrev(innerBoundingEdge);
+			for (int i : order)
+			{
+				Point intersection = intersections[i];
+				DCELEdge edge = edges.get(i);
+
+				if (intersection.equals(lowerLeft.getCoordinates())) connectEdgeToCorner(lowerLeft, edge);
+				else if (intersection.equals(lowerRight.getCoordinates())) connectEdgeToCorner(lowerRight, edge);
+				else if (intersection.equals(upperRight.getCoordinates())) connectEdgeToCorner(upperRight, edge);
+				else if (intersection.equals(upperLeft.getCoordinates())) connectEdgeToCorner(upperLeft, edge);
+				else splitBoundingEdge(dcel, intersection, edge, sideOuterEdges[sides[i]]);
+			}
 		}
 
 		public Point getIntersection(Point origin, double[] direction)
 		{
-			/* Handle vertical and horizontal lines */
-			if (direction[0] == 0)
-				return direction[1] > 0 ? new Point(origin.getX(), upperRight.getCoordinates().getY()) : new Point(origin.getX(), lowerLeft.getCoordinates().getY());
-			else if (direction[1] == 0)
-				return direction[0] > 0 ? new Point(upperRight.getCoordinates().getX(), origin.getY()) : new Point(lowerLeft.getCoordinates().getX(), origin.getY());
+			return getIntersection(origin, direction, getIntersectedSide(origin, direction));
+		}
 
-			double t = 0, newT = 0;
-			Point intersection;
+		/**
+		 * Returns the side of the bounding box through which the ray from the origin in the given direction leaves it,
+		 * numbered counterclockwise from 0 for the lower side to 3 for the left side. The side is decided by which of
+		 * the bounds the ray reaches first, so it does not depend on how the intersection is rounded.
+		 */
+		private int getIntersectedSide(Point origin, double[] direction)
+		{
+			/* Handle vertical and horizontal lines */
+			if (direction[0] == 0) return direction[1] > 0 ? 2 : 0;
+			else if (direction[1] == 0) return direction[0] > 0 ? 1 : 3;
 
-			if (direction[0] > 0)
-				t = (upperRight.getCoordinates().getX() - origin.getX()) / direction[0];
-			else if (direction[0] < 0)
-				t = (lowerLeft.getCoordinates().getX() - origin.getX()) / direction[0];
+			double boundX = direction[0] > 0 ? upperRight.getCoordinates().getX() : lowerLeft.getCoordinates().getX();
+			double boundY = direction[1] > 0 ? upperRight.getCoordinates().getY() : lowerLeft.getCoordinates().getY();
+			double t = (boundX - origin.getX()) / direction[0];
+			double newT = (boundY - origin.getY()) / direction[1];
 
-			intersection = new Point(origin.getX() + t * direction[0], origin.getY() + t * direction[1]);
+			if (newT < t) return direction[1] > 0 ? 2 : 0;
+			else return direction[0] > 0 ? 1 : 3;
+		}
 
-			if (direction[1] > 0)
-				newT = (upperRight.getCoordinates().getY() - origin.getY()) / direction[1];
-			else if (direction[1] < 0)
-				newT = (lowerLeft.getCoordinates().getY() - origin.getY()) / direction[1];
+		/* The intersection with the given side, lying exactly on its line and within its ends */
+		private Point getIntersection(Point origin, double[] direction, int side)
+		{
+			double minX = lowerLeft.getCoordinates().getX(), minY = lowerLeft.getCoordinates().getY();
+			double maxX = upperRight.getCoordinates().getX(), maxY = upperRight.getCoordinates().getY();
 
-			if (newT < t)
+			if (side == 1 || side == 3)
 			{
-				intersection.setX(origin.getX() + newT * direction[0]);
-				intersection.setY(origin.getY() + newT * direction[1]);
+				double x = side == 1 ? maxX : minX;
+				double y = origin.getY() + (x - origin.getX()) / direction[0] * direction[1];
+				return new Point(x, Math.max(minY, Math.min(maxY, y)));
 			}
 
-			return intersection;
+			double y = side == 2 ? maxY : minY;
+			double x = direction[0] == 0 ? origin.getX() :
+					origin.getX() + (y - origin.getY()) / direction[1] * direction[0];
+			return new Point(Math.max(minX, Math.min(maxX, x)), y);
 		}
 
 		public DCELEdge getIntersectedEdge(Point p)
@@ -330,8 +571,22 @@ public class DoublyConnectedEdgeList
 			double x = p.getX();
 			double y = p.getY();
 
+			if (MathOps.thresholdEquals(x, lowerLeft.getCoordinates().getX())) return getIntersectedEdge(p, 3);
+			else if (MathOps.thresholdEquals(x, upperRight.getCoordinates().getX())) return getIntersectedEdge(p, 1);
+			else if (MathOps.thresholdEquals(y, lowerLeft.getCoordinates().getY())) return getIntersectedEdge(p, 0);
+			else if (MathOps.thresholdEquals(y, upperRight.getCoordinates().getY())) return getIntersectedEdge(p, 2);
+
+			return null;
+		}
+
+		/* Walks along the given side from its start to the part of it split at the point */
+		private DCELEdge getIntersectedEdge(Point p, int side)
+		{
+			double x = p.getX();
+			double y = p.getY();
+
 			/* Traverse the left boundary */
-			if (MathOps.thresholdEquals(x, lowerLeft.getCoordinates().getX()))
+			if (side == 3)
 			{
 				DCELEdge edge = lowerLeft.getIncidentEdge();
 				while (y > edge.getTwin().getOrigin().getCoordinates().getY())
@@ -341,7 +596,7 @@ public class DoublyConnectedEdgeList
 				return edge;
 			}
 			/* Traverse the right boundary */
-			else if (MathOps.thresholdEquals(x, upperRight.getCoordinates().getX()))
+			else if (side == 1)
 			{
 				DCELEdge edge = upperRight.getIncidentEdge();
 				while (y < edge.getTwin().getOrigin().getCoordinates().getY())
@@ -350,9 +605,8 @@ public class DoublyConnectedEdgeList
 				}
 				return edge;
 			}
-
 			/* Traverse the lower boundary */
-			if (MathOps.thresholdEquals(y, lowerLeft.getCoordinates().getY()))
+			else if (side == 0)
 			{
 				DCELEdge edge = lowerRight.getIncidentEdge();
 				while (x < edge.getTwin().getOrigin().getCoordinates().getX())
@@ -362,7 +616,7 @@ public class DoublyConnectedEdgeList
 				return edge;
 			}
 			/* Traverse the upper boundary */
-			else if (MathOps.thresholdEquals(y, upperRight.getCoordinates().getY()))
+			else
 			{
 				DCELEdge edge = upperLeft.getIncidentEdge();
 				while (x > edge.getTwin().getOrigin().getCoordinates().getX())
@@ -371,8 +625,6 @@ public class DoublyConnectedEdgeList
 				}
 				return edge;
 			}
-
-			return null;
 		}
 
 		public DCELEdge getInnerEdge()
@@ -381,4 +633,74 @@ public class DoublyConnectedEdgeList
 			return lowerLeft.getIncidentEdge().getTwin();
 		}
 	}
+
+	public static class PolygonBoundary
+	{
+		private final ClippingPolygon clippingPolygon;
+		private final DCELVertex[] corners;
+		private final DCELEdge[] sideOuterEdges;
+
+		public PolygonBoundary(ClippingPolygon clippingPolygon, DCELVertex[] corners, DCELEdge[] sideOuterEdges)
+		{
+			this.clippingPolygon = clippingPolygon;
+			this.corners = corners;
+			this.sideOuterEdges = sideOuterEdges;
+		}
+
+		public ClippingPolygon getClippingPolygon()
+		{
+			return clippingPolygon;
+		}
+
+		/**
+		 * Connects all of the given half-edges, each directed out of the polygon, to the polygon at the given points.
+		 * As with the bounding box, the points are sorted along the boundary so that the ring is spliced in a single
+		 * pass. This must be called at most once.
+		 *
+		 * @param dcel          the edge list the polygon belongs to
+		 * @param intersections the points at which the edges leave the polygon
+		 * @param sides         the index of the side of the polygon each point lies on
+		 * @param edges         the half-edges to connect, directed out of the polygon
+		 */
+		public void connectEdges(DoublyConnectedEdgeList dcel, List<Point> intersections, List<Integer> sides,
+		                         List<DCELEdge> edges)
+		{
+			double[] positions = new double[edges.size()];
+			Integer[] order = new Integer[edges.size()];
+
+			for (int i = 0; i < edges.size(); i++)
+			{
+				/* Measure the distance from the first corner in units of sides, counterclockwise along the boundary */
+				positions[i] = sides.get(i) + clippingPolygon.positionAlongSide(sides.get(i), intersections.get(i));
+				order[i] = i;
+			}
+
+			Arrays.sort(order, (a, b) -> Double.compare(positions[a], positions[b]));
+
+			for (int i : order)
+			{
+				Point intersection = intersections.get(i);
+				int side = sides.get(i);
+				DCELVertex start = corners[side];
+				DCELVertex end = corners[(side + 1) % corners.length];
+
+				/* Check to make sure the edge isn't intersecting a corner of the polygon. */
+				if (isAtCorner(intersection, start)) connectEdgeToCorner(start, edges.get(i));
+				else if (isAtCorner(intersection, end)) connectEdgeToCorner(end, edges.get(i));
+				else splitBoundingEdge(dcel, intersection, edges.get(i), sideOuterEdges[side]);
+			}
+		}
+
+		private boolean isAtCorner(Point p, DCELVertex corner)
+		{
+			return MathOps.thresholdEquals(p.getX(), corner.getCoordinates().getX()) &&
+					MathOps.thresholdEquals(p.getY(), corner.getCoordinates().getY());
+		}
+
+		public DCELEdge getInnerEdge()
+		{
+			/* This works on the assumption that the incident edges of each corner vertex are the edges facing the unbounded face. */
+			return corners[0].getIncidentEdge().getTwin();
+		}
+	}
 }
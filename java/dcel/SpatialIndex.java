@@ -0,0 +1,386 @@
+package dcel;
+
+import auxiliary.Point;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * A spatial index over the vertices, edges and sites of a finished doubly-connected edge list, answering rectangle and
+ * radius queries without scanning the whole list. Each kind of element is held in its own packed R-tree, bulk-loaded
+ * with the Sort-Tile-Recursive method: the elements are sorted into vertical slices by the x-coordinate of their
+ * centre, each slice is sorted by y and cut into leaves of {@value #NODE_SIZE} elements, and the levels above group
+ * consecutive nodes. The trees are kept in flat arrays of bounding boxes, so a query only visits the nodes whose boxes
+ * meet it and takes time proportional to the depth of the tree plus the number of elements found.
+ * <p>
+ * Edges are indexed once per pair of twin half-edges, and only if both of their ends are known; a query returns the
+ * half-edge of each pair that comes first in the list. Sites are those of the faces, such as the cells of a Voronoi
+ * diagram; for a Delaunay triangulation, whose sites are its vertices, the vertex queries serve the same purpose. The
+ * index is not updated when the list changes. Once built, it is never modified, so any number of threads can query it
+ * at the same time.
+ *
+ * @author Willem Paul
+ */
+public class SpatialIndex
+{
+	private static final int NODE_SIZE = 16;
+
+	private final List<DCELVertex> vertices;
+	private final List<DCELEdge> edges;
+	private final List<DCELFace> sites;
+	private final PackedRTree vertexTree, edgeTree, siteTree;
+
+	/**
+	 * Builds the index of the given doubly-connected edge list.
+	 *
+	 * @param dcel the list to index, which must not be changed while the index is in use
+	 */
+	public SpatialIndex(DoublyConnectedEdgeList dcel)
+	{
+		this.vertices = new ArrayList<>(dcel.getVertices());
+		double[] vertexBoxes = new double[4 * vertices.size()];
+		for (int i = 0; i < vertices.size(); i++)
+		{
+			Point p = vertices.get(i).getCoordinates();
+			setBox(vertexBoxes, i, p.getX(), p.getY(), p.getX(), p.getY());
+		}
+		this.vertexTree = new PackedRTree(vertexBoxes);
+
+		this.edges = new ArrayList<>();
+		Set<DCELEdge> indexed = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (DCELEdge edge : dcel.getEdges())
+		{
+			DCELEdge twin = edge.getTwin();
+			if (edge.getOrigin() == null || twin == null || twin.getOrigin() == null || indexed.contains(twin))
+				continue;
+
+			indexed.add(edge);
+			edges.add(edge);
+		}
+		double[] edgeBoxes = new double[4 * edges.size()];
+		for (int i = 0; i < edges.size(); i++)
+		{
+			Point p = edges.get(i).getOrigin().getCoordinates();
+			Point q = edges.get(i).getTwin().getOrigin().getCoordinates();
+			setBox(edgeBoxes, i, Math.min(p.getX(), q.getX()), Math.min(p.getY(), q.getY()),
+			       Math.max(p.getX(), q.getX()), Math.max(p.getY(), q.getY()));
+		}
+		this.edgeTree = new PackedRTree(edgeBoxes);
+
+		this.sites = new ArrayList<>();
+		for (DCELFace face : dcel.getFaces())
+		{
+			if (face.getSite() != null) sites.add(face);
+		}
+		double[] siteBoxes = new double[4 * sites.size()];
+		for (int i = 0; i < sites.size(); i++)
+		{
+			Point p = sites.get(i).getSite().getCoordinates();
+			setBox(siteBoxes, i, p.getX(), p.getY(), p.getX(), p.getY());
+		}
+		this.siteTree = new PackedRTree(siteBoxes);
+	}
+
+	private static void setBox(double[] boxes, int i, double minX, double minY, double maxX, double maxY)
+	{
+		boxes[4 * i] = minX;
+		boxes[4 * i + 1] = minY;
+		boxes[4 * i + 2] = maxX;
+		boxes[4 * i + 3] = maxY;
+	}
+
+	/**
+	 * Returns the vertices lying in the given rectangle, including its boundary.
+	 *
+	 * @return the vertices in the rectangle, in no particular order
+	 */
+	public List<DCELVertex> getVertices(double minX, double minY, double maxX, double maxY)
+	{
+		List<DCELVertex> result = new ArrayList<>();
+		vertexTree.search(minX, minY, maxX, maxY, i -> result.add(vertices.get(i)));
+		return result;
+	}
+
+	/**
+	 * Returns the vertices within the given distance of the given point.
+	 *
+	 * @return the vertices within the circle, in no particular order
+	 */
+	public List<DCELVertex> getVertices(double x, double y, double radius)
+	{
+		List<DCELVertex> result = new ArrayList<>();
+		vertexTree.search(x - radius, y - radius, x + radius, y + radius, i -> {
+			if (distanceSquared(vertices.get(i).getCoordinates(), x, y) <= radius * radius) result.add(vertices.get(i));
+		});
+		return result;
+	}
+
+	/**
+	 * Returns the edges that meet the given rectangle, including those that only cross it.
+	 *
+	 * @return one half-edge of each edge meeting the rectangle, in no particular order
+	 */
+	public List<DCELEdge> getEdges(double minX, double minY, double maxX, double maxY)
+	{
+		List<DCELEdge> result = new ArrayList<>();
+		edgeTree.search(minX, minY, maxX, maxY, i -> {
+			DCELEdge edge = edges.get(i);
+			Point p = edge.getOrigin().getCoordinates();
+			Point q = edge.getTwin().getOrigin().getCoordinates();
+			if (meetsRectangle(p, q, minX, minY, maxX, maxY)) result.add(edge);
+		});
+		return result;
+	}
+
+	/**
+	 * Returns the edges that pass within the given distance of the given point.
+	 *
+	 * @return one half-edge of each edge meeting the circle, in no particular order
+	 */
+	public List<DCELEdge> getEdges(double x, double y, double radius)
+	{
+		List<DCELEdge> result = new ArrayList<>();
+		edgeTree.search(x - radius, y - radius, x + radius, y + radius, i -> {
+			DCELEdge edge = edges.get(i);
+			Point p = edge.getOrigin().getCoordinates();
+			Point q = edge.getTwin().getOrigin().getCoordinates();
+			if (segmentDistanceSquared(p, q, x, y) <= radius * radius) result.add(edge);
+		});
+		return result;
+	}
+
+	/**
+	 * Returns the faces whose sites lie in the given rectangle, including its boundary.
+	 *
+	 * @return the faces whose sites are in the rectangle, in no particular order
+	 */
+	public List<DCELFace> getSites(double minX, double minY, double maxX, double maxY)
+	{
+		List<DCELFace> result = new ArrayList<>();
+		siteTree.search(minX, minY, maxX, maxY, i -> result.add(sites.get(i)));
+		return result;
+	}
+
+	/**
+	 * Returns the faces whose sites lie within the given distance of the given point.
+	 *
+	 * @return the faces whose sites are within the circle, in no particular order
+	 */
+	public List<DCELFace> getSites(double x, double y, double radius)
+	{
+		List<DCELFace> result = new ArrayList<>();
+		siteTree.search(x - radius, y - radius, x + radius, y + radius, i -> {
+			if (distanceSquared(sites.get(i).getSite().getCoordinates(), x, y) <= radius * radius)
+				result.add(sites.get(i));
+		});
+		return result;
+	}
+
+	private static double distanceSquared(Point p, double x, double y)
+	{
+		double dx = p.getX() - x, dy = p.getY() - y;
+		return dx * dx + dy * dy;
+	}
+
+	private static double segmentDistanceSquared(Point p, Point q, double x, double y)
+	{
+		double dx = q.getX() - p.getX(), dy = q.getY() - p.getY();
+		double lengthSquared = dx * dx + dy * dy;
+		double t = lengthSquared == 0 ? 0 : ((x - p.getX()) * dx + (y - p.getY()) * dy) / lengthSquared;
+		t = Math.max(0, Math.min(1, t));
+
+		double ex = p.getX() + t * dx - x, ey = p.getY() + t * dy - y;
+		return ex * ex + ey * ey;
+	}
+
+	/* Clips the segment against the rectangle one side at a time (Liang-Barsky) */
+	private static boolean meetsRectangle(Point p, Point q, double minX, double minY, double maxX, double maxY)
+	{
+		double dx = q.getX() - p.getX(), dy = q.getY() - p.getY();
+		double[] t = {0, 1};
+
+		return clip(-dx, p.getX() - minX, t) && clip(dx, maxX - p.getX(), t) && clip(-dy, p.getY() - minY, t) &&
+				clip(dy, maxY - p.getY(), t);
+	}
+
+	private static boolean clip(double denominator, double numerator, double[] t)
+	{
+		if (denominator == 0) return numerator >= 0;
+
+		double r = numerator / denominator;
+		if (denominator < 0)
+		{
+			if (r > t[1]) return false;
+			t[0] = Math.max(t[0], r);
+		}
+		else
+		{
+			if (r < t[0]) return false;
+			t[1] = Math.min(t[1], r);
+		}
+		return true;
+	}
+
+	public int getVertexCount()
+	{
+		return vertices.size();
+	}
+
+	public int getEdgeCount()
+	{
+		return edges.size();
+	}
+
+	public int getSiteCount()
+	{
+		return sites.size();
+	}
+
+	/**
+	 * An R-tree packed into flat arrays. The elements come first, in the order in which they were packed, followed by
+	 * the nodes of each level from the leaves up; the last node is the root.
+	 */
+	private static class PackedRTree
+	{
+		private final int count;
+		private final int[] elements;
+		private final double[] boxes;
+		private final int[] firstChild;
+		private final int[] endChild;
+
+		PackedRTree(double[] elementBoxes)
+		{
+			this.count = elementBoxes.length / 4;
+
+			/* The number of entries over all levels, the root included */
+			int entries = count, levelSize = count;
+			do
+			{
+				levelSize = (levelSize + NODE_SIZE - 1) / NODE_SIZE;
+				entries += levelSize;
+			}
+			while (levelSize > 1);
+
+			this.elements = new int[count];
+			this.boxes = new double[4 * entries];
+			this.firstChild = new int[entries - count];
+			this.endChild = new int[entries - count];
+
+			sortTileRecursive(elementBoxes);
+
+			/* Each level groups consecutive entries of the one below */
+			int levelStart = 0, levelEnd = count, next = count;
+			while (true)
+			{
+				for (int first = levelStart; first < levelEnd; first += NODE_SIZE)
+				{
+					int end = Math.min(first + NODE_SIZE, levelEnd);
+					firstChild[next - count] = first;
+					endChild[next - count] = end;
+
+					double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+					double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+					for (int child = first; child < end; child++)
+					{
+						minX = Math.min(minX, boxes[4 * child]);
+						minY = Math.min(minY, boxes[4 * child + 1]);
+						maxX = Math.max(maxX, boxes[4 * child + 2]);
+						maxY = Math.max(maxY, boxes[4 * child + 3]);
+					}
+					setBox(boxes, next++, minX, minY, maxX, maxY);
+				}
+
+				if (next - levelEnd <= 1) break;
+				levelStart = levelEnd;
+				levelEnd = next;
+			}
+		}
+
+		/*
+		 * Orders the elements into slices by x and each slice by y. Only the order matters, so the centres are sorted
+		 * as longs holding a 31-bit rank of the coordinate above the element's position.
+		 */
+		private void sortTileRecursive(double[] elementBoxes)
+		{
+			if (count == 0) return;
+
+			double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+			double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < count; i++)
+			{
+				minX = Math.min(minX, elementBoxes[4 * i] + elementBoxes[4 * i + 2]);
+				maxX = Math.max(maxX, elementBoxes[4 * i] + elementBoxes[4 * i + 2]);
+				minY = Math.min(minY, elementBoxes[4 * i + 1] + elementBoxes[4 * i + 3]);
+				maxY = Math.max(maxY, elementBoxes[4 * i + 1] + elementBoxes[4 * i + 3]);
+			}
+
+			long[] keys = new long[count];
+			for (int i = 0; i < count; i++)
+			{
+				keys[i] = rank(elementBoxes[4 * i] + elementBoxes[4 * i + 2], minX, maxX) << 32 | i;
+			}
+			Arrays.sort(keys);
+
+			int leaves = (count + NODE_SIZE - 1) / NODE_SIZE;
+			int sliceSize = NODE_SIZE * (int) Math.ceil(Math.sqrt(leaves));
+			for (int from = 0; from < count; from += sliceSize)
+			{
+				int to = Math.min(from + sliceSize, count);
+				for (int k = from; k < to; k++)
+				{
+					int i = (int) keys[k];
+					keys[k] = rank(elementBoxes[4 * i + 1] + elementBoxes[4 * i + 3], minY, maxY) << 32 | i;
+				}
+				Arrays.sort(keys, from, to);
+			}
+
+			for (int k = 0; k < count; k++)
+			{
+				int i = (int) keys[k];
+				elements[k] = i;
+				System.arraycopy(elementBoxes, 4 * i, boxes, 4 * k, 4);
+			}
+		}
+
+		private static long rank(double value, double min, double max)
+		{
+			if (!(max > min)) return 0;
+			return (long) ((value - min) / (max - min) * 0x7FFFFFFFL);
+		}
+
+		/**
+		 * Hands the position of every element whose box meets the given rectangle to the consumer.
+		 */
+		void search(double minX, double minY, double maxX, double maxY, IntConsumer consumer)
+		{
+			if (count == 0) return;
+
+			int[] stack = new int[64];
+			int size = 0;
+			stack[size++] = boxes.length / 4 - 1;
+
+			while (size > 0)
+			{
+				int node = stack[--size] - count;
+				for (int child = firstChild[node]; child < endChild[node]; child++)
+				{
+					if (boxes[4 * child] > maxX || boxes[4 * child + 1] > maxY || boxes[4 * child + 2] < minX ||
+							boxes[4 * child + 3] < minY)
+						continue;
+
+					if (child < count) consumer.accept(elements[child]);
+					else
+					{
+						if (size == stack.length) stack = Arrays.copyOf(stack, 2 * size);
+						stack[size++] = child;
+					}
+				}
+			}
+		}
+	}
+}
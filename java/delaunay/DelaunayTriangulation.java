@@ -4,29 +4,51 @@ import dcel.DCELEdge;
 import dcel.DCELFace;
 import dcel.DCELVertex;
 import dcel.DoublyConnectedEdgeList;
+import profiling.PhaseEvent;
+import voronoi.SweepStatistics;
 import voronoi.VoronoiDiagram;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Willem Paul
  */
 public class DelaunayTriangulation extends DoublyConnectedEdgeList
 {
+	/**
+	 * Creates an empty Delaunay triangulation. A {@code VoronoiDiagram} uses this to build its triangulation during the
+	 * sweep, through {@link #addSite(DCELVertex)}, {@link #addEdge(DCELVertex, DCELVertex)} and
+	 * {@link #addTriangle(int, DCELVertex, DCELVertex, DCELVertex, DCELEdge, DCELEdge, DCELEdge)}, followed by a single
+	 * call to {@link #closeHull()}.
+	 */
 	public DelaunayTriangulation()
 	{
 		super();
 	}
 
 	/**
-	 * Creates a Delaunay triangulation, stored as a {@code DoublyConnectedEdgeList}, from the given Voronoi diagram.
+	 * Creates a Delaunay triangulation, stored as a {@code DoublyConnectedEdgeList}, from the given Voronoi diagram. The
+	 * time taken is added to the Voronoi diagram's statistics.
 	 *
 	 * @param voronoiDiagram the Voronoi diagram from which to create the Delaunay trianguation
 	 */
 	public DelaunayTriangulation(VoronoiDiagram voronoiDiagram)
 	{
 		super();
+
+		PhaseEvent event = new PhaseEvent("Delaunay triangulation", SweepStatistics.Phase.DELAUNAY_DUAL.name(),
+		                                  voronoiDiagram.getFaces().size() - 1);
+		event.begin();
+		SweepStatistics statistics = voronoiDiagram.getStatistics();
+		long start = statistics.startPhase();
+
 		createFromVoronoiDiagram(voronoiDiagram);
+
+		statistics.endPhase(SweepStatistics.Phase.DELAUNAY_DUAL, start);
+		event.commit();
 	}
 
 	private void createFromVoronoiDiagram(VoronoiDiagram voronoiDiagram)
@@ -185,4 +207,164 @@ public class DelaunayTriangulation extends DoublyConnectedEdgeList
 			}
 		}
 	}
+
+	/**
+	 * Adds the site of a Voronoi cell as a vertex of the triangulation.
+	 *
+	 * @param site the site to add
+	 */
+	public void addSite(DCELVertex site)
+	{
+		vertices.add(site);
+	}
+
+	/**
+	 * Adds a pair of twin half-edges between the two sites. Neither half-edge belongs to a face until a triangle is
+	 * added on its side; those that never get one form the convex hull.
+	 *
+	 * @param u the origin of the returned half-edge
+	 * @param v the origin of its twin
+	 * @return the half-edge from {@code u} to {@code v}
+	 */
+	public DCELEdge addEdge(DCELVertex u, DCELVertex v)
+	{
+		DCELEdge e1 = new DCELEdge(DCELEdge.EdgeType.DELAUNAY_EDGE, u);
+		DCELEdge e2 = new DCELEdge(DCELEdge.EdgeType.DELAUNAY_EDGE, v, e1);
+		edges.add(e1);
+		edges.add(e2);
+
+		if (u.getIncidentEdge() == null) u.setIncidentEdge(e1);
+		if (v.getIncidentEdge() == null) v.setIncidentEdge(e2);
+
+		return e1;
+	}
+
+	/**
+	 * Adds the triangle of the three sites, linking it to the edges already added between them. Each edge may be given
+	 * as either of its two half-edges; the half-edges on the triangle's side are chosen from its orientation.
+	 *
+	 * @param index the index of the triangle, which is that of the corresponding Voronoi vertex
+	 * @param a     the first site
+	 * @param b     the second site
+	 * @param c     the third site
+	 * @param ab    a half-edge between {@code a} and {@code b}
+	 * @param bc    a half-edge between {@code b} and {@code c}
+	 * @param ca    a half-edge between {@code c} and {@code a}
+	 */
+	public void addTriangle(int index, DCELVertex a, DCELVertex b, DCELVertex c, DCELEdge ab, DCELEdge bc, DCELEdge ca)
+	{
+		DCELEdge e1, e2, e3;
+
+		/* The triangle's half-edges have to run counterclockwise */
+		if (cross(a, b, c) > 0)
+		{
+			e1 = halfEdgeFrom(ab, a);
+			e2 = halfEdgeFrom(bc, b);
+			e3 = halfEdgeFrom(ca, c);
+		}
+		else
+		{
+			e1 = halfEdgeFrom(ca, a);
+			e2 = halfEdgeFrom(bc, c);
+			e3 = halfEdgeFrom(ab, b);
+		}
+
+		addTriangle(index, e1, e2, e3);
+	}
+
+	/**
+	 * Adds a triangle whose half-edges are already known to run counterclockwise, so that its orientation does not
+	 * have to be computed. This suits triangulations whose orientation was decided exactly elsewhere.
+	 *
+	 * @param index the index of the triangle, which is that of the corresponding Voronoi vertex
+	 * @param e1    the first half-edge of the triangle
+	 * @param e2    the half-edge following {@code e1}
+	 * @param e3    the half-edge following {@code e2}
+	 */
+	public void addTriangle(int index, DCELEdge e1, DCELEdge e2, DCELEdge e3)
+	{
+		DCELFace delaunayFace = new DCELFace(DCELFace.FaceType.DELAUNAY_TRIANGLE, index, e1);
+		faces.add(delaunayFace);
+
+		e1.setIncidentFace(delaunayFace);
+		e2.setIncidentFace(delaunayFace);
+		e3.setIncidentFace(delaunayFace);
+
+		e1.setNext(e2);
+		e2.setNext(e3);
+		e3.setNext(e1);
+
+		e1.setPrev(e3);
+		e2.setPrev(e1);
+		e3.setPrev(e2);
+	}
+
+	/**
+	 * Assigns every half-edge that is not part of a triangle to the unbounded face and links them into the convex
+	 * hull. This must be called once, after the last triangle has been added.
+	 */
+	public void closeHull()
+	{
+		List<DCELEdge> hullEdges = new ArrayList<>();
+		for (DCELEdge e : edges)
+		{
+			if (e.getIncidentFace() == null)
+			{
+				e.setIncidentFace(unboundedFace);
+				hullEdges.add(e);
+			}
+		}
+
+		if (hullEdges.isEmpty()) return;
+		unboundedFace.setInnerComponents(hullEdges.get(0));
+
+		/* The unbounded face is always present, so any other face is a triangle */
+		if (faces.size() > 1)
+		{
+			for (DCELEdge edge : hullEdges)
+			{
+				/* Rotate clockwise around the origin, through the triangles, until reaching the hull edge coming in */
+				DCELEdge e = edge;
+				while (!e.getTwin().getIncidentFace().isUnbounded())
+				{
+					e = e.getTwin().getNext();
+				}
+
+				e.getTwin().setNext(edge);
+				edge.setPrev(e.getTwin());
+			}
+		}
+		else
+		{
+			/* All of the sites are collinear, so each one has at most two neighbors along the line. */
+			Map<DCELVertex, DCELEdge> otherOutgoingEdges = new HashMap<>();
+			for (DCELEdge edge : hullEdges)
+			{
+				if (edge.getOrigin().getIncidentEdge() != edge) otherOutgoingEdges.put(edge.getOrigin(), edge);
+			}
+
+			for (DCELEdge edge : hullEdges)
+			{
+				DCELVertex v = edge.getTwin().getOrigin();
+				DCELEdge next = v.getIncidentEdge() != edge.getTwin() ? v.getIncidentEdge() :
+						otherOutgoingEdges.getOrDefault(v, edge.getTwin());
+
+				edge.setNext(next);
+				next.setPrev(edge);
+			}
+		}
+	}
+
+	private static DCELEdge halfEdgeFrom(DCELEdge edge, DCELVertex origin)
+	{
+		return edge.getOrigin() == origin ? edge : edge.getTwin();
+	}
+
+	/* Positive if a, b, c make a counterclockwise turn */
+	private static double cross(DCELVertex a, DCELVertex b, DCELVertex c)
+	{
+		double ax = a.getCoordinates().getX(), ay = a.getCoordinates().getY();
+		return (b.getCoordinates().getX() - ax) * (c.getCoordinates().getY() - ay) -
+				(b.getCoordinates().getY() - ay) * (c.getCoordinates().getX() - ax);
+	}
 }
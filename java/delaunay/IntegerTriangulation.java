@@ -0,0 +1,512 @@
+package delaunay;
+
+import auxiliary.ExactPredicates;
+
+import java.util.Arrays;
+
+/**
+ * A Delaunay triangulation of integer points whose topology is decided entirely by the exact predicates of
+ * {@link ExactPredicates}, so that degenerate inputs, such as lattices with many collinear and cocircular points, are
+ * triangulated correctly without any tolerance.
+ * <p>
+ * The points are inserted in order of their exact distance from a point near the centre, so each new point lies
+ * strictly outside the convex hull of the earlier ones. A visible hull edge is found through a hash of the hull points
+ * by their angle around the centre, the triangles the new point forms with all visible hull edges are added and the
+ * triangulation is then made Delaunay again by flipping edges (Lawson's algorithm). Cocircular points
+ * are never flipped, so four or more points on a common circle are split into triangles arbitrarily;
+ * {@link #isCocircular(int)} tells which edges are such diagonals.
+ * <p>
+ * The result is stored in flat arrays, as in most array-based triangulators: triangle {@code t} consists of the
+ * half-edges {@code 3t}, {@code 3t + 1} and {@code 3t + 2} in counterclockwise order, half-edge {@code e} starts at
+ * point {@code getTriangles()[e]}, and {@code getHalfedges()[e]} is its twin, or -1 on the convex hull. Duplicate
+ * points are merged and the remaining points are numbered in the order in which they were inserted.
+ *
+ * @author Willem Paul
+ */
+public class IntegerTriangulation
+{
+	private final long[] xs, ys;
+	private final int[] inputPoints;
+	private int[] triangles;
+	private int[] halfedges;
+	private int triangleCount;
+
+	/* The convex hull, as a counterclockwise ring of points, and the half-edge inside the hull leaving each point */
+	private int[] hullNext, hullPrev, hullTri;
+	private int[] hullHash;
+	private int hashSize;
+	private double centreX, centreY;
+	private int[] stack = new int[64];
+	private int stackSize;
+
+	/**
+	 * Triangulates the given points.
+	 *
+	 * @param coordinates the coordinates of the points, as consecutive x, y pairs
+	 * @throws IllegalArgumentException if the number of coordinates is odd or a coordinate lies outside of
+	 *                                  +/-{@link ExactPredicates#MAX_COORDINATE}
+	 */
+	public IntegerTriangulation(long[] coordinates)
+	{
+		if (coordinates.length % 2 != 0)
+			throw new IllegalArgumentException("The coordinates must be given as x, y pairs");
+
+		int inputCount = coordinates.length / 2;
+		long offset = ExactPredicates.MAX_COORDINATE;
+
+		/* Both offset coordinates fit in 31 bits, so a single long orders the points lexicographically */
+		long[] keys = new long[inputCount];
+		for (int i = 0; i < inputCount; i++)
+		{
+			ExactPredicates.checkRange(coordinates[2 * i]);
+			ExactPredicates.checkRange(coordinates[2 * i + 1]);
+			keys[i] = (coordinates[2 * i] + offset) << 31 | (coordinates[2 * i + 1] + offset);
+		}
+
+		long[] sorted = keys.clone();
+		Arrays.sort(sorted);
+
+		int n = 0;
+		for (int i = 0; i < inputCount; i++)
+		{
+			if (i == 0 || sorted[i] != sorted[i - 1]) sorted[n++] = sorted[i];
+		}
+
+		long[] sortedXs = new long[n], sortedYs = new long[n];
+		for (int i = 0; i < n; i++)
+		{
+			sortedXs[i] = (sorted[i] >>> 31) - offset;
+			sortedYs[i] = (sorted[i] & 0x7FFFFFFFL) - offset;
+		}
+
+		/* Number the points in the order they are inserted, which keeps the points of neighboring triangles close
+		together in memory */
+		int[] order = insertionOrder(sortedXs, sortedYs);
+		int[] numbers = new int[n];
+		this.xs = new long[n];
+		this.ys = new long[n];
+		for (int i = 0; i < n; i++)
+		{
+			xs[i] = sortedXs[order[i]];
+			ys[i] = sortedYs[order[i]];
+			numbers[order[i]] = i;
+		}
+
+		this.inputPoints = new int[inputCount];
+		for (int i = 0; i < inputCount; i++)
+		{
+			inputPoints[i] = numbers[Arrays.binarySearch(sorted, 0, n, keys[i])];
+		}
+
+		int maxTriangles = Math.max(2 * n - 5, 0);
+		this.triangles = new int[3 * maxTriangles];
+		this.halfedges = new int[3 * maxTriangles];
+
+		triangulate();
+
+		/* The hull is only needed while inserting */
+		this.hullNext = null;
+		this.hullPrev = null;
+		this.hullTri = null;
+		this.hullHash = null;
+		this.stack = null;
+		this.triangles = Arrays.copyOf(triangles, 3 * triangleCount);
+		this.halfedges = Arrays.copyOf(halfedges, 3 * triangleCount);
+	}
+
+	/*
+	 * Orders the points, given in lexicographic order, by their distance from the point nearest the centre of their
+	 * extent. The collinear points that come first, up to the first point off their line, are kept in lexicographic
+	 * order, which is their order along that line.
+	 */
+	private static int[] insertionOrder(long[] xs, long[] ys)
+	{
+		int n = xs.length;
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++)
+		{
+			order[i] = i;
+		}
+		if (n < 3) return order;
+
+		long minX = Long.MAX_VALUE, minY = Long.MAX_VALUE, maxX = Long.MIN_VALUE, maxY = Long.MIN_VALUE;
+		for (int i = 0; i < n; i++)
+		{
+			minX = Math.min(minX, xs[i]);
+			maxX = Math.max(maxX, xs[i]);
+			minY = Math.min(minY, ys[i]);
+			maxY = Math.max(maxY, ys[i]);
+		}
+
+		int centre = 0;
+		long[] distances = new long[n];
+		for (int i = 0; i < n; i++)
+		{
+			distances[i] = squaredDistance(xs[i], ys[i], (minX + maxX) / 2, (minY + maxY) / 2);
+			if (distances[i] < distances[centre]) centre = i;
+		}
+
+		for (int i = 0; i < n; i++)
+		{
+			distances[i] = squaredDistance(xs[i], ys[i], xs[centre], ys[centre]);
+		}
+		sort(order, distances, 0, n - 1);
+
+		int a = order[0], b = order[1];
+		int k = 2;
+		while (k < n && ExactPredicates.orientation(xs[a], ys[a], xs[b], ys[b], xs[order[k]], ys[order[k]]) == 0)
+		{
+			k++;
+		}
+		Arrays.sort(order, 0, k);
+
+		return order;
+	}
+
+	private void triangulate()
+	{
+		int n = xs.length;
+
+		/* Find the first point off the line through the first two; the points before it are collinear and lie in
+		order along that line. */
+		int k = 2;
+		while (k < n && orientation(0, 1, k) == 0)
+		{
+			k++;
+		}
+		if (k >= n) return;
+
+		hullNext = new int[n];
+		hullPrev = new int[n];
+		hullTri = new int[n];
+		hashSize = Math.max((int) Math.ceil(Math.sqrt(n)), 1);
+		hullHash = new int[hashSize];
+		Arrays.fill(hullHash, -1);
+		/* Hash the hull points around a point inside the first triangle, which stays inside the hull */
+		centreX = (xs[0] + xs[1] + xs[k]) / 3.0;
+		centreY = (ys[0] + ys[1] + ys[k]) / 3.0;
+
+		/* Fan the collinear points out to the first point off their line */
+		int p = k;
+		boolean left = orientation(0, 1, p) > 0;
+		for (int i = 0; i + 1 < k; i++)
+		{
+			int c0 = i, c1 = i + 1;
+			int t = left ? addTriangle(c0, c1, p) : addTriangle(c1, c0, p);
+			if (i > 0) link(left ? 3 * t - 2 : 3 * t - 1, left ? 3 * t + 2 : 3 * t + 1);
+
+			if (left)
+			{
+				setHullEdge(c0, c1, 3 * t);
+				if (i == 0) setHullEdge(p, c0, 3 * t + 2);
+				if (i + 2 == k) setHullEdge(c1, p, 3 * t + 1);
+			}
+			else
+			{
+				setHullEdge(c1, c0, 3 * t);
+				if (i == 0) setHullEdge(c0, p, 3 * t + 1);
+				if (i + 2 == k) setHullEdge(p, c1, 3 * t + 2);
+			}
+		}
+
+		for (int i = 0; i <= k; i++)
+		{
+			hullHash[hashKey(i)] = i;
+		}
+
+		/* The fan is already Delaunay: the circle through two consecutive collinear points meets their line nowhere
+		else, so it contains none of the others */
+
+		for (int q = k + 1; q < n; q++)
+		{
+			insert(q);
+		}
+	}
+
+	/*
+	 * Adds the point and connects it to every hull edge it can see. No earlier point lies farther from the centre, and
+	 * a point inside their hull would be closer to it than the farthest of them, so the point always lies strictly
+	 * outside the hull and sees at least one of its edges.
+	 */
+	private void insert(int q)
+	{
+		/* Start from a hull point at about the same angle around the centre, skipping points no longer on the hull */
+		int key = hashKey(q);
+		int start = -1;
+		for (int j = 0; j < hashSize; j++)
+		{
+			start = hullHash[(key + j) % hashSize];
+			if (start >= 0 && hullNext[start] != start) break;
+		}
+
+		start = hullPrev[start];
+		int a = start;
+		while (orientation(a, hullNext[a], q) >= 0)
+		{
+			a = hullNext[a];
+			if (a == start) throw new IllegalStateException("No hull edge is visible from point " + q);
+		}
+
+		start = a;
+		while (orientation(hullPrev[start], start, q) < 0)
+		{
+			start = hullPrev[start];
+		}
+
+		a = start;
+		int previousTriangle = -1;
+		while (orientation(a, hullNext[a], q) < 0)
+		{
+			int b = hullNext[a];
+			int t = addTriangle(a, q, b);
+			link(3 * t + 2, hullTri[a]);
+
+			if (previousTriangle < 0) hullTri[start] = 3 * t;
+			else link(3 * previousTriangle + 1, 3 * t);
+
+			/* Points between the ends of the visible chain are no longer on the hull */
+			if (a != start) hullNext[a] = a;
+
+			push(3 * t + 2);
+			previousTriangle = t;
+			a = b;
+		}
+
+		hullNext[start] = q;
+		hullPrev[q] = start;
+		hullNext[q] = a;
+		hullPrev[a] = q;
+		hullTri[q] = 3 * previousTriangle + 1;
+
+		hullHash[hashKey(q)] = q;
+		hullHash[hashKey(start)] = start;
+
+		legalize();
+	}
+
+	/* Buckets the points by a monotonic function of their angle around the centre, ranging over [0, 1) */
+	private int hashKey(int point)
+	{
+		double dx = xs[point] - centreX, dy = ys[point] - centreY;
+		double d = Math.abs(dx) + Math.abs(dy);
+		double p = d == 0 ? 0 : dx / d;
+		double angle = (dy > 0 ? 3 - p : 1 + p) / 4;
+		return (int) Math.floor(angle * hashSize) % hashSize;
+	}
+
+	private static long squaredDistance(long ax, long ay, long bx, long by)
+	{
+		return (ax - bx) * (ax - bx) + (ay - by) * (ay - by);
+	}
+
+	/* Sorts the points by their distance, and equally distant points by their number */
+	private static void sort(int[] order, long[] distances, int from, int to)
+	{
+		while (to - from > 16)
+		{
+			int middle = (from + to) >>> 1;
+			if (less(order[middle], order[from], distances)) swap(order, middle, from);
+			if (less(order[to], order[from], distances)) swap(order, to, from);
+			if (less(order[to], order[middle], distances)) swap(order, to, middle);
+
+			int pivot = order[middle];
+			int i = from, j = to;
+			while (i <= j)
+			{
+				while (less(order[i], pivot, distances)) i++;
+				while (less(pivot, order[j], distances)) j--;
+				if (i <= j) swap(order, i++, j--);
+			}
+
+			/* Recurse into the smaller part, so that the depth stays logarithmic */
+			if (j - from < to - i)
+			{
+				sort(order, distances, from, j);
+				from = i;
+			}
+			else
+			{
+				sort(order, distances, i, to);
+				to = j;
+			}
+		}
+
+		for (int i = from + 1; i <= to; i++)
+		{
+			int point = order[i];
+			int j = i - 1;
+			while (j >= from && less(point, order[j], distances))
+			{
+				order[j + 1] = order[j];
+				j--;
+			}
+			order[j + 1] = point;
+		}
+	}
+
+	private static boolean less(int a, int b, long[] distances)
+	{
+		return distances[a] < distances[b] || (distances[a] == distances[b] && a < b);
+	}
+
+	private static void swap(int[] order, int i, int j)
+	{
+		int point = order[i];
+		order[i] = order[j];
+		order[j] = point;
+	}
+
+	/*
+	 * Flips every queued edge whose opposite point lies inside the circumcircle of its triangle, until none is left.
+	 * Every queued edge lies opposite the point being inserted, which is always the third point of its triangle.
+	 */
+	private void legalize()
+	{
+		while (stackSize > 0)
+		{
+			int a = stack[--stackSize];
+			int b = halfedges[a];
+			if (b < 0) continue;
+
+			int a1 = next(a), a2 = previous(a);
+			int b1 = next(b), b2 = previous(b);
+			int u = triangles[a], v = triangles[a1], w = triangles[a2], x = triangles[b2];
+
+			if (ExactPredicates.inCircle(xs[u], ys[u], xs[v], ys[v], xs[w], ys[w], xs[x], ys[x]) <= 0) continue;
+
+			/* Replace the diagonal u-v of the quadrilateral u, x, v, w by w-x */
+			int ta = halfedges[b2];
+			int tb = halfedges[a2];
+			triangles[a] = x;
+			triangles[b] = w;
+
+			link(a, ta);
+			link(b, tb);
+			link(a2, b2);
+
+			if (ta < 0) hullTri[x] = a;
+			if (tb < 0) hullTri[w] = b;
+
+			/* The new point is w; only the edges opposite it can have become illegal */
+			push(a);
+			push(b1);
+		}
+	}
+
+	private void push(int halfedge)
+	{
+		if (stackSize == stack.length) stack = Arrays.copyOf(stack, 2 * stackSize);
+		stack[stackSize++] = halfedge;
+	}
+
+	private int addTriangle(int a, int b, int c)
+	{
+		int t = triangleCount++;
+		triangles[3 * t] = a;
+		triangles[3 * t + 1] = b;
+		triangles[3 * t + 2] = c;
+		halfedges[3 * t] = -1;
+		halfedges[3 * t + 1] = -1;
+		halfedges[3 * t + 2] = -1;
+		return t;
+	}
+
+	private void link(int a, int b)
+	{
+		halfedges[a] = b;
+		if (b >= 0) halfedges[b] = a;
+	}
+
+	private void setHullEdge(int from, int to, int halfedge)
+	{
+		hullNext[from] = to;
+		hullPrev[to] = from;
+		hullTri[from] = halfedge;
+	}
+
+	private int orientation(int a, int b, int c)
+	{
+		return ExactPredicates.orientation(xs[a], ys[a], xs[b], ys[b], xs[c], ys[c]);
+	}
+
+	public static int next(int halfedge)
+	{
+		return halfedge % 3 == 2 ? halfedge - 2 : halfedge + 1;
+	}
+
+	public static int previous(int halfedge)
+	{
+		return halfedge % 3 == 0 ? halfedge + 2 : halfedge - 1;
+	}
+
+	/**
+	 * Determines whether the given interior half-edge is the diagonal of four or more cocircular points, i.e. whether
+	 * the two triangles on either side of it have the same circumcircle.
+	 *
+	 * @param halfedge the half-edge, which must have a twin
+	 * @return true if the point opposite the half-edge lies on the circumcircle of its triangle
+	 */
+	public boolean isCocircular(int halfedge)
+	{
+		int u = triangles[halfedge], v = triangles[next(halfedge)], w = triangles[previous(halfedge)];
+		int x = triangles[previous(halfedges[halfedge])];
+		return ExactPredicates.inCircle(xs[u], ys[u], xs[v], ys[v], xs[w], ys[w], xs[x], ys[x]) == 0;
+	}
+
+	/**
+	 * Returns the number of distinct points. If there are no triangles, all of them are collinear and consecutive
+	 * points are neighbors along their line.
+	 *
+	 * @return the number of distinct points
+	 */
+	public int getPointCount()
+	{
+		return xs.length;
+	}
+
+	public long getX(int point)
+	{
+		return xs[point];
+	}
+
+	public long getY(int point)
+	{
+		return ys[point];
+	}
+
+	/**
+	 * Returns the point that the given input point was merged into.
+	 *
+	 * @param inputIndex the position of the point in the coordinates that were triangulated, counting pairs
+	 * @return the point
+	 */
+	public int getPoint(int inputIndex)
+	{
+		return inputPoints[inputIndex];
+	}
+
+	public int getTriangleCount()
+	{
+		return triangleCount;
+	}
+
+	/**
+	 * Returns the origin of every half-edge; see the description of this class for the layout.
+	 *
+	 * @return the points of the triangles, three per triangle in counterclockwise order
+	 */
+	public int[] getTriangles()
+	{
+		return triangles;
+	}
+
+	/**
+	 * Returns the twin of every half-edge, or -1 for a half-edge on the convex hull.
+	 *
+	 * @return the twins of the half-edges
+	 */
+	public int[] getHalfedges()
+	{
+		return halfedges;
+	}
+}
@@ -0,0 +1,91 @@
+package display;
+
+import auxiliary.Point;
+import delaunay.DelaunayTriangulation;
+import javafx.application.Application;
+import javafx.scene.Group;
+import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.stage.Stage;
+import voronoi.SiteEvent;
+import voronoi.VoronoiDiagram;
+
+import java.util.Set;
+
+/**
+ * Displays a Voronoi diagram and its Delaunay triangulation in a JavaFX window. This is kept separate from the
+ * command-line entry point so that the JavaFX toolkit is only started (and only needs to be on the classpath) when the
+ * diagrams are actually displayed.
+ *
+ * @author Willem Paul
+ */
+public class DisplayApplication extends Application
+{
+	private static final int WINDOW_WIDTH = 750;
+	private static final int WINDOW_HEIGHT = 750;
+
+	/* Application.launch instantiates this class itself, so the diagrams are handed over statically */
+	private static Set<SiteEvent> sitePoints;
+	private static VoronoiDiagram voronoiDiagram;
+	private static DelaunayTriangulation delaunayTriangulation;
+
+	private Visualizer visualizer;
+
+	/**
+	 * Starts the JavaFX toolkit and displays the given diagrams. Blocks until the window is closed.
+	 *
+	 * @param sitePoints            the site points of the Voronoi diagram
+	 * @param voronoiDiagram        the Voronoi diagram to display
+	 * @param delaunayTriangulation the Delaunay triangulation to display
+	 */
+	public static void show(Set<SiteEvent> sitePoints, VoronoiDiagram voronoiDiagram,
+	                        DelaunayTriangulation delaunayTriangulation)
+	{
+		DisplayApplication.sitePoints = sitePoints;
+		DisplayApplication.voronoiDiagram = voronoiDiagram;
+		DisplayApplication.delaunayTriangulation = delaunayTriangulation;
+
+		Application.launch(DisplayApplication.class);
+	}
+
+	@Override
+	public void start(Stage primaryStage)
+	{
+		double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE;
+		double minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+
+		for (Point site : sitePoints)
+		{
+			if (site.getX() < minX) minX = site.getX();
+			if (site.getX() > maxX) maxX = site.getX();
+			if (site.getY() < minY) minY = site.getY();
+			if (site.getY() > maxY) maxY = site.getY();
+		}
+
+		Group root = new Group();
+		Canvas canvas = new Canvas(WINDOW_WIDTH, WINDOW_HEIGHT);
+		root.getChildren().add(canvas);
+
+		primaryStage.setTitle("Voronoi Diagram");
+		primaryStage.setResizable(false);
+		primaryStage.setScene(new Scene(root));
+
+		visualizer = new Visualizer(canvas.getWidth(), canvas.getHeight(), canvas.getGraphicsContext2D());
+		visualizer.setScale(minX, maxX, minY, maxY);
+		//visualizer.setScale(sitePoints, voronoiDiagram.getVerticesForDisplay());
+		visualizer.enableNavigation();
+		primaryStage.show();
+
+		/* The geometry is prepared in the background and drawn as each layer becomes ready */
+		visualizer.plotSiteEvents(sitePoints);
+		visualizer.drawDCEL(voronoiDiagram);
+		visualizer.drawDCEL(delaunayTriangulation);
+	}
+
+	/* Closing the window discards the layers and the thread that prepares them */
+	@Override
+	public void stop()
+	{
+		if (visualizer != null) visualizer.close();
+	}
+}
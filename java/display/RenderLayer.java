@@ -0,0 +1,326 @@
+package display;
+
+import auxiliary.Point;
+import dcel.DCELEdge;
+import dcel.DCELVertex;
+import dcel.DoublyConnectedEdgeList;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * A flattened, display-ready copy of the geometry of a {@code DoublyConnectedEdgeList} or a set of points. Segment
+ * endpoints and points are stored in primitive arrays and bucketed into a uniform grid so that each frame only visits
+ * the geometry that overlaps the viewport. The geometry of a layer is never modified once built, so layers may be
+ * prepared on a background thread and handed to the FX thread for drawing.
+ *
+ * @author Willem Paul
+ */
+public class RenderLayer
+{
+	/* Upper bound on the number of grid cells along each axis */
+	private static final int MAX_GRID_SIZE = 1024;
+
+	private final Color color;
+
+	/* Segments are stored as (x1, y1, x2, y2) quadruples, points as (x, y) pairs */
+	private final double[] segments;
+	private final int segmentCount;
+	private final double[] points;
+	private final int pointCount;
+
+	private final double minX, minY, maxX, maxY;
+	private final int gridSize;
+	private final double cellWidth, cellHeight;
+
+	/* Compressed grid buckets; the items of cell c are stored in [cellStart[c], cellStart[c + 1]) */
+	private final int[] segmentCellStart, segmentCellItems;
+	private final int[] pointCellStart, pointCellItems;
+
+	/* Used to avoid drawing a segment twice when it is stored in several grid cells */
+	private final int[] segmentStamps;
+	private int frame;
+
+	/* The pixels already filled by sub-pixel segments in the current frame; only touched on the FX thread */
+	private BitSet filledPixels;
+
+	private RenderLayer(Color color, double[] segments, int segmentCount, double[] points, int pointCount)
+	{
+		this.color = color;
+		this.segments = segments;
+		this.segmentCount = segmentCount;
+		this.points = points;
+		this.pointCount = pointCount;
+
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+
+		for (int i = 0; i < segmentCount * 4; i += 2)
+		{
+			minX = Math.min(minX, segments[i]);
+			maxX = Math.max(maxX, segments[i]);
+			minY = Math.min(minY, segments[i + 1]);
+			maxY = Math.max(maxY, segments[i + 1]);
+		}
+		for (int i = 0; i < pointCount * 2; i += 2)
+		{
+			minX = Math.min(minX, points[i]);
+			maxX = Math.max(maxX, points[i]);
+			minY = Math.min(minY, points[i + 1]);
+			maxY = Math.max(maxY, points[i + 1]);
+		}
+
+		if (minX > maxX)
+		{
+			minX = maxX = minY = maxY = 0;
+		}
+
+		this.minX = minX;
+		this.minY = minY;
+		this.maxX = maxX;
+		this.maxY = maxY;
+
+		int items = Math.max(segmentCount, pointCount);
+		this.gridSize = Math.max(1, Math.min(MAX_GRID_SIZE, (int) Math.ceil(Math.sqrt(items / 4.0))));
+		this.cellWidth = Math.max((maxX - minX) / gridSize, Double.MIN_NORMAL);
+		this.cellHeight = Math.max((maxY - minY) / gridSize, Double.MIN_NORMAL);
+
+		int cellCount = gridSize * gridSize;
+
+		/* Bucket the segments; each one is stored in every cell its bounding box overlaps. */
+		this.segmentCellStart = new int[cellCount + 1];
+		for (int s = 0; s < segmentCount; s++)
+		{
+			int c0 = column(Math.min(segments[4 * s], segments[4 * s + 2]));
+			int c1 = column(Math.max(segments[4 * s], segments[4 * s + 2]));
+			int r0 = row(Math.min(segments[4 * s + 1], segments[4 * s + 3]));
+			int r1 = row(Math.max(segments[4 * s + 1], segments[4 * s + 3]));
+			for (int r = r0; r <= r1; r++)
+				for (int c = c0; c <= c1; c++)
+					segmentCellStart[r * gridSize + c + 1]++;
+		}
+		for (int c = 0; c < cellCount; c++) segmentCellStart[c + 1] += segmentCellStart[c];
+
+		this.segmentCellItems = new int[segmentCellStart[cellCount]];
+		int[] fill = new int[cellCount];
+		for (int s = 0; s < segmentCount; s++)
+		{
+			int c0 = column(Math.min(segments[4 * s], segments[4 * s + 2]));
+			int c1 = column(Math.max(segments[4 * s], segments[4 * s + 2]));
+			int r0 = row(Math.min(segments[4 * s + 1], segments[4 * s + 3]));
+			int r1 = row(Math.max(segments[4 * s + 1], segments[4 * s + 3]));
+			for (int r = r0; r <= r1; r++)
+				for (int c = c0; c <= c1; c++)
+				{
+					int cell = r * gridSize + c;
+					segmentCellItems[segmentCellStart[cell] + fill[cell]++] = s;
+				}
+		}
+
+		/* Bucket the points; each one is stored in exactly one cell. */
+		this.pointCellStart = new int[cellCount + 1];
+		for (int p = 0; p < pointCount; p++)
+			pointCellStart[row(points[2 * p + 1]) * gridSize + column(points[2 * p]) + 1]++;
+		for (int c = 0; c < cellCount; c++) pointCellStart[c + 1] += pointCellStart[c];
+
+		this.pointCellItems = new int[pointCount];
+		fill = new int[cellCount];
+		for (int p = 0; p < pointCount; p++)
+		{
+			int cell = row(points[2 * p + 1]) * gridSize + column(points[2 * p]);
+			pointCellItems[pointCellStart[cell] + fill[cell]++] = p;
+		}
+
+		this.segmentStamps = new int[segmentCount];
+		this.frame = 0;
+	}
+
+	/**
+	 * Flattens the non-bounding edges and vertices of the given {@code DoublyConnectedEdgeList} into a new layer. Each
+	 * pair of twin half-edges produces a single segment, wherever the twins are listed.
+	 *
+	 * @param dcel  the edge list to flatten
+	 * @param color the color in which the layer is drawn
+	 * @return the new {@code RenderLayer}
+	 */
+	public static RenderLayer fromDCEL(DoublyConnectedEdgeList dcel, Color color)
+	{
+		int segmentCount = 0;
+		for (DCELEdge edge : dcel.getEdges())
+		{
+			if (isDrawn(edge)) segmentCount++;
+		}
+
+		double[] segments = new double[4 * segmentCount];
+		int segment = 0;
+		for (DCELEdge edge : dcel.getEdges())
+		{
+			if (!isDrawn(edge)) continue;
+
+			Point start = edge.getOrigin().getCoordinates();
+			Point end = edge.getTwin().getOrigin().getCoordinates();
+
+			segments[4 * segment] = start.getX();
+			segments[4 * segment + 1] = start.getY();
+			segments[4 * segment + 2] = end.getX();
+			segments[4 * segment + 3] = end.getY();
+			segment++;
+		}
+
+		double[] points = new double[dcel.getVertices().size() * 2];
+		int pointCount = 0;
+
+		for (DCELVertex vertex : dcel.getVertices())
+		{
+			/* Don't display bounding box vertices; they aren't visible anyway */
+			if (!vertex.isBoundingVertex())
+			{
+				points[2 * pointCount] = vertex.getCoordinates().getX();
+				points[2 * pointCount + 1] = vertex.getCoordinates().getY();
+				pointCount++;
+			}
+		}
+
+		return new RenderLayer(color, segments, segmentCount, points, pointCount);
+	}
+
+	/*
+	 * Whether the half-edge is the one of its pair that is drawn: the one whose origin comes first by x and then y.
+	 * Bounding box edges aren't displayed, as they aren't visible anyway, and neither are edges whose ends coincide.
+	 */
+	private static boolean isDrawn(DCELEdge edge)
+	{
+		if (edge.isBoundingEdge() || edge.getOrigin() == null || edge.getTwin().getOrigin() == null) return false;
+
+		Point start = edge.getOrigin().getCoordinates(), end = edge.getTwin().getOrigin().getCoordinates();
+		int byX = Double.compare(start.getX(), end.getX());
+		return byX != 0 ? byX < 0 : Double.compare(start.getY(), end.getY()) < 0;
+	}
+
+	/**
+	 * Creates a layer containing only the given points.
+	 *
+	 * @param sitePoints the points to draw
+	 * @param color      the color in which the layer is drawn
+	 * @return the new {@code RenderLayer}
+	 */
+	public static RenderLayer fromPoints(Collection<? extends Point> sitePoints, Color color)
+	{
+		double[] points = new double[sitePoints.size() * 2];
+		int pointCount = 0;
+
+		for (Point p : sitePoints)
+		{
+			points[2 * pointCount] = p.getX();
+			points[2 * pointCount + 1] = p.getY();
+			pointCount++;
+		}
+
+		return new RenderLayer(color, new double[0], 0, points, pointCount);
+	}
+
+	public Color getColor()
+	{
+		return color;
+	}
+
+	/**
+	 * Draws the part of this layer that lies inside the visualizer's current viewport. Segments whose projection is
+	 * shorter than a pixel are merged into the pixel they start in, which is filled once however many of them fall
+	 * into it, so a zoomed-out view of a large diagram still shows where its edges are. Points are only drawn while
+	 * few enough of them are in view to be told apart.
+	 *
+	 * @param visualizer the visualizer providing the world-to-screen transformation and the graphics context
+	 */
+	void draw(Visualizer visualizer)
+	{
+		double viewMinX = visualizer.toWorldX(0), viewMaxX = visualizer.toWorldX(visualizer.getWindowWidth());
+		double viewMinY = visualizer.toWorldY(visualizer.getWindowHeight()), viewMaxY = visualizer.toWorldY(0);
+
+		if (viewMaxX < minX || viewMinX > maxX || viewMaxY < minY || viewMinY > maxY) return;
+
+		int c0 = column(viewMinX), c1 = column(viewMaxX);
+		int r0 = row(viewMinY), r1 = row(viewMaxY);
+		double offset = visualizer.getPointRadius() / 2;
+
+		if (++frame == 0)
+		{
+			Arrays.fill(segmentStamps, 0);
+			frame = 1;
+		}
+
+		int pixelColumns = (int) Math.ceil(visualizer.getWindowWidth());
+		int pixelRows = (int) Math.ceil(visualizer.getWindowHeight());
+		if (filledPixels == null) filledPixels = new BitSet(pixelColumns * pixelRows);
+		else filledPixels.clear();
+
+		visualizer.getGraphicsContext().setStroke(color);
+		visualizer.getGraphicsContext().setFill(color);
+
+		for (int r = r0; r <= r1; r++)
+		{
+			for (int c = c0; c <= c1; c++)
+			{
+				int cell = r * gridSize + c;
+				for (int i = segmentCellStart[cell]; i < segmentCellStart[cell + 1]; i++)
+				{
+					int s = segmentCellItems[i];
+					if (segmentStamps[s] == frame) continue;
+					segmentStamps[s] = frame;
+
+					double x1 = visualizer.toScreenX(segments[4 * s]);
+					double y1 = visualizer.toScreenY(segments[4 * s + 1]);
+					double x2 = visualizer.toScreenX(segments[4 * s + 2]);
+					double y2 = visualizer.toScreenY(segments[4 * s + 3]);
+
+					/* Sub-pixel segments are merged by the pixel they start in, which is filled once */
+					if (Math.abs(x2 - x1) < 1 && Math.abs(y2 - y1) < 1)
+					{
+						int px = (int) Math.floor(x1), py = (int) Math.floor(y1);
+						if (px < 0 || py < 0 || px >= pixelColumns || py >= pixelRows) continue;
+						if (filledPixels.get(py * pixelColumns + px)) continue;
+						filledPixels.set(py * pixelColumns + px);
+						visualizer.getGraphicsContext().fillRect(px + offset, py + offset, 1, 1);
+						continue;
+					}
+
+					visualizer.getGraphicsContext().strokeLine(x1 + offset, y1 + offset, x2 + offset, y2 + offset);
+				}
+			}
+		}
+
+		/* Only draw the points if they wouldn't cover the whole viewport */
+		int visiblePoints = 0;
+		for (int r = r0; r <= r1; r++)
+			visiblePoints += pointCellStart[r * gridSize + c1 + 1] - pointCellStart[r * gridSize + c0];
+
+		double screenArea = visualizer.getWindowWidth() * visualizer.getWindowHeight();
+		double pointArea = visualizer.getPointRadius() * visualizer.getPointRadius();
+		if (visiblePoints * pointArea > screenArea) return;
+
+		for (int r = r0; r <= r1; r++)
+		{
+			for (int i = pointCellStart[r * gridSize + c0]; i < pointCellStart[r * gridSize + c1 + 1]; i++)
+			{
+				int p = pointCellItems[i];
+				visualizer.getGraphicsContext().fillOval(visualizer.toScreenX(points[2 * p]),
+				                                         visualizer.toScreenY(points[2 * p + 1]),
+				                                         visualizer.getPointRadius(), visualizer.getPointRadius());
+			}
+		}
+	}
+
+	private int column(double x)
+	{
+		int c = (int) ((x - minX) / cellWidth);
+		return Math.max(0, Math.min(gridSize - 1, c));
+	}
+
+	private int row(double y)
+	{
+		int r = (int) ((y - minY) / cellHeight);
+		return Math.max(0, Math.min(gridSize - 1, r));
+	}
+}
@@ -1,29 +1,45 @@
 package display;
 
 import auxiliary.Point;
-import dcel.DCELEdge;
-import dcel.DCELVertex;
 import dcel.DoublyConnectedEdgeList;
 import delaunay.DelaunayTriangulation;
-import javafx.geometry.Point2D;
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 /**
  * @author Willem Paul
  */
-public class Visualizer
+public class Visualizer implements AutoCloseable
 {
+	private static final double ZOOM_FACTOR = 1.1;
+
 	private final double windowWidth, windowHeight;
 	private final double windowWidthMid, windowHeightMid;
 	private final GraphicsContext graphicsContext;
 	private double scale;
 
+	/* The current zoom and pan, applied on top of the scale */
+	private double zoom = 1;
+	private double panX = 0, panY = 0;
+	private double dragX, dragY;
+
 	private final double pointRadius = 6;
 
+	/* Layers are only ever touched on the FX thread; they are prepared on the background executor */
+	private final List<RenderLayer> layers;
+	private final ExecutorService preparer;
+
 	// TODO Make sure all DCEL vertices are visible
 	public Visualizer(double windowWidth, double windowHeight, GraphicsContext graphicsContext)
 	{
@@ -32,72 +48,123 @@ public class Visualizer
 		this.windowWidthMid = windowWidth / 2;
 		this.windowHeightMid = windowHeight / 2;
 		this.graphicsContext = graphicsContext;
+		this.layers = new ArrayList<>();
+		this.preparer = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "visualizer-preparer");
+			thread.setDaemon(true);
+			return thread;
+		});
 	}
 
-	public void plotSiteEvents(Set<? extends Point> sitePoints)
+	/**
+	 * Lets the user zoom with the scroll wheel (centered on the cursor) and pan by dragging the canvas the visualizer
+	 * draws on.
+	 */
+	public void enableNavigation()
 	{
-		graphicsContext.setFill(Color.RED);
+		Canvas canvas = graphicsContext.getCanvas();
 
-		for (Point site : sitePoints)
-		{
-			Point2D scaledPoint = scalePoint(site);
-			graphicsContext.fillOval(scaledPoint.getX(), scaledPoint.getY(), pointRadius, pointRadius);
-		}
+		canvas.setOnScroll(event -> {
+			double factor = event.getDeltaY() > 0 ? ZOOM_FACTOR : 1 / ZOOM_FACTOR;
+
+			/* Keep the point under the cursor fixed */
+			panX = event.getX() - windowWidthMid - (event.getX() - windowWidthMid - panX) * factor;
+			panY = event.getY() - windowHeightMid - (event.getY() - windowHeightMid - panY) * factor;
+			zoom *= factor;
+
+			redraw();
+		});
+
+		canvas.setOnMousePressed(event -> {
+			dragX = event.getX();
+			dragY = event.getY();
+		});
+
+		canvas.setOnMouseDragged(event -> {
+			panX += event.getX() - dragX;
+			panY += event.getY() - dragY;
+			dragX = event.getX();
+			dragY = event.getY();
+
+			redraw();
+		});
 	}
 
-	public void drawDCEL(DoublyConnectedEdgeList dcel)
+	/**
+	 * Prepares the given site points for display on a background thread and draws them once they are ready.
+	 *
+	 * @param sitePoints the site points to draw
+	 * @return a future that completes once the points have been drawn
+	 */
+	public CompletableFuture<Void> plotSiteEvents(Set<? extends Point> sitePoints)
 	{
-		if (dcel.getClass() == DelaunayTriangulation.class)
-		{
-			graphicsContext.setFill(Color.RED);
-			graphicsContext.setStroke(Color.RED);
-		}
-		else
-		{
-			graphicsContext.setFill(Color.BLACK);
-			graphicsContext.setStroke(Color.BLACK);
-		}
+		return addLayer(() -> RenderLayer.fromPoints(sitePoints, Color.RED));
+	}
 
-		graphicsContext.setLineWidth(pointRadius / 3);
+	/**
+	 * Prepares the geometry of the given {@code DoublyConnectedEdgeList} for display on a background thread and draws
+	 * it once it is ready. Delaunay triangulations are drawn in red; everything else is drawn in black.
+	 *
+	 * @param dcel the edge list to draw
+	 * @return a future that completes once the edge list has been drawn
+	 */
+	public CompletableFuture<Void> drawDCEL(DoublyConnectedEdgeList dcel)
+	{
+		Color color = dcel.getClass() == DelaunayTriangulation.class ? Color.RED : Color.BLACK;
+		return addLayer(() -> RenderLayer.fromDCEL(dcel, color));
+	}
 
-		DCELEdge prevEdge = null;
+	private CompletableFuture<Void> addLayer(Supplier<RenderLayer> layerSupplier)
+	{
+		CompletableFuture<Void> drawn = new CompletableFuture<>();
 
-		// TODO Extend unbounded edges to edge of window regardless of bounding box size
-		for (DCELEdge edge : dcel.getEdges())
-		{
-			if (prevEdge == null) prevEdge = edge;
+		CompletableFuture.supplyAsync(layerSupplier, preparer).whenComplete((layer, ex) -> Platform.runLater(() -> {
+			if (ex != null)
+			{
+				drawn.completeExceptionally(ex);
+				return;
+			}
 
-			if (!prevEdge.equals(edge.getTwin()))
+			if (preparer.isShutdown())
 			{
-				/* Don't display bounding box edges; they aren't visible anyway */
-				if (!edge.isBoundingEdge())
-				{
-					Point2D lineStart, lineEnd;
-
-					lineStart = scalePoint(edge.getOrigin().getCoordinates());
-					lineEnd = scalePoint(edge.getTwin().getOrigin().getCoordinates());
-
-					graphicsContext.strokeLine(lineStart.getX() + (pointRadius / 2),
-					                           lineStart.getY() + (pointRadius / 2),
-					                           lineEnd.getX() + (pointRadius / 2),
-					                           lineEnd.getY() + (pointRadius / 2));
-				}
+				drawn.cancel(false);
+				return;
 			}
 
-			prevEdge = edge;
-		}
+			layers.add(layer);
+			redraw();
+			drawn.complete(null);
+		}));
+
+		return drawn;
+	}
+
+	/**
+	 * Clears the canvas and draws the visible part of every prepared layer using the current zoom and pan. Must be
+	 * called on the FX thread.
+	 */
+	public void redraw()
+	{
+		graphicsContext.clearRect(0, 0, windowWidth, windowHeight);
+		graphicsContext.setLineWidth(pointRadius / 3);
 
-		for (DCELVertex vertex : dcel.getVertices())
+		for (RenderLayer layer : layers)
 		{
-			/* Don't display bounding box vertices; they aren't visible anyway */
-			if (!vertex.isBoundingVertex())
-			{
-				Point2D scaledPoint = scalePoint(vertex.getCoordinates());
-				graphicsContext.fillOval(scaledPoint.getX(), scaledPoint.getY(), pointRadius, pointRadius);
-			}
+			layer.draw(this);
 		}
 	}
 
+	/**
+	 * Stops the background thread that prepares the layers and discards the layers. Layers still being prepared are
+	 * never drawn. Must be called on the FX thread.
+	 */
+	@Override
+	public void close()
+	{
+		preparer.shutdownNow();
+		layers.clear();
+	}
+
 	public void setScale(double minX, double maxX, double minY, double maxY)
 	{
 		double maxMax = Math.max(maxX, maxY);
@@ -126,9 +193,43 @@ public class Visualizer
 		setScale(minX, maxX, minY, maxY);
 	}
 
-	private Point2D scalePoint(Point p)
+	double toScreenX(double x)
+	{
+		return (scale * zoom * x) + windowWidthMid + panX;
+	}
+
+	double toScreenY(double y)
+	{
+		return (-scale * zoom * y) + windowHeightMid + panY;
+	}
+
+	double toWorldX(double screenX)
+	{
+		return (screenX - windowWidthMid - panX) / (scale * zoom);
+	}
+
+	double toWorldY(double screenY)
+	{
+		return -(screenY - windowHeightMid - panY) / (scale * zoom);
+	}
+
+	double getWindowWidth()
+	{
+		return windowWidth;
+	}
+
+	double getWindowHeight()
+	{
+		return windowHeight;
+	}
+
+	double getPointRadius()
+	{
+		return pointRadius;
+	}
+
+	GraphicsContext getGraphicsContext()
 	{
-		return new Point2D((scale * p.getX()) + windowWidthMid,
-		                   (-scale * p.getY()) + windowHeightMid);
+		return graphicsContext;
 	}
 }
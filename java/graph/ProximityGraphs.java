@@ -0,0 +1,467 @@
+package graph;
+
+import dcel.DCELEdge;
+import dcel.DCELFace;
+import delaunay.DelaunayTriangulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * The proximity graphs contained in a Delaunay triangulation: the Euclidean minimum spanning tree, the nearest
+ * neighbour of every site, the Gabriel graph, the relative neighbourhood graph and the convex hull. Each is found from
+ * the O(n) Delaunay edges rather than by comparing every pair of sites: the tree in O(n log n) time, the relative
+ * neighbourhood graph in linear time for well-distributed sites and the others in linear time.
+ * <p>
+ * Sites are numbered from 0 in the order of their indices, as in {@link SiteAdjacency}. Edges are returned as flat
+ * arrays holding the two sites {@code a, b} of each edge in turn.
+ *
+ * @author Willem Paul
+ */
+public class ProximityGraphs
+{
+	private final boolean parallel;
+	private final double[] siteCoordinates;
+
+	/* The two ends of each Delaunay edge, the sites opposite it in the triangles on its left and right (or -1 on the
+	 * hull) and its squared length */
+	private final int[] ends;
+	private final int[] opposites;
+	private final double[] lengths;
+
+	/* The edges at each site, in compressed sparse row form */
+	private final int[] offsets;
+	private final int[] incidentEdges;
+
+	private final int[] hull;
+
+	public ProximityGraphs(DelaunayTriangulation delaunayTriangulation)
+	{
+		this(delaunayTriangulation, false);
+	}
+
+	/**
+	 * Reads the edges of the given Delaunay triangulation, from which the graphs are then extracted.
+	 *
+	 * @param delaunayTriangulation the Delaunay triangulation
+	 * @param parallel              whether the edges should be read, and the graphs extracted, in parallel
+	 */
+	public ProximityGraphs(DelaunayTriangulation delaunayTriangulation, boolean parallel)
+	{
+		this.parallel = parallel;
+
+		/* Number the sites by the order of their indices, which follow the input */
+		SiteNumbering numbering = new SiteNumbering(delaunayTriangulation.getVertices());
+		int siteCount = numbering.size();
+
+		this.siteCoordinates = new double[2 * siteCount];
+		for (int id = 0; id < siteCount; id++)
+		{
+			siteCoordinates[2 * id] = numbering.getSite(id).getCoordinates().getX();
+			siteCoordinates[2 * id + 1] = numbering.getSite(id).getCoordinates().getY();
+		}
+
+		/* Each edge is read from the half-edge whose origin has the smaller number, wherever its twin is listed */
+		List<DCELEdge> halfEdges = new ArrayList<>();
+		for (DCELEdge edge : delaunayTriangulation.getEdges())
+		{
+			if (numbering.getId(edge.getOrigin()) < numbering.getId(edge.getTwin().getOrigin())) halfEdges.add(edge);
+		}
+
+		int edgeCount = halfEdges.size();
+		this.ends = new int[2 * edgeCount];
+		this.opposites = new int[2 * edgeCount];
+		this.lengths = new double[edgeCount];
+
+		IntStream pairs = IntStream.range(0, edgeCount);
+		if (parallel) pairs = pairs.parallel();
+		pairs.forEach(pair -> {
+			DCELEdge edge = halfEdges.get(pair);
+			ends[2 * pair] = numbering.getId(edge.getOrigin());
+			ends[2 * pair + 1] = numbering.getId(edge.getTwin().getOrigin());
+			opposites[2 * pair] = opposite(edge, numbering);
+			opposites[2 * pair + 1] = opposite(edge.getTwin(), numbering);
+			lengths[pair] = squaredDistance(ends[2 * pair], ends[2 * pair + 1]);
+		});
+
+		/* Count the degrees, turn them into offsets and scatter the edges */
+		this.offsets = new int[siteCount + 1];
+		for (int end : ends)
+		{
+			offsets[end + 1]++;
+		}
+
+		for (int i = 0; i < siteCount; i++)
+		{
+			offsets[i + 1] += offsets[i];
+		}
+
+		this.incidentEdges = new int[ends.length];
+		int[] cursors = Arrays.copyOf(offsets, siteCount);
+		for (int i = 0; i < ends.length; i++)
+		{
+			incidentEdges[cursors[ends[i]]++] = i / 2;
+		}
+
+		this.hull = delaunayTriangulation.getFaces().size() < 2 ? collinearHull() : hull();
+	}
+
+	private static int opposite(DCELEdge edge, SiteNumbering numbering)
+	{
+		DCELFace face = edge.getIncidentFace();
+		if (face == null || face.isUnbounded()) return -1;
+		return numbering.getId(edge.getNext().getNext().getOrigin());
+	}
+
+	/* The half-edges on the hull have the unbounded face on their left, so they run clockwise around it */
+	private int[] hull()
+	{
+		int[] successors = new int[getSiteCount()];
+		Arrays.fill(successors, -1);
+
+		int first = Integer.MAX_VALUE, size = 0;
+		for (int i = 0; i < opposites.length; i++)
+		{
+			if (opposites[i] >= 0) continue;
+
+			int origin = ends[i], destination = ends[i ^ 1];
+			successors[destination] = origin;
+			first = Math.min(first, destination);
+			size++;
+		}
+
+		int[] hull = new int[size];
+		int site = first;
+		for (int i = 0; i < size; i++)
+		{
+			hull[i] = site;
+			site = successors[site];
+		}
+		return hull;
+	}
+
+	/* Without triangles, all sites lie on a line, whose ends are the hull */
+	private int[] collinearHull()
+	{
+		int n = getSiteCount();
+		if (n < 2) return n == 0 ? new int[0] : new int[] { 0 };
+
+		int lowest = 0, highest = 0;
+		for (int i = 1; i < n; i++)
+		{
+			if (compareLexicographically(i, lowest) < 0) lowest = i;
+			if (compareLexicographically(i, highest) > 0) highest = i;
+		}
+		return new int[] { Math.min(lowest, highest), Math.max(lowest, highest) };
+	}
+
+	private int compareLexicographically(int a, int b)
+	{
+		int byX = Double.compare(siteCoordinates[2 * a], siteCoordinates[2 * b]);
+		return byX != 0 ? byX : Double.compare(siteCoordinates[2 * a + 1], siteCoordinates[2 * b + 1]);
+	}
+
+	/**
+	 * Returns the Euclidean minimum spanning tree of the sites, found with Boruvka's algorithm: in each round, every
+	 * site finds its shortest edge to another component, every component takes the shortest of those of its sites and
+	 * the components are merged along them. The number of components at least halves each round, so there are at most
+	 * log n rounds over the O(n) Delaunay edges. The search for the shortest edges is done in parallel if this was
+	 * asked for. Edges of equal length are ordered by their position in the triangulation, which makes the tree
+	 * unique.
+	 *
+	 * @return the edges of the tree, in the order in which they were found
+	 */
+	public int[] getMinimumSpanningTree()
+	{
+		int n = getSiteCount();
+		int[] parents = new int[n];
+		int[] sizes = new int[n];
+		int[] components = new int[n];
+		for (int i = 0; i < n; i++)
+		{
+			parents[i] = components[i] = i;
+			sizes[i] = 1;
+		}
+
+		int[] shortest = new int[n];
+		int[] componentShortest = new int[n];
+		int[] tree = new int[2 * Math.max(n - 1, 0)];
+		int treeSize = 0;
+
+		/* A site whose edges all lie within its component stays so, and is not searched again */
+		int[] active = IntStream.range(0, n).toArray();
+		int activeCount = n;
+
+		boolean merged = true;
+		while (merged)
+		{
+			int count = activeCount;
+			IntStream rows = IntStream.range(0, count);
+			if (parallel) rows = rows.parallel();
+			rows.forEach(i -> shortest[active[i]] = shortestEdgeOut(active[i], components));
+
+			Arrays.fill(componentShortest, -1);
+			activeCount = 0;
+			for (int i = 0; i < count; i++)
+			{
+				int site = active[i], edge = shortest[site], component = components[site];
+				if (edge < 0) continue;
+
+				active[activeCount++] = site;
+				if (componentShortest[component] < 0 || isShorter(edge, componentShortest[component]))
+					componentShortest[component] = edge;
+			}
+
+			merged = false;
+			for (int component = 0; component < n; component++)
+			{
+				int edge = componentShortest[component];
+				if (edge < 0) continue;
+
+				/* Two components may have found the same edge */
+				int a = find(parents, ends[2 * edge]), b = find(parents, ends[2 * edge + 1]);
+				if (a == b) continue;
+
+				if (sizes[a] < sizes[b])
+				{
+					int swap = a;
+					a = b;
+					b = swap;
+				}
+				parents[b] = a;
+				sizes[a] += sizes[b];
+
+				tree[treeSize++] = ends[2 * edge];
+				tree[treeSize++] = ends[2 * edge + 1];
+				merged = true;
+			}
+
+			for (int site = 0; site < n; site++)
+			{
+				components[site] = find(parents, site);
+			}
+		}
+
+		/* The triangulation is connected, so the tree has n - 1 edges */
+		return tree;
+	}
+
+	private int shortestEdgeOut(int site, int[] components)
+	{
+		int shortest = -1;
+		for (int i = offsets[site]; i < offsets[site + 1]; i++)
+		{
+			int edge = incidentEdges[i];
+			int other = otherEnd(edge, site);
+			if (components[other] != components[site] && (shortest < 0 || isShorter(edge, shortest)))
+				shortest = edge;
+		}
+		return shortest;
+	}
+
+	private boolean isShorter(int edge, int other)
+	{
+		return lengths[edge] < lengths[other] || (lengths[edge] == lengths[other] && edge < other);
+	}
+
+	private static int find(int[] parents, int site)
+	{
+		int root = site;
+		while (parents[root] != root)
+		{
+			root = parents[root];
+		}
+
+		while (parents[site] != root)
+		{
+			int parent = parents[site];
+			parents[site] = root;
+			site = parent;
+		}
+		return root;
+	}
+
+	/**
+	 * Returns the nearest neighbour of every site, which is always one of its Delaunay neighbours. Of equally near
+	 * neighbours, the one with the lowest number is taken.
+	 *
+	 * @return the nearest neighbour of each site, or -1 for a site without neighbours
+	 */
+	public int[] getNearestNeighbors()
+	{
+		int n = getSiteCount();
+		int[] nearest = new int[n];
+
+		IntStream rows = IntStream.range(0, n);
+		if (parallel) rows = rows.parallel();
+		rows.forEach(site -> {
+			int best = -1;
+			double bestLength = Double.POSITIVE_INFINITY;
+			for (int i = offsets[site]; i < offsets[site + 1]; i++)
+			{
+				int edge = incidentEdges[i];
+				int other = otherEnd(edge, site);
+				if (lengths[edge] < bestLength || (lengths[edge] == bestLength && other < best))
+				{
+					best = other;
+					bestLength = lengths[edge];
+				}
+			}
+			nearest[site] = best;
+		});
+		return nearest;
+	}
+
+	/**
+	 * Returns the Gabriel graph: the edges whose smallest enclosing circle holds no other site. A Delaunay edge belongs
+	 * to it if the angles opposite it in its two triangles are acute, which takes constant time per edge.
+	 *
+	 * @return the edges of the Gabriel graph, in the order of the triangulation's edges
+	 */
+	public int[] getGabrielGraph()
+	{
+		return filterEdges(edge -> isAcute(edge, opposites[2 * edge]) && isAcute(edge, opposites[2 * edge + 1]));
+	}
+
+	private boolean isAcute(int edge, int opposite)
+	{
+		if (opposite < 0) return true;
+
+		int a = ends[2 * edge], b = ends[2 * edge + 1];
+		double cx = siteCoordinates[2 * opposite], cy = siteCoordinates[2 * opposite + 1];
+		return (siteCoordinates[2 * a] - cx) * (siteCoordinates[2 * b] - cx) +
+				(siteCoordinates[2 * a + 1] - cy) * (siteCoordinates[2 * b + 1] - cy) > 0;
+	}
+
+	/**
+	 * Returns the relative neighbourhood graph: the edges between two sites with no other site closer to both of them
+	 * than they are to each other, i.e. in the lune of the edge. Most Delaunay edges are ruled out by a site opposite
+	 * them in one of their triangles. For the others, the sites closer to one end than the other end is are searched,
+	 * which is enough: any such site has a Delaunay neighbour that is closer still, so following the closest neighbour
+	 * reaches the end through sites that are all closer to it. Searching the tree formed by these paths outward from
+	 * the end takes time in proportion to the number of sites near the edge and their degrees, which is constant on
+	 * average for well-distributed sites.
+	 *
+	 * @return the edges of the relative neighbourhood graph, in the order of the triangulation's edges
+	 */
+	public int[] getRelativeNeighborhoodGraph()
+	{
+		return filterEdges(edge -> !isInLune(edge, opposites[2 * edge]) && !isInLune(edge, opposites[2 * edge + 1]) &&
+				isLuneEmpty(edge));
+	}
+
+	private boolean isInLune(int edge, int site)
+	{
+		return site >= 0 && Math.max(squaredDistance(ends[2 * edge], site), squaredDistance(ends[2 * edge + 1], site)) <
+				lengths[edge];
+	}
+
+	private boolean isLuneEmpty(int edge)
+	{
+		int end = ends[2 * edge];
+		int[] stack = new int[16];
+		stack[0] = end;
+		int size = 1;
+
+		while (size > 0)
+		{
+			int site = stack[--size];
+			for (int i = offsets[site]; i < offsets[site + 1]; i++)
+			{
+				int other = otherEnd(incidentEdges[i], site);
+				if (other == end || squaredDistance(end, other) >= lengths[edge] || closestNeighbor(other, end) != site)
+					continue;
+
+				if (isInLune(edge, other)) return false;
+				if (size == stack.length) stack = Arrays.copyOf(stack, 2 * size);
+				stack[size++] = other;
+			}
+		}
+		return true;
+	}
+
+	/* The neighbour of the site closest to the target, or of equally close ones the lowest, which makes the paths a
+	 * tree */
+	private int closestNeighbor(int site, int target)
+	{
+		int closest = -1;
+		double closestDistance = Double.POSITIVE_INFINITY;
+		for (int i = offsets[site]; i < offsets[site + 1]; i++)
+		{
+			int other = otherEnd(incidentEdges[i], site);
+			double distance = squaredDistance(other, target);
+			if (distance < closestDistance || (distance == closestDistance && other < closest))
+			{
+				closest = other;
+				closestDistance = distance;
+			}
+		}
+		return closest;
+	}
+
+	private int otherEnd(int edge, int site)
+	{
+		return ends[2 * edge] == site ? ends[2 * edge + 1] : ends[2 * edge];
+	}
+
+	private int[] filterEdges(IntPredicate predicate)
+	{
+		IntStream edges = IntStream.range(0, lengths.length);
+		if (parallel) edges = edges.parallel();
+		int[] kept = edges.filter(predicate).toArray();
+
+		int[] graph = new int[2 * kept.length];
+		for (int i = 0; i < kept.length; i++)
+		{
+			graph[2 * i] = ends[2 * kept[i]];
+			graph[2 * i + 1] = ends[2 * kept[i] + 1];
+		}
+		return graph;
+	}
+
+	/**
+	 * Returns the sites on the convex hull in counterclockwise order, starting with the lowest number. If all of the
+	 * sites lie on a line, the hull consists of its two ends.
+	 *
+	 * @return the sites on the hull
+	 */
+	public int[] getConvexHull()
+	{
+		return hull;
+	}
+
+	/**
+	 * Returns all of the Delaunay edges, of which the other graphs are subgraphs.
+	 *
+	 * @return the edges of the triangulation, in the order of its edge list
+	 */
+	public int[] getDelaunayEdges()
+	{
+		return ends;
+	}
+
+	public int getSiteCount()
+	{
+		return siteCoordinates.length / 2;
+	}
+
+	/**
+	 * Returns the coordinates of the sites as a flat array holding {@code x, y} for each site in turn.
+	 *
+	 * @return the coordinates of the sites
+	 */
+	public double[] getSiteCoordinates()
+	{
+		return siteCoordinates;
+	}
+
+	private double squaredDistance(int a, int b)
+	{
+		double dx = siteCoordinates[2 * a] - siteCoordinates[2 * b];
+		double dy = siteCoordinates[2 * a + 1] - siteCoordinates[2 * b + 1];
+		return dx * dx + dy * dy;
+	}
+}
@@ -0,0 +1,177 @@
+package graph;
+
+import dcel.DCELEdge;
+import dcel.DCELFace;
+import dcel.DCELVertex;
+import delaunay.DelaunayTriangulation;
+import voronoi.VoronoiDiagram;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The natural-neighbour graph of a Voronoi diagram, i.e. which sites share a Voronoi edge, in compressed sparse row
+ * form: the neighbours of site {@code i} are {@code neighbors[offsets[i]]} up to (but excluding)
+ * {@code neighbors[offsets[i + 1]]}, in ascending order. Sites are numbered from 0 in the order in which their
+ * {@code SiteEvent}s were created, which is the order of the input.
+ *
+ * @author Willem Paul
+ */
+public class SiteAdjacency
+{
+	private final int[] offsets;
+	private final int[] neighbors;
+	private final double[] siteCoordinates;
+
+	public SiteAdjacency(VoronoiDiagram voronoiDiagram)
+	{
+		this(voronoiDiagram, false);
+	}
+
+	/**
+	 * Builds the adjacency of the sites of the given Voronoi diagram in one pass over its edges. A complete diagram is
+	 * read from its Voronoi edges; a diagram whose construction stopped after the sweep is read from the Delaunay
+	 * triangulation built during the sweep, whose edges connect the same pairs of sites.
+	 *
+	 * @param voronoiDiagram the Voronoi diagram
+	 * @param parallel       whether the edges should be read in parallel
+	 * @throws IllegalArgumentException if the diagram is neither complete nor has a Delaunay triangulation
+	 */
+	public SiteAdjacency(VoronoiDiagram voronoiDiagram, boolean parallel)
+	{
+		DelaunayTriangulation delaunayTriangulation = voronoiDiagram.getDelaunayTriangulation();
+		boolean fromVoronoiEdges = voronoiDiagram.isComplete();
+
+		if (!fromVoronoiEdges && delaunayTriangulation == null)
+			throw new IllegalArgumentException("An incomplete Voronoi diagram needs a Delaunay triangulation to find the adjacent sites");
+
+		/* Number the sites by the order of their indices, which follow the input */
+		SiteNumbering numbering;
+		if (fromVoronoiEdges)
+		{
+			List<DCELVertex> sites = voronoiDiagram.getFaces().stream()
+					.filter(face -> !face.isUnbounded())
+					.map(DCELFace::getSite)
+					.collect(Collectors.toList());
+			numbering = new SiteNumbering(sites);
+		}
+		else numbering = new SiteNumbering(delaunayTriangulation.getVertices());
+		int siteCount = numbering.size();
+
+		this.siteCoordinates = new double[2 * siteCount];
+		for (int id = 0; id < siteCount; id++)
+		{
+			siteCoordinates[2 * id] = numbering.getSite(id).getCoordinates().getX();
+			siteCoordinates[2 * id + 1] = numbering.getSite(id).getCoordinates().getY();
+		}
+
+		/*
+		 * Read the pair of sites on either side of each half-edge. Each edge is kept once, from the half-edge whose
+		 * site on the left has the smaller number, wherever its twin is listed
+		 */
+		List<DCELEdge> edges = fromVoronoiEdges ? voronoiDiagram.getEdges() : delaunayTriangulation.getEdges();
+		int[] ends = new int[2 * edges.size()];
+
+		IntStream halfEdges = IntStream.range(0, edges.size());
+		if (parallel) halfEdges = halfEdges.parallel();
+		halfEdges.forEach(i -> {
+			DCELEdge edge = edges.get(i);
+			ends[2 * i] = -1;
+
+			int from, to;
+			if (fromVoronoiEdges)
+			{
+				if (!edge.isVoronoiEdge()) return;
+				from = numbering.getId(edge.getIncidentFace().getSite());
+				to = numbering.getId(edge.getTwin().getIncidentFace().getSite());
+			}
+			else
+			{
+				from = numbering.getId(edge.getOrigin());
+				to = numbering.getId(edge.getTwin().getOrigin());
+			}
+
+			if (from < to)
+			{
+				ends[2 * i] = from;
+				ends[2 * i + 1] = to;
+			}
+		});
+
+		/* Count the degrees, turn them into offsets and scatter the neighbours */
+		this.offsets = new int[siteCount + 1];
+		for (int i = 0; i < ends.length; i += 2)
+		{
+			if (ends[i] < 0) continue;
+			offsets[ends[i] + 1]++;
+			offsets[ends[i + 1] + 1]++;
+		}
+
+		for (int i = 0; i < siteCount; i++)
+		{
+			offsets[i + 1] += offsets[i];
+		}
+
+		this.neighbors = new int[offsets[siteCount]];
+		int[] cursors = Arrays.copyOf(offsets, siteCount);
+		for (int i = 0; i < ends.length; i += 2)
+		{
+			if (ends[i] < 0) continue;
+			neighbors[cursors[ends[i]]++] = ends[i + 1];
+			neighbors[cursors[ends[i + 1]]++] = ends[i];
+		}
+
+		IntStream rows = IntStream.range(0, siteCount);
+		if (parallel) rows = rows.parallel();
+		rows.forEach(row -> Arrays.sort(neighbors, offsets[row], offsets[row + 1]));
+	}
+
+	public int getSiteCount()
+	{
+		return offsets.length - 1;
+	}
+
+	/**
+	 * Returns the offsets into the neighbour array; the array has one more element than there are sites.
+	 *
+	 * @return the offsets of the rows
+	 */
+	public int[] getOffsets()
+	{
+		return offsets;
+	}
+
+	public int[] getNeighbors()
+	{
+		return neighbors;
+	}
+
+	/**
+	 * Returns the coordinates of the sites as a flat array holding {@code x, y} for each site in turn.
+	 *
+	 * @return the coordinates of the sites
+	 */
+	public double[] getSiteCoordinates()
+	{
+		return siteCoordinates;
+	}
+
+	public int getDegree(int site)
+	{
+		return offsets[site + 1] - offsets[site];
+	}
+
+	/**
+	 * Determines whether the two sites share a Voronoi edge, in O(log d) time for a site of degree d.
+	 *
+	 * @param a the first site
+	 * @param b the second site
+	 * @return true if the sites are adjacent; false otherwise
+	 */
+	public boolean areAdjacent(int a, int b)
+	{
+		return Arrays.binarySearch(neighbors, offsets[a], offsets[a + 1], b) >= 0;
+	}
+}
@@ -0,0 +1,56 @@
+package graph;
+
+import dcel.DCELVertex;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Numbers the sites of a single diagram from 0, in the order of their indices, which follow the input. The numbers
+ * only depend on the sites given, so they take as much memory as there are sites, however many other diagrams have
+ * been built in the process.
+ *
+ * @author Willem Paul
+ */
+public class SiteNumbering
+{
+	private final DCELVertex[] sites;
+	private final Map<DCELVertex, Integer> ids;
+
+	public SiteNumbering(Collection<DCELVertex> sites)
+	{
+		this.sites = sites.toArray(new DCELVertex[0]);
+		Arrays.sort(this.sites, Comparator.comparingInt(DCELVertex::getIndex));
+
+		this.ids = new HashMap<>(2 * this.sites.length);
+		for (int id = 0; id < this.sites.length; id++)
+		{
+			ids.put(this.sites[id], id);
+		}
+	}
+
+	public int size()
+	{
+		return sites.length;
+	}
+
+	/**
+	 * Returns the number of the given site. The numbers can be looked up from several threads at once.
+	 *
+	 * @param site the site
+	 * @return the number of the site, or -1 if it is not one of the numbered sites
+	 */
+	public int getId(DCELVertex site)
+	{
+		Integer id = ids.get(site);
+		return id == null ? -1 : id;
+	}
+
+	public DCELVertex getSite(int id)
+	{
+		return sites[id];
+	}
+}
@@ -0,0 +1,142 @@
+package metrics;
+
+import auxiliary.Point;
+import dcel.DCELEdge;
+import dcel.DCELFace;
+import voronoi.VoronoiDiagram;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Geometric metrics of every cell of a complete Voronoi diagram, stored in primitive columns indexed like
+ * {@link VoronoiDiagram#getFaces()}: the metrics of {@code getFaces().get(i)} are found at index {@code i} of each
+ * column. The entries of the unbounded face are {@code NaN} (or 0 for the vertex count).
+ *
+ * @author Willem Paul
+ */
+public class CellMetrics
+{
+	private final double[] area;
+	private final double[] centroidX, centroidY;
+	private final double[] perimeter;
+	private final int[] vertexCount;
+	private final double[] maxSiteDistance;
+
+	public CellMetrics(VoronoiDiagram voronoiDiagram)
+	{
+		this(voronoiDiagram, true);
+	}
+
+	/**
+	 * Computes the metrics of every cell of the given Voronoi diagram in a single walk around each cell.
+	 *
+	 * @param voronoiDiagram the Voronoi diagram, which must be complete
+	 * @param parallel       whether the cells should be processed in parallel
+	 * @throws IllegalArgumentException if the construction of the diagram stopped after the sweep
+	 */
+	public CellMetrics(VoronoiDiagram voronoiDiagram, boolean parallel)
+	{
+		if (!voronoiDiagram.isComplete())
+			throw new IllegalArgumentException("The cells of an incomplete Voronoi diagram are not closed");
+
+		List<DCELFace> faces = voronoiDiagram.getFaces();
+		int n = faces.size();
+
+		this.area = new double[n];
+		this.centroidX = new double[n];
+		this.centroidY = new double[n];
+		this.perimeter = new double[n];
+		this.vertexCount = new int[n];
+		this.maxSiteDistance = new double[n];
+
+		IntStream cells = IntStream.range(0, n);
+		if (parallel) cells = cells.parallel();
+		cells.forEach(i -> computeCell(i, faces.get(i)));
+	}
+
+	private void computeCell(int i, DCELFace face)
+	{
+		DCELEdge start = face.getOuterComponent();
+		if (face.isUnbounded() || start == null)
+		{
+			area[i] = centroidX[i] = centroidY[i] = perimeter[i] = maxSiteDistance[i] = Double.NaN;
+			return;
+		}
+
+		/* The coordinates are taken relative to the site to limit cancellation in the shoelace sums */
+		Point site = face.getSite().getCoordinates();
+		double sx = site.getX(), sy = site.getY();
+
+		double doubleArea = 0, cx = 0, cy = 0, length = 0, maxDistanceSquared = 0;
+		int count = 0;
+
+		DCELEdge edge = start;
+		do
+		{
+			Point p = edge.getOrigin().getCoordinates();
+			Point q = edge.getNext().getOrigin().getCoordinates();
+			double px = p.getX() - sx, py = p.getY() - sy;
+			double qx = q.getX() - sx, qy = q.getY() - sy;
+
+			double cross = px * qy - qx * py;
+			doubleArea += cross;
+			cx += (px + qx) * cross;
+			cy += (py + qy) * cross;
+			length += Math.hypot(qx - px, qy - py);
+			maxDistanceSquared = Math.max(maxDistanceSquared, px * px + py * py);
+			count++;
+
+			edge = edge.getNext();
+		}
+		while (edge != start);
+
+		area[i] = doubleArea / 2;
+		centroidX[i] = sx + cx / (3 * doubleArea);
+		centroidY[i] = sy + cy / (3 * doubleArea);
+		perimeter[i] = length;
+		vertexCount[i] = count;
+		maxSiteDistance[i] = Math.sqrt(maxDistanceSquared);
+	}
+
+	public int getFaceCount()
+	{
+		return area.length;
+	}
+
+	public double[] getArea()
+	{
+		return area;
+	}
+
+	public double[] getCentroidX()
+	{
+		return centroidX;
+	}
+
+	public double[] getCentroidY()
+	{
+		return centroidY;
+	}
+
+	public double[] getPerimeter()
+	{
+		return perimeter;
+	}
+
+	public int[] getVertexCount()
+	{
+		return vertexCount;
+	}
+
+	/**
+	 * Returns, for each cell, the largest distance from the cell's site to any of its vertices, i.e. the radius of the
+	 * smallest circle around the site that contains the cell.
+	 *
+	 * @return the largest distance from each site to its cell's vertices
+	 */
+	public double[] getMaxSiteDistance()
+	{
+		return maxSiteDistance;
+	}
+}
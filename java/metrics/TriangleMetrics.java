@@ -0,0 +1,99 @@
+package metrics;
+
+import auxiliary.Point;
+import dcel.DCELEdge;
+import dcel.DCELFace;
+import delaunay.DelaunayTriangulation;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Quality metrics of every triangle of a Delaunay triangulation, stored in primitive columns indexed like
+ * {@link DelaunayTriangulation#getFaces()}. The entries of the unbounded face are {@code NaN}.
+ *
+ * @author Willem Paul
+ */
+public class TriangleMetrics
+{
+	private final double[] minAngle;
+	private final double[] circumradius;
+
+	public TriangleMetrics(DelaunayTriangulation delaunayTriangulation)
+	{
+		this(delaunayTriangulation, true);
+	}
+
+	/**
+	 * Computes the metrics of every triangle of the given Delaunay triangulation.
+	 *
+	 * @param delaunayTriangulation the Delaunay triangulation
+	 * @param parallel              whether the triangles should be processed in parallel
+	 */
+	public TriangleMetrics(DelaunayTriangulation delaunayTriangulation, boolean parallel)
+	{
+		List<DCELFace> faces = delaunayTriangulation.getFaces();
+		int n = faces.size();
+
+		this.minAngle = new double[n];
+		this.circumradius = new double[n];
+
+		IntStream triangles = IntStream.range(0, n);
+		if (parallel) triangles = triangles.parallel();
+		triangles.forEach(i -> computeTriangle(i, faces.get(i)));
+	}
+
+	private void computeTriangle(int i, DCELFace face)
+	{
+		DCELEdge edge = face.getOuterComponent();
+		if (face.isUnbounded() || edge == null)
+		{
+			minAngle[i] = circumradius[i] = Double.NaN;
+			return;
+		}
+
+		Point a = edge.getOrigin().getCoordinates();
+		Point b = edge.getNext().getOrigin().getCoordinates();
+		Point c = edge.getNext().getNext().getOrigin().getCoordinates();
+
+		/* The squared lengths of the sides opposite each corner */
+		double ab2 = squaredDistance(a, b), bc2 = squaredDistance(b, c), ca2 = squaredDistance(c, a);
+		double ab = Math.sqrt(ab2), bc = Math.sqrt(bc2), ca = Math.sqrt(ca2);
+
+		double doubleArea = Math.abs((b.getX() - a.getX()) * (c.getY() - a.getY()) -
+				                             (b.getY() - a.getY()) * (c.getX() - a.getX()));
+
+		/* The smallest angle is opposite the shortest side; atan2 stays accurate for very thin triangles */
+		double shortest2 = Math.min(ab2, Math.min(bc2, ca2));
+		double dot = (ab2 + bc2 + ca2 - 2 * shortest2) / 2;
+		minAngle[i] = Math.atan2(doubleArea, dot);
+
+		circumradius[i] = ab * bc * ca / (2 * doubleArea);
+	}
+
+	private static double squaredDistance(Point p, Point q)
+	{
+		double dx = p.getX() - q.getX(), dy = p.getY() - q.getY();
+		return dx * dx + dy * dy;
+	}
+
+	public int getFaceCount()
+	{
+		return minAngle.length;
+	}
+
+	/**
+	 * Returns the smallest interior angle of each triangle, in radians.
+	 *
+	 * @return the smallest angle of each triangle
+	 */
+	public double[] getMinAngle()
+	{
+		return minAngle;
+	}
+
+	public double[] getCircumradius()
+	{
+		return circumradius;
+	}
+}
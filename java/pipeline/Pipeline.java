@@ -0,0 +1,63 @@
+package pipeline;
+
+import cache.DiagramCache;
+import voronoi.SiteEvent;
+import voronoi.VoronoiDiagram;
+
+import java.util.Set;
+
+/**
+ * Builds only what a {@link PipelineConfiguration} asks for. Unless the complete Voronoi diagram is required, the
+ * construction stops right after the sweep, skipping the bounding box, the connection of the unbounded edges and the
+ * faces; the Delaunay triangulation is only built (during the sweep) if one of the requested outputs is read from it.
+ * Nothing is named or serialised until {@link PipelineResult#write(java.io.Writer)} is called.
+ *
+ * @author Willem Paul
+ */
+public class Pipeline
+{
+	private final PipelineConfiguration configuration;
+	private final DiagramCache cache;
+
+	public Pipeline(PipelineConfiguration configuration)
+	{
+		this(configuration, null);
+	}
+
+	/**
+	 * Creates a pipeline that takes the diagrams from the given cache, so that site sets it has seen before are not
+	 * built again. Configurations that need the same stages share the cached diagrams.
+	 *
+	 * @param configuration the outputs the pipeline has to produce
+	 * @param cache         the cache of diagrams, or null to build every diagram
+	 */
+	public Pipeline(PipelineConfiguration configuration, DiagramCache cache)
+	{
+		this.configuration = configuration;
+		this.cache = cache;
+	}
+
+	public PipelineConfiguration getConfiguration()
+	{
+		return configuration;
+	}
+
+	/**
+	 * Runs the stages needed for the configured outputs on the given sites.
+	 *
+	 * @param sites the sites for which to construct the outputs
+	 * @return the result, from which the configured outputs can be read or written
+	 */
+	public PipelineResult run(Set<SiteEvent> sites)
+	{
+		boolean buildDelaunayTriangulation = configuration.needsDelaunayTriangulation();
+		boolean complete = configuration.needsCompleteVoronoiDiagram();
+
+		VoronoiDiagram voronoiDiagram;
+		if (cache == null)
+			voronoiDiagram = new VoronoiDiagram(sites, null, false, buildDelaunayTriangulation, complete);
+		else voronoiDiagram = cache.get(sites, null, buildDelaunayTriangulation, complete);
+
+		return new PipelineResult(configuration, voronoiDiagram);
+	}
+}
@@ -0,0 +1,134 @@
+package pipeline;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Declares which outputs a {@link Pipeline} has to produce. The pipeline derives from them which construction stages
+ * it can skip.
+ *
+ * @author Willem Paul
+ */
+public class PipelineConfiguration
+{
+	public enum Output
+	{
+		/* The complete Voronoi diagram, with its bounding box and faces */
+		VORONOI_DIAGRAM,
+		VORONOI_VERTICES,
+		/* The complete Delaunay triangulation, with its triangles and convex hull */
+		DELAUNAY_TRIANGULATION,
+		DELAUNAY_EDGES,
+		SITE_ADJACENCY
+	}
+
+	private final Set<Output> outputs;
+
+	/**
+	 * Creates a configuration that requires the given outputs.
+	 *
+	 * @param outputs the outputs the pipeline has to produce
+	 * @throws IllegalArgumentException if no outputs are given
+	 */
+	public PipelineConfiguration(Set<Output> outputs)
+	{
+		if (outputs.isEmpty())
+			throw new IllegalArgumentException("A pipeline needs at least one output");
+
+		this.outputs = Collections.unmodifiableSet(EnumSet.copyOf(outputs));
+	}
+
+	/**
+	 * Returns the configuration that runs every stage and produces both complete diagrams.
+	 *
+	 * @return the configuration for the complete diagrams
+	 */
+	public static PipelineConfiguration full()
+	{
+		return new PipelineConfiguration(EnumSet.of(Output.VORONOI_DIAGRAM, Output.DELAUNAY_TRIANGULATION));
+	}
+
+	/**
+	 * Parses a comma-separated list of output names, such as {@code delaunay-edges,voronoi-vertices}. Names are not
+	 * case-sensitive and may use either hyphens or underscores.
+	 *
+	 * @param outputs the list of output names
+	 * @return the configuration that requires the listed outputs
+	 * @throws IllegalArgumentException if a name does not match any output
+	 */
+	public static PipelineConfiguration parse(String outputs)
+	{
+		Set<Output> parsed = EnumSet.noneOf(Output.class);
+
+		for (String name : outputs.split(","))
+		{
+			String constant = name.trim().replace('-', '_').toUpperCase(Locale.ROOT);
+			try
+			{
+				parsed.add(Output.valueOf(constant));
+			}
+			catch (IllegalArgumentException ex)
+			{
+				throw new IllegalArgumentException("Unknown output \"" + name.trim() + "\"; expected one of " +
+						                                   Arrays.toString(Output.values()));
+			}
+		}
+
+		return new PipelineConfiguration(parsed);
+	}
+
+	/**
+	 * Returns a configuration that requires the outputs of this one as well as the given ones.
+	 *
+	 * @param additionalOutputs the outputs to add
+	 * @return the extended configuration
+	 */
+	public PipelineConfiguration withOutputs(Output... additionalOutputs)
+	{
+		Set<Output> extended = EnumSet.copyOf(outputs);
+		Collections.addAll(extended, additionalOutputs);
+		return new PipelineConfiguration(extended);
+	}
+
+	public Set<Output> getOutputs()
+	{
+		return outputs;
+	}
+
+	public boolean requires(Output output)
+	{
+		return outputs.contains(output);
+	}
+
+	/**
+	 * Returns whether the Voronoi diagram has to be completed after the sweep, i.e. whether its unbounded edges have to
+	 * be connected to a bounding box and its faces computed.
+	 *
+	 * @return true if the bounding box and face stages have to run
+	 */
+	public boolean needsCompleteVoronoiDiagram()
+	{
+		return requires(Output.VORONOI_DIAGRAM);
+	}
+
+	/**
+	 * Returns whether the Delaunay triangulation has to be built during the sweep. The Delaunay edges and the site
+	 * adjacency are both read from it.
+	 *
+	 * @return true if the Delaunay triangulation is needed
+	 */
+	public boolean needsDelaunayTriangulation()
+	{
+		return requires(Output.DELAUNAY_TRIANGULATION) || requires(Output.DELAUNAY_EDGES) ||
+				requires(Output.SITE_ADJACENCY);
+	}
+
+	@Override
+	public String toString()
+	{
+		return outputs.toString();
+	}
+}
@@ -0,0 +1,212 @@
+package pipeline;
+
+import auxiliary.Point;
+import dcel.DCELEdge;
+import dcel.DCELVertex;
+import delaunay.DelaunayTriangulation;
+import graph.SiteAdjacency;
+import voronoi.VoronoiDiagram;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The outputs produced by a {@link Pipeline}. Only the outputs required by the pipeline's configuration are available;
+ * asking for any other one throws an {@code IllegalStateException}.
+ *
+ * @author Willem Paul
+ */
+public class PipelineResult
+{
+	private final PipelineConfiguration configuration;
+	private final VoronoiDiagram voronoiDiagram;
+
+	public PipelineResult(PipelineConfiguration configuration, VoronoiDiagram voronoiDiagram)
+	{
+		this.configuration = configuration;
+		this.voronoiDiagram = voronoiDiagram;
+	}
+
+	public PipelineConfiguration getConfiguration()
+	{
+		return configuration;
+	}
+
+	/**
+	 * Returns the complete Voronoi diagram.
+	 *
+	 * @return the Voronoi diagram
+	 * @throws IllegalStateException if the complete diagram was not required
+	 */
+	public VoronoiDiagram getVoronoiDiagram()
+	{
+		checkRequired(PipelineConfiguration.Output.VORONOI_DIAGRAM);
+		return voronoiDiagram;
+	}
+
+	/**
+	 * Returns the complete Delaunay triangulation.
+	 *
+	 * @return the Delaunay triangulation
+	 * @throws IllegalStateException if the triangulation was not required
+	 */
+	public DelaunayTriangulation getDelaunayTriangulation()
+	{
+		checkRequired(PipelineConfiguration.Output.DELAUNAY_TRIANGULATION);
+		return voronoiDiagram.getDelaunayTriangulation();
+	}
+
+	/**
+	 * Returns the coordinates of the Voronoi vertices, which are all known once the sweep has finished.
+	 *
+	 * @return the Voronoi vertices
+	 * @throws IllegalStateException if the vertices were not required
+	 */
+	public List<Point> getVoronoiVertices()
+	{
+		checkRequired(PipelineConfiguration.Output.VORONOI_VERTICES);
+
+		List<Point> points = new ArrayList<>();
+		for (DCELVertex vertex : voronoiDiagram.getVertices())
+		{
+			if (vertex.isVoronoiVertex()) points.add(vertex.getCoordinates());
+		}
+		return points;
+	}
+
+	/**
+	 * Returns the Delaunay edges as a flat array holding the coordinates {@code x1, y1, x2, y2} of each edge in turn.
+	 *
+	 * @return the coordinates of the Delaunay edges
+	 * @throws IllegalStateException if the edges were not required
+	 */
+	public double[] getDelaunayEdges()
+	{
+		checkRequired(PipelineConfiguration.Output.DELAUNAY_EDGES);
+
+		List<DCELEdge> edges = voronoiDiagram.getDelaunayTriangulation().getEdges();
+		double[] coordinates = new double[edges.size() * 2];
+		int length = 0;
+
+		/* Each edge is written from the first of its half-edges in the list, wherever its twin is listed */
+		Set<DCELEdge> written = new HashSet<>(edges.size());
+		for (DCELEdge edge : edges)
+		{
+			if (written.contains(edge.getTwin())) continue;
+			written.add(edge);
+
+			Point p = edge.getOrigin().getCoordinates();
+			Point q = edge.getTwin().getOrigin().getCoordinates();
+			coordinates[length++] = p.getX();
+			coordinates[length++] = p.getY();
+			coordinates[length++] = q.getX();
+			coordinates[length++] = q.getY();
+		}
+
+		return length == coordinates.length ? coordinates : Arrays.copyOf(coordinates, length);
+	}
+
+	/**
+	 * Returns the natural-neighbour graph of the sites, in compressed sparse row form.
+	 *
+	 * @return the adjacency of the sites
+	 * @throws IllegalStateException if the site adjacency was not required
+	 */
+	public SiteAdjacency getSiteAdjacency()
+	{
+		checkRequired(PipelineConfiguration.Output.SITE_ADJACENCY);
+		return new SiteAdjacency(voronoiDiagram, true);
+	}
+
+	/**
+	 * Writes each required output, in the order in which the outputs are declared, as a section of text. The complete
+	 * diagrams are written in the same format as before; the other outputs are written as plain coordinates, without
+	 * naming any part of the edge lists.
+	 *
+	 * @param writer the writer to write the outputs to
+	 * @throws IOException if writing fails
+	 */
+	public void write(Writer writer) throws IOException
+	{
+		DecimalFormat format = new DecimalFormat("###,###.####", DecimalFormatSymbols.getInstance(Locale.US));
+		boolean first = true;
+
+		for (PipelineConfiguration.Output output : configuration.getOutputs())
+		{
+			if (!first) writer.write("\n\n");
+			first = false;
+
+			switch (output)
+			{
+				case VORONOI_DIAGRAM:
+					writer.write("****** Voronoi Diagram ******\n");
+					writer.write(voronoiDiagram.toString());
+					break;
+				case DELAUNAY_TRIANGULATION:
+					writer.write("****** Delaunay Triangulation ******\n");
+					writer.write(voronoiDiagram.getDelaunayTriangulation().toString());
+					break;
+				case VORONOI_VERTICES:
+					writer.write("****** Voronoi Vertices ******\n");
+					for (Point p : getVoronoiVertices())
+					{
+						writePoint(writer, format, p.getX(), p.getY());
+						writer.write('\n');
+					}
+					break;
+				case DELAUNAY_EDGES:
+					writer.write("****** Delaunay Edges ******\n");
+					double[] coordinates = getDelaunayEdges();
+					for (int i = 0; i < coordinates.length; i += 4)
+					{
+						writePoint(writer, format, coordinates[i], coordinates[i + 1]);
+						writer.write("  ");
+						writePoint(writer, format, coordinates[i + 2], coordinates[i + 3]);
+						writer.write('\n');
+					}
+					break;
+				case SITE_ADJACENCY:
+					writer.write("****** Site Adjacency ******\n");
+					SiteAdjacency adjacency = getSiteAdjacency();
+					double[] sites = adjacency.getSiteCoordinates();
+					int[] offsets = adjacency.getOffsets();
+					int[] neighbors = adjacency.getNeighbors();
+					for (int site = 0; site < adjacency.getSiteCount(); site++)
+					{
+						writePoint(writer, format, sites[2 * site], sites[2 * site + 1]);
+						for (int i = offsets[site]; i < offsets[site + 1]; i++)
+						{
+							writer.write("  ");
+							writePoint(writer, format, sites[2 * neighbors[i]], sites[2 * neighbors[i] + 1]);
+						}
+						writer.write('\n');
+					}
+					break;
+			}
+		}
+	}
+
+	/* Uses the same format as Point.toString, but without creating a new formatter for every point */
+	private static void writePoint(Writer writer, DecimalFormat format, double x, double y) throws IOException
+	{
+		writer.write('(');
+		writer.write(format.format(x));
+		writer.write(", ");
+		writer.write(format.format(y));
+		writer.write(')');
+	}
+
+	private void checkRequired(PipelineConfiguration.Output output)
+	{
+		if (!configuration.requires(output))
+			throw new IllegalStateException("The pipeline was not configured to produce " + output);
+	}
+}
@@ -0,0 +1,109 @@
+package pipeline;
+
+import voronoi.SiteEvent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.StringTokenizer;
+
+/**
+ * Reads sites in the text format of the input files, or as a stream of binary coordinates. Sites that occur more than
+ * once are only read once.
+ *
+ * @author Willem Paul
+ */
+public class SiteReader
+{
+	private SiteReader()
+	{
+	}
+
+	/**
+	 * Reads sites written as pairs of coordinates, such as {@code (1.5, 2)}, any number to a line. Empty lines and
+	 * lines starting with {@code #} are skipped.
+	 *
+	 * @param reader the reader to read the sites from
+	 * @return the sites
+	 * @throws IOException              if the sites cannot be read
+	 * @throws IllegalArgumentException if a coordinate is not a finite number or a line ends between the two
+	 *                                  coordinates of a site
+	 */
+	public static Set<SiteEvent> readText(Reader reader) throws IOException
+	{
+		Set<SiteEvent> sites = new HashSet<>();
+		BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+
+		String line;
+		while ((line = lines.readLine()) != null)
+		{
+			line = line.trim();
+			if (line.isEmpty() || line.charAt(0) == '#') continue;
+
+			StringTokenizer tokenizer = new StringTokenizer(line, ") (");
+
+			int i = 0;
+			double[] coordinates = new double[2];
+			while (tokenizer.hasMoreTokens())
+			{
+				coordinates[i++] = Double.parseDouble(tokenizer.nextToken().replaceAll(",", ""));
+				if (i % 2 == 0)
+				{
+					sites.add(createSite(coordinates[0], coordinates[1]));
+					i = 0;
+				}
+			}
+			if (i != 0)
+				throw new IllegalArgumentException("The line \"" + line + "\" ends between the coordinates of a site");
+		}
+
+		return sites;
+	}
+
+	/**
+	 * Reads sites written as consecutive big-endian {@code double}s, {@code x} followed by {@code y} for each site, up
+	 * to the end of the stream.
+	 *
+	 * @param in the stream to read the sites from
+	 * @return the sites
+	 * @throws IOException              if the sites cannot be read
+	 * @throws IllegalArgumentException if a coordinate is not finite or the stream ends between the two coordinates
+	 *                                  of a site
+	 */
+	public static Set<SiteEvent> readBinary(InputStream in) throws IOException
+	{
+		Set<SiteEvent> sites = new HashSet<>();
+		InputStream buffered = new BufferedInputStream(in, 1 << 16);
+		byte[] site = new byte[2 * Double.BYTES];
+
+		while (true)
+		{
+			int read = buffered.readNBytes(site, 0, site.length);
+			if (read == 0) break;
+			if (read < site.length)
+				throw new IllegalArgumentException("The sites must be sent as pairs of 8-byte coordinates");
+
+			long x = 0, y = 0;
+			for (int i = 0; i < Double.BYTES; i++)
+			{
+				x = x << 8 | (site[i] & 0xFF);
+				y = y << 8 | (site[Double.BYTES + i] & 0xFF);
+			}
+			sites.add(createSite(Double.longBitsToDouble(x), Double.longBitsToDouble(y)));
+		}
+
+		return sites;
+	}
+
+	private static SiteEvent createSite(double x, double y)
+	{
+		if (!Double.isFinite(x) || !Double.isFinite(y))
+			throw new IllegalArgumentException("The coordinates of a site must be finite, not (" + x + ", " + y + ")");
+
+		return new SiteEvent(x, y);
+	}
+}
@@ -0,0 +1,28 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event for a circle that could not be computed through three sites (see
+ * {@code MathOps.circle}).
+ *
+ * @author Willem Paul
+ */
+@Name("voronoi.CircleFailure")
+@Label("Circle Failure")
+@Category("Voronoi Diagram")
+@Description("An exception thrown while computing the circle through three sites")
+public class CircleFailureEvent extends jdk.jfr.Event
+{
+	@Label("Message")
+	public String message;
+
+	@Label("Points")
+	public String points;
+
+	@Label("Sweep Line Position")
+	public double sweepLinePos;
+}
@@ -0,0 +1,34 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event spanning one construction phase of a Voronoi diagram or a Delaunay triangulation.
+ *
+ * @author Willem Paul
+ */
+@Name("voronoi.Phase")
+@Label("Construction Phase")
+@Category("Voronoi Diagram")
+@Description("One construction phase of a Voronoi diagram or Delaunay triangulation")
+public class PhaseEvent extends jdk.jfr.Event
+{
+	@Label("Diagram")
+	public String diagram;
+
+	@Label("Phase")
+	public String phase;
+
+	@Label("Sites")
+	public int sites;
+
+	public PhaseEvent(String diagram, String phase, int sites)
+	{
+		this.diagram = diagram;
+		this.phase = phase;
+		this.sites = sites;
+	}
+}
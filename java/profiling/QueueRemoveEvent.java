@@ -0,0 +1,24 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A Flight Recorder event for a removal of a cancelled circle event from the event queue. {@code PriorityQueue.remove}
+ * scans the queue linearly, so only the removals slower than the threshold are recorded.
+ *
+ * @author Willem Paul
+ */
+@Name("voronoi.QueueRemove")
+@Label("Slow Queue Removal")
+@Category("Voronoi Diagram")
+@Description("Removal of a cancelled circle event from the event queue")
+@Threshold("1 ms")
+public class QueueRemoveEvent extends jdk.jfr.Event
+{
+	@Label("Queue Size")
+	public int queueSize;
+}
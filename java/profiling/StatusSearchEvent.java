@@ -0,0 +1,44 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event for a search of the beach line that needed more comparisons than the red-black tree holding
+ * it can legally take, which is at most 2 log2(n + 1) for n arcs. Every comparison recomputes breakpoints, so deep
+ * searches are expensive.
+ *
+ * @author Willem Paul
+ */
+@Name("voronoi.StatusSearch")
+@Label("Deep Beach Line Search")
+@Category("Voronoi Diagram")
+@Description("A search of the beach line that took more comparisons than a red-black tree of its size allows")
+public class StatusSearchEvent extends jdk.jfr.Event
+{
+	@Label("Comparisons")
+	public long comparisons;
+
+	@Label("Beach Line Size")
+	public int beachLineSize;
+
+	@Label("Sweep Line Position")
+	public double sweepLinePos;
+
+	/**
+	 * Returns whether a search that took the given number of comparisons counts as deep, i.e. took more comparisons
+	 * than the height a red-black tree of the beach line's size can reach.
+	 *
+	 * @param comparisons   the number of comparisons the search took
+	 * @param beachLineSize the number of arcs on the beach line
+	 * @return true if the search is deep; false otherwise
+	 */
+	public static boolean isDeep(long comparisons, int beachLineSize)
+	{
+		/* log2(n + 1), rounded up */
+		int log2 = 32 - Integer.numberOfLeadingZeros(beachLineSize);
+		return comparisons > 2L * log2;
+	}
+}
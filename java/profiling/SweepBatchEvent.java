@@ -0,0 +1,37 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event spanning a fixed-size batch of consecutive sweep events. The fields describe the state of the
+ * sweep at the end of the batch.
+ *
+ * @author Willem Paul
+ */
+@Name("voronoi.SweepBatch")
+@Label("Sweep Batch")
+@Category("Voronoi Diagram")
+@Description("A batch of consecutive site and circle events processed by the line sweep")
+public class SweepBatchEvent extends jdk.jfr.Event
+{
+	/* The number of sweep events covered by each batch */
+	public static final int BATCH_SIZE = 4096;
+
+	@Label("Site Events")
+	public int siteEvents;
+
+	@Label("Circle Events")
+	public int circleEvents;
+
+	@Label("Sweep Line Position")
+	public double sweepLinePos;
+
+	@Label("Queue Size")
+	public int queueSize;
+
+	@Label("Beach Line Size")
+	public int beachLineSize;
+}
@@ -0,0 +1,274 @@
+package raster;
+
+import auxiliary.Point;
+import dcel.DCELEdge;
+import dcel.DCELFace;
+import voronoi.VoronoiDiagram;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * A raster in which every pixel holds the id of the site whose Voronoi cell contains the centre of the pixel, i.e. of
+ * the nearest site. Sites are numbered from 0 in input order, as in {@link graph.SiteAdjacency}; pixels outside the
+ * diagram hold {@link #NO_SITE}. Row 0 is the top of the extent and pixel {@code (column, row)} is stored at index
+ * {@code row * width + column}.
+ * <p>
+ * The raster is built by scan-converting the cells rather than searching for the nearest site of every pixel. Each
+ * cell is convex, so every row of pixels crosses it in a single span, whose ends are found by walking the edges of the
+ * cell once. The rows are divided into bands that are filled in parallel; every cell is only visited by the bands it
+ * overlaps, so the cost is proportional to the number of pixels plus the number of rows crossed by the edges.
+ *
+ * @author Willem Paul
+ */
+public class LabelRaster
+{
+	public static final int NO_SITE = -1;
+
+	/* The number of rows filled by one task */
+	private static final int BAND_HEIGHT = 64;
+
+	private final int width, height;
+	private final double minX, maxY;
+	private final double pixelWidth, pixelHeight;
+	private final int[] labels;
+
+	public LabelRaster(VoronoiDiagram voronoiDiagram, double minX, double minY, double maxX, double maxY, int width,
+	                   int height)
+	{
+		this(voronoiDiagram, minX, minY, maxX, maxY, width, height, true);
+	}
+
+	/**
+	 * Scan-converts the cells of the given Voronoi diagram into a raster of {@code width} by {@code height} pixels
+	 * covering the given extent.
+	 *
+	 * @param voronoiDiagram the Voronoi diagram, which must be complete
+	 * @param minX           the left edge of the extent
+	 * @param minY           the bottom edge of the extent
+	 * @param maxX           the right edge of the extent
+	 * @param maxY           the top edge of the extent
+	 * @param width          the number of columns of pixels
+	 * @param height         the number of rows of pixels
+	 * @param parallel       whether the bands of rows should be filled in parallel
+	 * @throws IllegalArgumentException if the diagram is incomplete, the extent is empty or the size is not positive
+	 */
+	public LabelRaster(VoronoiDiagram voronoiDiagram, double minX, double minY, double maxX, double maxY, int width,
+	                   int height, boolean parallel)
+	{
+		if (!voronoiDiagram.isComplete())
+			throw new IllegalArgumentException("The cells of an incomplete Voronoi diagram are not closed");
+		if (!(minX < maxX) || !(minY < maxY))
+			throw new IllegalArgumentException("The extent of the raster must not be empty");
+		if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("The size of the raster must be positive and fit in an array");
+
+		this.width = width;
+		this.height = height;
+		this.minX = minX;
+		this.maxY = maxY;
+		this.pixelWidth = (maxX - minX) / width;
+		this.pixelHeight = (maxY - minY) / height;
+		this.labels = new int[width * height];
+
+		List<DCELFace> faces = voronoiDiagram.getFaces();
+		int[] ids = numberSites(faces);
+
+		/* Find the rows each cell covers and list the cells overlapping each band */
+		int n = faces.size();
+		int[] firstRows = new int[n];
+		int[] lastRows = new int[n];
+		int bandCount = (height + BAND_HEIGHT - 1) / BAND_HEIGHT;
+		int[] bandOffsets = new int[bandCount + 1];
+
+		for (int i = 0; i < n; i++)
+		{
+			DCELFace face = faces.get(i);
+			firstRows[i] = 0;
+			lastRows[i] = -1;
+			if (face.isUnbounded() || face.getOuterComponent() == null) continue;
+
+			double low = Double.POSITIVE_INFINITY, high = Double.NEGATIVE_INFINITY;
+			DCELEdge edge = face.getOuterComponent();
+			do
+			{
+				double y = edge.getOrigin().getCoordinates().getY();
+				low = Math.min(low, y);
+				high = Math.max(high, y);
+				edge = edge.getNext();
+			}
+			while (edge != face.getOuterComponent());
+
+			firstRows[i] = Math.max(firstRow(high), 0);
+			lastRows[i] = Math.min(lastRow(low), height - 1);
+			for (int band = firstRows[i] / BAND_HEIGHT; band <= lastRows[i] / BAND_HEIGHT && firstRows[i] <= lastRows[i]; band++)
+			{
+				bandOffsets[band + 1]++;
+			}
+		}
+
+		for (int band = 0; band < bandCount; band++)
+		{
+			bandOffsets[band + 1] += bandOffsets[band];
+		}
+
+		int[] bandFaces = new int[bandOffsets[bandCount]];
+		int[] cursors = Arrays.copyOf(bandOffsets, bandCount);
+		for (int i = 0; i < n; i++)
+		{
+			for (int band = firstRows[i] / BAND_HEIGHT; band <= lastRows[i] / BAND_HEIGHT && firstRows[i] <= lastRows[i]; band++)
+			{
+				bandFaces[cursors[band]++] = i;
+			}
+		}
+
+		IntStream bands = IntStream.range(0, bandCount);
+		if (parallel) bands = bands.parallel();
+		bands.forEach(band -> {
+			int top = band * BAND_HEIGHT;
+			int bottom = Math.min(top + BAND_HEIGHT, height) - 1;
+			Arrays.fill(labels, top * width, (bottom + 1) * width, NO_SITE);
+
+			double[] left = new double[BAND_HEIGHT];
+			double[] right = new double[BAND_HEIGHT];
+			for (int k = bandOffsets[band]; k < bandOffsets[band + 1]; k++)
+			{
+				int i = bandFaces[k];
+				fillCell(faces.get(i), ids[i], Math.max(firstRows[i], top), Math.min(lastRows[i], bottom), top, left, right);
+			}
+		});
+	}
+
+	/* Numbers the sites by the order of their indices, which follow the input */
+	private static int[] numberSites(List<DCELFace> faces)
+	{
+		int minIndex = Integer.MAX_VALUE, maxIndex = Integer.MIN_VALUE;
+		for (DCELFace face : faces)
+		{
+			if (face.isUnbounded()) continue;
+			minIndex = Math.min(minIndex, face.getSite().getIndex());
+			maxIndex = Math.max(maxIndex, face.getSite().getIndex());
+		}
+
+		int[] table = new int[minIndex > maxIndex ? 0 : maxIndex - minIndex + 1];
+		Arrays.fill(table, NO_SITE);
+		for (DCELFace face : faces)
+		{
+			if (!face.isUnbounded()) table[face.getSite().getIndex() - minIndex] = 0;
+		}
+
+		int id = 0;
+		for (int i = 0; i < table.length; i++)
+		{
+			if (table[i] == 0) table[i] = id++;
+		}
+
+		int[] ids = new int[faces.size()];
+		for (int i = 0; i < faces.size(); i++)
+		{
+			DCELFace face = faces.get(i);
+			ids[i] = face.isUnbounded() ? NO_SITE : table[face.getSite().getIndex() - minIndex];
+		}
+
+		return ids;
+	}
+
+	/*
+	 * Fills the span of the given cell in each of the rows first through last. A pixel belongs to the cell if its
+	 * centre lies in the span, closed on the left and open on the right; an edge covers the rows whose centres lie
+	 * between its lower end (inclusive) and its upper end (exclusive). Both cells of an edge compute its crossings from
+	 * the same endpoints, so every pixel is filled exactly once.
+	 */
+	private void fillCell(DCELFace face, int id, int first, int last, int top, double[] left, double[] right)
+	{
+		if (first > last) return;
+
+		Arrays.fill(left, first - top, last - top + 1, Double.POSITIVE_INFINITY);
+		Arrays.fill(right, first - top, last - top + 1, Double.NEGATIVE_INFINITY);
+
+		DCELEdge start = face.getOuterComponent();
+		DCELEdge edge = start;
+		do
+		{
+			Point p = edge.getOrigin().getCoordinates();
+			Point q = edge.getNext().getOrigin().getCoordinates();
+			if (p.getY() > q.getY() || (p.getY() == q.getY() && p.getX() > q.getX()))
+			{
+				Point swap = p;
+				p = q;
+				q = swap;
+			}
+
+			int from = Math.max(firstRow(q.getY()), first);
+			int to = Math.min(lastRow(p.getY()), last);
+			double slope = (q.getX() - p.getX()) / (q.getY() - p.getY());
+			for (int row = from; row <= to; row++)
+			{
+				double x = p.getX() + (rowCentre(row) - p.getY()) * slope;
+				left[row - top] = Math.min(left[row - top], x);
+				right[row - top] = Math.max(right[row - top], x);
+			}
+
+			edge = edge.getNext();
+		}
+		while (edge != start);
+
+		for (int row = first; row <= last; row++)
+		{
+			if (left[row - top] > right[row - top]) continue;
+
+			int from = Math.max(firstColumn(left[row - top]), 0);
+			int to = Math.min(firstColumn(right[row - top]), width);
+			if (from < to) Arrays.fill(labels, row * width + from, row * width + to, id);
+		}
+	}
+
+	private double rowCentre(int row)
+	{
+		return maxY - (row + 0.5) * pixelHeight;
+	}
+
+	/* The first row whose centre lies strictly below y */
+	private int firstRow(double y)
+	{
+		return (int) Math.floor(Math.min((maxY - y) / pixelHeight - 0.5, height)) + 1;
+	}
+
+	/* The last row whose centre lies at or above y */
+	private int lastRow(double y)
+	{
+		return (int) Math.floor(Math.max((maxY - y) / pixelHeight - 0.5, -1));
+	}
+
+	/* The first column whose centre lies at or to the right of x */
+	private int firstColumn(double x)
+	{
+		return (int) Math.ceil(Math.max(Math.min((x - minX) / pixelWidth - 0.5, width), -1));
+	}
+
+	public int getWidth()
+	{
+		return width;
+	}
+
+	public int getHeight()
+	{
+		return height;
+	}
+
+	/**
+	 * Returns the labels of the pixels, row by row from the top of the extent.
+	 *
+	 * @return the site ids of the pixels
+	 */
+	public int[] getLabels()
+	{
+		return labels;
+	}
+
+	public int getLabel(int column, int row)
+	{
+		return labels[row * width + column];
+	}
+}
@@ -0,0 +1,214 @@
+package relaxation;
+
+import dcel.ClippingPolygon;
+import dcel.DCELFace;
+import metrics.CellMetrics;
+import voronoi.SiteEvent;
+import voronoi.VoronoiDiagram;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Lloyd's relaxation: repeatedly moves every site to the centroid of its Voronoi cell, clipped to a convex region,
+ * until no site moves further than a tolerance. The result approximates a centroidal Voronoi tessellation.
+ * <p>
+ * The sites only move a little between iterations, which each rebuild takes advantage of: the sites are kept in the
+ * sweep order of the previous iteration, so sorting them again is close to linear, and the coordinate, order and site
+ * buffers are allocated once and reused.
+ *
+ * @author Willem Paul
+ */
+public class LloydRelaxation
+{
+	private final ClippingPolygon region;
+	private final double tolerance;
+	private final int maxIterations;
+	private final boolean parallel;
+
+	/* The coordinates of the sites in input order, as x, y pairs */
+	private final double[] coordinates;
+
+	/* The input indices of the sites in the sweep order of the last iteration */
+	private final Integer[] order;
+	private final Comparator<Integer> sweepOrder;
+	private final SiteEvent[] sites;
+	private final SiteArray sitesView;
+
+	private VoronoiDiagram voronoiDiagram;
+	private int iterations;
+	private double maxDisplacement;
+
+	/**
+	 * Prepares the relaxation of the given sites. The coordinates are copied; they are never modified.
+	 *
+	 * @param coordinates   the coordinates of the sites as a flat array holding {@code x, y} for each site in turn
+	 * @param region        the region to which the cells are clipped
+	 * @param tolerance     the largest distance a site may still move once the relaxation has converged
+	 * @param maxIterations the number of iterations after which to stop even if the relaxation has not converged
+	 * @param parallel      whether the centroids should be computed in parallel
+	 * @throws IllegalArgumentException if the coordinates don't come in pairs or the tolerance is negative
+	 */
+	public LloydRelaxation(double[] coordinates, ClippingPolygon region, double tolerance, int maxIterations,
+	                       boolean parallel)
+	{
+		if (coordinates.length % 2 != 0)
+			throw new IllegalArgumentException("The coordinates must come in x, y pairs");
+		if (tolerance < 0)
+			throw new IllegalArgumentException("The tolerance must not be negative");
+
+		this.region = region;
+		this.tolerance = tolerance;
+		this.maxIterations = maxIterations;
+		this.parallel = parallel;
+		this.coordinates = coordinates.clone();
+
+		int n = coordinates.length / 2;
+		this.order = new Integer[n];
+		for (int i = 0; i < n; i++)
+		{
+			order[i] = i;
+		}
+
+		/* The same order as the sweep: descending y, then descending x */
+		double[] c = this.coordinates;
+		this.sweepOrder = (a, b) -> {
+			int compareY = Double.compare(c[2 * b + 1], c[2 * a + 1]);
+			return compareY == 0 ? Double.compare(c[2 * b], c[2 * a]) : compareY;
+		};
+
+		this.sites = new SiteEvent[n];
+		this.sitesView = new SiteArray(sites);
+		this.maxDisplacement = Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Iterates until the relaxation has converged or the maximum number of iterations has been reached.
+	 *
+	 * @return true if the relaxation converged
+	 */
+	public boolean run()
+	{
+		while (!isConverged() && iterations < maxIterations)
+		{
+			step();
+		}
+
+		return isConverged();
+	}
+
+	/**
+	 * Performs a single iteration: builds the clipped Voronoi diagram of the current sites and moves every site to the
+	 * centroid of its cell.
+	 *
+	 * @return the largest distance any site moved
+	 */
+	public double step()
+	{
+		/* The order of the last iteration is nearly sorted, which the (adaptive) sort takes advantage of */
+		Arrays.sort(order, sweepOrder);
+
+		/* The sweep modifies the cells of the site events, so they can't be reused. */
+		for (int k = 0; k < sites.length; k++)
+		{
+			int i = order[k];
+			sites[k] = new SiteEvent(coordinates[2 * i], coordinates[2 * i + 1]);
+		}
+
+		voronoiDiagram = new VoronoiDiagram(sitesView, region, false, false, true);
+		CellMetrics metrics = new CellMetrics(voronoiDiagram, parallel);
+
+		double[] centroidX = metrics.getCentroidX();
+		double[] centroidY = metrics.getCentroidY();
+		List<DCELFace> faces = voronoiDiagram.getFaces();
+
+		/* The cells are listed in sweep order, which is the order of the sites; cells entirely outside the region have
+		been dropped, and their sites stay where they are. */
+		double largest = 0;
+		int j = 1;
+		for (int k = 0; k < sites.length && j < faces.size(); k++)
+		{
+			if (faces.get(j) != sites[k].getCell()) continue;
+
+			int i = order[k];
+			double dx = centroidX[j] - coordinates[2 * i];
+			double dy = centroidY[j] - coordinates[2 * i + 1];
+			largest = Math.max(largest, Math.hypot(dx, dy));
+
+			coordinates[2 * i] = centroidX[j];
+			coordinates[2 * i + 1] = centroidY[j];
+			j++;
+		}
+
+		iterations++;
+		maxDisplacement = largest;
+		return largest;
+	}
+
+	public boolean isConverged()
+	{
+		return maxDisplacement <= tolerance;
+	}
+
+	public int getIterations()
+	{
+		return iterations;
+	}
+
+	/**
+	 * Returns the largest distance any site moved in the last iteration.
+	 *
+	 * @return the largest displacement of the last iteration, or positive infinity before the first iteration
+	 */
+	public double getMaxDisplacement()
+	{
+		return maxDisplacement;
+	}
+
+	/**
+	 * Returns the current coordinates of the sites, in input order. The array is updated in place by every iteration.
+	 *
+	 * @return the coordinates of the sites as a flat array holding {@code x, y} for each site in turn
+	 */
+	public double[] getCoordinates()
+	{
+		return coordinates;
+	}
+
+	/**
+	 * Returns the Voronoi diagram built in the last iteration, whose sites are the positions before that iteration
+	 * moved them.
+	 *
+	 * @return the last Voronoi diagram, or null before the first iteration
+	 */
+	public VoronoiDiagram getVoronoiDiagram()
+	{
+		return voronoiDiagram;
+	}
+
+	/* Presents the site array as a set without hashing; the sites are distinct by construction */
+	private static class SiteArray extends AbstractSet<SiteEvent>
+	{
+		private final SiteEvent[] sites;
+
+		SiteArray(SiteEvent[] sites)
+		{
+			this.sites = sites;
+		}
+
+		@Override
+		public Iterator<SiteEvent> iterator()
+		{
+			return Arrays.asList(sites).iterator();
+		}
+
+		@Override
+		public int size()
+		{
+			return sites.length;
+		}
+	}
+}
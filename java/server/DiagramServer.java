@@ -0,0 +1,329 @@
+package server;
+
+import cache.DiagramCache;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import pipeline.Pipeline;
+import pipeline.PipelineConfiguration;
+import pipeline.PipelineResult;
+import pipeline.SiteReader;
+import voronoi.SiteEvent;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds diagrams for clients on the local machine over HTTP, so that a stream of jobs is served by one warm JVM
+ * instead of paying for start-up and JIT compilation with every input file. The server only listens on the loopback
+ * address.
+ * <p>
+ * {@code POST /diagram} takes the sites as the request body, either in the text format of the input files or, with
+ * {@code Content-Type: application/octet-stream}, as big-endian {@code double} pairs. The optional {@code outputs}
+ * query parameter selects the outputs as on the command line, e.g. {@code /diagram?outputs=delaunay-edges}. The
+ * outputs are streamed back as they are written, in the format of the output file. {@code GET /status} reports the
+ * number of requests served.
+ * <p>
+ * Every request runs on its own virtual thread (on Java 21 and later), but at most a fixed number of diagrams are
+ * built at once; a request that cannot start building within the queue timeout is turned away with status 503.
+ * Vertices, edges and faces are named by counters shared with every other diagram built in the JVM, so their names are
+ * unique but, unlike those of a single run of {@code Main}, do not start from 1.
+ *
+ * @author Willem Paul
+ */
+public class DiagramServer implements AutoCloseable
+{
+	private static final String BINARY_CONTENT_TYPE = "application/octet-stream";
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final Semaphore builds;
+	private final long queueTimeoutMillis;
+	private final DiagramCache cache;
+
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicInteger building = new AtomicInteger();
+
+	/**
+	 * Starts a server on the given port of the loopback address.
+	 *
+	 * @param port                the port to listen on, or 0 for any free port
+	 * @param maxConcurrentBuilds the number of diagrams that may be built at once
+	 * @param queueTimeoutMillis  how long a request may wait for a build to finish before it is turned away
+	 * @param cache               the cache of diagrams shared by the requests, or null to build every diagram
+	 * @throws IOException              if the port cannot be bound
+	 * @throws IllegalArgumentException if fewer than one concurrent build is allowed or the timeout is negative
+	 */
+	public DiagramServer(int port, int maxConcurrentBuilds, long queueTimeoutMillis, DiagramCache cache)
+			throws IOException
+	{
+		if (maxConcurrentBuilds < 1)
+			throw new IllegalArgumentException("At least one diagram must be allowed to be built at a time");
+		if (queueTimeoutMillis < 0)
+			throw new IllegalArgumentException("The queue timeout must not be negative");
+
+		this.builds = new Semaphore(maxConcurrentBuilds, true);
+		this.queueTimeoutMillis = queueTimeoutMillis;
+		this.cache = cache;
+
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		this.executor = newThreadPerTaskExecutor();
+		server.setExecutor(executor);
+		server.createContext("/diagram", this::handleDiagram);
+		server.createContext("/status", this::handleStatus);
+		server.start();
+	}
+
+	/*
+	 * The sources are compiled for Java 17, which lacks virtual threads; on Java 21 and later, each request gets a
+	 * virtual thread, and on older versions a pooled platform thread
+	 */
+	private static ExecutorService newThreadPerTaskExecutor()
+	{
+		try
+		{
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (ReflectiveOperationException ex)
+		{
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	/**
+	 * Builds diagrams of random sites so that the sweep has been compiled by the time the first request arrives, which
+	 * makes the first requests as fast as later ones.
+	 *
+	 * @param rounds the number of diagrams to build
+	 * @param sites  the number of sites in each diagram
+	 */
+	public static void warmUp(int rounds, int sites)
+	{
+		Random random = new Random(0);
+		for (int round = 0; round < rounds; round++)
+		{
+			Set<SiteEvent> warmUpSites = new LinkedHashSet<>();
+			for (int i = 0; i < sites; i++)
+			{
+				warmUpSites.add(new SiteEvent(random.nextDouble() * 1000, random.nextDouble() * 1000));
+			}
+			new Pipeline(PipelineConfiguration.full()).run(warmUpSites);
+		}
+	}
+
+	private void handleDiagram(HttpExchange exchange) throws IOException
+	{
+		try
+		{
+			requests.incrementAndGet();
+			if (!exchange.getRequestMethod().equals("POST"))
+			{
+				sendError(exchange, 405, "The sites must be sent with POST");
+				return;
+			}
+
+			PipelineConfiguration configuration;
+			Set<SiteEvent> sites;
+			try
+			{
+				String outputs = getQueryParameter(exchange, "outputs");
+				configuration = outputs == null ? PipelineConfiguration.full() : PipelineConfiguration.parse(outputs);
+
+				String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+				InputStream body = exchange.getRequestBody();
+				if (contentType != null && contentType.startsWith(BINARY_CONTENT_TYPE))
+					sites = SiteReader.readBinary(body);
+				else sites = SiteReader.readText(new InputStreamReader(body, StandardCharsets.UTF_8));
+
+				if (sites.isEmpty()) throw new IllegalArgumentException("No sites were sent");
+			}
+			catch (IllegalArgumentException ex)
+			{
+				failed.incrementAndGet();
+				sendError(exchange, 400, ex.getMessage());
+				return;
+			}
+
+			PipelineResult result = build(exchange, configuration, sites);
+			if (result == null) return;
+
+			/* A length of 0 sends the response in chunks, so it is streamed while it is being written */
+			exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+			exchange.sendResponseHeaders(200, 0);
+			try (Writer writer = new BufferedWriter(
+					new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 1 << 16))
+			{
+				result.write(writer);
+			}
+			completed.incrementAndGet();
+		}
+		finally
+		{
+			exchange.close();
+		}
+	}
+
+	/* Builds the diagram once a build slot is free, or answers the request itself and returns null */
+	private PipelineResult build(HttpExchange exchange, PipelineConfiguration configuration, Set<SiteEvent> sites)
+			throws IOException
+	{
+		try
+		{
+			if (!builds.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS))
+			{
+				rejected.incrementAndGet();
+				sendError(exchange, 503, "Too many diagrams are being built; try again later");
+				return null;
+			}
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			rejected.incrementAndGet();
+			sendError(exchange, 503, "The server is shutting down");
+			return null;
+		}
+
+		building.incrementAndGet();
+		try
+		{
+			return new Pipeline(configuration, cache).run(sites);
+		}
+		catch (RuntimeException ex)
+		{
+			failed.incrementAndGet();
+			sendError(exchange, 500, "The diagram could not be built: " + ex);
+			return null;
+		}
+		finally
+		{
+			building.decrementAndGet();
+			builds.release();
+		}
+	}
+
+	private void handleStatus(HttpExchange exchange) throws IOException
+	{
+		try
+		{
+			StringBuilder status = new StringBuilder();
+			status.append("requests ").append(requests.get()).append('\n');
+			status.append("completed ").append(completed.get()).append('\n');
+			status.append("rejected ").append(rejected.get()).append('\n');
+			status.append("failed ").append(failed.get()).append('\n');
+			status.append("building ").append(building.get()).append('\n');
+			if (cache != null) status.append("cache ").append(cache).append('\n');
+
+			send(exchange, 200, status.toString());
+		}
+		finally
+		{
+			exchange.close();
+		}
+	}
+
+	private static String getQueryParameter(HttpExchange exchange, String name)
+	{
+		String query = exchange.getRequestURI().getRawQuery();
+		if (query == null) return null;
+
+		for (String parameter : query.split("&"))
+		{
+			int equals = parameter.indexOf('=');
+			if (equals >= 0 && URLDecoder.decode(parameter.substring(0, equals), StandardCharsets.UTF_8).equals(name))
+				return URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8);
+		}
+		return null;
+	}
+
+	private static void sendError(HttpExchange exchange, int status, String message) throws IOException
+	{
+		send(exchange, status, message + "\n");
+	}
+
+	private static void send(HttpExchange exchange, int status, String text) throws IOException
+	{
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody())
+		{
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Returns the port the server listens on, which is useful if it was started on any free port.
+	 *
+	 * @return the port
+	 */
+	public int getPort()
+	{
+		return server.getAddress().getPort();
+	}
+
+	public long getRequests()
+	{
+		return requests.get();
+	}
+
+	public long getCompleted()
+	{
+		return completed.get();
+	}
+
+	/**
+	 * Returns the number of requests turned away because no build slot came free within the queue timeout.
+	 *
+	 * @return the number of rejected requests
+	 */
+	public long getRejected()
+	{
+		return rejected.get();
+	}
+
+	public long getFailed()
+	{
+		return failed.get();
+	}
+
+	/**
+	 * Stops the server, giving the requests being served up to the given time to finish.
+	 *
+	 * @param delaySeconds the number of seconds to wait for the requests being served
+	 */
+	public void stop(int delaySeconds)
+	{
+		server.stop(delaySeconds);
+		executor.shutdown();
+	}
+
+	/**
+	 * Stops the server at once, cutting off the requests being served.
+	 */
+	@Override
+	public void close()
+	{
+		stop(0);
+	}
+}
@@ -0,0 +1,445 @@
+package tiles;
+
+import auxiliary.Point;
+import dcel.DCELEdge;
+import dcel.DoublyConnectedEdgeList;
+import delaunay.DelaunayTriangulation;
+import voronoi.VoronoiDiagram;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+/**
+ * Renders a Voronoi diagram and its Delaunay triangulation as a pyramid of slippy-map tiles ({@code z/x/y.png}).
+ * <p>
+ * The edges of both diagrams are bucketed once into a quadtree: each edge is stored once, in the cell of the deepest
+ * zoom level that contains it entirely, below which it would be split between several cells. The cells of each level
+ * are kept as a sorted array of Morton codes, so the edges lying inside a tile are found with a binary search per
+ * level. The edges stored above a zoom level are walked down the quadtree, into the children they cross, to list each
+ * tile of that level they pass through; each tile then reads its own share of that list, so it only touches the edges
+ * that pass through it, and only the tiles that some edge passes through are rendered. The work therefore grows with
+ * the number of tiles written rather than with the size of the zoom levels. The tiles themselves are rendered in
+ * parallel.
+ *
+ * @author Willem Paul
+ */
+public class TilePyramid
+{
+	/* The Morton codes of a level must fit in the upper half of a long */
+	public static final int MAX_ZOOM = 15;
+
+	private static final int TILE_SIZE = 256;
+	private static final Color VORONOI_COLOR = Color.BLACK;
+	private static final Color DELAUNAY_COLOR = Color.RED;
+
+	private final int maxZoom;
+
+	/* The square region of the plane covered by the zoom 0 tile */
+	private final double originX, originY, side;
+
+	/* Edges are stored as (x1, y1, x2, y2) quadruples, normalized to [0, 1] */
+	private final double[] segments;
+	private final boolean[] delaunay;
+	private final int segmentCount;
+
+	/* For each level, the cells holding an edge, packed as (Morton code << 32 | edge) and sorted */
+	private final long[][] levels;
+
+	/**
+	 * Buckets the edges of the given Voronoi diagram and Delaunay triangulation for rendering at zoom levels up to and
+	 * including {@code maxZoom}.
+	 *
+	 * @param voronoiDiagram        the Voronoi diagram to render
+	 * @param delaunayTriangulation the Delaunay triangulation to render
+	 * @param maxZoom               the deepest zoom level that will be rendered
+	 */
+	public TilePyramid(VoronoiDiagram voronoiDiagram, DelaunayTriangulation delaunayTriangulation, int maxZoom)
+	{
+		if (maxZoom < 0 || maxZoom > MAX_ZOOM)
+			throw new IllegalArgumentException("The zoom level must be between 0 and " + MAX_ZOOM);
+
+		this.maxZoom = maxZoom;
+
+		/* The bounding box of the Voronoi diagram encloses every vertex of both diagrams */
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for (DoublyConnectedEdgeList dcel : new DoublyConnectedEdgeList[]{voronoiDiagram, delaunayTriangulation})
+		{
+			for (int i = 0; i < dcel.getVertices().size(); i++)
+			{
+				Point p = dcel.getVertices().get(i).getCoordinates();
+				minX = Math.min(minX, p.getX());
+				maxX = Math.max(maxX, p.getX());
+				minY = Math.min(minY, p.getY());
+				maxY = Math.max(maxY, p.getY());
+			}
+		}
+		if (minX > maxX)
+		{
+			minX = minY = 0;
+			maxX = maxY = 1;
+		}
+
+		this.side = Math.max(Math.max(maxX - minX, maxY - minY), Double.MIN_NORMAL);
+		this.originX = (minX + maxX - side) / 2;
+		this.originY = (minY + maxY - side) / 2;
+
+		int capacity = 0;
+		for (DoublyConnectedEdgeList dcel : new DoublyConnectedEdgeList[]{voronoiDiagram, delaunayTriangulation})
+		{
+			for (DCELEdge edge : dcel.getEdges())
+			{
+				if (isRendered(edge)) capacity++;
+			}
+		}
+		this.segments = new double[capacity * 4];
+		this.delaunay = new boolean[capacity];
+		int count = addEdges(voronoiDiagram, false, 0);
+		count = addEdges(delaunayTriangulation, true, count);
+		this.segmentCount = count;
+
+		this.levels = bucketEdges();
+	}
+
+	/**
+	 * Renders every non-empty tile of the zoom levels {@code minZoom} through {@code maxZoom} in parallel and writes
+	 * each one to {@code directory/z/x/y.png}. Tiles that no edge passes through are neither rendered nor written.
+	 *
+	 * @param directory the directory under which the tiles are written
+	 * @param minZoom   the first zoom level to render
+	 * @param maxZoom   the last zoom level to render; must not exceed the zoom level the pyramid was built for
+	 * @return the number of tiles written
+	 * @throws IOException if a tile cannot be written
+	 */
+	public int writeTiles(File directory, int minZoom, int maxZoom) throws IOException
+	{
+		if (minZoom < 0 || maxZoom > this.maxZoom || minZoom > maxZoom)
+			throw new IllegalArgumentException("The zoom levels must be between 0 and " + this.maxZoom);
+
+		int written = 0;
+
+		try
+		{
+			for (int z = minZoom; z <= maxZoom; z++)
+			{
+				final int zoom = z;
+				int tilesPerSide = 1 << z;
+				long[] crossings = findCrossings(z);
+				long[] tiles = findTiles(z, crossings);
+
+				written += Arrays.stream(tiles).parallel().mapToInt(code -> {
+					int x = compact(code);
+					int y = tilesPerSide - 1 - compact(code >>> 1);
+					BufferedImage image = renderTile(zoom, code, crossings);
+					if (image == null) return 0;
+
+					try
+					{
+						File tileDirectory = new File(directory, zoom + File.separator + x);
+						tileDirectory.mkdirs();
+						ImageIO.write(image, "png", new File(tileDirectory, y + ".png"));
+						return 1;
+					}
+					catch (IOException ex)
+					{
+						throw new UncheckedIOException(ex);
+					}
+				}).sum();
+			}
+		}
+		catch (UncheckedIOException ex)
+		{
+			throw ex.getCause();
+		}
+
+		return written;
+	}
+
+	/**
+	 * Renders the tile at the given slippy-map coordinates, where {@code y} counts down from the top of the map. The
+	 * edges stored above the tile's zoom level are tested against the tile one by one, so rendering many tiles is
+	 * done faster by {@link #writeTiles(File, int, int)}.
+	 *
+	 * @param z the zoom level of the tile
+	 * @param x the column of the tile
+	 * @param y the row of the tile, counting from the top
+	 * @return the rendered tile, or {@code null} if no edge passes through it
+	 */
+	public BufferedImage renderTile(int z, int x, int y)
+	{
+		int row = (1 << z) - 1 - y;
+		long code = interleave(x, row);
+
+		/* The edges stored in the tile's ancestors that pass through it, listed as findCrossings would */
+		LongStream.Builder crossings = LongStream.builder();
+		for (int level = 0; level < z; level++)
+		{
+			long cell = code >>> (2 * (z - level));
+			long[] cells = levels[level];
+			for (int i = lowerBound(cells, cell << 32); i < cells.length && cells[i] < (cell + 1) << 32; i++)
+			{
+				if (crossesTile((int) cells[i], x, row, z, z)) crossings.add(code << 32 | (int) cells[i]);
+			}
+		}
+
+		return renderTile(z, code, crossings.build().sorted().toArray());
+	}
+
+	/*
+	 * Renders the tile with the given Morton code, drawing the edges that the crossings list for it and those stored in
+	 * the tile or its descendants, which lie inside it. Each edge is either stored below the tile or crosses it from
+	 * above, so none is drawn twice.
+	 */
+	private BufferedImage renderTile(int z, long code, long[] crossings)
+	{
+		double tileSize = 1.0 / (1 << z);
+		double tileMinX = compact(code) * tileSize, tileMinY = compact(code >>> 1) * tileSize;
+		double pixelsPerUnit = TILE_SIZE / tileSize;
+
+		Path2D.Double voronoiPath = new Path2D.Double();
+		Path2D.Double delaunayPath = new Path2D.Double();
+
+		boolean empty = true;
+
+		for (int i = lowerBound(crossings, code << 32); i < crossings.length && crossings[i] < (code + 1) << 32; i++)
+		{
+			addSegment((int) crossings[i], tileMinX, tileMinY, pixelsPerUnit, voronoiPath, delaunayPath);
+			empty = false;
+		}
+
+		for (int level = z; level <= maxZoom; level++)
+		{
+			long first = code << (2 * (level - z)), last = (code + 1) << (2 * (level - z));
+
+			long[] cells = levels[level];
+			for (int i = lowerBound(cells, first << 32); i < cells.length && cells[i] < last << 32; i++)
+			{
+				addSegment((int) cells[i], tileMinX, tileMinY, pixelsPerUnit, voronoiPath, delaunayPath);
+				empty = false;
+			}
+		}
+
+		if (empty) return null;
+
+		BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		graphics.setStroke(new BasicStroke(1.5f));
+		graphics.setColor(VORONOI_COLOR);
+		graphics.draw(voronoiPath);
+		graphics.setColor(DELAUNAY_COLOR);
+		graphics.draw(delaunayPath);
+		graphics.dispose();
+
+		return image;
+	}
+
+	private void addSegment(int s, double tileMinX, double tileMinY, double pixelsPerUnit, Path2D.Double voronoiPath,
+	                        Path2D.Double delaunayPath)
+	{
+		Path2D.Double path = delaunay[s] ? delaunayPath : voronoiPath;
+		path.moveTo((segments[4 * s] - tileMinX) * pixelsPerUnit,
+		            TILE_SIZE - (segments[4 * s + 1] - tileMinY) * pixelsPerUnit);
+		path.lineTo((segments[4 * s + 2] - tileMinX) * pixelsPerUnit,
+		            TILE_SIZE - (segments[4 * s + 3] - tileMinY) * pixelsPerUnit);
+	}
+
+	private int addEdges(DoublyConnectedEdgeList dcel, boolean isDelaunay, int count)
+	{
+		for (DCELEdge edge : dcel.getEdges())
+		{
+			if (!isRendered(edge)) continue;
+
+			Point start = edge.getOrigin().getCoordinates();
+			Point end = edge.getTwin().getOrigin().getCoordinates();
+
+			segments[4 * count] = (start.getX() - originX) / side;
+			segments[4 * count + 1] = (start.getY() - originY) / side;
+			segments[4 * count + 2] = (end.getX() - originX) / side;
+			segments[4 * count + 3] = (end.getY() - originY) / side;
+			delaunay[count] = isDelaunay;
+			count++;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Whether the half-edge is the one of its pair that is rendered: the one whose origin comes first by x and then y.
+	 * Bounding box edges aren't rendered, and neither are rays or edges whose ends coincide.
+	 */
+	private static boolean isRendered(DCELEdge edge)
+	{
+		if (edge.isBoundingEdge() || edge.getOrigin() == null || edge.getTwin().getOrigin() == null) return false;
+
+		Point start = edge.getOrigin().getCoordinates(), end = edge.getTwin().getOrigin().getCoordinates();
+		int byX = Double.compare(start.getX(), end.getX());
+		return byX != 0 ? byX < 0 : Double.compare(start.getY(), end.getY()) < 0;
+	}
+
+	private long[][] bucketEdges()
+	{
+		int cellsPerSide = 1 << maxZoom;
+		long[] cells = new long[segmentCount];
+		int[] levelSizes = new int[maxZoom + 1];
+
+		for (int s = 0; s < segmentCount; s++)
+		{
+			int x1 = cell(segments[4 * s], cellsPerSide), y1 = cell(segments[4 * s + 1], cellsPerSide);
+			int x2 = cell(segments[4 * s + 2], cellsPerSide), y2 = cell(segments[4 * s + 3], cellsPerSide);
+
+			/* The ends share the cells of every level above the highest bit in which their columns or rows differ */
+			int level = maxZoom - (32 - Integer.numberOfLeadingZeros((x1 ^ x2) | (y1 ^ y2)));
+			int shift = maxZoom - level;
+
+			cells[s] = (long) level << 48 | interleave(x1 >> shift, y1 >> shift);
+			levelSizes[level]++;
+		}
+
+		long[][] levels = new long[maxZoom + 1][];
+		for (int level = 0; level <= maxZoom; level++) levels[level] = new long[levelSizes[level]];
+
+		int[] fill = new int[maxZoom + 1];
+		for (int s = 0; s < segmentCount; s++)
+		{
+			int level = (int) (cells[s] >>> 48);
+			levels[level][fill[level]++] = (cells[s] & 0xFFFFFFFFFFFFL) << 32 | s;
+		}
+
+		for (long[] level : levels) Arrays.parallelSort(level);
+
+		return levels;
+	}
+
+	/**
+	 * Lists the tiles of the given zoom level that the edges stored above it pass through, packed as
+	 * (Morton code << 32 | edge) and sorted, so that the edges crossing each tile form a range. They are found by
+	 * walking down from the cells holding the edges, into the children each edge crosses.
+	 */
+	private long[] findCrossings(int z)
+	{
+		LongStream crossings = LongStream.empty();
+
+		for (int level = 0; level < z; level++)
+		{
+			int fromLevel = level;
+			crossings = LongStream.concat(crossings, Arrays.stream(levels[level]).parallel().flatMap(cell -> {
+				LongStream.Builder crossed = LongStream.builder();
+				long code = cell >>> 32;
+				walkDown((int) cell, compact(code), compact(code >>> 1), fromLevel, z, crossed);
+				return crossed.build();
+			}));
+		}
+
+		return crossings.parallel().sorted().toArray();
+	}
+
+	/**
+	 * Finds the tiles of the given zoom level that an edge passes through, as sorted Morton codes. The tiles holding
+	 * edges at this level or below are their ancestors; the others are those in the level's list of crossings.
+	 */
+	private long[] findTiles(int z, long[] crossings)
+	{
+		LongStream tiles = Arrays.stream(crossings).map(crossing -> crossing >>> 32);
+
+		for (int level = z; level <= maxZoom; level++)
+		{
+			int shift = 2 * (level - z) + 32;
+			tiles = LongStream.concat(tiles, Arrays.stream(levels[level]).map(cell -> cell >>> shift));
+		}
+
+		return tiles.parallel().sorted().distinct().toArray();
+	}
+
+	/* Adds the crossings of the tiles of zoom level z below the given cell that the edge passes through */
+	private void walkDown(int s, int x, int y, int level, int z, LongStream.Builder crossed)
+	{
+		if (level == z)
+		{
+			crossed.add(interleave(x, y) << 32 | s);
+			return;
+		}
+
+		for (int child = 0; child < 4; child++)
+		{
+			int childX = 2 * x + (child & 1), childY = 2 * y + (child >> 1);
+			if (crossesTile(s, childX, childY, level + 1, z)) walkDown(s, childX, childY, level + 1, z, crossed);
+		}
+	}
+
+	/* Whether the edge passes through the given cell, within a pixel of the tiles of zoom level z */
+	private boolean crossesTile(int s, int x, int y, int level, int z)
+	{
+		double size = 1.0 / (1 << level);
+		double margin = 1.0 / ((long) TILE_SIZE << z);
+		return crosses(s, x * size - margin, y * size - margin, (x + 1) * size + margin, (y + 1) * size + margin);
+	}
+
+	/* Whether the edge passes through the given rectangle */
+	private boolean crosses(int s, double minX, double minY, double maxX, double maxY)
+	{
+		double x1 = segments[4 * s], y1 = segments[4 * s + 1], x2 = segments[4 * s + 2], y2 = segments[4 * s + 3];
+		if (Math.max(x1, x2) < minX || Math.min(x1, x2) > maxX || Math.max(y1, y2) < minY || Math.min(y1, y2) > maxY)
+			return false;
+
+		/* The edge's line misses the rectangle if all four corners lie on the same side of it */
+		double dx = x2 - x1, dy = y2 - y1;
+		double a = dx * (minY - y1) - dy * (minX - x1), b = dx * (minY - y1) - dy * (maxX - x1);
+		double c = dx * (maxY - y1) - dy * (minX - x1), d = dx * (maxY - y1) - dy * (maxX - x1);
+		return !(a > 0 && b > 0 && c > 0 && d > 0) && !(a < 0 && b < 0 && c < 0 && d < 0);
+	}
+
+	private static int cell(double coordinate, int cellsPerSide)
+	{
+		return Math.max(0, Math.min(cellsPerSide - 1, (int) (coordinate * cellsPerSide)));
+	}
+
+	private static int lowerBound(long[] values, long key)
+	{
+		int low = 0, high = values.length;
+		while (low < high)
+		{
+			int mid = (low + high) >>> 1;
+			if (values[mid] < key) low = mid + 1;
+			else high = mid;
+		}
+		return low;
+	}
+
+	/* Interleaves the bits of x and y into a Morton code */
+	private static long interleave(int x, int y)
+	{
+		return spread(x) | (spread(y) << 1);
+	}
+
+	/* The inverse of spread, taking every other bit starting with the lowest */
+	private static int compact(long code)
+	{
+		long x = code & 0x55555555L;
+		x = (x | (x >>> 1)) & 0x33333333L;
+		x = (x | (x >>> 2)) & 0x0F0F0F0FL;
+		x = (x | (x >>> 4)) & 0x00FF00FFL;
+		x = (x | (x >>> 8)) & 0x0000FFFFL;
+		return (int) x;
+	}
+
+	private static long spread(int v)
+	{
+		long x = v & 0xFFFFL;
+		x = (x | (x << 8)) & 0x00FF00FFL;
+		x = (x | (x << 4)) & 0x0F0F0F0FL;
+		x = (x | (x << 2)) & 0x33333333L;
+		x = (x | (x << 1)) & 0x55555555L;
+		return x;
+	}
+}
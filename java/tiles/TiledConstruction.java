@@ -0,0 +1,689 @@
+package tiles;
+
+import auxiliary.MathOps;
+import auxiliary.Point;
+import dcel.ClippingPolygon;
+import dcel.DCELEdge;
+import dcel.DCELFace;
+import voronoi.SiteEvent;
+import voronoi.VoronoiDiagram;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Builds the Voronoi diagram of a site set too large to be swept in one heap, one spatial tile at a time. The sites
+ * are partitioned into a grid of tiles kept on disk as they are added. Each tile is then built on its own with a
+ * {@link VoronoiDiagram} of its sites and a halo of sites from the surrounding tiles, clipped to the extent of the whole
+ * site set, and only the cells of the tile's own sites are written out. Finally {@link #stitch(File)} joins the cells of
+ * all tiles into a single file.
+ * <p>
+ * A cell built from a subset of the sites can only be larger than the true one, and it is exactly the true cell if no
+ * site outside the subset is nearer to any of its vertices than its own site. The halo is therefore grown until, for
+ * every vertex of every cell of the tile, the circle around the vertex through the site lies within the region whose
+ * sites were used (or outside the extent, where there are no sites). The halo starts at four times the average distance
+ * between the tile's sites and is doubled as needed, so sparse regions next to dense ones are handled without making
+ * every halo large.
+ * <p>
+ * The coordinates of each vertex are computed from the sites around it in the order of their ids, so a vertex shared
+ * by cells of different tiles gets exactly the same coordinates in each of them and the cells fit together at the
+ * seams. Tiles are built in parallel on a fixed number of worker threads, each holding at most one tile and its halo.
+ * Sites are numbered from 0 in the order in which they were added; of several sites at the same position, only the
+ * first one gets a cell.
+ *
+ * @author Willem Paul
+ */
+public class TiledConstruction implements AutoCloseable
+{
+	public static final long NO_NEIGHBOR = -1;
+
+	private static final int MAGIC = 0x54494C45;
+	private static final int VERSION = 1;
+
+	/* The number of bytes of sites a tile collects in memory before they are appended to its file */
+	private static final int FLUSH_SIZE = 1 << 14;
+
+	private final File directory;
+	private final double minX, minY, maxX, maxY;
+	private final int columns, rows;
+	private final double tileWidth, tileHeight;
+	private final ClippingPolygon extent;
+
+	private final ByteArrayOutputStream[] pending;
+	private final int[] tileSiteCounts;
+	private long siteCount;
+	private boolean built;
+
+	private final AtomicInteger haloExpansions = new AtomicInteger();
+	private final AtomicLong widestHalo = new AtomicLong();
+
+	/**
+	 * Prepares a tiled construction over the given extent, which must contain every site that will be added.
+	 *
+	 * @param directory the directory in which to keep the tiles, which is created if needed
+	 * @param minX      the left edge of the extent
+	 * @param minY      the bottom edge of the extent
+	 * @param maxX      the right edge of the extent
+	 * @param maxY      the top edge of the extent
+	 * @param columns   the number of columns of tiles
+	 * @param rows      the number of rows of tiles
+	 * @throws IllegalArgumentException if the extent is empty, the grid has no tiles or the directory cannot be created
+	 */
+	public TiledConstruction(File directory, double minX, double minY, double maxX, double maxY, int columns, int rows)
+	{
+		if (!(minX < maxX && minY < maxY))
+			throw new IllegalArgumentException("The extent must not be empty");
+		if (columns < 1 || rows < 1)
+			throw new IllegalArgumentException("There must be at least one column and one row of tiles");
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IllegalArgumentException("The tile directory " + directory + " cannot be created");
+
+		this.directory = directory;
+		this.minX = minX;
+		this.minY = minY;
+		this.maxX = maxX;
+		this.maxY = maxY;
+		this.columns = columns;
+		this.rows = rows;
+		this.tileWidth = (maxX - minX) / columns;
+		this.tileHeight = (maxY - minY) / rows;
+		this.extent = new ClippingPolygon(List.of(new Point(minX, minY), new Point(maxX, minY), new Point(maxX, maxY),
+		                                          new Point(minX, maxY)));
+
+		this.pending = new ByteArrayOutputStream[columns * rows];
+		this.tileSiteCounts = new int[columns * rows];
+
+		/* Leftovers of an earlier construction in the same directory would otherwise be appended to */
+		for (int tile = 0; tile < columns * rows; tile++)
+		{
+			siteFile(tile).delete();
+			cellFile(tile).delete();
+		}
+	}
+
+	/**
+	 * Adds sites to the construction, numbering them after the ones added before. The sites are written to the
+	 * files of their tiles as those fill up, so the coordinates can be given in chunks of any size.
+	 *
+	 * @param coordinates the coordinates of the sites, as consecutive x, y pairs
+	 * @throws IOException              if a tile cannot be written
+	 * @throws IllegalArgumentException if the number of coordinates is odd or a site lies outside of the extent
+	 * @throws IllegalStateException    if the tiles have already been built
+	 */
+	public void addSites(double[] coordinates) throws IOException
+	{
+		if (built)
+			throw new IllegalStateException("Sites cannot be added once the tiles have been built");
+		if (coordinates.length % 2 != 0)
+			throw new IllegalArgumentException("The coordinates must come in x, y pairs");
+
+		for (int i = 0; i < coordinates.length; i += 2)
+		{
+			double x = coordinates[i], y = coordinates[i + 1];
+			if (!(x >= minX && x <= maxX && y >= minY && y <= maxY))
+				throw new IllegalArgumentException("The site (" + x + ", " + y + ") lies outside of the extent");
+
+			int tile = row(y) * columns + column(x);
+			if (pending[tile] == null) pending[tile] = new ByteArrayOutputStream(FLUSH_SIZE + 24);
+
+			DataOutputStream out = new DataOutputStream(pending[tile]);
+			out.writeLong(siteCount++);
+			out.writeDouble(x);
+			out.writeDouble(y);
+			tileSiteCounts[tile]++;
+
+			if (pending[tile].size() >= FLUSH_SIZE) flush(tile);
+		}
+	}
+
+	private void flush(int tile) throws IOException
+	{
+		if (pending[tile] == null || pending[tile].size() == 0) return;
+
+		try (FileOutputStream out = new FileOutputStream(siteFile(tile), true))
+		{
+			pending[tile].writeTo(out);
+		}
+		pending[tile].reset();
+	}
+
+	/**
+	 * Builds every tile on the given number of worker threads, writing the cells of each tile's own sites to disk.
+	 *
+	 * @param threads the number of tiles to build at the same time
+	 * @throws IOException              if a tile cannot be read or written
+	 * @throws IllegalArgumentException if the number of threads is not positive
+	 */
+	public void build(int threads) throws IOException
+	{
+		if (threads < 1)
+			throw new IllegalArgumentException("At least one thread is needed");
+
+		for (int tile = 0; tile < pending.length; tile++)
+		{
+			flush(tile);
+			pending[tile] = null;
+		}
+		built = true;
+
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+		try
+		{
+			List<Future<?>> tiles = new ArrayList<>();
+			for (int tile = 0; tile < columns * rows; tile++)
+			{
+				final int t = tile;
+				tiles.add(workers.submit(() -> {
+					try
+					{
+						buildTile(t);
+					}
+					catch (IOException ex)
+					{
+						throw new UncheckedIOException(ex);
+					}
+				}));
+			}
+
+			for (Future<?> tile : tiles)
+			{
+				tile.get();
+			}
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException("The construction was interrupted", ex);
+		}
+		catch (ExecutionException ex)
+		{
+			if (ex.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) ex.getCause()).getCause();
+			if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+			throw new IOException(ex.getCause());
+		}
+		finally
+		{
+			workers.shutdownNow();
+		}
+	}
+
+	private void buildTile(int tile) throws IOException
+	{
+		int column = tile % columns, row = tile / columns;
+		double tileMinX = minX + column * tileWidth, tileMaxX = column == columns - 1 ? maxX : tileMinX + tileWidth;
+		double tileMinY = minY + row * tileHeight, tileMaxY = row == rows - 1 ? maxY : tileMinY + tileHeight;
+		List<Cell> cells = new ArrayList<>();
+
+		/* The halo starts at a few times the average distance between the tile's sites */
+		double halo = 4 * Math.sqrt(tileWidth * tileHeight / Math.max(tileSiteCounts[tile], 1));
+		while (tileSiteCounts[tile] > 0)
+		{
+			/* The region whose sites are all used, open towards the sides where it reaches the extent */
+			double left = tileMinX - halo <= minX ? Double.NEGATIVE_INFINITY : tileMinX - halo;
+			double right = tileMaxX + halo >= maxX ? Double.POSITIVE_INFINITY : tileMaxX + halo;
+			double bottom = tileMinY - halo <= minY ? Double.NEGATIVE_INFINITY : tileMinY - halo;
+			double top = tileMaxY + halo >= maxY ? Double.POSITIVE_INFINITY : tileMaxY + halo;
+			boolean everything = left == Double.NEGATIVE_INFINITY && right == Double.POSITIVE_INFINITY &&
+					bottom == Double.NEGATIVE_INFINITY && top == Double.POSITIVE_INFINITY;
+
+			/* The tile's own sites come first, so that they are the ones kept among sites at the same position */
+			Map<Point, Long> ids = new IdentityHashMap<>();
+			Set<SiteEvent> sites = new LinkedHashSet<>();
+			readSites(tile, sites, ids, left, bottom, right, top);
+			for (int r = row(Math.max(bottom, minY)); r <= row(Math.min(top, maxY)); r++)
+			{
+				for (int c = column(Math.max(left, minX)); c <= column(Math.min(right, maxX)); c++)
+				{
+					if (r * columns + c != tile) readSites(r * columns + c, sites, ids, left, bottom, right, top);
+				}
+			}
+
+			VoronoiDiagram voronoiDiagram = new VoronoiDiagram(sites, extent, false, false, true);
+
+			cells.clear();
+			boolean secure = true;
+			for (DCELFace face : voronoiDiagram.getFaces())
+			{
+				if (face.isUnbounded() || face.getSite() == null) continue;
+
+				Point site = face.getSite().getCoordinates();
+				if (row(site.getY()) * columns + column(site.getX()) != tile) continue;
+
+				Cell cell = extractCell(face, ids.get(site), ids);
+				cells.add(cell);
+				if (secure && !everything) secure = isSecure(cell, left, bottom, right, top);
+			}
+
+			if (secure || everything)
+			{
+				/* Non-negative doubles are ordered like the longs with the same bits */
+				widestHalo.accumulateAndGet(Double.doubleToLongBits(halo), Math::max);
+				break;
+			}
+
+			halo *= 2;
+			haloExpansions.incrementAndGet();
+		}
+
+		writeCells(tile, cells);
+	}
+
+	/**
+	 * Reads the cell of the given face, computing each vertex from the sites around it in the order of their ids.
+	 */
+	private Cell extractCell(DCELFace face, long id, Map<Point, Long> ids)
+	{
+		Point site = face.getSite().getCoordinates();
+
+		List<DCELEdge> edges = new ArrayList<>();
+		DCELEdge start = face.getOuterComponent();
+		DCELEdge e = start;
+		do
+		{
+			edges.add(e);
+			e = e.getNext();
+		}
+		while (e != null && e != start);
+
+		int n = edges.size();
+		double[] vertices = new double[2 * n];
+		long[] neighbors = new long[n];
+		Point[] neighborSites = new Point[n];
+		for (int i = 0; i < n; i++)
+		{
+			DCELFace other = edges.get(i).getTwin().getIncidentFace();
+			boolean hasNeighbor = other != null && !other.isUnbounded() && other.getSite() != null;
+			neighborSites[i] = hasNeighbor ? other.getSite().getCoordinates() : null;
+			neighbors[i] = hasNeighbor ? ids.get(neighborSites[i]) : NO_NEIGHBOR;
+		}
+
+		for (int i = 0; i < n; i++)
+		{
+			/* Vertex i lies between the edge shared with the previous neighbor and the one shared with neighbor i */
+			Point local = edges.get(i).getOrigin().getCoordinates();
+			int previous = (i + n - 1) % n;
+			Point p = canonicalVertex(site, id, neighborSites[previous], neighbors[previous], neighborSites[i],
+			                          neighbors[i], local);
+			vertices[2 * i] = p.getX();
+			vertices[2 * i + 1] = p.getY();
+		}
+
+		return new Cell(id, site.getX(), site.getY(), vertices, neighbors);
+	}
+
+	private Point canonicalVertex(Point site, long id, Point a, long aId, Point b, long bId, Point local)
+	{
+		if (a != null && b != null && aId != bId)
+		{
+			/* A Voronoi vertex, computed from its three sites in the order of their ids */
+			Point[] points = {site, a, b};
+			long[] keys = {id, aId, bId};
+			sortByKey(points, keys);
+			try
+			{
+				return MathOps.circle(points[0], points[1], points[2]).getCenter();
+			}
+			catch (IllegalArgumentException ex)
+			{
+				return local;
+			}
+		}
+
+		/* Where an edge between two sites leaves the extent, it is intersected with the side it leaves through */
+		Point other = a != null ? a : b;
+		long otherId = a != null ? aId : bId;
+		if (other == null || (a != null && b != null)) return local;
+
+		Point p = id < otherId ? site : other;
+		Point q = id < otherId ? other : site;
+		double midX = (p.getX() + q.getX()) / 2, midY = (p.getY() + q.getY()) / 2;
+		double dx = q.getY() - p.getY(), dy = p.getX() - q.getX();
+
+		double toLeft = Math.abs(local.getX() - minX), toRight = Math.abs(local.getX() - maxX);
+		double toBottom = Math.abs(local.getY() - minY), toTop = Math.abs(local.getY() - maxY);
+		double nearest = Math.min(Math.min(toLeft, toRight), Math.min(toBottom, toTop));
+		if ((nearest == toLeft || nearest == toRight) && dx != 0)
+		{
+			double x = nearest == toLeft ? minX : maxX;
+			return new Point(x, midY + (x - midX) / dx * dy);
+		}
+		if (dy != 0)
+		{
+			double y = nearest == toBottom ? minY : maxY;
+			return new Point(midX + (y - midY) / dy * dx, y);
+		}
+		return local;
+	}
+
+	private static void sortByKey(Point[] points, long[] keys)
+	{
+		for (int i = 1; i < keys.length; i++)
+		{
+			for (int j = i; j > 0 && keys[j] < keys[j - 1]; j--)
+			{
+				long key = keys[j];
+				keys[j] = keys[j - 1];
+				keys[j - 1] = key;
+				Point point = points[j];
+				points[j] = points[j - 1];
+				points[j - 1] = point;
+			}
+		}
+	}
+
+	/*
+	 * Only sites within the circle around a vertex through the cell's site could be nearer to the vertex, so the cell
+	 * is exact if all of these circles lie within the region whose sites were used.
+	 */
+	private static boolean isSecure(Cell cell, double left, double bottom, double right, double top)
+	{
+		double[] vertices = cell.vertices;
+		for (int i = 0; i < vertices.length; i += 2)
+		{
+			double dx = vertices[i] - cell.x, dy = vertices[i + 1] - cell.y;
+			double radius = Math.sqrt(dx * dx + dy * dy);
+
+			if (vertices[i] - radius < left || vertices[i] + radius > right || vertices[i + 1] - radius < bottom ||
+					vertices[i + 1] + radius > top)
+				return false;
+		}
+		return true;
+	}
+
+	private void readSites(int tile, Set<SiteEvent> sites, Map<Point, Long> ids, double left, double bottom,
+	                       double right, double top) throws IOException
+	{
+		if (tileSiteCounts[tile] == 0) return;
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(siteFile(tile)))))
+		{
+			for (int i = 0; i < tileSiteCounts[tile]; i++)
+			{
+				long id = in.readLong();
+				double x = in.readDouble(), y = in.readDouble();
+				if (x < left || x > right || y < bottom || y > top) continue;
+
+				SiteEvent site = new SiteEvent(x, y);
+				if (sites.add(site)) ids.put(site, id);
+			}
+		}
+	}
+
+	private void writeCells(int tile, List<Cell> cells) throws IOException
+	{
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cellFile(tile)))))
+		{
+			out.writeInt(cells.size());
+			for (Cell cell : cells)
+			{
+				cell.write(out);
+			}
+		}
+	}
+
+	/**
+	 * Joins the cells of all tiles into the given file, tile by tile, and removes the files of the tiles. The file
+	 * starts with the extent and the number of cells; it can be read with {@link #readCells(File, Consumer)}.
+	 *
+	 * @param output the file to write
+	 * @return the number of cells written
+	 * @throws IOException           if the tiles cannot be read or the file cannot be written
+	 * @throws IllegalStateException if the tiles have not been built
+	 */
+	public long stitch(File output) throws IOException
+	{
+		if (!built)
+			throw new IllegalStateException("The tiles have to be built before they can be stitched");
+
+		long cellCount = 0;
+		int[] tileCellCounts = new int[columns * rows];
+		for (int tile = 0; tile < tileCellCounts.length; tile++)
+		{
+			try (DataInputStream in = new DataInputStream(new FileInputStream(cellFile(tile))))
+			{
+				tileCellCounts[tile] = in.readInt();
+				cellCount += tileCellCounts[tile];
+			}
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output), 1 << 16)))
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeDouble(minX);
+			out.writeDouble(minY);
+			out.writeDouble(maxX);
+			out.writeDouble(maxY);
+			out.writeLong(cellCount);
+
+			byte[] buffer = new byte[1 << 16];
+			for (int tile = 0; tile < tileCellCounts.length; tile++)
+			{
+				try (FileInputStream in = new FileInputStream(cellFile(tile)))
+				{
+					if (in.skip(4) != 4) throw new EOFException("The cells of tile " + tile + " are truncated");
+					for (int read; (read = in.read(buffer)) > 0; )
+					{
+						out.write(buffer, 0, read);
+					}
+				}
+			}
+		}
+
+		for (int tile = 0; tile < tileCellCounts.length; tile++)
+		{
+			siteFile(tile).delete();
+			cellFile(tile).delete();
+		}
+
+		return cellCount;
+	}
+
+	/**
+	 * Reads the cells of a file written by {@link #stitch(File)} one at a time, without holding them all in memory.
+	 *
+	 * @param input    the file to read
+	 * @param consumer the consumer to hand each cell to
+	 * @throws IOException if the file cannot be read or does not hold stitched cells
+	 */
+	public static void readCells(File input, Consumer<Cell> consumer) throws IOException
+	{
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(input), 1 << 16)))
+		{
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				throw new IOException("The input does not hold stitched cells");
+
+			for (int i = 0; i < 4; i++)
+			{
+				in.readDouble();
+			}
+
+			long cellCount = in.readLong();
+			for (long i = 0; i < cellCount; i++)
+			{
+				consumer.accept(Cell.read(in));
+			}
+		}
+	}
+
+	/**
+	 * Discards the sites that were added but not built, along with the files of the tiles.
+	 */
+	@Override
+	public void close()
+	{
+		for (int tile = 0; tile < columns * rows; tile++)
+		{
+			pending[tile] = null;
+			siteFile(tile).delete();
+			cellFile(tile).delete();
+		}
+	}
+
+	private int column(double x)
+	{
+		return Math.min((int) ((x - minX) / tileWidth), columns - 1);
+	}
+
+	private int row(double y)
+	{
+		return Math.min((int) ((y - minY) / tileHeight), rows - 1);
+	}
+
+	private File siteFile(int tile)
+	{
+		return new File(directory, "sites-" + tile + ".bin");
+	}
+
+	private File cellFile(int tile)
+	{
+		return new File(directory, "cells-" + tile + ".bin");
+	}
+
+	public long getSiteCount()
+	{
+		return siteCount;
+	}
+
+	/**
+	 * Returns the number of times a tile had to be rebuilt with a larger halo because one of its cells could not be
+	 * shown to be exact.
+	 *
+	 * @return the number of halo expansions
+	 */
+	public int getHaloExpansions()
+	{
+		return haloExpansions.get();
+	}
+
+	/**
+	 * Returns the widest halo needed by any tile, i.e. the distance by which the region of its sites had to extend
+	 * beyond the tile.
+	 *
+	 * @return the width of the widest halo
+	 */
+	public double getWidestHalo()
+	{
+		return Double.longBitsToDouble(widestHalo.get());
+	}
+
+	/**
+	 * The cell of one site, as the polygon of its vertices in counterclockwise order together with the site across
+	 * each of its edges.
+	 */
+	public static class Cell
+	{
+		private final long id;
+		private final double x, y;
+		private final double[] vertices;
+		private final long[] neighbors;
+
+		Cell(long id, double x, double y, double[] vertices, long[] neighbors)
+		{
+			this.id = id;
+			this.x = x;
+			this.y = y;
+			this.vertices = vertices;
+			this.neighbors = neighbors;
+		}
+
+		private void write(DataOutputStream out) throws IOException
+		{
+			out.writeLong(id);
+			out.writeDouble(x);
+			out.writeDouble(y);
+			out.writeInt(neighbors.length);
+			for (int i = 0; i < neighbors.length; i++)
+			{
+				out.writeDouble(vertices[2 * i]);
+				out.writeDouble(vertices[2 * i + 1]);
+				out.writeLong(neighbors[i]);
+			}
+		}
+
+		private static Cell read(DataInputStream in) throws IOException
+		{
+			long id = in.readLong();
+			double x = in.readDouble();
+			double y = in.readDouble();
+			int n = in.readInt();
+			double[] vertices = new double[2 * n];
+			long[] neighbors = new long[n];
+			for (int i = 0; i < n; i++)
+			{
+				vertices[2 * i] = in.readDouble();
+				vertices[2 * i + 1] = in.readDouble();
+				neighbors[i] = in.readLong();
+			}
+			return new Cell(id, x, y, vertices, neighbors);
+		}
+
+		/**
+		 * Returns the id of the cell's site, i.e. its position among the sites added.
+		 *
+		 * @return the id of the site
+		 */
+		public long getId()
+		{
+			return id;
+		}
+
+		public double getX()
+		{
+			return x;
+		}
+
+		public double getY()
+		{
+			return y;
+		}
+
+		public int getVertexCount()
+		{
+			return neighbors.length;
+		}
+
+		/**
+		 * Returns the vertices of the cell as consecutive x, y pairs, in counterclockwise order.
+		 *
+		 * @return the coordinates of the vertices
+		 */
+		public double[] getVertices()
+		{
+			return vertices;
+		}
+
+		/**
+		 * Returns, for each edge of the cell, the id of the site across it, or {@link #NO_NEIGHBOR} if the edge lies on
+		 * the boundary of the extent. Edge {@code i} runs from vertex {@code i} to vertex {@code i + 1}.
+		 *
+		 * @return the ids of the neighboring sites
+		 */
+		public long[] getNeighbors()
+		{
+			return neighbors;
+		}
+	}
+}
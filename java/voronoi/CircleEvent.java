@@ -14,7 +14,7 @@ public class CircleEvent extends Point
 
 	public CircleEvent(Circle circle, ArcSegment disappearingArcSegment)
 	{
-		super(circle.getBottomPoint());
+		super(circle.getCenter().getX(), circle.getCenter().getY() - circle.getRadius());
 		this.circle = circle;
 		this.disappearingArcSegment = disappearingArcSegment;
 	}
@@ -0,0 +1,890 @@
+package voronoi;
+
+import auxiliary.Point;
+import dcel.DCELEdge;
+import dcel.DCELFace;
+import dcel.DCELVertex;
+import dcel.DoublyConnectedEdgeList;
+import delaunay.DelaunayTriangulation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A Voronoi diagram whose sites can be moved after it has been built, for sites that change position a little at a
+ * time, such as tracked vehicles. Rather than building the diagram again, each batch of new positions repairs the
+ * Delaunay triangulation locally and updates only the Voronoi vertices and edges that are dual to what changed, so
+ * the cost of a batch depends on how much the triangulation changes and not on the number of sites.
+ * <p>
+ * A site that stays inside the polygon formed by its neighbors (and, on the convex hull, keeps the hull convex) is
+ * simply moved, after which Lawson's edge flips restore the Delaunay property around it. A site that leaves that
+ * polygon is taken out of the triangulation, whose hole is filled by clipping ears with empty circumcircles, and put
+ * back in at its new position by walking to the triangle containing it, splitting that triangle (or connecting the
+ * site to the hull edges it sees) and flipping again.
+ * <p>
+ * The diagram is kept as the exact dual of the triangulation: every triangle is a Voronoi vertex at its circumcenter
+ * and every Delaunay edge a Voronoi edge between the cells of its ends. The diagram is neither enclosed in a bounding
+ * box nor clipped, so the edges dual to hull edges are rays: they have no origin at their far end and run in the
+ * direction given by {@link DCELEdge#getDirection()}, and the cells of hull sites are open chains starting with
+ * such a ray. Cocircular sites give one Voronoi vertex per triangle, at the same position.
+ *
+ * @author Willem Paul
+ */
+public class KineticVoronoiDiagram extends DoublyConnectedEdgeList
+{
+	/* Determinants smaller than this fraction of the magnitude of their terms are taken to be zero */
+	private static final double EPSILON = 1e-12;
+
+	private final DelaunayTriangulation delaunayTriangulation;
+	private final DCELFace outside;
+
+	private final Map<DCELVertex, DCELFace> cells = new HashMap<>();
+	private final Map<DCELVertex, DCELVertex> sites = new HashMap<>();
+	private final Map<DCELEdge, DCELEdge> duals = new HashMap<>();
+	private final Map<DCELFace, DCELVertex> circumcenters = new HashMap<>();
+
+	/* Where everything that can be removed is listed, so that it can be removed without searching the lists */
+	private final Map<DCELEdge, Integer> delaunayEdgePositions = new HashMap<>();
+	private final Map<DCELFace, Integer> trianglePositions = new HashMap<>();
+	private final Map<DCELEdge, Integer> edgePositions = new HashMap<>();
+	private final Map<DCELVertex, Integer> vertexPositions = new HashMap<>();
+
+	/* What the current batch has changed, so that only that part of the dual is brought up to date */
+	private Set<DCELFace> changedTriangles = new HashSet<>();
+	private Set<DCELEdge> changedEdges = new HashSet<>();
+	private Set<DCELVertex> changedSites = new HashSet<>();
+	private final ArrayDeque<DCELEdge> uncheckedEdges = new ArrayDeque<>();
+
+	private long flips, reinsertions;
+
+	/**
+	 * Creates a movable diagram from the given Voronoi diagram, which must have been built together with its Delaunay
+	 * triangulation. The triangulation and its sites are copied, so that neither the given diagram nor its sites
+	 * change as the sites of this one move.
+	 *
+	 * @param voronoiDiagram the diagram whose sites are to be moved
+	 * @throws IllegalArgumentException if the diagram has no Delaunay triangulation or all of its sites lie on a line
+	 */
+	public KineticVoronoiDiagram(VoronoiDiagram voronoiDiagram)
+	{
+		super();
+
+		DelaunayTriangulation source = voronoiDiagram.getDelaunayTriangulation();
+		if (source == null)
+			throw new IllegalArgumentException("The Voronoi diagram must be built with its Delaunay triangulation");
+		if (source.getFaces().size() < 2)
+			throw new IllegalArgumentException("The sites must not all lie on a line");
+
+		this.delaunayTriangulation = copy(source);
+		this.outside = delaunayTriangulation.getFaces().get(0);
+
+		List<DCELFace> triangles = delaunayTriangulation.getFaces();
+		for (int i = 1; i < triangles.size(); i++)
+		{
+			DCELFace triangle = triangles.get(i);
+			trianglePositions.put(triangle, i);
+			addCircumcenter(triangle, new DCELVertex(DCELVertex.VertexType.VORONOI_VERTEX, triangle.getIndex(),
+			                                         new Point(0, 0)));
+		}
+
+		/* Each pair of twin half-edges is listed together */
+		List<DCELEdge> delaunayEdges = delaunayTriangulation.getEdges();
+		for (int i = 0; i < delaunayEdges.size(); i += 2)
+		{
+			delaunayEdgePositions.put(delaunayEdges.get(i), i);
+			delaunayEdgePositions.put(delaunayEdges.get(i + 1), i + 1);
+			addDual(delaunayEdges.get(i));
+		}
+
+		updateDual();
+	}
+
+	/**
+	 * Copies the triangulation with new sites at the same positions and with the same names, whose cells become the
+	 * cells of this diagram. Both the given sites and their copies are mapped to the copies, so that either can be
+	 * moved.
+	 */
+	private DelaunayTriangulation copy(DelaunayTriangulation source)
+	{
+		DelaunayTriangulation copy = new DelaunayTriangulation();
+
+		for (DCELVertex site : source.getVertices())
+		{
+			Point p = site.getCoordinates();
+			int index = p instanceof SiteEvent ? ((SiteEvent) p).getCell().getIndex() : site.getIndex();
+			DCELFace cell = new SiteEvent(p.getX(), p.getY(), index, site.getIndex()).getCell();
+
+			copy.addSite(cell.getSite());
+			faces.add(cell);
+			cells.put(cell.getSite(), cell);
+			changedSites.add(cell.getSite());
+			sites.put(site, cell.getSite());
+			sites.put(cell.getSite(), cell.getSite());
+		}
+
+		/* The copied half-edges are listed in pairs of twins, whatever the order of the original ones */
+		Map<DCELEdge, DCELEdge> edgeCopies = new HashMap<>(2 * source.getEdges().size());
+		for (DCELEdge edge : source.getEdges())
+		{
+			if (edgeCopies.containsKey(edge)) continue;
+
+			DCELEdge edgeCopy = copy.addEdge(sites.get(edge.getOrigin()), sites.get(edge.getTwin().getOrigin()));
+			edgeCopies.put(edge, edgeCopy);
+			edgeCopies.put(edge.getTwin(), edgeCopy.getTwin());
+		}
+
+		List<DCELFace> triangles = source.getFaces();
+		for (int i = 1; i < triangles.size(); i++)
+		{
+			DCELEdge edge = triangles.get(i).getOuterComponent();
+			copy.addTriangle(triangles.get(i).getIndex(), edgeCopies.get(edge), edgeCopies.get(edge.getNext()),
+			                 edgeCopies.get(edge.getPrev()));
+		}
+		copy.closeHull();
+
+		return copy;
+	}
+
+	/**
+	 * Moves the given sites to new positions and brings the Delaunay triangulation and the Voronoi diagram up to date.
+	 * The sites are moved one after another, in the order given, so a site may be moved onto a position another site
+	 * is leaving only if that site comes first.
+	 *
+	 * @param sites       the sites to move, either those of the diagram this one was created from or their copies in
+	 *                    its triangulation
+	 * @param coordinates the new coordinates of the sites, as consecutive x, y pairs in the order of the sites
+	 * @throws IllegalArgumentException if a site does not belong to this diagram, a coordinate is not finite, the
+	 *                                  number of coordinates does not match, a site would be moved onto another one
+	 *                                  or a move would leave all of the other sites on a line; the sites before it
+	 *                                  have been moved
+	 */
+	public void moveSites(List<SiteEvent> sites, double[] coordinates)
+	{
+		if (coordinates.length != 2 * sites.size())
+			throw new IllegalArgumentException("There must be two coordinates for every site");
+
+		List<DCELVertex> moved = new ArrayList<>(sites.size());
+		for (int i = 0; i < sites.size(); i++)
+		{
+			DCELVertex vertex = this.sites.get(sites.get(i).getCell().getSite());
+			if (vertex == null)
+				throw new IllegalArgumentException("The site " + sites.get(i) + " does not belong to this diagram");
+			if (!Double.isFinite(coordinates[2 * i]) || !Double.isFinite(coordinates[2 * i + 1]))
+				throw new IllegalArgumentException("The coordinates of a site must be finite");
+
+			moved.add(vertex);
+		}
+
+		try
+		{
+			for (int i = 0; i < moved.size(); i++)
+			{
+				moveSite(moved.get(i), coordinates[2 * i], coordinates[2 * i + 1]);
+			}
+		}
+		finally
+		{
+			updateDual();
+		}
+	}
+
+	private void moveSite(DCELVertex site, double x, double y)
+	{
+		Point p = site.getCoordinates();
+		if (p.getX() == x && p.getY() == y) return;
+
+		List<DCELEdge> star = getOutgoingEdges(site);
+		boolean onHull = star.get(star.size() - 1).getIncidentFace() == outside;
+
+		if (staysInStar(star, onHull, x, y))
+		{
+			p.setX(x);
+			p.setY(y);
+
+			for (DCELEdge edge : star)
+			{
+				if (edge.getIncidentFace() != outside) touchTriangle(edge.getIncidentFace());
+				uncheckedEdges.add(edge);
+				uncheckedEdges.add(edge.getNext());
+			}
+			legalize();
+			return;
+		}
+
+		reinsertions++;
+		double oldX = p.getX(), oldY = p.getY();
+
+		DCELFace start = removeSite(site, star, onHull);
+		legalize();
+
+		if (!insertSite(site, x, y, start))
+		{
+			/* The site was taken out, so its old position is free */
+			insertSite(site, oldX, oldY, start);
+			legalize();
+			throw new IllegalArgumentException("A site cannot be moved onto another site, at " + new Point(x, y));
+		}
+		legalize();
+	}
+
+	/**
+	 * Returns the half-edges leaving the site in counterclockwise order. For a site on the hull, the first one follows
+	 * the gap outside of the hull, so that the triangles around the site are those of all but the last half-edge.
+	 */
+	private List<DCELEdge> getOutgoingEdges(DCELVertex site)
+	{
+		List<DCELEdge> star = new ArrayList<>();
+		DCELEdge edge = site.getIncidentEdge();
+		do
+		{
+			star.add(edge);
+			edge = edge.getPrev().getTwin();
+		}
+		while (edge != site.getIncidentEdge());
+
+		for (int i = 0; i < star.size(); i++)
+		{
+			if (star.get(i).getTwin().getIncidentFace() == outside)
+			{
+				Collections.rotate(star, -i);
+				break;
+			}
+		}
+		return star;
+	}
+
+	/* Whether the site can move to (x, y) without any of its triangles turning over or the hull becoming concave */
+	private boolean staysInStar(List<DCELEdge> star, boolean onHull, double x, double y)
+	{
+		int triangles = onHull ? star.size() - 1 : star.size();
+		for (int i = 0; i < triangles; i++)
+		{
+			if (orientation(star.get(i).getNext(), x, y) <= 0) return false;
+		}
+		if (!onHull) return true;
+
+		Point first = star.get(0).getTwin().getOrigin().getCoordinates();
+		Point last = star.get(triangles).getTwin().getOrigin().getCoordinates();
+		Point beforeFirst = star.get(0).getTwin().getPrev().getOrigin().getCoordinates();
+		Point afterLast = star.get(triangles).getNext().getTwin().getOrigin().getCoordinates();
+
+		/* Going around the hull with the outside on the left, every turn is to the right */
+		if (orientation(first.getX(), first.getY(), x, y, last.getX(), last.getY()) >= 0 ||
+				orientation(beforeFirst.getX(), beforeFirst.getY(), first.getX(), first.getY(), x, y) >= 0 ||
+				orientation(x, y, last.getX(), last.getY(), afterLast.getX(), afterLast.getY()) >= 0)
+			return false;
+
+		/* The triangles must not wind around the new position more than once */
+		double angle = 0;
+		for (int i = 0; i < triangles; i++)
+		{
+			Point a = star.get(i).getTwin().getOrigin().getCoordinates();
+			Point b = star.get(i + 1).getTwin().getOrigin().getCoordinates();
+			double ax = a.getX() - x, ay = a.getY() - y, bx = b.getX() - x, by = b.getY() - y;
+			angle += Math.atan2(ax * by - ay * bx, ax * bx + ay * by);
+		}
+		return angle < 2 * Math.PI;
+	}
+
+	/**
+	 * Takes the site out of the triangulation and fills the hole it leaves, or the pocket on the hull, by clipping
+	 * ears. The new diagonals are queued, so the flips that follow make the filling Delaunay.
+	 *
+	 * @return a triangle near the site's old position
+	 */
+	private DCELFace removeSite(DCELVertex site, List<DCELEdge> star, boolean onHull)
+	{
+		int triangles = onHull ? star.size() - 1 : star.size();
+
+		List<DCELEdge> boundary = new ArrayList<>(triangles);
+		for (int i = 0; i < triangles; i++)
+		{
+			boundary.add(star.get(i).getNext());
+			uncheckedEdges.add(star.get(i).getNext());
+		}
+
+		if (onHull && triangles == delaunayTriangulation.getFaces().size() - 1 &&
+				findEar(boundary, false) < 0)
+			throw new IllegalArgumentException("A site cannot be moved away if all of the other sites lie on a line");
+
+		DCELEdge before = onHull ? star.get(0).getTwin().getPrev() : null;
+		DCELEdge after = onHull ? star.get(triangles).getNext() : null;
+
+		for (int i = 0; i < triangles; i++)
+		{
+			removeTriangle(star.get(i).getIncidentFace());
+		}
+		for (DCELEdge edge : star)
+		{
+			DCELVertex neighbor = edge.getTwin().getOrigin();
+			if (neighbor.getIncidentEdge() == edge.getTwin()) neighbor.setIncidentEdge(edge.getNext());
+			removeEdge(edge);
+		}
+		site.setIncidentEdge(null);
+
+		DCELFace last = null;
+		while (onHull || boundary.size() > 3)
+		{
+			int ear = findEar(boundary, !onHull);
+			if (ear < 0 && !onHull) throw new IllegalStateException("The hole left by a site has no convex corner");
+			if (ear < 0) break;
+
+			int next = (ear + 1) % boundary.size();
+			DCELEdge diagonal = addEdge(boundary.get(next).getTwin().getOrigin(), boundary.get(ear).getOrigin());
+			last = addTriangle(boundary.get(ear), boundary.get(next), diagonal);
+			uncheckedEdges.add(diagonal);
+
+			boundary.set(ear, diagonal.getTwin());
+			boundary.remove(next);
+		}
+
+		if (!onHull) return addTriangle(boundary.get(0), boundary.get(1), boundary.get(2));
+
+		/* What is left of the chain is convex and becomes part of the hull */
+		DCELEdge previous = before;
+		for (DCELEdge edge : boundary)
+		{
+			edge.setIncidentFace(outside);
+			previous.setNext(edge);
+			edge.setPrev(previous);
+			touch(edge);
+			previous = edge;
+		}
+		previous.setNext(after);
+		after.setPrev(previous);
+		outside.setInnerComponents(boundary.get(0));
+
+		if (last != null) return last;
+		for (DCELEdge edge : boundary)
+		{
+			if (edge.getTwin().getIncidentFace() != outside) return edge.getTwin().getIncidentFace();
+		}
+		return delaunayTriangulation.getFaces().get(1);
+	}
+
+	/*
+	 * Finds a convex ear of the boundary that holds no other boundary vertex, preferring one whose circumcircle holds
+	 * none either; the flips that follow make the filling Delaunay if no such ear is found due to rounding
+	 */
+	private static int findEar(List<DCELEdge> boundary, boolean closed)
+	{
+		int size = boundary.size();
+		int valid = -1;
+
+		for (int i = 0; i < (closed ? size : size - 1); i++)
+		{
+			Point a = boundary.get(i).getOrigin().getCoordinates();
+			Point b = boundary.get((i + 1) % size).getOrigin().getCoordinates();
+			Point c = boundary.get((i + 1) % size).getTwin().getOrigin().getCoordinates();
+			if (orientationDeterminant(a, b, c) <= 0) continue;
+
+			boolean empty = true;
+			boolean inside = false;
+			for (int j = 0; j <= size && !inside; j++)
+			{
+				DCELEdge edge = boundary.get(Math.min(j, size - 1));
+				Point point = (j < size ? edge.getOrigin() : edge.getTwin().getOrigin()).getCoordinates();
+				if (point == a || point == b || point == c) continue;
+
+				inside = orientation(a, b, point) >= 0 && orientation(b, c, point) >= 0 &&
+						orientation(c, a, point) >= 0;
+				if (inCircle(a, b, c, point) > 0) empty = false;
+			}
+			if (inside) continue;
+			if (empty) return i;
+			if (valid < 0) valid = i;
+		}
+		return valid;
+	}
+
+	/**
+	 * Puts the site back into the triangulation at (x, y), starting the search for its triangle at the given one.
+	 *
+	 * @return false, without changing anything, if another site already lies at (x, y)
+	 */
+	private boolean insertSite(DCELVertex site, double x, double y, DCELFace start)
+	{
+		DCELEdge located = locate(start, x, y);
+
+		if (located.getIncidentFace() == outside)
+		{
+			site.getCoordinates().setX(x);
+			site.getCoordinates().setY(y);
+			connectToHull(site, located);
+			return true;
+		}
+
+		DCELEdge e1 = located, e2 = located.getNext(), e3 = located.getPrev();
+		int o1 = orientation(e1, x, y), o2 = orientation(e2, x, y), o3 = orientation(e3, x, y);
+		if ((o1 == 0 ? 1 : 0) + (o2 == 0 ? 1 : 0) + (o3 == 0 ? 1 : 0) > 1) return false;
+
+		/* A site on a side of the triangle is put on the first one */
+		if (o2 == 0)
+		{
+			DCELEdge e = e1;
+			e1 = e2;
+			e2 = e3;
+			e3 = e;
+		}
+		else if (o3 == 0)
+		{
+			DCELEdge e = e3;
+			e3 = e2;
+			e2 = e1;
+			e1 = e;
+		}
+		boolean onSide = o1 == 0 || o2 == 0 || o3 == 0;
+
+		site.getCoordinates().setX(x);
+		site.getCoordinates().setY(y);
+		splitTriangle(site, e1, e2, e3);
+
+		uncheckedEdges.add(e2);
+		uncheckedEdges.add(e3);
+		if (!onSide) uncheckedEdges.add(e1);
+		else if (e1.getTwin().getIncidentFace() != outside)
+		{
+			/* The triangle on the side has no area, so the side is flipped away */
+			DCELEdge t = e1.getTwin();
+			uncheckedEdges.add(t.getNext());
+			uncheckedEdges.add(t.getPrev());
+			flip(e1);
+		}
+		else removeFlatTriangle(e1);
+
+		return true;
+	}
+
+	/**
+	 * Walks from the given triangle towards (x, y), crossing any side that has the point strictly on its other side.
+	 *
+	 * @return a half-edge of the triangle containing the point, or the hull half-edge through which the walk left the
+	 * triangulation
+	 */
+	private DCELEdge locate(DCELFace start, double x, double y)
+	{
+		DCELEdge edge = start.getOuterComponent();
+		int steps = 0;
+
+		while (true)
+		{
+			DCELEdge crossed = null;
+			for (int i = 0; i < 3 && crossed == null; i++, edge = edge.getNext())
+			{
+				if (orientation(edge, x, y) < 0) crossed = edge;
+			}
+
+			if (crossed == null) return edge;
+			if (crossed.getTwin().getIncidentFace() == outside) return crossed.getTwin();
+
+			edge = crossed.getTwin().getNext();
+			if (++steps > delaunayTriangulation.getFaces().size())
+				throw new IllegalStateException("The walk to " + new Point(x, y) + " does not end");
+		}
+	}
+
+	/* Connects a site outside of the hull to the hull edges it sees, starting from the given one */
+	private void connectToHull(DCELVertex site, DCELEdge visible)
+	{
+		double x = site.getCoordinates().getX(), y = site.getCoordinates().getY();
+
+		DCELEdge first = visible, last = visible;
+		while (first.getPrev() != visible && orientation(first.getPrev(), x, y) > 0) first = first.getPrev();
+		while (last.getNext() != first && orientation(last.getNext(), x, y) > 0) last = last.getNext();
+
+		DCELEdge before = first.getPrev(), after = last.getNext();
+
+		DCELEdge spoke = addEdge(site, first.getOrigin());
+		DCELEdge hullStart = spoke.getTwin();
+		site.setIncidentEdge(spoke);
+
+		DCELEdge edge = first;
+		while (true)
+		{
+			DCELEdge nextEdge = edge.getNext();
+			DCELEdge nextSpoke = addEdge(site, edge.getTwin().getOrigin());
+			addTriangle(edge, nextSpoke.getTwin(), spoke);
+			uncheckedEdges.add(edge);
+			spoke = nextSpoke;
+
+			if (edge == last) break;
+			edge = nextEdge;
+		}
+
+		/* The first and last spokes take the place of the visible edges on the hull */
+		hullStart.setIncidentFace(outside);
+		spoke.setIncidentFace(outside);
+		before.setNext(hullStart);
+		hullStart.setPrev(before);
+		hullStart.setNext(spoke);
+		spoke.setPrev(hullStart);
+		spoke.setNext(after);
+		after.setPrev(spoke);
+		outside.setInnerComponents(hullStart);
+		touch(hullStart);
+		touch(spoke);
+	}
+
+	/* Splits the triangle of the three half-edges into three triangles meeting at the site */
+	private void splitTriangle(DCELVertex site, DCELEdge e1, DCELEdge e2, DCELEdge e3)
+	{
+		DCELFace triangle = e1.getIncidentFace();
+
+		DCELEdge toA = addEdge(site, e1.getOrigin());
+		DCELEdge toB = addEdge(site, e2.getOrigin());
+		DCELEdge toC = addEdge(site, e3.getOrigin());
+
+		link(triangle, e1, toB.getTwin(), toA);
+		addTriangle(e2, toC.getTwin(), toB);
+		addTriangle(e3, toA.getTwin(), toC);
+		site.setIncidentEdge(toA);
+	}
+
+	/* Removes the flat triangle left on a hull edge by a site inserted on it, putting the site on the hull */
+	private void removeFlatTriangle(DCELEdge hullSide)
+	{
+		DCELEdge toSite = hullSide.getNext(), fromSite = hullSide.getPrev();
+		DCELEdge outer = hullSide.getTwin();
+		DCELEdge before = outer.getPrev(), after = outer.getNext();
+
+		removeTriangle(hullSide.getIncidentFace());
+		if (hullSide.getOrigin().getIncidentEdge() == hullSide) hullSide.getOrigin().setIncidentEdge(after);
+		if (outer.getOrigin().getIncidentEdge() == outer) outer.getOrigin().setIncidentEdge(toSite);
+		removeEdge(hullSide);
+
+		toSite.setIncidentFace(outside);
+		fromSite.setIncidentFace(outside);
+		before.setNext(toSite);
+		toSite.setPrev(before);
+		fromSite.setNext(after);
+		after.setPrev(fromSite);
+		outside.setInnerComponents(toSite);
+		touch(toSite);
+		touch(fromSite);
+	}
+
+	/* Flips every edge whose opposite vertices lie in each other's circumcircles, until none is left */
+	private void legalize()
+	{
+		while (!uncheckedEdges.isEmpty())
+		{
+			DCELEdge edge = uncheckedEdges.poll();
+			DCELEdge twin = edge.getTwin();
+			if (!delaunayEdgePositions.containsKey(edge) || edge.getIncidentFace() == outside ||
+					twin.getIncidentFace() == outside)
+				continue;
+
+			Point a = edge.getOrigin().getCoordinates(), b = twin.getOrigin().getCoordinates();
+			Point c = edge.getPrev().getOrigin().getCoordinates(), d = twin.getPrev().getOrigin().getCoordinates();
+			if (inCircle(a, b, c, d) > 0 && orientation(d, c, a) > 0 && orientation(c, d, b) > 0)
+			{
+				uncheckedEdges.add(edge.getNext());
+				uncheckedEdges.add(edge.getPrev());
+				uncheckedEdges.add(twin.getNext());
+				uncheckedEdges.add(twin.getPrev());
+				flip(edge);
+			}
+		}
+	}
+
+	/* Replaces the diagonal of the two triangles on either side of the edge by the other diagonal */
+	private void flip(DCELEdge edge)
+	{
+		DCELEdge twin = edge.getTwin();
+		DCELEdge edgeNext = edge.getNext(), edgePrev = edge.getPrev();
+		DCELEdge twinNext = twin.getNext(), twinPrev = twin.getPrev();
+
+		if (edge.getOrigin().getIncidentEdge() == edge) edge.getOrigin().setIncidentEdge(twinNext);
+		if (twin.getOrigin().getIncidentEdge() == twin) twin.getOrigin().setIncidentEdge(edgeNext);
+
+		edge.setOrigin(twinPrev.getOrigin());
+		twin.setOrigin(edgePrev.getOrigin());
+
+		link(edge.getIncidentFace(), edge, edgePrev, twinNext);
+		link(twin.getIncidentFace(), twin, twinPrev, edgeNext);
+		flips++;
+	}
+
+	private DCELEdge addEdge(DCELVertex from, DCELVertex to)
+	{
+		DCELEdge edge = new DCELEdge(DCELEdge.EdgeType.DELAUNAY_EDGE, from);
+		DCELEdge twin = new DCELEdge(DCELEdge.EdgeType.DELAUNAY_EDGE, to, edge);
+
+		List<DCELEdge> delaunayEdges = delaunayTriangulation.getEdges();
+		delaunayEdgePositions.put(edge, delaunayEdges.size());
+		delaunayEdges.add(edge);
+		delaunayEdgePositions.put(twin, delaunayEdges.size());
+		delaunayEdges.add(twin);
+
+		addDual(edge);
+		return edge;
+	}
+
+	private void removeEdge(DCELEdge edge)
+	{
+		removePair(delaunayTriangulation.getEdges(), delaunayEdgePositions, edge);
+
+		DCELEdge dual = duals.remove(edge);
+		duals.remove(edge.getTwin());
+		removePair(edges, edgePositions, dual);
+	}
+
+	private DCELFace addTriangle(DCELEdge e1, DCELEdge e2, DCELEdge e3)
+	{
+		DCELVertex circumcenter = new DCELVertex(DCELVertex.VertexType.VORONOI_VERTEX, new Point(0, 0));
+		DCELFace triangle = new DCELFace(DCELFace.FaceType.DELAUNAY_TRIANGLE, circumcenter.getIndex(), e1);
+
+		List<DCELFace> triangles = delaunayTriangulation.getFaces();
+		trianglePositions.put(triangle, triangles.size());
+		triangles.add(triangle);
+
+		addCircumcenter(triangle, circumcenter);
+		link(triangle, e1, e2, e3);
+		return triangle;
+	}
+
+	private void removeTriangle(DCELFace triangle)
+	{
+		remove(delaunayTriangulation.getFaces(), trianglePositions, triangle);
+		remove(vertices, vertexPositions, circumcenters.remove(triangle));
+
+		DCELEdge edge = triangle.getOuterComponent();
+		for (int i = 0; i < 3; i++, edge = edge.getNext())
+		{
+			touch(edge);
+		}
+	}
+
+	private void link(DCELFace triangle, DCELEdge e1, DCELEdge e2, DCELEdge e3)
+	{
+		e1.setIncidentFace(triangle);
+		e2.setIncidentFace(triangle);
+		e3.setIncidentFace(triangle);
+
+		e1.setNext(e2);
+		e2.setNext(e3);
+		e3.setNext(e1);
+
+		e1.setPrev(e3);
+		e2.setPrev(e1);
+		e3.setPrev(e2);
+
+		triangle.setOuterComponent(e1);
+		touchTriangle(triangle);
+	}
+
+	private void addCircumcenter(DCELFace triangle, DCELVertex circumcenter)
+	{
+		circumcenters.put(triangle, circumcenter);
+		vertexPositions.put(circumcenter, vertices.size());
+		vertices.add(circumcenter);
+		changedTriangles.add(triangle);
+	}
+
+	private void addDual(DCELEdge edge)
+	{
+		DCELEdge dual = new DCELEdge(DCELEdge.EdgeType.VORONOI_EDGE);
+		DCELEdge dualTwin = new DCELEdge(DCELEdge.EdgeType.VORONOI_EDGE, dual);
+		duals.put(edge, dual);
+		duals.put(edge.getTwin(), dualTwin);
+
+		edgePositions.put(dual, edges.size());
+		edges.add(dual);
+		edgePositions.put(dualTwin, edges.size());
+		edges.add(dualTwin);
+
+		touch(edge);
+	}
+
+	private void touch(DCELEdge edge)
+	{
+		changedEdges.add(edge);
+		changedEdges.add(edge.getTwin());
+		changedSites.add(edge.getOrigin());
+		changedSites.add(edge.getTwin().getOrigin());
+	}
+
+	private void touchTriangle(DCELFace triangle)
+	{
+		changedTriangles.add(triangle);
+
+		DCELEdge edge = triangle.getOuterComponent();
+		for (int i = 0; i < 3; i++, edge = edge.getNext())
+		{
+			touch(edge);
+		}
+	}
+
+	/**
+	 * Recomputes the Voronoi vertices and edges dual to the triangles and edges changed since the last update. The
+	 * half-edge dual to a Delaunay half-edge bounds the cell of its origin and runs from the circumcenter of the
+	 * triangle on its right to that of the triangle on its left.
+	 */
+	private void updateDual()
+	{
+		for (DCELFace triangle : changedTriangles)
+		{
+			DCELVertex circumcenter = circumcenters.get(triangle);
+			if (circumcenter == null) continue;
+
+			DCELEdge edge = triangle.getOuterComponent();
+			setCircumcenter(circumcenter.getCoordinates(), edge.getOrigin().getCoordinates(),
+			                edge.getNext().getOrigin().getCoordinates(), edge.getPrev().getOrigin().getCoordinates());
+			circumcenter.setIncidentEdge(duals.get(edge.getTwin()));
+		}
+
+		for (DCELEdge edge : changedEdges)
+		{
+			DCELEdge dual = duals.get(edge);
+			if (dual == null) continue;
+
+			DCELFace left = edge.getIncidentFace(), right = edge.getTwin().getIncidentFace();
+			dual.setOrigin(right == outside ? null : circumcenters.get(right));
+			dual.setNext(left == outside ? null : duals.get(edge.getPrev().getTwin()));
+			dual.setPrev(right == outside ? null : duals.get(edge.getTwin().getNext()));
+			dual.setIncidentFace(cells.get(edge.getOrigin()));
+
+			Point a = edge.getOrigin().getCoordinates(), b = edge.getTwin().getOrigin().getCoordinates();
+			double[] direction = dual.getDirection();
+			direction[0] = a.getY() - b.getY();
+			direction[1] = b.getX() - a.getX();
+		}
+
+		/* The cell of a hull site starts with the ray coming in from outside of the hull */
+		for (DCELVertex site : changedSites)
+		{
+			DCELEdge first = site.getIncidentEdge(), edge = first;
+			do
+			{
+				if (edge.getTwin().getIncidentFace() == outside)
+				{
+					first = edge;
+					break;
+				}
+				edge = edge.getPrev().getTwin();
+			}
+			while (edge != site.getIncidentEdge());
+
+			cells.get(site).setOuterComponent(duals.get(first));
+		}
+
+		/* Cleared sets keep their capacity, which would make every later batch as slow to go through as the largest */
+		changedTriangles = new HashSet<>();
+		changedEdges = new HashSet<>();
+		changedSites = new HashSet<>();
+	}
+
+	private static void setCircumcenter(Point circumcenter, Point a, Point b, Point c)
+	{
+		double bx = b.getX() - a.getX(), by = b.getY() - a.getY();
+		double cx = c.getX() - a.getX(), cy = c.getY() - a.getY();
+		double b2 = bx * bx + by * by, c2 = cx * cx + cy * cy;
+		double d = 2 * (bx * cy - by * cx);
+
+		circumcenter.setX(a.getX() + (cy * b2 - by * c2) / d);
+		circumcenter.setY(a.getY() + (bx * c2 - cx * b2) / d);
+	}
+
+	private static <T> void remove(List<T> list, Map<T, Integer> positions, T element)
+	{
+		int position = positions.remove(element);
+		T last = list.remove(list.size() - 1);
+		if (last != element)
+		{
+			list.set(position, last);
+			positions.put(last, position);
+		}
+	}
+
+	/* Twin half-edges are listed together, so a pair is removed by moving the last pair into its place */
+	private static void removePair(List<DCELEdge> list, Map<DCELEdge, Integer> positions, DCELEdge edge)
+	{
+		int position = Math.min(positions.remove(edge), positions.remove(edge.getTwin()));
+		DCELEdge second = list.remove(list.size() - 1);
+		DCELEdge first = list.remove(list.size() - 1);
+		if (first != edge && first != edge.getTwin())
+		{
+			list.set(position, first);
+			list.set(position + 1, second);
+			positions.put(first, position);
+			positions.put(second, position + 1);
+		}
+	}
+
+	/* The sign of the orientation of (x, y) with respect to the half-edge, positive if it lies on the left */
+	private static int orientation(DCELEdge edge, double x, double y)
+	{
+		Point a = edge.getOrigin().getCoordinates(), b = edge.getTwin().getOrigin().getCoordinates();
+		return orientation(a.getX(), a.getY(), b.getX(), b.getY(), x, y);
+	}
+
+	private static int orientation(Point a, Point b, Point c)
+	{
+		return orientation(a.getX(), a.getY(), b.getX(), b.getY(), c.getX(), c.getY());
+	}
+
+	private static int orientation(double ax, double ay, double bx, double by, double cx, double cy)
+	{
+		double left = (ax - cx) * (by - cy), right = (ay - cy) * (bx - cx);
+		double determinant = left - right;
+		if (Math.abs(determinant) <= EPSILON * (Math.abs(left) + Math.abs(right))) return 0;
+		return determinant > 0 ? 1 : -1;
+	}
+
+	private static double orientationDeterminant(Point a, Point b, Point c)
+	{
+		return (a.getX() - c.getX()) * (b.getY() - c.getY()) - (a.getY() - c.getY()) * (b.getX() - c.getX());
+	}
+
+	/* Positive if d lies inside the circle through a, b and c, given in counterclockwise order */
+	private static int inCircle(Point a, Point b, Point c, Point d)
+	{
+		double adx = a.getX() - d.getX(), ady = a.getY() - d.getY();
+		double bdx = b.getX() - d.getX(), bdy = b.getY() - d.getY();
+		double cdx = c.getX() - d.getX(), cdy = c.getY() - d.getY();
+		double a2 = adx * adx + ady * ady, b2 = bdx * bdx + bdy * bdy, c2 = cdx * cdx + cdy * cdy;
+
+		double determinant = a2 * (bdx * cdy - cdx * bdy) + b2 * (cdx * ady - adx * cdy) + c2 * (adx * bdy - bdx * ady);
+		double magnitude = a2 * (Math.abs(bdx * cdy) + Math.abs(cdx * bdy)) +
+				b2 * (Math.abs(cdx * ady) + Math.abs(adx * cdy)) + c2 * (Math.abs(adx * bdy) + Math.abs(bdx * ady));
+		if (Math.abs(determinant) <= EPSILON * magnitude) return 0;
+		return determinant > 0 ? 1 : -1;
+	}
+
+	/**
+	 * Returns the copy of the Delaunay triangulation, which is kept up to date as the sites move.
+	 *
+	 * @return the Delaunay triangulation
+	 */
+	public DelaunayTriangulation getDelaunayTriangulation()
+	{
+		return delaunayTriangulation;
+	}
+
+	/**
+	 * Returns the number of edges flipped since this diagram was created.
+	 *
+	 * @return the number of flips
+	 */
+	public long getFlips()
+	{
+		return flips;
+	}
+
+	/**
+	 * Returns the number of moves for which a site had to be taken out of the triangulation and put back in, because
+	 * it left the polygon formed by its neighbors.
+	 *
+	 * @return the number of reinsertions
+	 */
+	public long getReinsertions()
+	{
+		return reinsertions;
+	}
+}
@@ -0,0 +1,387 @@
+package voronoi;
+
+import auxiliary.Point;
+import dcel.DCELEdge;
+import dcel.DCELFace;
+import dcel.DCELVertex;
+import dcel.DoublyConnectedEdgeList;
+import delaunay.DelaunayTriangulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The Voronoi diagram of sites in a periodic rectangular domain, in which a site near one side of the domain is also
+ * a neighbor of the sites near the opposite side, as in simulations with periodic boundary conditions. The diagram is
+ * a DCEL on a torus: every site has one closed cell, and the cells of sites near the boundary wrap around it, with
+ * their edges twinned to the edges of the cells on the other side instead of being cut off by a bounding box.
+ * <p>
+ * Only the sites within a halo around the domain are copied to the other sides. The diagram of the sites and their
+ * copies is built by the sweep, and the halo is wide enough once the circumcircle of every Delaunay triangle around an
+ * original site lies within the part of the plane covered by the sites and their copies, as such a circle is then
+ * empty of every periodic copy of every site. The halo starts at a few times the average distance between sites and
+ * is doubled until this holds, which for evenly spread sites means that only a thin band of sites is copied and the
+ * sweep is run once.
+ * <p>
+ * Voronoi vertices lie inside the domain, with coordinates taken modulo its size. An edge that crosses the boundary
+ * therefore joins vertices on opposite sides of the domain; the vector from the origin of every half-edge to its end,
+ * as it runs across the plane, is given by {@link DCELEdge#getDirection()}. The unbounded face is kept first in the
+ * list of faces, as in every other diagram, but the torus has no unbounded part, so it has no boundary.
+ *
+ * @author Willem Paul
+ */
+public class PeriodicVoronoiDiagram extends DoublyConnectedEdgeList
+{
+	/*
+	 * The initial width of the halo, in average distances between sites times the square root of the logarithm of
+	 * their number, which is how the largest empty circle among evenly spread sites grows
+	 */
+	private static final double INITIAL_HALO = 2;
+
+	/* Past this many domain sizes, the circumcircles are bounded by the domain itself, so a wider halo cannot help */
+	private static final double MAXIMUM_HALO = 4;
+
+	private final double minX, minY, width, height;
+	private double haloWidth;
+	private int replicatedSites;
+	private int attempts;
+
+	/* Every site given to the sweep, as the index of the original site and the number of domain sizes it is moved by */
+	private int[] originals = new int[0], shiftsX = new int[0], shiftsY = new int[0];
+	private final Map<DCELVertex, Integer> copies = new HashMap<>();
+
+	/**
+	 * Constructs the periodic Voronoi diagram of the given sites, which must lie in the domain
+	 * {@code [minX, minX + width) x [minY, minY + height)}.
+	 *
+	 * @param sites  the sites for which to construct the diagram
+	 * @param minX   the smallest x-coordinate of the domain
+	 * @param minY   the smallest y-coordinate of the domain
+	 * @param width  the width of the domain
+	 * @param height the height of the domain
+	 * @throws IllegalArgumentException if there are fewer than two sites, the domain is empty or not finite, a site
+	 *                                  lies outside the domain, or the sites are too few or too regular for the sweep
+	 *                                  to build the diagram of their copies
+	 */
+	public PeriodicVoronoiDiagram(Set<SiteEvent> sites, double minX, double minY, double width, double height)
+	{
+		super();
+
+		if (!Double.isFinite(minX) || !Double.isFinite(minY) || !(width > 0) || !(height > 0) ||
+				!Double.isFinite(width) || !Double.isFinite(height))
+			throw new IllegalArgumentException("The domain must have a finite, positive width and height");
+		/* The copies of a single site form a lattice, on which every Voronoi vertex is degenerate */
+		if (sites.size() < 2) throw new IllegalArgumentException("There must be at least two sites");
+
+		this.minX = minX;
+		this.minY = minY;
+		this.width = width;
+		this.height = height;
+
+		List<SiteEvent> siteList = new ArrayList<>(sites);
+		for (SiteEvent site : siteList)
+		{
+			if (!(site.getX() >= minX && site.getX() < minX + width && site.getY() >= minY &&
+					site.getY() < minY + height))
+				throw new IllegalArgumentException("The site " + site + " does not lie in the domain");
+		}
+
+		int n = siteList.size();
+		double halo = INITIAL_HALO * Math.sqrt(width * height / n * Math.log(n));
+		while (true)
+		{
+			attempts++;
+			haloWidth = Math.min(halo, MAXIMUM_HALO * Math.max(width, height));
+
+			DCELEdge[][] stars = buildStars(siteList);
+			if (stars != null)
+			{
+				buildCells(siteList, stars);
+				break;
+			}
+			if (haloWidth == MAXIMUM_HALO * Math.max(width, height))
+				throw new IllegalArgumentException("The sites are too few or too regular to build a periodic diagram");
+			halo *= 2;
+		}
+
+		/* Only needed while the diagram is being built */
+		copies.clear();
+		originals = shiftsX = shiftsY = null;
+	}
+
+	/*
+	 * Builds the Delaunay triangulation of the sites and their copies within the halo, and returns the outgoing
+	 * Delaunay edges around every original site in counterclockwise order, or null if the halo is too narrow
+	 */
+	private DCELEdge[][] buildStars(List<SiteEvent> siteList)
+	{
+		int n = siteList.size();
+		int periodsX = (int) Math.ceil(haloWidth / width), periodsY = (int) Math.ceil(haloWidth / height);
+		double lowX = minX - haloWidth, highX = minX + width + haloWidth;
+		double lowY = minY - haloWidth, highY = minY + height + haloWidth;
+
+		/* Fresh site events keep the sweep from touching the given sites, and each attempt from the one before */
+		Set<SiteEvent> extended = new LinkedHashSet<>();
+		List<SiteEvent> extendedList = new ArrayList<>();
+		copies.clear();
+		int count = 0;
+		for (int shiftY = -periodsY; shiftY <= periodsY; shiftY++)
+		{
+			for (int shiftX = -periodsX; shiftX <= periodsX; shiftX++)
+			{
+				for (int i = 0; i < n; i++)
+				{
+					SiteEvent site = siteList.get(i);
+					double x = site.getX() + shiftX * width, y = site.getY() + shiftY * height;
+					if (x < lowX || x > highX || y < lowY || y > highY) continue;
+
+					SiteEvent copy = new SiteEvent(x, y);
+					if (!extended.add(copy)) continue;
+					extendedList.add(copy);
+
+					if (count == originals.length)
+					{
+						int capacity = Math.max(2 * count, 2 * n);
+						originals = Arrays.copyOf(originals, capacity);
+						shiftsX = Arrays.copyOf(shiftsX, capacity);
+						shiftsY = Arrays.copyOf(shiftsY, capacity);
+					}
+					originals[count] = i;
+					shiftsX[count] = shiftX;
+					shiftsY[count] = shiftY;
+					copies.put(copy.getCell().getSite(), count);
+					count++;
+				}
+			}
+		}
+		replicatedSites = count - n;
+
+		DelaunayTriangulation triangulation = new VoronoiDiagram(extended, null, false, true, false)
+				.getDelaunayTriangulation();
+		DCELFace outside = triangulation.getFaces().get(0);
+
+		/* The copies that were not moved come first within the middle period, in the order of the sites */
+		DCELEdge[][] stars = new DCELEdge[n][];
+		int unshifted = 0;
+		while (shiftsX[unshifted] != 0 || shiftsY[unshifted] != 0) unshifted++;
+		Point circumcenter = new Point(0, 0);
+		for (int i = 0; i < n; i++)
+		{
+			DCELVertex vertex = extendedList.get(unshifted + i).getCell().getSite();
+			DCELEdge first = vertex.getIncidentEdge();
+			if (first == null) return null;
+
+			List<DCELEdge> star = new ArrayList<>();
+			DCELEdge edge = first;
+			do
+			{
+				if (edge.getIncidentFace() == outside) return null;
+
+				Point a = edge.getOrigin().getCoordinates(), b = edge.getTwin().getOrigin().getCoordinates();
+				Point c = edge.getNext().getTwin().getOrigin().getCoordinates();
+				setCircumcenter(circumcenter, a, b, c);
+				double radius = Math.hypot(a.getX() - circumcenter.getX(), a.getY() - circumcenter.getY());
+				if (!(circumcenter.getX() - radius >= lowX && circumcenter.getX() + radius <= highX &&
+						circumcenter.getY() - radius >= lowY && circumcenter.getY() + radius <= highY))
+					return null;
+
+				star.add(edge);
+				edge = edge.getPrev().getTwin();
+			}
+			while (edge != first);
+
+			stars[i] = star.toArray(new DCELEdge[0]);
+		}
+
+		return stars;
+	}
+
+	/*
+	 * Builds a cell for every site from its star. The half-edge dual to a Delaunay half-edge bounds the cell of its
+	 * origin and runs from the circumcenter of the triangle on its right to that of the triangle on its left; its twin
+	 * is dual to the Delaunay half-edge from the original of its end back to the copy of its origin that it sees.
+	 */
+	private void buildCells(List<SiteEvent> siteList, DCELEdge[][] stars)
+	{
+		int n = siteList.size();
+		DCELEdge[][] duals = new DCELEdge[n][];
+		for (int i = 0; i < n; i++)
+		{
+			duals[i] = new DCELEdge[stars[i].length];
+		}
+
+		double[] circumcentersX = new double[0], circumcentersY = new double[0];
+		Point circumcenter = new Point(0, 0);
+		for (int i = 0; i < n; i++)
+		{
+			SiteEvent site = siteList.get(i);
+			DCELEdge[] star = stars[i], dual = duals[i];
+			int degree = star.length;
+			for (int j = 0; j < degree; j++)
+			{
+				if (dual[j] != null) continue;
+
+				int end = copies.get(star[j].getTwin().getOrigin());
+				int neighbor = originals[end];
+				double x = site.getX() - shiftsX[end] * width, y = site.getY() - shiftsY[end] * height;
+				int k = findEdge(stars[neighbor], x, y);
+
+				dual[j] = new DCELEdge(DCELEdge.EdgeType.VORONOI_EDGE);
+				duals[neighbor][k] = new DCELEdge(DCELEdge.EdgeType.VORONOI_EDGE, dual[j]);
+				edges.add(dual[j]);
+				edges.add(duals[neighbor][k]);
+			}
+
+			if (degree > circumcentersX.length)
+			{
+				circumcentersX = new double[2 * degree];
+				circumcentersY = new double[2 * degree];
+			}
+			for (int j = 0; j < degree; j++)
+			{
+				setCircumcenter(circumcenter, star[j]);
+				circumcentersX[j] = circumcenter.getX();
+				circumcentersY[j] = circumcenter.getY();
+			}
+
+			DCELFace cell = new DCELFace(site.getCell().getSite(), DCELFace.FaceType.VORONOI_CELL,
+			                             site.getCell().getIndex(), dual[0]);
+			faces.add(cell);
+			for (int j = 0; j < degree; j++)
+			{
+				int previous = (j + degree - 1) % degree;
+				dual[j].setIncidentFace(cell);
+				dual[j].setNext(dual[(j + 1) % degree]);
+				dual[j].setPrev(dual[previous]);
+				dual[j].setDirection(new double[]{circumcentersX[j] - circumcentersX[previous],
+				                                  circumcentersY[j] - circumcentersY[previous]});
+			}
+		}
+
+		/* Every copy of a triangle is one Voronoi vertex, whose half-edges are found by turning around it */
+		for (int i = 0; i < n; i++)
+		{
+			DCELEdge[] star = stars[i], dual = duals[i];
+			for (int j = 0; j < star.length; j++)
+			{
+				if (dual[j].getOrigin() != null) continue;
+
+				setCircumcenter(circumcenter, star[(j + star.length - 1) % star.length]);
+				circumcenter.setX(minX + floorMod(circumcenter.getX() - minX, width));
+				circumcenter.setY(minY + floorMod(circumcenter.getY() - minY, height));
+				DCELVertex vertex = new DCELVertex(DCELVertex.VertexType.VORONOI_VERTEX, circumcenter, dual[j]);
+				vertices.add(vertex);
+				circumcenter = new Point(0, 0);
+
+				DCELEdge edge = dual[j];
+				do
+				{
+					edge.setOrigin(vertex);
+					edge = edge.getTwin().getNext();
+				}
+				while (edge != dual[j]);
+			}
+		}
+	}
+
+	/*
+	 * Finds the edge of a star that ends at the given copy, which has exactly the given coordinates as every copy of a
+	 * site is moved in the same way
+	 */
+	private static int findEdge(DCELEdge[] star, double x, double y)
+	{
+		for (int k = 0; k < star.length; k++)
+		{
+			Point end = star[k].getTwin().getOrigin().getCoordinates();
+			if (end.getX() == x && end.getY() == y) return k;
+		}
+		throw new IllegalStateException("The Delaunay triangulation of the copies is not periodic");
+	}
+
+	/* The remainder of the division, from 0 up to but not including the divisor, even where rounding reaches it */
+	private static double floorMod(double value, double divisor)
+	{
+		double remainder = value - Math.floor(value / divisor) * divisor;
+		return remainder < divisor ? remainder : 0;
+	}
+
+	/* Sets the given point to the circumcenter of the triangle on the left of the given edge */
+	private static void setCircumcenter(Point circumcenter, DCELEdge edge)
+	{
+		setCircumcenter(circumcenter, edge.getOrigin().getCoordinates(), edge.getTwin().getOrigin().getCoordinates(),
+		                edge.getNext().getTwin().getOrigin().getCoordinates());
+	}
+
+	private static void setCircumcenter(Point circumcenter, Point a, Point b, Point c)
+	{
+		double bx = b.getX() - a.getX(), by = b.getY() - a.getY();
+		double cx = c.getX() - a.getX(), cy = c.getY() - a.getY();
+		double b2 = bx * bx + by * by, c2 = cx * cx + cy * cy;
+		double d = 2 * (bx * cy - by * cx);
+
+		circumcenter.setX(a.getX() + (cy * b2 - by * c2) / d);
+		circumcenter.setY(a.getY() + (bx * c2 - cx * b2) / d);
+	}
+
+	public double getMinX()
+	{
+		return minX;
+	}
+
+	public double getMinY()
+	{
+		return minY;
+	}
+
+	public double getWidth()
+	{
+		return width;
+	}
+
+	public double getHeight()
+	{
+		return height;
+	}
+
+	@Override
+	public double[] getPeriods()
+	{
+		return new double[]{width, height};
+	}
+
+	/**
+	 * Returns the width of the band around the domain whose sites were copied to the other sides.
+	 *
+	 * @return the width of the halo
+	 */
+	public double getHaloWidth()
+	{
+		return haloWidth;
+	}
+
+	/**
+	 * Returns the number of copies of sites that were added to build the diagram, which is small compared to the
+	 * number of sites unless there are only a few of them.
+	 *
+	 * @return the number of copies
+	 */
+	public int getReplicatedSites()
+	{
+		return replicatedSites;
+	}
+
+	/**
+	 * Returns the number of times the diagram of the sites and their copies was built before the halo was wide enough.
+	 *
+	 * @return the number of attempts
+	 */
+	public int getAttempts()
+	{
+		return attempts;
+	}
+}
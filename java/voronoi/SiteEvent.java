@@ -4,19 +4,45 @@ import auxiliary.Point;
 import dcel.DCELFace;
 import dcel.DCELVertex;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * @author Willem Paul
  */
 public class SiteEvent extends Point
 {
-	private static int eventIndex = 0;
+	private static final AtomicInteger eventIndex = new AtomicInteger();
 
 	private final DCELFace cell;
 
 	public SiteEvent(double x, double y)
 	{
 		super(x, y);
-		this.cell = new DCELFace(new DCELVertex(DCELVertex.VertexType.DELAUNAY_VERTEX, this), DCELFace.FaceType.VORONOI_CELL, ++eventIndex, null);
+		this.cell = new DCELFace(new DCELVertex(DCELVertex.VertexType.DELAUNAY_VERTEX, this), DCELFace.FaceType.VORONOI_CELL, eventIndex.incrementAndGet(), null);
+	}
+
+	/* Recreates a site event whose cell has already been read back, when resuming from a checkpoint */
+	SiteEvent(double x, double y, DCELFace cell)
+	{
+		super(x, y);
+		this.cell = cell;
+	}
+
+	/* Recreates a site event that had not been processed yet, with the indices its cell and site were given */
+	SiteEvent(double x, double y, int cellIndex, int siteIndex)
+	{
+		super(x, y);
+		this.cell = new DCELFace(new DCELVertex(DCELVertex.VertexType.DELAUNAY_VERTEX, siteIndex, this), DCELFace.FaceType.VORONOI_CELL, cellIndex, null);
+	}
+
+	static int getLastIndex()
+	{
+		return eventIndex.get();
+	}
+
+	static void advanceLastIndex(int index)
+	{
+		eventIndex.accumulateAndGet(index, Math::max);
 	}
 
 	public DCELFace getCell()
@@ -0,0 +1,314 @@
+package voronoi;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Periodically saves the state of a running sweep to a file, so that a long construction that is interrupted can be
+ * resumed from its last checkpoint rather than started over. A checkpoint holds the event queue, the beach line with
+ * its breakpoints, the partial diagram (and Delaunay triangulation) and the counters used to name new vertices and
+ * faces, so a resumed construction produces the same diagram an uninterrupted one would have. The naming counters are
+ * shared by all diagrams and only ever moved forward when resuming, so the names match those of an uninterrupted run
+ * only if no other diagram was built in between; they are unique either way.
+ * <p>
+ * The sweep only pauses between two batches of events to take its beach line, its event queue and the elements added
+ * to the partial diagram since the last checkpoint, together with the links of the few that the beach line can still
+ * change. Finished parts of the diagram never change again, so they are encoded on a background thread while the
+ * sweep goes on, into an encoding that is kept and extended from one checkpoint to the next, and compressed and
+ * written to disk there too. Each pause therefore lasts in proportion to the beach line, the queue and the diagram's
+ * growth since the last checkpoint, rather than to the whole partial diagram; {@link #getPauseNanos()} reports the
+ * time lost. If the previous checkpoint is still being written when the next one is due, the new one is skipped.
+ * Each checkpoint is written to a temporary file that then replaces the previous one, so the file always holds a
+ * complete checkpoint. The file is kept once the construction is done.
+ *
+ * @author Willem Paul
+ */
+public class SweepCheckpointer implements AutoCloseable
+{
+	private static final int CHUNK_SIZE = 1 << 20;
+
+	private final File file;
+	private final long intervalNanos;
+	private final ExecutorService writer;
+	private long lastCheckpoint;
+	private Future<?> pendingWrite;
+
+	private final AtomicLong written = new AtomicLong();
+	private final AtomicLong skipped = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong pauseNanos = new AtomicLong();
+	private volatile IOException lastError;
+
+	/**
+	 * Creates a checkpointer that saves the sweep to the given file whenever the given interval has passed since the
+	 * previous checkpoint.
+	 *
+	 * @param file     the file to save the checkpoints to
+	 * @param interval the time between two checkpoints
+	 * @param unit     the unit of the interval
+	 * @throws IllegalArgumentException if the interval is negative
+	 */
+	public SweepCheckpointer(File file, long interval, TimeUnit unit)
+	{
+		if (interval < 0)
+			throw new IllegalArgumentException("The checkpoint interval must not be negative");
+
+		this.file = file.getAbsoluteFile();
+		this.intervalNanos = unit.toNanos(interval);
+		this.writer = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Sweep checkpointer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.lastCheckpoint = System.nanoTime();
+	}
+
+	/**
+	 * Returns whether the file holds a checkpoint to resume from.
+	 *
+	 * @return true if the checkpoint file exists
+	 */
+	public boolean hasCheckpoint()
+	{
+		return file.isFile();
+	}
+
+	/**
+	 * Resumes the construction saved in the last checkpoint and runs it to the end, checkpointing it further with this
+	 * checkpointer. The vertices and faces created after resuming are named after those in the checkpoint and after any
+	 * created since in this JVM. Statistics, if they were collected, only cover the part of the construction done after
+	 * resuming.
+	 *
+	 * @return the Voronoi diagram
+	 * @throws IOException if the checkpoint cannot be read or does not hold a checkpoint
+	 */
+	public VoronoiDiagram resume() throws IOException
+	{
+		awaitPendingWrite();
+
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new InflaterInputStream(new FileInputStream(file)), 1 << 16)))
+		{
+			return VoronoiDiagram.resume(in, this);
+		}
+	}
+
+	boolean isDue()
+	{
+		return System.nanoTime() - lastCheckpoint >= intervalNanos;
+	}
+
+	/**
+	 * Captures the state of the given diagram's sweep and hands it to the background thread to be encoded and written.
+	 * The next checkpoint is skipped while this one is being written, as the two would share the same encoding.
+	 */
+	void checkpoint(VoronoiDiagram voronoiDiagram)
+	{
+		lastCheckpoint = System.nanoTime();
+
+		if (pendingWrite != null && !pendingWrite.isDone())
+		{
+			skipped.incrementAndGet();
+			return;
+		}
+
+		long start = System.nanoTime();
+		Snapshot snapshot;
+		try
+		{
+			snapshot = voronoiDiagram.captureCheckpoint();
+		}
+		catch (IOException ex)
+		{
+			/* The capture is held in memory, so this cannot happen */
+			throw new IllegalStateException(ex);
+		}
+
+		pauseNanos.addAndGet(System.nanoTime() - start);
+
+		pendingWrite = writer.submit(() -> store(snapshot));
+	}
+
+	/*
+	 * A checkpoint that cannot be written is counted but does not stop the sweep, which can still finish on its own;
+	 * the previous checkpoint stays in place.
+	 */
+	private void store(Snapshot snapshot)
+	{
+		File temporary = null;
+		try
+		{
+			temporary = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+
+			Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(
+					new BufferedOutputStream(new FileOutputStream(temporary)), deflater, 1 << 16), 1 << 16)))
+			{
+				snapshot.writeTo(out);
+			}
+			finally
+			{
+				deflater.end();
+			}
+
+			Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+			           StandardCopyOption.ATOMIC_MOVE);
+			written.incrementAndGet();
+		}
+		catch (IOException ex)
+		{
+			if (temporary != null) temporary.delete();
+			lastError = ex;
+			failed.incrementAndGet();
+		}
+	}
+
+	private void awaitPendingWrite()
+	{
+		if (pendingWrite == null) return;
+
+		try
+		{
+			pendingWrite.get();
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException ex)
+		{
+			throw new IllegalStateException(ex.getCause());
+		}
+	}
+
+	/**
+	 * Waits for the checkpoint being written, if any, and stops the background thread.
+	 */
+	@Override
+	public void close()
+	{
+		awaitPendingWrite();
+		writer.shutdown();
+	}
+
+	public File getFile()
+	{
+		return file;
+	}
+
+	public long getCheckpointsWritten()
+	{
+		return written.get();
+	}
+
+	/**
+	 * Returns the number of checkpoints that were due while the previous one was still being written.
+	 *
+	 * @return the number of skipped checkpoints
+	 */
+	public long getCheckpointsSkipped()
+	{
+		return skipped.get();
+	}
+
+	public long getCheckpointsFailed()
+	{
+		return failed.get();
+	}
+
+	/**
+	 * Returns the total time the sweep was paused while its state was taken for the checkpoints, which grows with the
+	 * beach line and the queue at each checkpoint but not with the partial diagram.
+	 *
+	 * @return the time spent taking checkpoints on the sweep's thread, in nanoseconds
+	 */
+	public long getPauseNanos()
+	{
+		return pauseNanos.get();
+	}
+
+	/**
+	 * Returns the error with which the last failed checkpoint could not be written.
+	 *
+	 * @return the error, or null if no checkpoint failed
+	 */
+	public IOException getLastError()
+	{
+		return lastError;
+	}
+
+	/**
+	 * The state of a sweep at a checkpoint, taken on the sweep's thread and encoded and written on the background
+	 * thread.
+	 */
+	interface Snapshot
+	{
+		void writeTo(DataOutputStream out) throws IOException;
+	}
+
+	/**
+	 * An output stream collecting its bytes in fixed-size chunks, so that the state of a large sweep neither has to fit
+	 * in a single array nor is copied each time the buffer grows.
+	 */
+	static class ChunkedBuffer extends OutputStream
+	{
+		private final List<byte[]> chunks = new ArrayList<>();
+		private int position = CHUNK_SIZE;
+
+		@Override
+		public void write(int b)
+		{
+			if (position == CHUNK_SIZE) addChunk();
+			chunks.get(chunks.size() - 1)[position++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len)
+		{
+			while (len > 0)
+			{
+				if (position == CHUNK_SIZE) addChunk();
+
+				int n = Math.min(len, CHUNK_SIZE - position);
+				System.arraycopy(b, off, chunks.get(chunks.size() - 1), position, n);
+				position += n;
+				off += n;
+				len -= n;
+			}
+		}
+
+		private void addChunk()
+		{
+			chunks.add(new byte[CHUNK_SIZE]);
+			position = 0;
+		}
+
+		void writeTo(OutputStream out) throws IOException
+		{
+			for (int i = 0; i < chunks.size(); i++)
+			{
+				out.write(chunks.get(i), 0, i == chunks.size() - 1 ? position : CHUNK_SIZE);
+			}
+		}
+	}
+}
@@ -0,0 +1,180 @@
+package voronoi;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counters and phase timings collected while a {@code VoronoiDiagram} (and the {@code DelaunayTriangulation} built from
+ * it) is constructed. When collection is disabled, every recording method returns immediately and no clock is read, so
+ * the statistics can be left enabled in production at a negligible cost.
+ *
+ * @author Willem Paul
+ */
+public class SweepStatistics
+{
+	public enum Phase
+	{
+		SWEEP,
+		BOUNDING_BOX,
+		INFINITE_EDGES,
+		CLIPPING,
+		FACES,
+		DELAUNAY_DUAL,
+		/* The diagram of integer sites, built as the dual of their exact triangulation in place of the sweep */
+		VORONOI_DUAL
+	}
+
+	private final boolean enabled;
+
+	private long siteEvents;
+	private long circleEvents;
+	private long circleEventsCreated;
+	private long circleEventsCancelled;
+	private long maxBeachLineSize;
+	private long breakpointRecomputations;
+	private final long[] phaseNanos;
+
+	public SweepStatistics(boolean enabled)
+	{
+		this.enabled = enabled;
+		this.phaseNanos = new long[Phase.values().length];
+	}
+
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	/* The beach line only grows on site events, so its size is sampled after each one */
+	void siteEventProcessed(int beachLineSize)
+	{
+		if (!enabled) return;
+		siteEvents++;
+		if (beachLineSize > maxBeachLineSize) maxBeachLineSize = beachLineSize;
+	}
+
+	void circleEventProcessed()
+	{
+		if (enabled) circleEvents++;
+	}
+
+	void circleEventCreated()
+	{
+		if (enabled) circleEventsCreated++;
+	}
+
+	void circleEventCancelled()
+	{
+		if (enabled) circleEventsCancelled++;
+	}
+
+	public void breakpointRecomputed()
+	{
+		if (enabled) breakpointRecomputations++;
+	}
+
+	/**
+	 * Marks the start of a construction phase.
+	 *
+	 * @return the value to pass to {@link #endPhase(Phase, long)}
+	 */
+	public long startPhase()
+	{
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Adds the time elapsed since the matching call to {@link #startPhase()} to the given phase.
+	 *
+	 * @param phase the phase that has just ended
+	 * @param start the value returned by {@link #startPhase()}
+	 */
+	public void endPhase(Phase phase, long start)
+	{
+		if (enabled) phaseNanos[phase.ordinal()] += System.nanoTime() - start;
+	}
+
+	public long getSiteEvents()
+	{
+		return siteEvents;
+	}
+
+	public long getCircleEvents()
+	{
+		return circleEvents;
+	}
+
+	public long getCircleEventsCreated()
+	{
+		return circleEventsCreated;
+	}
+
+	/**
+	 * Returns the number of circle events that were removed from the queue before they were processed (i.e. false
+	 * alarms).
+	 *
+	 * @return the number of cancelled circle events
+	 */
+	public long getCircleEventsCancelled()
+	{
+		return circleEventsCancelled;
+	}
+
+	/**
+	 * Returns the largest number of arcs on the beach line at any point during the sweep.
+	 *
+	 * @return the maximum size of the beach line
+	 */
+	public long getMaxBeachLineSize()
+	{
+		return maxBeachLineSize;
+	}
+
+	/**
+	 * Returns the number of times a breakpoint's coordinates were actually computed rather than taken from its cache.
+	 *
+	 * @return the number of breakpoint recomputations
+	 */
+	public long getBreakpointRecomputations()
+	{
+		return breakpointRecomputations;
+	}
+
+	public long getPhaseNanos(Phase phase)
+	{
+		return phaseNanos[phase.ordinal()];
+	}
+
+	/**
+	 * Returns the statistics as a flat map from metric name to value, in a fixed order, for export to a metrics system.
+	 * Phase timings are given in nanoseconds.
+	 *
+	 * @return the statistics as a {@code Map}
+	 */
+	public Map<String, Long> toMap()
+	{
+		Map<String, Long> map = new LinkedHashMap<>();
+		map.put("siteEvents", siteEvents);
+		map.put("circleEvents", circleEvents);
+		map.put("circleEventsCreated", circleEventsCreated);
+		map.put("circleEventsCancelled", circleEventsCancelled);
+		map.put("maxBeachLineSize", maxBeachLineSize);
+		map.put("breakpointRecomputations", breakpointRecomputations);
+		for (Phase phase : Phase.values())
+		{
+			map.put("phaseNanos." + phase.name().toLowerCase(), phaseNanos[phase.ordinal()]);
+		}
+		return map;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder builder = new StringBuilder();
+		for (Map.Entry<String, Long> entry : toMap().entrySet())
+		{
+			builder.append(entry.getKey()).append("  ").append(entry.getValue()).append("\n");
+		}
+		return builder.toString();
+	}
+}
@@ -3,14 +3,27 @@ package voronoi;
 import auxiliary.Circle;
 import auxiliary.MathOps;
 import auxiliary.Point;
+import dcel.ClippingPolygon;
+import dcel.DCELCodec;
 import dcel.DCELEdge;
 import dcel.DCELFace;
 import dcel.DCELVertex;
 import dcel.DoublyConnectedEdgeList;
+import delaunay.DelaunayTriangulation;
+import delaunay.IntegerTriangulation;
+import profiling.CircleFailureEvent;
+import profiling.PhaseEvent;
+import profiling.QueueRemoveEvent;
+import profiling.StatusSearchEvent;
+import profiling.SweepBatchEvent;
 import voronoi.tree.ArcSegment;
 import voronoi.tree.Breakpoint;
 import voronoi.tree.TreeQuery;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -18,12 +31,27 @@ import java.util.*;
  */
 public class VoronoiDiagram extends DoublyConnectedEdgeList
 {
-	private static double sweepLinePos = Double.MIN_VALUE;
-	private static double firstSiteSweepLinePos = Double.MIN_VALUE;
+	private static final int CHECKPOINT_MAGIC = 0x53574550;
+	private static final int CHECKPOINT_VERSION = 2;
 
-	private final PriorityQueue<Point> queue;
+	private final SiteEvent[] siteEvents;
+	private int nextSiteEvent;
+	private final PriorityQueue<CircleEvent> queue;
 	private final TreeMap<ArcSegment, CircleEvent> status;
 	private final HashSet<Breakpoint> breakpoints;
+	private final SweepStatistics statistics;
+	private final ClippingPolygon clippingPolygon;
+	private final DelaunayTriangulation delaunayTriangulation;
+	private final int siteCount;
+	private final boolean complete;
+	private final SweepCheckpointer checkpointer;
+
+	/* The encoding of the sweep's checkpoints, kept so that each one only encodes what has changed since the last */
+	private CheckpointEncoding checkpointEncoding;
+
+	/* The sweep line state belongs to each construction, so that several diagrams can be built at the same time */
+	private double sweepLinePos = Double.MIN_VALUE;
+	private double firstSiteSweepLinePos = Double.MIN_VALUE;
 
 	/**
 	 * Constructs a Voronoi diagram from the given set of sites using Steven Fortune's line sweep algorithm.
@@ -31,12 +59,114 @@ public class VoronoiDiagram extends DoublyConnectedEdgeList
 	 * @param sites the list of sites for which to construct a Voronoi diagram
 	 */
 	public VoronoiDiagram(Set<SiteEvent> sites)
+	{
+		this(sites, false);
+	}
+
+	/**
+	 * Constructs a Voronoi diagram from the given set of sites using Steven Fortune's line sweep algorithm, optionally
+	 * collecting statistics about the construction.
+	 *
+	 * @param sites             the list of sites for which to construct a Voronoi diagram
+	 * @param collectStatistics whether counters and phase timings should be collected; see {@link #getStatistics()}
+	 */
+	public VoronoiDiagram(Set<SiteEvent> sites, boolean collectStatistics)
+	{
+		this(sites, null, collectStatistics);
+	}
+
+	/**
+	 * Constructs a Voronoi diagram from the given set of sites, clipped to the given convex polygon rather than
+	 * enclosed in a bounding box. Edges are clipped as soon as the sweep has finished, so no bounding box is ever built
+	 * and cells that lie entirely outside the polygon are dropped.
+	 *
+	 * @param sites           the list of sites for which to construct a Voronoi diagram
+	 * @param clippingPolygon the polygon to clip the diagram to
+	 */
+	public VoronoiDiagram(Set<SiteEvent> sites, ClippingPolygon clippingPolygon)
+	{
+		this(sites, clippingPolygon, false);
+	}
+
+	/**
+	 * Constructs a Voronoi diagram from the given set of sites, optionally clipped to a convex polygon and optionally
+	 * collecting statistics about the construction.
+	 *
+	 * @param sites             the list of sites for which to construct a Voronoi diagram
+	 * @param clippingPolygon   the polygon to clip the diagram to, or null to enclose it in a bounding box
+	 * @param collectStatistics whether counters and phase timings should be collected; see {@link #getStatistics()}
+	 */
+	public VoronoiDiagram(Set<SiteEvent> sites, ClippingPolygon clippingPolygon, boolean collectStatistics)
+	{
+		this(sites, clippingPolygon, collectStatistics, false);
+	}
+
+	/**
+	 * Constructs a Voronoi diagram from the given set of sites, optionally building its Delaunay triangulation at the
+	 * same time. When it is built during the sweep, each triangle is added as soon as the circle event of its Voronoi
+	 * vertex fires, using the Delaunay edges carried by the breakpoints, so no second pass over the diagram is needed.
+	 * The triangulation is then available from {@link #getDelaunayTriangulation()} and is never clipped.
+	 *
+	 * @param sites                      the list of sites for which to construct a Voronoi diagram
+	 * @param clippingPolygon            the polygon to clip the diagram to, or null to enclose it in a bounding box
+	 * @param collectStatistics          whether counters and phase timings should be collected
+	 * @param buildDelaunayTriangulation whether the Delaunay triangulation should be built during the sweep
+	 */
+	public VoronoiDiagram(Set<SiteEvent> sites, ClippingPolygon clippingPolygon, boolean collectStatistics,
+	                      boolean buildDelaunayTriangulation)
+	{
+		this(sites, clippingPolygon, collectStatistics, buildDelaunayTriangulation, true);
+	}
+
+	/**
+	 * Constructs a Voronoi diagram from the given set of sites, optionally stopping right after the sweep. An
+	 * incomplete diagram has all of its Voronoi vertices and edges, but its unbounded edges are not connected to a
+	 * boundary (nor clipped to the clipping polygon) and only the edges traced from site events have faces. This is
+	 * enough when only the vertices or the Delaunay triangulation built during the sweep are needed.
+	 *
+	 * @param sites                      the list of sites for which to construct a Voronoi diagram
+	 * @param clippingPolygon            the polygon to clip the diagram to, or null to enclose it in a bounding box
+	 * @param collectStatistics          whether counters and phase timings should be collected
+	 * @param buildDelaunayTriangulation whether the Delaunay triangulation should be built during the sweep
+	 * @param complete                   whether the boundary and the faces should be computed after the sweep
+	 */
+	public VoronoiDiagram(Set<SiteEvent> sites, ClippingPolygon clippingPolygon, boolean collectStatistics,
+	                      boolean buildDelaunayTriangulation, boolean complete)
+	{
+		this(sites, clippingPolygon, collectStatistics, buildDelaunayTriangulation, complete, null);
+	}
+
+	/**
+	 * Constructs a Voronoi diagram from the given set of sites, saving the state of the sweep with the given
+	 * checkpointer whenever a checkpoint is due, so that the construction can be resumed with
+	 * {@link SweepCheckpointer#resume()} if it is interrupted.
+	 *
+	 * @param sites                      the list of sites for which to construct a Voronoi diagram
+	 * @param clippingPolygon            the polygon to clip the diagram to, or null to enclose it in a bounding box
+	 * @param collectStatistics          whether counters and phase timings should be collected
+	 * @param buildDelaunayTriangulation whether the Delaunay triangulation should be built during the sweep
+	 * @param complete                   whether the boundary and the faces should be computed after the sweep
+	 * @param checkpointer               the checkpointer to save the sweep with, or null to save no checkpoints
+	 */
+	public VoronoiDiagram(Set<SiteEvent> sites, ClippingPolygon clippingPolygon, boolean collectStatistics,
+	                      boolean buildDelaunayTriangulation, boolean complete, SweepCheckpointer checkpointer)
 	{
 		super();
 
-		this.queue = new PriorityQueue<>(sites);
+		/* The site events are sorted once and the queue only holds circle events. The sort is adaptive, so sites that
+		are given in (nearly) sweep order, such as those of a slightly perturbed diagram, are sorted in close to linear
+		time. */
+		this.siteEvents = sites.toArray(new SiteEvent[0]);
+		Arrays.sort(siteEvents);
+		this.queue = new PriorityQueue<>();
 		this.status = new TreeMap<>();
 		this.breakpoints = new HashSet<>();
+		this.statistics = new SweepStatistics(collectStatistics);
+		this.clippingPolygon = clippingPolygon;
+		this.delaunayTriangulation = buildDelaunayTriangulation ? new DelaunayTriangulation() : null;
+		this.siteCount = sites.size();
+		this.complete = complete;
+		this.checkpointer = checkpointer;
 
 		/* If this is true, there are no site points and thus, there is nothing to be done. */
 		if (sites.isEmpty()) return;
@@ -45,38 +175,564 @@ public class VoronoiDiagram extends DoublyConnectedEdgeList
 	}
 
 	/**
-	 * Returns the current y-position of the sweep line.
+	 * Constructs the Voronoi diagram of the given integer sites exactly, enclosed in a bounding box.
+	 *
+	 * @param coordinates the coordinates of the sites, as consecutive x, y pairs
+	 * @see #VoronoiDiagram(long[], ClippingPolygon, boolean)
+	 */
+	public VoronoiDiagram(long[] coordinates)
+	{
+		this(coordinates, null, false);
+	}
+
+	/**
+	 * Constructs the Voronoi diagram of the given integer sites with exact predicates instead of a line sweep. The
+	 * Delaunay triangulation of the sites is computed first by an {@link IntegerTriangulation}, whose orientation and
+	 * incircle tests are exact, and the diagram is built as its dual: triangles sharing a circumcircle become a single
+	 * Voronoi vertex and the edges around each vertex are ordered by exact comparisons of their integer directions.
+	 * The topology is therefore correct even for degenerate inputs such as lattices, where the sweep has to resolve
+	 * many collinear and cocircular sites in floating point. The unbounded edges are connected to the bounding box in
+	 * the order of their exact directions as well, so only the coordinates of the Voronoi vertices and of the
+	 * intersections with the boundary are rounded. Clipping to a polygon, however, intersects the rounded edges with
+	 * the polygon in floating point.
+	 * <p>
+	 * Duplicate sites are merged and the cells are listed in the order in which their sites first occur. The diagram
+	 * is always complete and no statistics are collected.
+	 *
+	 * @param coordinates                the coordinates of the sites, as consecutive x, y pairs
+	 * @param clippingPolygon            the polygon to clip the diagram to, or null to enclose it in a bounding box
+	 * @param buildDelaunayTriangulation whether the Delaunay triangulation should be kept as a
+	 *                                   {@code DelaunayTriangulation}
+	 * @throws IllegalArgumentException if the number of coordinates is odd or a coordinate lies outside of
+	 *                                  +/-{@link auxiliary.ExactPredicates#MAX_COORDINATE}
+	 */
+	public VoronoiDiagram(long[] coordinates, ClippingPolygon clippingPolygon, boolean buildDelaunayTriangulation)
+	{
+		super();
+
+		IntegerTriangulation triangulation = new IntegerTriangulation(coordinates);
+
+		this.siteEvents = new SiteEvent[0];
+		this.queue = new PriorityQueue<>();
+		this.status = new TreeMap<>();
+		this.breakpoints = new HashSet<>();
+		this.statistics = new SweepStatistics(false);
+		this.clippingPolygon = clippingPolygon;
+		this.delaunayTriangulation = buildDelaunayTriangulation ? new DelaunayTriangulation() : null;
+		this.siteCount = triangulation.getPointCount();
+		this.complete = true;
+		this.checkpointer = null;
+
+		if (siteCount == 0) return;
+
+		SiteEvent[] sites = new SiteEvent[siteCount];
+		for (int i = 0; i < coordinates.length / 2; i++)
+		{
+			int point = triangulation.getPoint(i);
+			if (sites[point] != null) continue;
+
+			sites[point] = new SiteEvent(coordinates[2 * i], coordinates[2 * i + 1]);
+			faces.add(sites[point].getCell());
+			if (delaunayTriangulation != null) delaunayTriangulation.addSite(sites[point].getCell().getSite());
+		}
+
+		DCELVertex[] triangleVertices = new DCELVertex[triangulation.getTriangleCount()];
+		runPhase(SweepStatistics.Phase.VORONOI_DUAL, () -> createDual(triangulation, sites, triangleVertices));
+		if (delaunayTriangulation != null)
+		{
+			runPhase(SweepStatistics.Phase.DELAUNAY_DUAL, () -> {
+				addDelaunayTriangles(triangulation, sites, triangleVertices);
+				delaunayTriangulation.closeHull();
+			});
+		}
+
+		if (clippingPolygon == null)
+		{
+			runPhase(SweepStatistics.Phase.BOUNDING_BOX, () -> computeBoundingBox(sites));
+			runPhase(SweepStatistics.Phase.INFINITE_EDGES, this::connectUnboundedEdges);
+		}
+		else runPhase(SweepStatistics.Phase.CLIPPING, this::clipToPolygon);
+
+		runPhase(SweepStatistics.Phase.FACES, this::computeFaces);
+	}
+
+	/* Creates an empty diagram for read() to fill */
+	private VoronoiDiagram(boolean complete, DelaunayTriangulation delaunayTriangulation)
+	{
+		this(0, null, false, delaunayTriangulation, complete, null);
+	}
+
+	/* Creates an empty diagram for resume() to fill, with room for the given number of site events */
+	private VoronoiDiagram(int siteCount, ClippingPolygon clippingPolygon, boolean collectStatistics,
+	                       DelaunayTriangulation delaunayTriangulation, boolean complete,
+	                       SweepCheckpointer checkpointer)
+	{
+		super();
+
+		this.siteEvents = new SiteEvent[siteCount];
+		this.queue = new PriorityQueue<>();
+		this.status = new TreeMap<>();
+		this.breakpoints = new HashSet<>();
+		this.statistics = new SweepStatistics(collectStatistics);
+		this.clippingPolygon = clippingPolygon;
+		this.delaunayTriangulation = delaunayTriangulation;
+		this.siteCount = siteCount;
+		this.complete = complete;
+		this.checkpointer = checkpointer;
+	}
+
+	/**
+	 * Writes this diagram, and its Delaunay triangulation if it was built during the sweep, in the encoding of
+	 * {@link DCELCodec}.
+	 *
+	 * @param out the output to which to write
+	 * @throws IOException if the output cannot be written
+	 */
+	public void write(DataOutput out) throws IOException
+	{
+		out.writeBoolean(complete);
+		out.writeBoolean(delaunayTriangulation != null);
+
+		if (delaunayTriangulation == null) DCELCodec.write(out, this);
+		else DCELCodec.write(out, this, delaunayTriangulation);
+	}
+
+	/**
+	 * Reads a diagram written by {@link #write(DataOutput)} without sweeping again. The diagram read back has the same
+	 * vertices, edges and faces, with the same names, as the one written, but no statistics, and it no longer knows the
+	 * polygon it was clipped to.
+	 *
+	 * @param in the input from which to read
+	 * @return the diagram read
+	 * @throws IOException if the input cannot be read or does not hold an encoded diagram
+	 */
+	public static VoronoiDiagram read(DataInput in) throws IOException
+	{
+		boolean complete = in.readBoolean();
+		DelaunayTriangulation delaunayTriangulation = in.readBoolean() ? new DelaunayTriangulation() : null;
+
+		VoronoiDiagram voronoiDiagram = new VoronoiDiagram(complete, delaunayTriangulation);
+		if (delaunayTriangulation == null) DCELCodec.read(in, voronoiDiagram);
+		else DCELCodec.read(in, voronoiDiagram, delaunayTriangulation);
+
+		return voronoiDiagram;
+	}
+
+	/**
+	 * Captures the sweep's state for a {@link SweepCheckpointer} and returns the checkpoint for it to write. A
+	 * checkpoint holds the options, the counters shared by all constructions, the partial diagram in the encoding of
+	 * {@link DCELCodec} followed by the directions of its edges, the site events and the cells of those processed, and
+	 * then the breakpoints, the arcs of the beach line in order and the circle events. These refer to each other and to
+	 * the diagram by their positions in the tables written.
+	 * <p>
+	 * Only the beach line, the queue, the elements added to the diagram since the last checkpoint and the links of
+	 * those that the beach line could still change are taken on the sweep's thread. Finished edges, vertices and faces
+	 * never change again, so the rest is encoded while the checkpoint is written, into an encoding of the partial
+	 * diagram and the sites that is kept from one checkpoint to the next. The returned checkpoint must have been
+	 * written before this is called again.
+	 */
+	SweepCheckpointer.Snapshot captureCheckpoint() throws IOException
+	{
+		if (checkpointEncoding == null) checkpointEncoding = new CheckpointEncoding();
+
+		SweepCheckpointer.ChunkedBuffer header = new SweepCheckpointer.ChunkedBuffer();
+		DataOutputStream out = new DataOutputStream(header);
+
+		out.writeInt(CHECKPOINT_MAGIC);
+		out.writeInt(CHECKPOINT_VERSION);
+
+		out.writeBoolean(complete);
+		out.writeBoolean(statistics.isEnabled());
+		out.writeBoolean(delaunayTriangulation != null);
+		out.writeInt(clippingPolygon == null ? 0 : clippingPolygon.getCornerCount());
+		for (int i = 0; clippingPolygon != null && i < clippingPolygon.getCornerCount(); i++)
+		{
+			out.writeDouble(clippingPolygon.getCorner(i).getX());
+			out.writeDouble(clippingPolygon.getCorner(i).getY());
+		}
+
+		out.writeDouble(sweepLinePos);
+		out.writeDouble(firstSiteSweepLinePos);
+		out.writeInt(DCELVertex.getLastIndex(DCELVertex.VertexType.VORONOI_VERTEX));
+		out.writeInt(DCELVertex.getLastIndex(DCELVertex.VertexType.DELAUNAY_VERTEX));
+		out.writeInt(DCELVertex.getLastIndex(DCELVertex.VertexType.BOUNDING_VERTEX));
+		out.writeInt(SiteEvent.getLastIndex());
+		out.writeInt(siteEvents.length);
+		out.writeInt(nextSiteEvent);
+
+		/* The queued circle events are taken in the order of the queue's heap, so that adding them back in this order
+		rebuilds the same heap. Cancelled circle events may still be held by their arcs, and those may have left the
+		beach line, so all of them are numbered. */
+		List<ArcSegment> arcTable = new ArrayList<>(status.keySet());
+		List<CircleEvent> circleTable = new ArrayList<>(queue);
+		Map<ArcSegment, Integer> arcIds = new IdentityHashMap<>(2 * arcTable.size());
+		Map<CircleEvent, Integer> circleIds = new IdentityHashMap<>(2 * circleTable.size());
+		for (ArcSegment arc : arcTable)
+		{
+			number(arc, arcIds, null);
+		}
+		for (CircleEvent circleEvent : circleTable)
+		{
+			number(circleEvent, circleIds, null);
+		}
+		for (CircleEvent circleEvent : status.values())
+		{
+			number(circleEvent, circleIds, circleTable);
+		}
+		for (CircleEvent circleEvent : circleTable)
+		{
+			number(circleEvent.getDisappearingArcSegment(), arcIds, arcTable);
+		}
+
+		/* Breakpoints that have left the set can still bound an arc */
+		List<Breakpoint> breakpointTable = new ArrayList<>(breakpoints);
+		Map<Breakpoint, Integer> breakpointIds = new IdentityHashMap<>(2 * breakpointTable.size());
+		for (Breakpoint breakpoint : breakpointTable)
+		{
+			number(breakpoint, breakpointIds, null);
+		}
+		for (ArcSegment arc : arcTable)
+		{
+			number(arc.getLeftBreakpoint(), breakpointIds, breakpointTable);
+			number(arc.getRightBreakpoint(), breakpointIds, breakpointTable);
+		}
+
+		/* The edges traced by the breakpoints and the cells of the sites on the beach line are the only parts of the
+		diagram that later events can change */
+		List<DCELVertex> openVertices = new ArrayList<>();
+		List<DCELEdge> openEdges = new ArrayList<>();
+		List<DCELFace> openFaces = new ArrayList<>();
+		for (Breakpoint breakpoint : breakpointTable)
+		{
+			if (breakpoint.getTracedEdge() != null)
+			{
+				openEdges.add(breakpoint.getTracedEdge());
+				openEdges.add(breakpoint.getTracedEdge().getTwin());
+			}
+			if (breakpoint.getDelaunayEdge() != null)
+			{
+				openEdges.add(breakpoint.getDelaunayEdge());
+				openEdges.add(breakpoint.getDelaunayEdge().getTwin());
+			}
+		}
+		for (ArcSegment arc : arcTable)
+		{
+			openFaces.add(arc.getSite().getCell());
+			openVertices.add(arc.getSite().getCell().getSite());
+		}
+
+		CheckpointCapture capture = new CheckpointCapture(header,
+				checkpointEncoding.diagram.capture(openVertices, openEdges, openFaces), edges.size(), nextSiteEvent);
+
+		/* The breakpoints and arcs refer to sites and edges, whose positions are only known once they are encoded */
+		capture.breakpointCount = breakpoints.size();
+		capture.breakpointSites = new Point[2 * breakpointTable.size()];
+		capture.breakpointEdges = new DCELEdge[2 * breakpointTable.size()];
+		for (int i = 0; i < breakpointTable.size(); i++)
+		{
+			Breakpoint breakpoint = breakpointTable.get(i);
+			capture.breakpointSites[2 * i] = breakpoint.getLeftArcSegment();
+			capture.breakpointSites[2 * i + 1] = breakpoint.getRightArcSegment();
+			capture.breakpointEdges[2 * i] = breakpoint.getTracedEdge();
+			capture.breakpointEdges[2 * i + 1] = breakpoint.getDelaunayEdge();
+		}
+
+		capture.arcCount = status.size();
+		capture.arcSites = new SiteEvent[arcTable.size()];
+		capture.arcLinks = new int[3 * arcTable.size()];
+		Iterator<CircleEvent> statusCircleEvents = status.values().iterator();
+		for (int i = 0; i < arcTable.size(); i++)
+		{
+			ArcSegment arc = arcTable.get(i);
+			capture.arcSites[i] = arc.getSite();
+			capture.arcLinks[3 * i] = id(arc.getLeftBreakpoint(), breakpointIds);
+			capture.arcLinks[3 * i + 1] = id(arc.getRightBreakpoint(), breakpointIds);
+			capture.arcLinks[3 * i + 2] = i < status.size() ? id(statusCircleEvents.next(), circleIds) : -1;
+		}
+
+		out = new DataOutputStream(capture.circleEvents);
+		out.writeInt(circleTable.size());
+		out.writeInt(queue.size());
+		for (CircleEvent circleEvent : circleTable)
+		{
+			out.writeDouble(circleEvent.getCircle().getCenter().getX());
+			out.writeDouble(circleEvent.getCircle().getCenter().getY());
+			out.writeDouble(circleEvent.getCircle().getRadius());
+			out.writeInt(arcIds.get(circleEvent.getDisappearingArcSegment()));
+		}
+
+		return capture;
+	}
+
+	/**
+	 * Restores a sweep written by {@link #captureCheckpoint()} and runs the rest of the construction.
+	 */
+	static VoronoiDiagram resume(DataInput in, SweepCheckpointer checkpointer) throws IOException
+	{
+		if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_VERSION)
+			throw new IOException("The input is not a checkpoint of a sweep");
+
+		boolean complete = in.readBoolean();
+		boolean collectStatistics = in.readBoolean();
+		DelaunayTriangulation delaunayTriangulation = in.readBoolean() ? new DelaunayTriangulation() : null;
+		ClippingPolygon clippingPolygon = null;
+		int cornerCount = in.readInt();
+		if (cornerCount > 0)
+		{
+			List<Point> corners = new ArrayList<>(cornerCount);
+			for (int i = 0; i < cornerCount; i++)
+			{
+				corners.add(new Point(in.readDouble(), in.readDouble()));
+			}
+			clippingPolygon = new ClippingPolygon(corners);
+		}
+
+		double savedSweepLinePos = in.readDouble();
+		double savedFirstSiteSweepLinePos = in.readDouble();
+		int voronoiVertexIndex = in.readInt();
+		int delaunayVertexIndex = in.readInt();
+		int boundingVertexIndex = in.readInt();
+		int eventIndex = in.readInt();
+		int siteCount = in.readInt();
+		int nextSiteEvent = in.readInt();
+
+		VoronoiDiagram voronoiDiagram = new VoronoiDiagram(siteCount, clippingPolygon, collectStatistics,
+		                                                   delaunayTriangulation, complete, checkpointer);
+		voronoiDiagram.nextSiteEvent = nextSiteEvent;
+
+		DCELCodec.References references = delaunayTriangulation == null ? DCELCodec.read(in, voronoiDiagram) :
+				DCELCodec.read(in, voronoiDiagram, delaunayTriangulation);
+		for (DCELEdge edge : voronoiDiagram.edges)
+		{
+			edge.setDirection(new double[]{in.readDouble(), in.readDouble()});
+		}
+
+		/* Processed sites refer to their cells in the diagram; the others are recreated with the same names */
+		double[] coordinates = new double[2 * siteCount];
+		int[] names = new int[2 * siteCount];
+		for (int i = 0; i < siteCount; i++)
+		{
+			coordinates[2 * i] = in.readDouble();
+			coordinates[2 * i + 1] = in.readDouble();
+			names[2 * i] = in.readInt();
+			names[2 * i + 1] = in.readInt();
+		}
+
+		SiteEvent[] sites = voronoiDiagram.siteEvents;
+		for (int i = 0; i < siteCount; i++)
+		{
+			if (i < nextSiteEvent)
+				sites[i] = new SiteEvent(coordinates[2 * i], coordinates[2 * i + 1],
+						references.getFace(0, in.readInt()));
+			else sites[i] = new SiteEvent(coordinates[2 * i], coordinates[2 * i + 1], names[2 * i], names[2 * i + 1]);
+		}
+
+		Breakpoint[] breakpoints = new Breakpoint[in.readInt()];
+		int setSize = in.readInt();
+		for (int i = 0; i < breakpoints.length; i++)
+		{
+			SiteEvent left = sites[in.readInt()];
+			SiteEvent right = sites[in.readInt()];
+			breakpoints[i] = new Breakpoint(voronoiDiagram, left, right, references.getEdge(0, in.readInt()));
+
+			int delaunayEdge = in.readInt();
+			if (delaunayTriangulation != null) breakpoints[i].setDelaunayEdge(references.getEdge(1, delaunayEdge));
+			if (i < setSize) voronoiDiagram.breakpoints.add(breakpoints[i]);
+		}
+
+		ArcSegment[] arcs = new ArcSegment[in.readInt()];
+		int[] statusCircleEvents = new int[in.readInt()];
+		for (int i = 0; i < arcs.length; i++)
+		{
+			arcs[i] = new ArcSegment(sites[in.readInt()]);
+			int left = in.readInt();
+			int right = in.readInt();
+			if (left >= 0) arcs[i].setLeftBreakpoint(breakpoints[left]);
+			if (right >= 0) arcs[i].setRightBreakpoint(breakpoints[right]);
+			if (i < statusCircleEvents.length) statusCircleEvents[i] = in.readInt();
+		}
+
+		CircleEvent[] circleEvents = new CircleEvent[in.readInt()];
+		int queueSize = in.readInt();
+		for (int i = 0; i < circleEvents.length; i++)
+		{
+			Point center = new Point(in.readDouble(), in.readDouble());
+			double radius = in.readDouble();
+			circleEvents[i] = new CircleEvent(new Circle(center, radius), arcs[in.readInt()]);
+			if (i < queueSize) voronoiDiagram.queue.add(circleEvents[i]);
+		}
+
+		/* The beach line is ordered by the breakpoints at the sweep line's position, so that is restored first */
+		voronoiDiagram.sweepLinePos = savedSweepLinePos;
+		voronoiDiagram.firstSiteSweepLinePos = savedFirstSiteSweepLinePos;
+		/* The counters are shared by every diagram in this JVM, so they are only moved past the saved names */
+		DCELVertex.advanceLastIndex(DCELVertex.VertexType.VORONOI_VERTEX, voronoiVertexIndex);
+		DCELVertex.advanceLastIndex(DCELVertex.VertexType.DELAUNAY_VERTEX, delaunayVertexIndex);
+		DCELVertex.advanceLastIndex(DCELVertex.VertexType.BOUNDING_VERTEX, boundingVertexIndex);
+		SiteEvent.advanceLastIndex(eventIndex);
+
+		for (int i = 0; i < statusCircleEvents.length; i++)
+		{
+			int circleEvent = statusCircleEvents[i];
+			voronoiDiagram.status.put(arcs[i], circleEvent < 0 ? null : circleEvents[circleEvent]);
+		}
+		if (voronoiDiagram.status.size() != statusCircleEvents.length)
+			throw new IOException("The beach line of the checkpoint cannot be restored");
+
+		voronoiDiagram.createVoronoiDiagram();
+		return voronoiDiagram;
+	}
+
+	/* Appends the element to the table, if one is given, the first time it is numbered */
+	private static <T> void number(T element, Map<T, Integer> ids, List<T> table)
+	{
+		if (element == null || ids.containsKey(element)) return;
+
+		ids.put(element, ids.size());
+		if (table != null) table.add(element);
+	}
+
+	private static <T> int id(T element, Map<T, Integer> ids)
+	{
+		return element == null ? -1 : ids.get(element);
+	}
+
+	/**
+	 * Returns the current y-position of this diagram's sweep line.
 	 *
 	 * @return the current y-position of the sweep line
 	 */
-	public static double getSweepLinePos()
+	public double getSweepLinePos()
 	{
 		return sweepLinePos;
 	}
 
+	/**
+	 * Returns the statistics collected while this diagram was constructed. If collection was not requested, the
+	 * statistics are disabled and all of their values are zero.
+	 *
+	 * @return the statistics of this diagram's construction
+	 */
+	public SweepStatistics getStatistics()
+	{
+		return statistics;
+	}
+
+	/**
+	 * Returns the Delaunay triangulation built during the sweep. Since it shares its vertices with the cells of this
+	 * diagram, a second triangulation must not be created from this diagram with
+	 * {@link DelaunayTriangulation#DelaunayTriangulation(VoronoiDiagram)}.
+	 *
+	 * @return the Delaunay triangulation, or null if it was not built during the sweep
+	 */
+	public DelaunayTriangulation getDelaunayTriangulation()
+	{
+		return delaunayTriangulation;
+	}
+
+	/**
+	 * Returns whether the boundary and the faces of this diagram were computed after the sweep.
+	 *
+	 * @return true if this diagram is complete; false if its construction stopped after the sweep
+	 */
+	public boolean isComplete()
+	{
+		return complete;
+	}
+
 	private void createVoronoiDiagram()
 	{
-		while (!queue.isEmpty())
+		runPhase(SweepStatistics.Phase.SWEEP, this::sweep);
+		if (delaunayTriangulation != null)
+			runPhase(SweepStatistics.Phase.DELAUNAY_DUAL, delaunayTriangulation::closeHull);
+
+		if (complete)
 		{
-			Point event = queue.poll();
+			if (clippingPolygon == null)
+			{
+				runPhase(SweepStatistics.Phase.BOUNDING_BOX, this::computeBoundingBox);
+				runPhase(SweepStatistics.Phase.INFINITE_EDGES, this::connectInfiniteEdges);
+			}
+			else runPhase(SweepStatistics.Phase.CLIPPING, this::clipToPolygon);
+
+			runPhase(SweepStatistics.Phase.FACES, this::computeFaces);
+		}
+
+		/* The final beach line is of no use once the diagram is built, so the diagram should not keep it reachable */
+		status.clear();
+		breakpoints.clear();
+	}
+
+	/**
+	 * Runs one construction phase, recording its duration in the statistics and as a Flight Recorder event.
+	 */
+	private void runPhase(SweepStatistics.Phase phase, Runnable body)
+	{
+		PhaseEvent event = new PhaseEvent("Voronoi diagram", phase.name(), siteCount);
+		event.begin();
+		long start = statistics.startPhase();
+
+		body.run();
+
+		statistics.endPhase(phase, start);
+		event.commit();
+	}
+
+	private void sweep()
+	{
+		SweepBatchEvent batch = new SweepBatchEvent();
+		batch.begin();
+
+		while (nextSiteEvent < siteEvents.length || !queue.isEmpty())
+		{
+			/* Take whichever event comes first; ties go to the circle event */
+			Point event;
+			if (queue.isEmpty() ||
+					(nextSiteEvent < siteEvents.length && siteEvents[nextSiteEvent].compareTo(queue.peek()) < 0))
+				event = siteEvents[nextSiteEvent++];
+			else
+				event = queue.poll();
+
 			sweepLinePos = event.getY();
 			if (firstSiteSweepLinePos == Double.MIN_VALUE) firstSiteSweepLinePos = event.getY();
 			if (event.getClass() == CircleEvent.class)
+			{
 				handleCircleEvent((CircleEvent) event);
+				batch.circleEvents++;
+			}
 			else if (event.getClass() == SiteEvent.class)
+			{
 				handleSiteEvent((SiteEvent) event);
+				statistics.siteEventProcessed(status.size());
+				batch.siteEvents++;
+			}
 			else
 				throw new IllegalArgumentException("Non-event element in the queue");
-		}
 
-		computeBoundingBox();
-		connectInfiniteEdges();
-		this.computeFaces();
+			if (batch.siteEvents + batch.circleEvents == SweepBatchEvent.BATCH_SIZE || queueSize() == 0)
+			{
+				batch.end();
+				if (batch.shouldCommit())
+				{
+					batch.sweepLinePos = sweepLinePos;
+					batch.queueSize = queueSize();
+					batch.beachLineSize = status.size();
+					batch.commit();
+				}
+
+				/* The state is consistent between two events, so this is where the sweep can be saved */
+				if (checkpointer != null && queueSize() > 0 && checkpointer.isDue()) checkpointer.checkpoint(this);
+
+				batch = new SweepBatchEvent();
+				batch.begin();
+			}
+		}
 	}
 
 	private void handleSiteEvent(SiteEvent event)
 	{
 		faces.add(event.getCell());
+		if (delaunayTriangulation != null) delaunayTriangulation.addSite(event.getCell().getSite());
 
 		if (status.isEmpty())
 		{
@@ -84,10 +740,13 @@ public class VoronoiDiagram extends DoublyConnectedEdgeList
 			return;
 		}
 
-		Map.Entry<ArcSegment, CircleEvent> entryAbove = status.floorEntry(new TreeQuery(event));
+		TreeQuery query = new TreeQuery(event);
+		Map.Entry<ArcSegment, CircleEvent> entryAbove = status.floorEntry(query);
+		reportSearch(query.getComparisons());
+
 		ArcSegment alpha = entryAbove.getKey();
 
-		if (entryAbove.getValue() != null) queue.remove(entryAbove.getValue());
+		if (entryAbove.getValue() != null) cancelCircleEvent(entryAbove.getValue());
 
 		status.remove(alpha);
 
@@ -107,7 +766,7 @@ public class VoronoiDiagram extends DoublyConnectedEdgeList
 
 			if (alpha.getSite().getX() < event.getX())
 			{
-				breakpoint = new Breakpoint(alpha.getSite(), event, null);
+				breakpoint = new Breakpoint(this, alpha.getSite(), event, null);
 
 				if (!edge1.isDirectedStraightUp())
 				{
@@ -135,7 +794,7 @@ public class VoronoiDiagram extends DoublyConnectedEdgeList
 			}
 			else
 			{
-				breakpoint = new Breakpoint(event, alpha.getSite(), null);
+				breakpoint = new Breakpoint(this, event, alpha.getSite(), null);
 
 				if (!edge1.isDirectedStraightUp())
 				{
@@ -163,6 +822,7 @@ public class VoronoiDiagram extends DoublyConnectedEdgeList
 			}
 
 			breakpoints.add(breakpoint);
+			addDelaunayEdge(alpha.getSite(), event, breakpoint, null);
 
 			status.put(leftArcSegment, null);
 			status.put(rightArcSegment, null);
@@ -170,8 +830,8 @@ public class VoronoiDiagram extends DoublyConnectedEdgeList
 			return;
 		}
 
-		Breakpoint newLeftBreakpoint = new Breakpoint(alpha.getSite(), event);
-		Breakpoint newRightBreakpoint = new Breakpoint(event, alpha.getSite());
+		Breakpoint newLeftBreakpoint = new Breakpoint(this, alpha.getSite(), event);
+		Breakpoint newRightBreakpoint = new Breakpoint(this, event, alpha.getSite());
 
 		if (newLeftBreakpoint.isMovingRight())
 		{
@@ -231,6 +891,9 @@ public class VoronoiDiagram extends DoublyConnectedEdgeList
 		breakpoints.add(newLeftBreakpoint);
 		breakpoints.add(newRightBreakpoint);
 
+		/* Both new breakpoints separate the same two sites, one on either side of their Delaunay edge */
+		addDelaunayEdge(alpha.getSite(), event, newLeftBreakpoint, newRightBreakpoint);
+
 		status.put(leftArcSegment, null);
 		status.put(centerArcSegment, null);
 		status.put(rightArcSegment, null);
@@ -241,11 +904,15 @@ public class VoronoiDiagram extends DoublyConnectedEdgeList
 
 	private void handleCircleEvent(CircleEvent event)
 	{
+		statistics.circleEventProcessed();
+
 		ArcSegment alpha = event.getDisappearingArcSegment();
 		status.remove(alpha);
 
+		long comparisons = alpha.getComparisons();
 		Map.Entry<ArcSegment, CircleEvent> leftEntry = status.lowerEntry(alpha);
 		Map.Entry<ArcSegment, CircleEvent> rightEntry = status.higherEntry(alpha);
+		reportSearch((alpha.getComparisons() - comparisons) / 2);
 
 		ArcSegment leftArcSegment = leftEntry.getKey();
 		ArcSegment rightArcSegment = rightEntry.getKey();
@@ -268,7 +935,7 @@ public class VoronoiDiagram extends DoublyConnectedEdgeList
 
 		calculateDirections(edge1, edge2, leftArcSegment.getSite(), rightArcSegment.getSite());
 
-		Breakpoint newBreakpoint = new Breakpoint(leftArcSegment.getSite(), rightArcSegment.getSite(), null);
+		Breakpoint newBreakpoint = new Breakpoint(this, leftArcSegment.getSite(), rightArcSegment.getSite(), null);
 
 		if (newBreakpoint.isMovingRight())
 		{
@@ -286,12 +953,23 @@ public class VoronoiDiagram extends DoublyConnectedEdgeList
 
 		breakpoints.add(newBreakpoint);
 
-		if (leftEntry.getValue() != null) queue.remove(leftEntry.getValue());
-		if (rightEntry.getValue() != null) queue.remove(rightEntry.getValue());
+		if (leftEntry.getValue() != null) cancelCircleEvent(leftEntry.getValue());
+		if (rightEntry.getValue() != null) cancelCircleEvent(rightEntry.getValue());
 
 		DCELVertex vertex = new DCELVertex(event.getCircle().getCenter(), newBreakpoint.getTracedEdge());
 		vertices.add(vertex);
 
+		/* The three sites of the circle event form the Delaunay triangle dual to the new vertex */
+		if (delaunayTriangulation != null)
+		{
+			addDelaunayEdge(leftArcSegment.getSite(), rightArcSegment.getSite(), newBreakpoint, null);
+			delaunayTriangulation.addTriangle(vertex.getIndex(), leftArcSegment.getSite().getCell().getSite(),
+			                                  alpha.getSite().getCell().getSite(),
+			                                  rightArcSegment.getSite().getCell().getSite(),
+			                                  oldLeftBreakpoint.getDelaunayEdge(), oldRightBreakpoint.getDelaunayEdge(),
+			                                  newBreakpoint.getDelaunayEdge());
+		}
+
 		oldRightBreakpoint.getTracedEdge().getTwin().setOrigin(vertex);
 		oldLeftBreakpoint.getTracedEdge().getTwin().setOrigin(vertex);
 		newBreakpoint.getTracedEdge().setOrigin(vertex);
@@ -321,12 +999,88 @@ public class VoronoiDiagram extends DoublyConnectedEdgeList
 		/* If the points make a clockwise turn, we have a circle. */
 		if (MathOps.counterclockwise(p1, p2, p3))
 		{
-			Circle circle = MathOps.circle(p1, p2, p3);
+			Circle circle;
+			try
+			{
+				circle = MathOps.circle(p1, p2, p3);
+			}
+			catch (IllegalArgumentException ex)
+			{
+				CircleFailureEvent failure = new CircleFailureEvent();
+				if (failure.isEnabled())
+				{
+					failure.message = ex.getMessage();
+					failure.points = p1 + " " + p2 + " " + p3;
+					failure.sweepLinePos = sweepLinePos;
+					failure.commit();
+				}
+				throw ex;
+			}
+
 			CircleEvent circleEvent = new CircleEvent(circle, arcSegment);
 
 			/* Add the circle event to the queue and update the pointer in the status tree. */
 			queue.add(circleEvent);
 			status.put(arcSegment, circleEvent);
+			statistics.circleEventCreated();
+		}
+	}
+
+	/**
+	 * Adds the Delaunay edge between the two sites to the triangulation being built during the sweep, if there is one,
+	 * and hands it to the breakpoints separating them.
+	 */
+	private void addDelaunayEdge(SiteEvent left, SiteEvent right, Breakpoint breakpoint, Breakpoint otherBreakpoint)
+	{
+		if (delaunayTriangulation == null) return;
+
+		DCELEdge edge = delaunayTriangulation.addEdge(left.getCell().getSite(), right.getCell().getSite());
+		breakpoint.setDelaunayEdge(edge);
+		if (otherBreakpoint != null) otherBreakpoint.setDelaunayEdge(edge);
+	}
+
+	/**
+	 * Removes a circle event that turned out to be a false alarm from the queue.
+	 */
+	private void cancelCircleEvent(CircleEvent circleEvent)
+	{
+		QueueRemoveEvent event = new QueueRemoveEvent();
+		event.begin();
+
+		queue.remove(circleEvent);
+
+		event.end();
+		if (event.shouldCommit())
+		{
+			event.queueSize = queueSize();
+			event.commit();
+		}
+
+		statistics.circleEventCancelled();
+	}
+
+	/**
+	 * Returns the number of events still to be processed, i.e. the remaining site events and the queued circle events.
+	 */
+	private int queueSize()
+	{
+		return siteEvents.length - nextSiteEvent + queue.size();
+	}
+
+	/**
+	 * Records a Flight Recorder event if a search of the beach line took unusually many comparisons.
+	 */
+	private void reportSearch(long comparisons)
+	{
+		if (!StatusSearchEvent.isDeep(comparisons, status.size())) return;
+
+		StatusSearchEvent event = new StatusSearchEvent();
+		if (event.isEnabled())
+		{
+			event.comparisons = comparisons;
+			event.beachLineSize = status.size();
+			event.sweepLinePos = sweepLinePos;
+			event.commit();
 		}
 	}
 
@@ -345,6 +1099,11 @@ public class VoronoiDiagram extends DoublyConnectedEdgeList
 			return;
 		}
 
+		/* The unbounded edges are collected and connected to the bounding box in one pass */
+		List<Point> origins = new ArrayList<>();
+		List<DCELEdge> unboundedEdges = new ArrayList<>();
+		Set<DCELEdge> collectedEdges = new HashSet<>();
+
 		for (Breakpoint breakpoint : breakpoints)
 		{
 			DCELEdge edge = breakpoint.getTracedEdge();
@@ -354,12 +1113,14 @@ public class VoronoiDiagram extends DoublyConnectedEdgeList
 			{
 				/* Once we've encountered one unbounded half-edge, we update both that edge and the twin
 				simultaneously. */
-				if (edge.getOrigin() != null && edge.getTwin().getOrigin() != null) continue;
+				if (!collectedEdges.add(edge) || !collectedEdges.add(edge.getTwin())) continue;
 
 				/* We use this "origin" to calculate the bounding box intersection points. */
 				origin = MathOps.midpoint(breakpoint.getLeftArcSegment(), breakpoint.getRightArcSegment());
-				getBoundingBox().connectEdge(this, origin, edge);
-				getBoundingBox().connectEdge(this, origin, edge.getTwin());
+				origins.add(origin);
+				unboundedEdges.add(edge);
+				origins.add(origin);
+				unboundedEdges.add(edge.getTwin());
 			}
 			else
 			{
@@ -373,9 +1134,507 @@ public class VoronoiDiagram extends DoublyConnectedEdgeList
 					origin = edge.getOrigin().getCoordinates();
 				}
 
-				getBoundingBox().connectEdge(this, origin, edge);
+				origins.add(origin);
+				unboundedEdges.add(edge);
+			}
+		}
+
+		getBoundingBox().connectEdges(this, origins, unboundedEdges);
+	}
+
+	/**
+	 * Builds the Voronoi vertices and edges dual to the given triangulation, leaving the unbounded edges without an
+	 * origin at their far end, as the sweep does.
+	 */
+	private void createDual(IntegerTriangulation triangulation, SiteEvent[] sites, DCELVertex[] triangleVertices)
+	{
+		int[] triangles = triangulation.getTriangles();
+		int[] halfedges = triangulation.getHalfedges();
+		int triangleCount = triangulation.getTriangleCount();
+
+		/* Without triangles, all sites lie on a line and the diagram consists of the parallel bisectors of neighbors
+		along it */
+		if (triangleCount == 0)
+		{
+			for (int i = 0; i + 1 < sites.length; i++)
+			{
+				DCELEdge edge1 = new DCELEdge(DCELEdge.EdgeType.VORONOI_EDGE);
+				DCELEdge edge2 = new DCELEdge(DCELEdge.EdgeType.VORONOI_EDGE, edge1);
+				edges.add(edge1);
+				edges.add(edge2);
+
+				/* The first half-edge runs counterclockwise around the first site */
+				calculateDirections(edge1, edge2, sites[i], sites[i + 1]);
+				edge1.setIncidentFace(sites[i].getCell());
+				edge2.setIncidentFace(sites[i + 1].getCell());
+				sites[i].getCell().setOuterComponent(edge1);
+				sites[i + 1].getCell().setOuterComponent(edge2);
+			}
+			return;
+		}
+
+		/* Triangles sharing a circumcircle are merged, since they all share the same Voronoi vertex */
+		int[] groups = new int[triangleCount];
+		for (int t = 0; t < triangleCount; t++)
+		{
+			groups[t] = t;
+		}
+		for (int e = 0; e < halfedges.length; e++)
+		{
+			if (halfedges[e] > e && triangulation.isCocircular(e)) union(groups, e / 3, halfedges[e] / 3);
+		}
+
+		DCELVertex[] groupVertices = new DCELVertex[triangleCount];
+		for (int t = 0; t < triangleCount; t++)
+		{
+			int group = find(groups, t);
+			if (groupVertices[group] == null)
+			{
+				groupVertices[group] = new DCELVertex(circumcenter(triangulation, t), null);
+				vertices.add(groupVertices[group]);
+			}
+			triangleVertices[t] = groupVertices[group];
+		}
+
+		/* One pair of half-edges per Delaunay edge between different vertices; the first leaves the vertex of the
+		triangle on the edge's left, heading to its right, with the edge's destination on its left. */
+		int[] outgoingCounts = new int[triangleCount + 1];
+		int pairCount = 0;
+		long[] directions = new long[2 * halfedges.length];
+		int[] pairs = new int[halfedges.length];
+
+		for (int e = 0; e < halfedges.length; e++)
+		{
+			int twin = halfedges[e];
+			if (twin >= 0 && (twin < e || find(groups, e / 3) == find(groups, twin / 3))) continue;
+
+			int u = triangles[e], v = triangles[IntegerTriangulation.next(e)];
+
+			DCELEdge edge1 = new DCELEdge(DCELEdge.EdgeType.VORONOI_EDGE, groupVertices[find(groups, e / 3)]);
+			DCELEdge edge2 = new DCELEdge(DCELEdge.EdgeType.VORONOI_EDGE, edge1);
+			edges.add(edge1);
+			edges.add(edge2);
+
+			calculateDirections(edge1, edge2, sites[v], sites[u]);
+			edge1.setIncidentFace(sites[v].getCell());
+			edge2.setIncidentFace(sites[u].getCell());
+			sites[v].getCell().setOuterComponent(edge1);
+			sites[u].getCell().setOuterComponent(edge2);
+
+			directions[2 * pairCount] = triangulation.getY(v) - triangulation.getY(u);
+			directions[2 * pairCount + 1] = triangulation.getX(u) - triangulation.getX(v);
+			pairs[pairCount++] = e;
+
+			outgoingCounts[find(groups, e / 3) + 1]++;
+			if (twin >= 0)
+			{
+				edge2.setOrigin(groupVertices[find(groups, twin / 3)]);
+				outgoingCounts[find(groups, twin / 3) + 1]++;
+			}
+		}
+
+		/* List the half-edges leaving each vertex, by their position in the edge list */
+		for (int t = 0; t < triangleCount; t++)
+		{
+			outgoingCounts[t + 1] += outgoingCounts[t];
+		}
+
+		int[] outgoing = new int[outgoingCounts[triangleCount]];
+		int[] cursors = Arrays.copyOf(outgoingCounts, triangleCount);
+		for (int i = 0; i < pairCount; i++)
+		{
+			int e = pairs[i];
+			outgoing[cursors[find(groups, e / 3)]++] = 2 * i;
+			if (halfedges[e] >= 0) outgoing[cursors[find(groups, halfedges[e] / 3)]++] = 2 * i + 1;
+		}
+
+		/* Around each vertex, each face lies between consecutive half-edges in counterclockwise order */
+		for (int t = 0; t < triangleCount; t++)
+		{
+			int from = outgoingCounts[t], to = outgoingCounts[t + 1];
+			if (from == to) continue;
+
+			sortCounterclockwise(outgoing, from, to, directions);
+			groupVertices[t].setIncidentEdge(edges.get(outgoing[from]));
+
+			for (int i = from; i < to; i++)
+			{
+				DCELEdge edge = edges.get(outgoing[i]);
+				DCELEdge incoming = edges.get(outgoing[i + 1 < to ? i + 1 : from]).getTwin();
+				incoming.setNext(edge);
+				edge.setPrev(incoming);
+			}
+		}
+	}
+
+	/*
+	 * Sorts the half-edges, given by their position in the edge list, by the angle of their exact directions. The
+	 * direction of the first half-edge of pair i is (directions[2i], directions[2i + 1]) and that of its twin the
+	 * opposite. A vertex has few edges unless many sites are cocircular, so an insertion sort suffices.
+	 */
+	private static void sortCounterclockwise(int[] outgoing, int from, int to, long[] directions)
+	{
+		for (int i = from + 1; i < to; i++)
+		{
+			int edge = outgoing[i];
+			int j = i - 1;
+			while (j >= from && compareAngles(outgoing[j], edge, directions) > 0)
+			{
+				outgoing[j + 1] = outgoing[j];
+				j--;
+			}
+			outgoing[j + 1] = edge;
+		}
+	}
+
+	private static int compareAngles(int a, int b, long[] directions)
+	{
+		long ax = directions[a & ~1], ay = directions[a | 1];
+		if ((a & 1) == 1)
+		{
+			ax = -ax;
+			ay = -ay;
+		}
+
+		long bx = directions[b & ~1], by = directions[b | 1];
+		if ((b & 1) == 1)
+		{
+			bx = -bx;
+			by = -by;
+		}
+
+		/* Angles in [0, pi) come first; within a half-plane, the cross product orders them exactly */
+		int aHalf = ay > 0 || (ay == 0 && ax > 0) ? 0 : 1;
+		int bHalf = by > 0 || (by == 0 && bx > 0) ? 0 : 1;
+		if (aHalf != bHalf) return aHalf - bHalf;
+
+		return -Long.signum(ax * by - ay * bx);
+	}
+
+	private static int find(int[] groups, int t)
+	{
+		while (groups[t] != t)
+		{
+			groups[t] = groups[groups[t]];
+			t = groups[t];
+		}
+		return t;
+	}
+
+	private static void union(int[] groups, int s, int t)
+	{
+		s = find(groups, s);
+		t = find(groups, t);
+		if (s < t) groups[t] = s;
+		else if (t < s) groups[s] = t;
+	}
+
+	/* The circumcenter is computed relative to the first corner, whose coordinate differences are exact */
+	private static Point circumcenter(IntegerTriangulation triangulation, int t)
+	{
+		int[] triangles = triangulation.getTriangles();
+		int a = triangles[3 * t], b = triangles[3 * t + 1], c = triangles[3 * t + 2];
+		long ax = triangulation.getX(a), ay = triangulation.getY(a);
+		long bx = triangulation.getX(b) - ax, by = triangulation.getY(b) - ay;
+		long cx = triangulation.getX(c) - ax, cy = triangulation.getY(c) - ay;
+
+		double d = 2.0 * (bx * cy - by * cx);
+		double bLength = (double) (bx * bx + by * by), cLength = (double) (cx * cx + cy * cy);
+
+		return new Point(ax + (cy * bLength - by * cLength) / d, ay + (bx * cLength - cx * bLength) / d);
+	}
+
+	/* Adds the triangles of the given triangulation, whose orientation is already known, with their shared edges */
+	private void addDelaunayTriangles(IntegerTriangulation triangulation, SiteEvent[] sites,
+	                                  DCELVertex[] triangleVertices)
+	{
+		int[] triangles = triangulation.getTriangles();
+		int[] halfedges = triangulation.getHalfedges();
+
+		if (triangulation.getTriangleCount() == 0)
+		{
+			for (int i = 0; i + 1 < sites.length; i++)
+			{
+				delaunayTriangulation.addEdge(sites[i].getCell().getSite(), sites[i + 1].getCell().getSite());
 			}
+			return;
 		}
+
+		DCELEdge[] delaunayEdges = new DCELEdge[halfedges.length];
+		for (int e = 0; e < halfedges.length; e++)
+		{
+			if (halfedges[e] >= 0 && halfedges[e] < e) continue;
+
+			DCELEdge edge = delaunayTriangulation.addEdge(sites[triangles[e]].getCell().getSite(),
+			                                              sites[triangles[IntegerTriangulation.next(e)]].getCell().getSite());
+			delaunayEdges[e] = edge;
+			if (halfedges[e] >= 0) delaunayEdges[halfedges[e]] = edge.getTwin();
+		}
+
+		/* Triangles sharing a circumcircle share a Voronoi vertex, and hence its index */
+		for (int t = 0; t < triangulation.getTriangleCount(); t++)
+		{
+			delaunayTriangulation.addTriangle(triangleVertices[t].getIndex(), delaunayEdges[3 * t], delaunayEdges[3 * t + 1],
+			                                  delaunayEdges[3 * t + 2]);
+		}
+	}
+
+	/* Encloses the Voronoi vertices and the sites, which need not lie near any vertex */
+	private void computeBoundingBox(SiteEvent[] sites)
+	{
+		double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+
+		for (DCELVertex v : vertices)
+		{
+			minX = Math.min(minX, v.getCoordinates().getX());
+			maxX = Math.max(maxX, v.getCoordinates().getX());
+			minY = Math.min(minY, v.getCoordinates().getY());
+			maxY = Math.max(maxY, v.getCoordinates().getY());
+		}
+
+		for (SiteEvent site : sites)
+		{
+			minX = Math.min(minX, site.getX());
+			maxX = Math.max(maxX, site.getX());
+			minY = Math.min(minY, site.getY());
+			maxY = Math.max(maxY, site.getY());
+		}
+
+		computeBoundingBox(minX, minY, maxX, maxY);
+	}
+
+	/**
+	 * Connects the unbounded edges of a diagram built from its Delaunay triangulation to the bounding box. Unlike
+	 * {@link #connectInfiniteEdges()}, which follows the breakpoints left on the beach line, the unbounded edges are
+	 * found among the edges themselves.
+	 */
+	private void connectUnboundedEdges()
+	{
+		/* With a single site, its cell is the whole bounding box */
+		if (edges.size() == 8)
+		{
+			DCELFace face = faces.get(1);
+			getBoundingBox().getInnerEdge().setIncidentFace(face);
+			face.setOuterComponent(getBoundingBox().getInnerEdge());
+			return;
+		}
+
+		List<DCELEdge> unboundedEdges = new ArrayList<>();
+
+		/* Each pair of twin half-edges is listed together, followed by the edges of the bounding box */
+		for (int i = 0; i < edges.size() - 8; i += 2)
+		{
+			DCELEdge edge = edges.get(i);
+			DCELEdge twin = edge.getTwin();
+
+			/* A bisector of two collinear sites is connected at both ends */
+			if (edge.getOrigin() == null && twin.getOrigin() == null) unboundedEdges.add(twin);
+			if (twin.getOrigin() == null) unboundedEdges.add(edge);
+		}
+
+		/* The unbounded edges meet the boundary in the order of their exact directions, so the rounded intersections
+		cannot reorder them */
+		unboundedEdges.sort(VoronoiDiagram::compareUnboundedEdges);
+
+		List<Point> origins = new ArrayList<>();
+		for (DCELEdge edge : unboundedEdges)
+		{
+			if (edge.getOrigin() != null) origins.add(edge.getOrigin().getCoordinates());
+			else origins.add(MathOps.midpoint(edge.getIncidentFace().getSite().getCoordinates(),
+			                                  edge.getTwin().getIncidentFace().getSite().getCoordinates()));
+		}
+
+		getBoundingBox().connectEdgesInOrder(this, origins, unboundedEdges);
+	}
+
+	/*
+	 * Orders unbounded edges counterclockwise by the angle of their directions, which are exact integers since they are
+	 * perpendicular to the difference of the integer sites on either side. Parallel edges, whose sites are collinear,
+	 * are ordered counterclockwise along the boundary by the offset of their bisectors.
+	 */
+	private static int compareUnboundedEdges(DCELEdge a, DCELEdge b)
+	{
+		Point aLeft = a.getIncidentFace().getSite().getCoordinates();
+		Point aRight = a.getTwin().getIncidentFace().getSite().getCoordinates();
+		Point bLeft = b.getIncidentFace().getSite().getCoordinates();
+		Point bRight = b.getTwin().getIncidentFace().getSite().getCoordinates();
+
+		long ax = (long) aLeft.getY() - (long) aRight.getY(), ay = (long) aRight.getX() - (long) aLeft.getX();
+		long bx = (long) bLeft.getY() - (long) bRight.getY(), by = (long) bRight.getX() - (long) bLeft.getX();
+
+		int aHalf = ay > 0 || (ay == 0 && ax > 0) ? 0 : 1;
+		int bHalf = by > 0 || (by == 0 && bx > 0) ? 0 : 1;
+		if (aHalf != bHalf) return aHalf - bHalf;
+
+		int angle = -Long.signum(ax * by - ay * bx);
+		if (angle != 0) return angle;
+
+		/* Twice the offset of each bisector along the common direction's normal, from the sums of its sites */
+		long aOffset = ax * ((long) aLeft.getY() + (long) aRight.getY()) -
+		               ay * ((long) aLeft.getX() + (long) aRight.getX());
+		long bOffset = ax * ((long) bLeft.getY() + (long) bRight.getY()) -
+		               ay * ((long) bLeft.getX() + (long) bRight.getX());
+		return Long.compare(aOffset, bOffset);
+	}
+
+	/**
+	 * Clips every edge to the clipping polygon, removes everything outside of it and connects the clipped edges to the
+	 * polygon's boundary.
+	 */
+	private void clipToPolygon()
+	{
+		/* The sweep only assigns faces to the edges traced from site events, so each face is spread along its cell's
+		(possibly open) chain of edges before any of them are removed. */
+		for (DCELFace face : faces)
+		{
+			DCELEdge start = face.getOuterComponent();
+			if (start == null) continue;
+
+			for (DCELEdge e = start.getNext(); e != null && e != start; e = e.getNext())
+			{
+				e.setIncidentFace(face);
+			}
+
+			for (DCELEdge e = start.getPrev(); e != null && e != start; e = e.getPrev())
+			{
+				e.setIncidentFace(face);
+			}
+		}
+
+		/* Classify each Voronoi vertex once; an edge with both ends inside lies inside, since the polygon is convex. */
+		Set<DCELVertex> outside = new HashSet<>();
+		for (DCELVertex v : vertices)
+		{
+			if (!clippingPolygon.contains(v.getCoordinates())) outside.add(v);
+		}
+
+		List<DCELEdge> keptEdges = new ArrayList<>();
+		List<Point> intersections = new ArrayList<>();
+		List<Integer> sides = new ArrayList<>();
+		List<DCELEdge> exitingEdges = new ArrayList<>();
+
+		/* Each pair of twin half-edges is listed together */
+		for (int i = 0; i < edges.size(); i += 2)
+		{
+			DCELEdge edge = edges.get(i);
+			DCELEdge twin = edge.getTwin();
+
+			/* The half-edge running in the clipping direction; its twin leaves the polygon at the near end. */
+			DCELEdge forward = edge;
+			Point origin;
+			double[] direction;
+			double tMin, tMax;
+
+			if (edge.getOrigin() != null && twin.getOrigin() != null)
+			{
+				if (!outside.contains(edge.getOrigin()) && !outside.contains(twin.getOrigin()))
+				{
+					keptEdges.add(edge);
+					keptEdges.add(twin);
+					continue;
+				}
+
+				origin = edge.getOrigin().getCoordinates();
+				Point end = twin.getOrigin().getCoordinates();
+				direction = new double[]{end.getX() - origin.getX(), end.getY() - origin.getY()};
+				tMin = 0;
+				tMax = 1;
+			}
+			else if (edge.getOrigin() != null || twin.getOrigin() != null)
+			{
+				/* The half-edge with an origin is directed out to infinity */
+				forward = edge.getOrigin() != null ? edge : twin;
+				origin = forward.getOrigin().getCoordinates();
+				direction = forward.getDirection();
+				tMin = 0;
+				tMax = Double.POSITIVE_INFINITY;
+			}
+			else
+			{
+				/* An infinite line between two sites, which only occurs when there are no Voronoi vertices */
+				origin = MathOps.midpoint(edge.getIncidentFace().getSite().getCoordinates(),
+				                          twin.getIncidentFace().getSite().getCoordinates());
+				direction = edge.getDirection();
+				tMin = Double.NEGATIVE_INFINITY;
+				tMax = Double.POSITIVE_INFINITY;
+			}
+
+			double[] clipped = clippingPolygon.clip(origin, direction, tMin, tMax);
+			if (clipped == null) continue;
+
+			keptEdges.add(edge);
+			keptEdges.add(twin);
+
+			if (clipped[3] >= 0)
+			{
+				intersections.add(pointAt(origin, direction, clipped[1]));
+				sides.add((int) clipped[3]);
+				exitingEdges.add(forward);
+			}
+
+			if (clipped[2] >= 0)
+			{
+				intersections.add(pointAt(origin, direction, clipped[0]));
+				sides.add((int) clipped[2]);
+				exitingEdges.add(forward.getTwin());
+			}
+		}
+
+		edges.clear();
+		edges.addAll(keptEdges);
+		vertices.removeIf(outside::contains);
+
+		computePolygonBoundary(clippingPolygon);
+		getPolygonBoundary().connectEdges(this, intersections, sides, exitingEdges);
+
+		/* The outer components set during the sweep may have been clipped away */
+		for (DCELFace face : faces)
+		{
+			if (!face.isUnbounded()) face.setOuterComponent(null);
+		}
+
+		for (DCELEdge edge : keptEdges)
+		{
+			edge.getIncidentFace().setOuterComponent(edge);
+		}
+
+		/* If no edge crosses the polygon, it lies entirely inside the cell of the site nearest to it. */
+		if (exitingEdges.isEmpty())
+		{
+			DCELFace face = nearestCell(clippingPolygon.getCorner(0));
+			getPolygonBoundary().getInnerEdge().setIncidentFace(face);
+			face.setOuterComponent(getPolygonBoundary().getInnerEdge());
+		}
+
+		/* Cells left without any edges lie entirely outside the polygon. */
+		faces.removeIf(face -> !face.isUnbounded() && face.getOuterComponent() == null);
+	}
+
+	private DCELFace nearestCell(Point p)
+	{
+		DCELFace nearest = null;
+		double nearestDistance = Double.POSITIVE_INFINITY;
+
+		for (DCELFace face : faces)
+		{
+			if (face.isUnbounded()) continue;
+
+			Point site = face.getSite().getCoordinates();
+			double dx = site.getX() - p.getX(), dy = site.getY() - p.getY();
+			if (dx * dx + dy * dy < nearestDistance)
+			{
+				nearestDistance = dx * dx + dy * dy;
+				nearest = face;
+			}
+		}
+
+		return nearest;
+	}
+
+	private static Point pointAt(Point origin, double[] direction, double t)
+	{
+		return new Point(origin.getX() + t * direction[0], origin.getY() + t * direction[1]);
 	}
 
 	private void calculateDirections(DCELEdge edge1, DCELEdge edge2, Point p1, Point p2)
@@ -383,8 +1642,13 @@ public class VoronoiDiagram extends DoublyConnectedEdgeList
 		double vy = -(p1.getX() - p2.getX());
 		double vx = p1.getY() - p2.getY();
 
-		edge1.setDirection(new double[]{vx, vy});
-		edge2.setDirection(new double[]{-vx, -vy});
+		/* Every edge already has a direction array of its own, so it is filled in rather than replaced */
+		double[] direction1 = edge1.getDirection();
+		double[] direction2 = edge2.getDirection();
+		direction1[0] = vx;
+		direction1[1] = vy;
+		direction2[0] = -vx;
+		direction2[1] = -vy;
 	}
 
 	@Override
@@ -405,4 +1669,120 @@ public class VoronoiDiagram extends DoublyConnectedEdgeList
 			}
 		}
 	}
+
+	/*
+	 * The parts of the checkpoints of a sweep that are kept from one checkpoint to the next. The sites are encoded
+	 * once, while the directions of the edges and the cells of the processed sites only ever grow. Only the diagram's
+	 * writer is used on the sweep's thread; the rest is only used while checkpoints are written, one at a time.
+	 */
+	private class CheckpointEncoding
+	{
+		private final DCELCodec.IncrementalWriter diagram;
+		private final Map<SiteEvent, Integer> siteIds = new IdentityHashMap<>(2 * siteEvents.length);
+		private final SweepCheckpointer.ChunkedBuffer sites = new SweepCheckpointer.ChunkedBuffer();
+		private final SweepCheckpointer.ChunkedBuffer directions = new SweepCheckpointer.ChunkedBuffer();
+		private final SweepCheckpointer.ChunkedBuffer siteCells = new SweepCheckpointer.ChunkedBuffer();
+		private int edgeCount;
+		private int processedSiteCount;
+
+		CheckpointEncoding()
+		{
+			this.diagram = delaunayTriangulation == null ? new DCELCodec.IncrementalWriter(VoronoiDiagram.this) :
+					new DCELCodec.IncrementalWriter(VoronoiDiagram.this, delaunayTriangulation);
+		}
+
+		/* Adds the directions of the new edges and the cells of the sites processed up to the given counts */
+		void update(DCELCodec.References references, int edgeCount, int processedSiteCount) throws IOException
+		{
+			/* Sites not processed yet are recreated with the same names */
+			DataOutputStream out = new DataOutputStream(sites);
+			for (int i = siteIds.size(); i < siteEvents.length; i++)
+			{
+				SiteEvent site = siteEvents[i];
+				siteIds.put(site, i);
+
+				out.writeDouble(site.getX());
+				out.writeDouble(site.getY());
+				out.writeInt(site.getCell().getIndex());
+				out.writeInt(site.getCell().getSite().getIndex());
+			}
+
+			out = new DataOutputStream(directions);
+			for (; this.edgeCount < edgeCount; this.edgeCount++)
+			{
+				out.writeDouble(references.getEdge(0, this.edgeCount).getDirection()[0]);
+				out.writeDouble(references.getEdge(0, this.edgeCount).getDirection()[1]);
+			}
+
+			out = new DataOutputStream(siteCells);
+			for (; this.processedSiteCount < processedSiteCount; this.processedSiteCount++)
+			{
+				out.writeInt(references.getId(0, siteEvents[this.processedSiteCount].getCell()));
+			}
+		}
+	}
+
+	/*
+	 * The state of the sweep taken at a checkpoint, which brings the encoding up to date with it when it is written
+	 */
+	private class CheckpointCapture implements SweepCheckpointer.Snapshot
+	{
+		private final SweepCheckpointer.ChunkedBuffer header;
+		private final DCELCodec.IncrementalWriter.Capture diagram;
+		private final int edgeCount;
+		private final int processedSiteCount;
+
+		private int breakpointCount;
+		private Point[] breakpointSites;
+		private DCELEdge[] breakpointEdges;
+		private int arcCount;
+		private SiteEvent[] arcSites;
+		private int[] arcLinks;
+		private final SweepCheckpointer.ChunkedBuffer circleEvents = new SweepCheckpointer.ChunkedBuffer();
+
+		CheckpointCapture(SweepCheckpointer.ChunkedBuffer header, DCELCodec.IncrementalWriter.Capture diagram,
+		                  int edgeCount, int processedSiteCount)
+		{
+			this.header = header;
+			this.diagram = diagram;
+			this.edgeCount = edgeCount;
+			this.processedSiteCount = processedSiteCount;
+		}
+
+		@Override
+		public void writeTo(DataOutputStream out) throws IOException
+		{
+			CheckpointEncoding encoding = checkpointEncoding;
+			DCELCodec.References references = encoding.diagram.update(diagram);
+			encoding.update(references, edgeCount, processedSiteCount);
+
+			header.writeTo(out);
+			encoding.diagram.writeTo(out);
+			encoding.directions.writeTo(out);
+			encoding.sites.writeTo(out);
+			encoding.siteCells.writeTo(out);
+
+			out.writeInt(breakpointSites.length / 2);
+			out.writeInt(breakpointCount);
+			for (int i = 0; i < breakpointSites.length; i += 2)
+			{
+				out.writeInt(encoding.siteIds.get(breakpointSites[i]));
+				out.writeInt(encoding.siteIds.get(breakpointSites[i + 1]));
+				out.writeInt(references.getId(0, breakpointEdges[i]));
+				out.writeInt(delaunayTriangulation == null ? -1 : references.getId(1, breakpointEdges[i + 1]));
+			}
+
+			out.writeInt(arcSites.length);
+			out.writeInt(arcCount);
+			for (int i = 0; i < arcSites.length; i++)
+			{
+				out.writeInt(encoding.siteIds.get(arcSites[i]));
+				out.writeInt(arcLinks[3 * i]);
+				out.writeInt(arcLinks[3 * i + 1]);
+				if (i < arcCount) out.writeInt(arcLinks[3 * i + 2]);
+			}
+
+			circleEvents.writeTo(out);
+		}
+	}
 }
@@ -1,7 +1,5 @@
 package voronoi.tree;
 
-import auxiliary.MathOps;
-import auxiliary.Point;
 import voronoi.SiteEvent;
 
 /**
@@ -9,6 +7,10 @@ import voronoi.SiteEvent;
  */
 public class ArcSegment implements Comparable<ArcSegment>
 {
+	/* Counts the comparisons this arc made with others, so that unusually deep searches of the beach line can be
+	reported. Only the arc being searched for counts, so that concurrent constructions share nothing. */
+	private long comparisons = 0;
+
 	private final SiteEvent site;
 	private Breakpoint leftBreakpoint, rightBreakpoint;
 
@@ -28,6 +30,17 @@ public class ArcSegment implements Comparable<ArcSegment>
 		this.rightBreakpoint = rightBreakpoint;
 	}
 
+	/**
+	 * Returns the number of comparisons this arc segment has made with others, i.e. the number of steps taken by the
+	 * searches of the beach line for it.
+	 *
+	 * @return the number of comparisons made so far
+	 */
+	public long getComparisons()
+	{
+		return comparisons;
+	}
+
 	public SiteEvent getSite()
 	{
 		return site;
@@ -56,26 +69,34 @@ public class ArcSegment implements Comparable<ArcSegment>
 	@Override
 	public int compareTo(ArcSegment compareTo)
 	{
-		Point thisLeft = this.getLeft();
-		Point thisRight = this.getRight();
-		Point compareToLeft = compareTo.getLeft();
-		Point compareToRight = compareTo.getRight();
+		comparisons++;
+
+		/* The ends are read as plain values, since this runs for every step of every search of the beach line */
+		double thisLeftX = this.getLeftX(), thisLeftY = this.getLeftY();
+		double thisRightX = this.getRightX(), thisRightY = this.getRightY();
+		double compareToLeftX = compareTo.getLeftX(), compareToLeftY = compareTo.getLeftY();
+		double compareToRightX = compareTo.getRightX(), compareToRightY = compareTo.getRightY();
 
 		/* Handle tree queries */
-		if (this.getClass() == TreeQuery.class &&
-				(thisLeft.getX() >= compareToLeft.getX() && thisRight.getX() <= compareToRight.getX()))
+		if (this.getClass() == TreeQuery.class && (thisLeftX >= compareToLeftX && thisRightX <= compareToRightX))
 		{
 			return 0;
 		}
 
-		if (thisLeft.getX() == compareToLeft.getX() && thisRight.getX() == compareToRight.getX())
+		if (thisLeftX == compareToLeftX && thisRightX == compareToRightX)
 			return 0;
-		if (thisLeft.getX() >= compareToRight.getX())
+		if (thisLeftX >= compareToRightX)
 			return 1;
-		if (thisRight.getX() <= compareToLeft.getX())
+		if (thisRightX <= compareToLeftX)
 			return -1;
 
-		return MathOps.midpoint(thisLeft, thisRight).compareTo(MathOps.midpoint(compareToLeft, compareToRight));
+		/* Compare the midpoints the way Point.compareTo does */
+		double thisMidX = (thisLeftX + thisRightX) / 2, thisMidY = (thisLeftY + thisRightY) / 2;
+		double compareToMidX = (compareToLeftX + compareToRightX) / 2;
+		double compareToMidY = (compareToLeftY + compareToRightY) / 2;
+
+		int compareY = Double.compare(compareToMidY, thisMidY);
+		return compareY == 0 ? Double.compare(compareToMidX, thisMidX) : compareY;
 	}
 
 	@Override
@@ -84,17 +105,24 @@ public class ArcSegment implements Comparable<ArcSegment>
 		return "[" + site.toString() + "]";
 	}
 
-	protected Point getLeft()
+	/* An arc without a left or right breakpoint extends to infinity on that side */
+	protected double getLeftX()
+	{
+		return leftBreakpoint == null ? Double.NEGATIVE_INFINITY : leftBreakpoint.getX();
+	}
+
+	protected double getLeftY()
+	{
+		return leftBreakpoint == null ? Double.POSITIVE_INFINITY : leftBreakpoint.getY();
+	}
+
+	protected double getRightX()
 	{
-		if (leftBreakpoint == null)
-			return new Point(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
-		return leftBreakpoint.getCoordinates();
+		return rightBreakpoint == null ? Double.POSITIVE_INFINITY : rightBreakpoint.getX();
 	}
 
-	protected Point getRight()
+	protected double getRightY()
 	{
-		if (rightBreakpoint == null)
-			return new Point(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
-		return rightBreakpoint.getCoordinates();
+		return rightBreakpoint == null ? Double.POSITIVE_INFINITY : rightBreakpoint.getY();
 	}
 }
@@ -10,72 +10,137 @@ import voronoi.VoronoiDiagram;
  */
 public class Breakpoint
 {
+	/* The diagram whose sweep line this breakpoint follows */
+	private final VoronoiDiagram voronoiDiagram;
 	private final Point leftArcSegment, rightArcSegment;
 	private DCELEdge tracedEdge;
 
+	/* The Delaunay half-edge between the two sites, when the triangulation is built during the sweep */
+	private DCELEdge delaunayEdge;
+
+	/* The coordinates at the last sweep line position, kept as plain values since they are read by every comparison
+	made in the beach line */
 	private double cachedSweepLinePos;
-	private Point cachedBreakpoint;
+	private double cachedX, cachedY;
+	private boolean cached;
 
-	public Breakpoint(Point leftArcSegment, Point rightArcSegment)
+	public Breakpoint(VoronoiDiagram voronoiDiagram, Point leftArcSegment, Point rightArcSegment)
 	{
+		this.voronoiDiagram = voronoiDiagram;
 		this.leftArcSegment = leftArcSegment;
 		this.rightArcSegment = rightArcSegment;
 		this.tracedEdge = null;
+		this.delaunayEdge = null;
 		cachedSweepLinePos = Double.MIN_VALUE;
-		cachedBreakpoint = null;
+		cached = false;
 	}
 
-	public Breakpoint(Point leftArcSegment, Point rightArcSegment, DCELEdge tracedEdge)
+	public Breakpoint(VoronoiDiagram voronoiDiagram, Point leftArcSegment, Point rightArcSegment, DCELEdge tracedEdge)
 	{
+		this.voronoiDiagram = voronoiDiagram;
 		this.leftArcSegment = leftArcSegment;
 		this.rightArcSegment = rightArcSegment;
 		this.tracedEdge = tracedEdge;
+		this.delaunayEdge = null;
 		cachedSweepLinePos = Double.MIN_VALUE;
-		cachedBreakpoint = null;
+		cached = false;
 	}
 
 	public Point getCoordinates()
+	{
+		update();
+		return new Point(cachedX, cachedY);
+	}
+
+	public double getX()
+	{
+		update();
+		return cachedX;
+	}
+
+	public double getY()
+	{
+		update();
+		return cachedY;
+	}
+
+	/**
+	 * Recomputes the breakpoint as the intersection of the two parabolas if the sweep line has moved. The parabolas
+	 * are evaluated in place, with the same arithmetic as {@link Parabola}, so that no objects are allocated.
+	 */
+	private void update()
 	{
 		/* If the sweep line is at the same position, there's no need to recalculate the breakpoint */
-		double currentSweepLinePos = VoronoiDiagram.getSweepLinePos();
-		if (currentSweepLinePos == cachedSweepLinePos && cachedBreakpoint != null)
-			return cachedBreakpoint;
+		double currentSweepLinePos = voronoiDiagram.getSweepLinePos();
+		if (currentSweepLinePos == cachedSweepLinePos && cached) return;
 
 		cachedSweepLinePos = currentSweepLinePos;
+		cached = true;
+		voronoiDiagram.getStatistics().breakpointRecomputed();
+
+		double directrix = cachedSweepLinePos;
+		double leftX = leftArcSegment.getX(), leftY = leftArcSegment.getY();
+		double rightX = rightArcSegment.getX(), rightY = rightArcSegment.getY();
+
+		double leftDenominator = (2 * (leftY - directrix));
+		double leftA = 1 / leftDenominator;
+		double leftB = (-2 * leftX) / leftDenominator;
+		double leftC = (leftX * leftX + leftY * leftY - directrix * directrix) / leftDenominator;
 
-		Parabola left = new Parabola(leftArcSegment, cachedSweepLinePos);
-		Parabola right = new Parabola(rightArcSegment, cachedSweepLinePos);
+		double rightDenominator = (2 * (rightY - directrix));
+		double rightA = 1 / rightDenominator;
+		double rightB = (-2 * rightX) / rightDenominator;
+		double rightC = (rightX * rightX + rightY * rightY - directrix * directrix) / rightDenominator;
 
 		/* Handle new site point case (degenerate parabola) */
-		if (leftArcSegment.getY() == cachedSweepLinePos)
+		if (leftY == directrix)
 		{
-			cachedBreakpoint = new Point(leftArcSegment.getX(), right.getYFromX(leftArcSegment.getX()));
-			return cachedBreakpoint;
+			cachedX = leftX;
+			cachedY = (rightA * leftX * leftX) + (rightB * leftX) + rightC;
+			return;
 		}
-		else if (rightArcSegment.getY() == cachedSweepLinePos)
+		else if (rightY == directrix)
 		{
-			cachedBreakpoint = new Point(rightArcSegment.getX(), left.getYFromX(rightArcSegment.getX()));
-			return cachedBreakpoint;
+			cachedX = rightX;
+			cachedY = (leftA * rightX * rightX) + (leftB * rightX) + leftC;
+			return;
 		}
 
 		/* Handle vertical line case (both focii have the same y-coordinate */
-		if (leftArcSegment.getY() == rightArcSegment.getY())
+		if (leftY == rightY)
 		{
-			double x = (leftArcSegment.getX() + rightArcSegment.getX()) / 2;
-			double y = left.getYFromX(x);
-			cachedBreakpoint = new Point(x, y);
-			return cachedBreakpoint;
+			double x = (leftX + rightX) / 2;
+			cachedX = x;
+			cachedY = (leftA * x * x) + (leftB * x) + leftC;
+			return;
 		}
 
-		double[] intersections = Parabola.intersectionX(left, right);
+		double ai = leftA - rightA;
+		double bi = leftB - rightB;
+		double ci = leftC - rightC;
+
+		double discriminant = bi * bi - 4 * ai * ci;
+		double x1, x2;
+
+		/* Correct small negative discriminants to 0. In this case, there is only one intersection. */
+		if (discriminant <= 0)
+		{
+			x1 = -bi / (2 * ai);
+			x2 = x1;
+		}
+		else
+		{
+			x1 = (-bi + Math.sqrt(discriminant)) / (2 * ai);
+			x2 = (-bi - Math.sqrt(discriminant)) / (2 * ai);
+		}
 
 		/* Choose the correct intersection */
 		double breakpointX;
-		if (leftArcSegment.getY() < rightArcSegment.getY()) breakpointX = Math.max(intersections[0], intersections[1]);
-		else breakpointX = Math.min(intersections[0], intersections[1]);
+		if (leftY < rightY) breakpointX = Math.max(x1, x2);
+		else breakpointX = Math.min(x1, x2);
 
-		cachedBreakpoint = new Point(breakpointX, left.getYFromX(breakpointX));
-		return cachedBreakpoint;
+		cachedX = breakpointX;
+		cachedY = (leftA * breakpointX * breakpointX) + (leftB * breakpointX) + leftC;
 	}
 
 	public boolean isMovingRight()
@@ -102,4 +167,14 @@ public class Breakpoint
 	{
 		this.tracedEdge = tracedEdge;
 	}
+
+	public DCELEdge getDelaunayEdge()
+	{
+		return delaunayEdge;
+	}
+
+	public void setDelaunayEdge(DCELEdge delaunayEdge)
+	{
+		this.delaunayEdge = delaunayEdge;
+	}
 }
@@ -1,6 +1,5 @@
 package voronoi.tree;
 
-import auxiliary.Point;
 import voronoi.SiteEvent;
 
 /**
@@ -17,14 +16,26 @@ public class TreeQuery extends ArcSegment
 	}
 
 	@Override
-	protected Point getLeft()
+	protected double getLeftX()
 	{
-		return site;
+		return site.getX();
 	}
 
 	@Override
-	protected Point getRight()
+	protected double getLeftY()
 	{
-		return site;
+		return site.getY();
+	}
+
+	@Override
+	protected double getRightX()
+	{
+		return site.getX();
+	}
+
+	@Override
+	protected double getRightY()
+	{
+		return site.getY();
 	}
 }